@@ -0,0 +1,129 @@
+package plasystem_functions;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Provides access to optional application settings for the PlaSystem application. Settings are read once
+ * from the file plasystem.properties in the working directory; when the file or a setting is missing, the
+ * documented default value is used, so the application runs unchanged without any configuration.
+ */
+public class AppSettings {
+    /** The name of the settings file in the working directory. */
+    private static final String SETTINGS_FILE = "plasystem.properties";
+
+    /** Setting for writing reports as gzip-compressed CSV files (default false). */
+    public static final String REPORT_COMPRESS = "report.compress";
+
+    /** Setting for the number of days reports are kept before being rolled into monthly archives (default 30). */
+    public static final String REPORT_RETENTION_DAYS = "report.retentionDays";
+
+    /** Setting for the number of hours between two report housekeeping runs (default 6). */
+    public static final String REPORT_HOUSEKEEPING_INTERVAL_HOURS = "report.housekeepingIntervalHours";
+
+    /** Setting for showing the receipt window after a receipt is printed (default true). */
+    public static final String RECEIPT_SHOW_WINDOW = "receipt.showWindow";
+
+    /** Setting for storing receipt images in the receipt archive; when false they are regenerated on demand (default true). */
+    public static final String RECEIPT_ARCHIVE_IMAGES = "receipt.archiveImages";
+
+    /** Setting for the file or device path receipts are sent to as ESC/POS commands (default none). */
+    public static final String RECEIPT_PRINTER_TARGET = "receipt.printer.target";
+
+    /** Setting for the characters per line of the receipt printer, 32 for 58mm or 48 for 80mm paper (default 32). */
+    public static final String RECEIPT_PRINTER_COLUMNS = "receipt.printer.columns";
+
+    /** Setting for the minutes after which the stock reserved by an untouched cart is released (default 15). */
+    public static final String CART_RESERVATION_TIMEOUT_MINUTES = "cart.reservationTimeoutMinutes";
+
+    /** Setting for the maximum number of checkout lanes open at the same time (default 4). */
+    public static final String CHECKOUT_MAX_LANES = "checkout.maxLanes";
+
+    /**
+     * Setting pattern for the display name of a checkout lane, formatted with the lane number, such as
+     * checkout.lane.1.name=Express (default "Lane" and the number).
+     */
+    public static final String CHECKOUT_LANE_NAME = "checkout.lane.%d.name";
+
+    /** The loaded settings, or null until first accessed. */
+    private static Properties properties;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private AppSettings() {
+    }
+
+    /**
+     * Gets a text setting.
+     *
+     * @param key          The setting name.
+     * @param defaultValue The value returned when the setting is missing.
+     * @return The trimmed setting value, or the default value.
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = load().getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Gets a boolean setting. Only "true" (case-insensitive) is treated as true.
+     *
+     * @param key          The setting name.
+     * @param defaultValue The value returned when the setting is missing.
+     * @return The setting value, or the default value.
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Gets an integer setting.
+     *
+     * @param key          The setting name.
+     * @param defaultValue The value returned when the setting is missing or not a valid integer.
+     * @return The setting value, or the default value.
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Loads the settings file on first use.
+     *
+     * @return The loaded settings, empty if the file does not exist or cannot be read. A file that cannot be
+     *         read is reported, and the defaults are used.
+     */
+    private static synchronized Properties load() {
+        if (properties == null) {
+            properties = new Properties();
+            File file = new File(SETTINGS_FILE);
+            if (file.isFile()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    properties.load(in);
+                } catch (IOException e) {
+                    properties.clear();
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                        "Error reading " + SETTINGS_FILE + ": " + e.getMessage() + "\nThe default settings are used.",
+                        "Settings Error",
+                        JOptionPane.ERROR_MESSAGE));
+                }
+            }
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,59 @@
+package plasystem_functions;
+
+/**
+ * The user actions recorded in the audit log by {@link AuditLogger}.
+ */
+public enum AuditAction {
+    /** A user logged in. */
+    LOGIN("Login"),
+    /** A user logged out. */
+    LOGOUT("Logout"),
+    /** A product was added. */
+    ADD_PRODUCT("Add Product"),
+    /** A product was edited. */
+    EDIT_PRODUCT("Edit Product"),
+    /** A product was deleted. */
+    DELETE_PRODUCT("Delete Product"),
+    /** A barcode/SKU was assigned to a product. */
+    ASSIGN_SKU("Assign SKU"),
+    /** Products were added and updated from a catalogue file. */
+    IMPORT_CATALOGUE("Import Catalogue"),
+    /** Products were restocked. */
+    RESTOCK("Restock"),
+    /** A restock event was deleted. */
+    DELETE_RESTOCK("Delete Restock"),
+    /** A sale was committed. */
+    SALE("Sale"),
+    /** A transaction was deleted. */
+    DELETE_TRANSACTION("Delete Transaction"),
+    /** A user account was added. */
+    ADD_USER("Add User"),
+    /** A user account was edited. */
+    EDIT_USER("Edit User"),
+    /** A user account was deleted. */
+    DELETE_USER("Delete User"),
+    /** Audit entries were dropped because the audit log could not keep up. */
+    LOG_OVERFLOW("Log Overflow");
+
+    /** The name of the action shown in the audit log window. */
+    private final String label;
+
+    /**
+     * Constructs an AuditAction.
+     *
+     * @param label The name of the action shown in the audit log window.
+     */
+    AuditAction(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the name of the action shown in the audit log window.
+     *
+     * @return The label, such as "Edit Product".
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,86 @@
+package plasystem_functions;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents one event of the audit log: who performed which action, when, and on what. Instances are
+ * immutable.
+ */
+public final class AuditEntry {
+    /** The ID of the entry in the AuditLog table, or 0 if it has not been written yet. */
+    private final long entryId;
+
+    /** The time the action was performed. */
+    private final LocalDateTime time;
+
+    /** The username of the user who performed the action. */
+    private final String username;
+
+    /** The action performed. */
+    private final AuditAction action;
+
+    /** The description of the affected record, such as the product and its changed fields. */
+    private final String details;
+
+    /**
+     * Constructs an AuditEntry.
+     *
+     * @param entryId  The ID of the entry in the AuditLog table, or 0 if it has not been written yet.
+     * @param time     The time the action was performed.
+     * @param username The username of the user who performed the action.
+     * @param action   The action performed.
+     * @param details  The description of the affected record.
+     */
+    public AuditEntry(long entryId, LocalDateTime time, String username, AuditAction action, String details) {
+        this.entryId = entryId;
+        this.time = time;
+        this.username = username;
+        this.action = action;
+        this.details = details;
+    }
+
+    /**
+     * Gets the ID of the entry in the AuditLog table.
+     *
+     * @return The entry ID, or 0 if it has not been written yet.
+     */
+    public long getEntryId() {
+        return entryId;
+    }
+
+    /**
+     * Gets the time the action was performed.
+     *
+     * @return The time.
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the username of the user who performed the action.
+     *
+     * @return The username.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the action performed.
+     *
+     * @return The action.
+     */
+    public AuditAction getAction() {
+        return action;
+    }
+
+    /**
+     * Gets the description of the affected record.
+     *
+     * @return The details.
+     */
+    public String getDetails() {
+        return details;
+    }
+}
@@ -0,0 +1,286 @@
+package plasystem_functions;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the actions of the logged-in user in the AuditLog table, so it can be told who deleted a
+ * transaction or changed a price. Recording an action only places an entry in a lock-free ring buffer,
+ * which costs the calling thread one allocation and one compare-and-set, so the data managers can record
+ * from the checkout path without waiting for the database. A background writer, shared by all instances,
+ * drains the buffer every second and writes the entries with batched inserts in one transaction. The
+ * buffer is also drained before the audit log is queried and when the application exits. If the buffer
+ * is full because the database is unavailable, new entries are counted and dropped rather than blocking.
+ */
+public class AuditLogger {
+    /** The logger of no user, used until a user logs in. It records nothing. */
+    public static final AuditLogger DISABLED = new AuditLogger(null);
+
+    /** The number of entries the ring buffer holds. Must be a power of two. */
+    static final int BUFFER_CAPACITY = 8192;
+
+    /** The largest number of entries sent to the database in one JDBC batch. */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    /** The delay between two flushes of the background writer. */
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    /** The format of the AUDIT_TIME column, which sorts chronologically as text. */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** SQL query to insert an audit log entry. */
+    private static final String INSERT_ENTRY_QUERY =
+        "INSERT INTO AuditLog (AUDIT_TIME, AUDIT_USER, AUDIT_ACTION, AUDIT_DETAILS) VALUES (?, ?, ?, ?)";
+
+    /** SQL query to select the users found in the audit log. */
+    private static final String SELECT_USERS_QUERY = "SELECT DISTINCT AUDIT_USER FROM AuditLog ORDER BY AUDIT_USER";
+
+    /** The slots of the ring buffer. A slot is null until its entry is published. */
+    private static final AtomicReferenceArray<AuditEntry> RING = new AtomicReferenceArray<>(BUFFER_CAPACITY);
+
+    /** The sequence number the next recorded entry claims. */
+    private static final AtomicLong TAIL = new AtomicLong();
+
+    /** The sequence number of the next entry to drain. Only advanced by a flush holding the flush lock. */
+    private static volatile long head;
+
+    /** The number of entries dropped because the buffer was full. */
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    /** The lock serializing flushes of the background writer, queries and shutdown. */
+    private static final Object FLUSH_LOCK = new Object();
+
+    /** The drained entries not yet written because the database failed, retried on the next flush. */
+    private static final List<AuditEntry> UNWRITTEN = new ArrayList<>();
+
+    /** Flag indicating whether the last write failed, so a failure is reported only once. */
+    private static boolean writeFailed;
+
+    /** The single daemon thread flushing the buffer to the database. */
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "AuditLogWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        WRITER.scheduleWithFixedDelay(AuditLogger::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+            TimeUnit.MILLISECONDS);
+        // Write what is left in the buffer when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(AuditLogger::flush, "AuditLogShutdown"));
+    }
+
+    /** The username recorded with every entry, or null if this logger records nothing. */
+    private final String username;
+
+    /**
+     * Constructs an AuditLogger recording the actions of a user.
+     *
+     * @param username The username of the logged-in user, or null to record nothing.
+     */
+    public AuditLogger(String username) {
+        this.username = username;
+    }
+
+    /**
+     * Records an action of this logger's user. Returns immediately; the entry is written to the database
+     * by the background writer.
+     *
+     * @param action  The action performed.
+     * @param details The description of the affected record.
+     */
+    public void record(AuditAction action, String details) {
+        if (username == null) {
+            return;
+        }
+        AuditEntry entry = new AuditEntry(0, LocalDateTime.now(), username, action, details);
+        long sequence;
+        do {
+            sequence = TAIL.get();
+            if (sequence - head >= BUFFER_CAPACITY) {
+                DROPPED.incrementAndGet(); // Buffer full, never block the caller
+                return;
+            }
+        } while (!TAIL.compareAndSet(sequence, sequence + 1));
+        RING.set((int) (sequence & (BUFFER_CAPACITY - 1)), entry);
+    }
+
+    /**
+     * Drains the ring buffer and writes the entries to the AuditLog table. Entries that cannot be written
+     * are kept and retried on the next flush. A failure is reported in a dialog once until a write succeeds.
+     */
+    public static void flush() {
+        synchronized (FLUSH_LOCK) {
+            // Take the published entries in sequence order, stopping at one still being published
+            long sequence = head;
+            while (sequence < TAIL.get()) {
+                int slot = (int) (sequence & (BUFFER_CAPACITY - 1));
+                AuditEntry entry = RING.get(slot);
+                if (entry == null) {
+                    break;
+                }
+                RING.set(slot, null);
+                UNWRITTEN.add(entry);
+                head = ++sequence;
+            }
+            long dropped = DROPPED.getAndSet(0);
+            if (dropped > 0) {
+                UNWRITTEN.add(new AuditEntry(0, LocalDateTime.now(), "system", AuditAction.LOG_OVERFLOW,
+                    dropped + " audit entries dropped because the audit log could not keep up"));
+            }
+            if (UNWRITTEN.isEmpty()) {
+                return;
+            }
+
+            try {
+                writeEntries(UNWRITTEN);
+                UNWRITTEN.clear();
+                writeFailed = false;
+            } catch (SQLException | RuntimeException e) {
+                // Keep the entries for the next flush, but do not let them grow without bound
+                if (UNWRITTEN.size() > BUFFER_CAPACITY) {
+                    DROPPED.addAndGet(UNWRITTEN.size() - BUFFER_CAPACITY);
+                    UNWRITTEN.subList(0, UNWRITTEN.size() - BUFFER_CAPACITY).clear();
+                }
+                if (!writeFailed) {
+                    writeFailed = true;
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                        "Error writing the audit log: " + e.getMessage(),
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes entries to the AuditLog table in one transaction, sending them in JDBC batches.
+     *
+     * @param entries The entries to write.
+     * @throws SQLException If a database error occurs. Nothing is written in that case.
+     */
+    private static void writeEntries(List<AuditEntry> entries) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ENTRY_QUERY)) {
+                int batched = 0;
+                for (AuditEntry entry : entries) {
+                    pstmt.setString(1, entry.getTime().format(TIME_FORMAT));
+                    pstmt.setString(2, entry.getUsername());
+                    pstmt.setString(3, entry.getAction().name());
+                    pstmt.setString(4, entry.getDetails());
+                    pstmt.addBatch();
+                    if (++batched == MAX_BATCH_SIZE) {
+                        pstmt.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    pstmt.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Reads audit log entries, newest first, after writing the entries still in the buffer. Every filter
+     * is optional; the AuditLog table is indexed by user, by action and by time so each filter combination
+     * is answered from an index.
+     *
+     * @param user   The username to filter by, or null for all users.
+     * @param action The action to filter by, or null for all actions.
+     * @param from   The first day of the period, or null for no lower bound.
+     * @param to     The last day of the period, inclusive, or null for no upper bound.
+     * @param limit  The maximum number of entries to read. Must be positive.
+     * @return The matching entries, newest first.
+     * @throws SQLException If a database error occurs.
+     */
+    public static List<AuditEntry> readEntries(String user, AuditAction action, LocalDate from, LocalDate to,
+                                               int limit) throws SQLException {
+        flush();
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT AUDIT_ID, AUDIT_TIME, AUDIT_USER, AUDIT_ACTION, AUDIT_DETAILS FROM AuditLog WHERE 1 = 1");
+        List<String> parameters = new ArrayList<>();
+        if (user != null) {
+            sql.append(" AND AUDIT_USER = ?");
+            parameters.add(user);
+        }
+        if (action != null) {
+            sql.append(" AND AUDIT_ACTION = ?");
+            parameters.add(action.name());
+        }
+        if (from != null) {
+            sql.append(" AND AUDIT_TIME >= ?");
+            parameters.add(from.atStartOfDay().format(TIME_FORMAT));
+        }
+        if (to != null) {
+            sql.append(" AND AUDIT_TIME < ?");
+            parameters.add(to.plusDays(1).atStartOfDay().format(TIME_FORMAT));
+        }
+        sql.append(" ORDER BY AUDIT_TIME DESC, AUDIT_ID DESC LIMIT ?");
+
+        List<AuditEntry> entries = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (String parameter : parameters) {
+                pstmt.setString(index++, parameter);
+            }
+            pstmt.setInt(index, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    AuditAction entryAction;
+                    try {
+                        entryAction = AuditAction.valueOf(rs.getString("AUDIT_ACTION"));
+                    } catch (IllegalArgumentException e) {
+                        continue; // Action of a newer version of the application
+                    }
+                    entries.add(new AuditEntry(rs.getLong("AUDIT_ID"),
+                        LocalDateTime.parse(rs.getString("AUDIT_TIME"), TIME_FORMAT),
+                        rs.getString("AUDIT_USER"), entryAction, rs.getString("AUDIT_DETAILS")));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the usernames found in the audit log, including users whose accounts were deleted.
+     *
+     * @return The usernames in alphabetical order.
+     * @throws SQLException If a database error occurs.
+     */
+    public static List<String> readUsers() throws SQLException {
+        flush();
+        List<String> users = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_USERS_QUERY);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                users.add(rs.getString("AUDIT_USER"));
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,177 @@
+package plasystem_functions;
+
+import java.awt.Component;
+import java.awt.KeyEventDispatcher;
+import java.awt.KeyboardFocusManager;
+import java.awt.Window;
+import java.awt.event.KeyEvent;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Detects input from keyboard-wedge barcode scanners in a window of the PlaSystem application.
+ * A scanner "types" the whole code as a burst of key strokes a few milliseconds apart, followed by Enter,
+ * which is much faster than a person can type. The detector watches the key events of its window and,
+ * when such a burst ends with Enter, removes the scanned characters from the focused text field and
+ * passes the code to a handler. Slower, manual typing is left untouched.
+ */
+public class BarcodeScanDetector implements KeyEventDispatcher {
+    /** The default maximum time in milliseconds between two key strokes of the same scan. */
+    public static final long DEFAULT_MAX_KEY_INTERVAL = 50;
+
+    /** The default minimum number of characters for a burst to be treated as a scan. */
+    public static final int DEFAULT_MIN_LENGTH = 4;
+
+    /** The window whose key events are watched. */
+    private final Window window;
+
+    /** The handler receiving each scanned code. Invoked on the Event Dispatch Thread. */
+    private final Consumer<String> scanHandler;
+
+    /** The maximum time in milliseconds between two key strokes of the same scan. */
+    private final long maxKeyInterval;
+
+    /** The minimum number of characters for a burst to be treated as a scan. */
+    private final int minLength;
+
+    /** The characters of the burst currently being typed. */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /** The time stamp of the last character added to the buffer. */
+    private long lastKeyTime;
+
+    /** Flag indicating whether scans are currently being detected. */
+    private boolean enabled;
+
+    /**
+     * Constructs a BarcodeScanDetector with the default timing thresholds.
+     *
+     * @param window      The window whose key events are watched.
+     * @param scanHandler The handler receiving each scanned code.
+     */
+    public BarcodeScanDetector(Window window, Consumer<String> scanHandler) {
+        this(window, scanHandler, DEFAULT_MAX_KEY_INTERVAL, DEFAULT_MIN_LENGTH);
+    }
+
+    /**
+     * Constructs a BarcodeScanDetector with custom timing thresholds.
+     *
+     * @param window         The window whose key events are watched.
+     * @param scanHandler    The handler receiving each scanned code.
+     * @param maxKeyInterval The maximum time in milliseconds between two key strokes of the same scan.
+     * @param minLength      The minimum number of characters for a burst to be treated as a scan.
+     */
+    public BarcodeScanDetector(Window window, Consumer<String> scanHandler, long maxKeyInterval, int minLength) {
+        this.window = window;
+        this.scanHandler = scanHandler;
+        this.maxKeyInterval = maxKeyInterval;
+        this.minLength = minLength;
+    }
+
+    /**
+     * Registers the detector with the current keyboard focus manager.
+     */
+    public void install() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(this);
+    }
+
+    /**
+     * Removes the detector from the current keyboard focus manager. Should be called when the window is disposed.
+     */
+    public void uninstall() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(this);
+    }
+
+    /**
+     * Turns scan detection on or off. Any partially collected burst is discarded.
+     *
+     * @param enabled {@code true} to detect scans, {@code false} to ignore all key events.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        buffer.setLength(0);
+    }
+
+    /**
+     * Checks whether scan detection is turned on.
+     *
+     * @return {@code true} if scans are being detected, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Collects typed characters into the current burst and, when Enter closes a burst that was typed fast
+     * enough, consumes the Enter key and hands the code to the scan handler.
+     *
+     * @param e The key event being dispatched.
+     * @return {@code true} if the event was consumed as the end of a scan, {@code false} otherwise.
+     */
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent e) {
+        if (!enabled || !isFromWindow(e.getComponent())) {
+            return false;
+        }
+
+        long when = e.getWhen();
+        if (e.getID() == KeyEvent.KEY_PRESSED && e.getKeyCode() == KeyEvent.VK_ENTER) {
+            boolean isScan = buffer.length() >= minLength && when - lastKeyTime <= maxKeyInterval;
+            String code = buffer.toString();
+            buffer.setLength(0);
+            if (!isScan) {
+                return false;
+            }
+            removeScannedText(e.getComponent(), code);
+            scanHandler.accept(code);
+            e.consume();
+            return true;
+        }
+
+        if (e.getID() == KeyEvent.KEY_TYPED) {
+            char c = e.getKeyChar();
+            if (c == KeyEvent.CHAR_UNDEFINED || Character.isISOControl(c)) {
+                return false;
+            }
+            // A long pause means a new burst has started
+            if (buffer.length() > 0 && when - lastKeyTime > maxKeyInterval) {
+                buffer.setLength(0);
+            }
+            buffer.append(c);
+            lastKeyTime = when;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a component belongs to the watched window.
+     *
+     * @param component The component that received the key event.
+     * @return {@code true} if the component is the window or one of its descendants.
+     */
+    private boolean isFromWindow(Component component) {
+        if (component == null) {
+            return false;
+        }
+        return component == window || SwingUtilities.getWindowAncestor(component) == window;
+    }
+
+    /**
+     * Removes the scanned code from the end of the text component it was typed into, so that a scan
+     * does not leave stray characters in fields such as the payment amount.
+     *
+     * @param component The component that had focus during the scan.
+     * @param code      The scanned code.
+     */
+    private void removeScannedText(Component component, String code) {
+        if (!(component instanceof JTextComponent)) {
+            return;
+        }
+        JTextComponent textComponent = (JTextComponent) component;
+        String text = textComponent.getText();
+        if (textComponent.isEditable() && text.endsWith(code)) {
+            textComponent.setText(text.substring(0, text.length() - code.length()));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package plasystem_functions;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model presenting a {@link ShoppingCart} in the PlaSystem transaction window with the columns
+ * Name, Quantity and Price. The model reads the cart lines directly instead of copying them, and turns
+ * each line change of the cart into a single-row table event, so only the affected row is repainted
+ * however many lines the cart has. Compatible with {@link CartTableRenderer}.
+ */
+public class CartTableModel extends AbstractTableModel implements ShoppingCart.CartListener {
+    /** The column names, matching the cart table of the transaction window. */
+    private static final String[] COLUMN_NAMES = {"NAME", "QUANTITY", "PRICE"};
+
+    /** The column classes. */
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, Integer.class, Double.class};
+
+    /** The cart presented by this model. */
+    private final ShoppingCart cart;
+
+    /**
+     * Constructs a CartTableModel following a cart.
+     *
+     * @param cart The cart to present.
+     */
+    public CartTableModel(ShoppingCart cart) {
+        this.cart = cart;
+        cart.addCartListener(this);
+    }
+
+    @Override
+    public int getRowCount() {
+        return cart.getLineCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        ShoppingCart.Line line = cart.getLine(row);
+        switch (column) {
+            case 0:
+                return line.getProductName();
+            case 1:
+                return line.getQuantity();
+            default:
+                return line.getTotal();
+        }
+    }
+
+    @Override
+    public void lineAdded(int row) {
+        fireTableRowsInserted(row, row);
+    }
+
+    @Override
+    public void lineUpdated(int row) {
+        fireTableRowsUpdated(row, row);
+    }
+
+    @Override
+    public void lineRemoved(int row) {
+        fireTableRowsDeleted(row, row);
+    }
+
+    @Override
+    public void cartCleared(int lineCount) {
+        fireTableRowsDeleted(0, lineCount - 1);
+    }
+}
@@ -0,0 +1,371 @@
+package plasystem_functions;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.BorderLayout;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Imports a supplier catalogue into the PlaSystem application from a CSV file, instead of adding the
+ * products one by one. The first row is a header naming the columns Name, Brand, Size, Type and Price,
+ * and optionally Quantity, Restock Value and SKU (or Barcode); other columns, such as the ID column of
+ * the inventory report, are ignored. Each row updates the product with the same barcode/SKU or, failing
+ * that, the same name, brand and size, and is inserted as a new product otherwise. Updates change the
+ * catalogue details only; the quantity column is used as the opening stock of new products. The file is
+ * streamed and validated against the product cache first, and a report of the inserts, updates and
+ * rejects is shown before anything is written.
+ */
+public class CatalogueImporter {
+    /** The maximum number of products per database transaction. */
+    static final int CHUNK_SIZE = 1000;
+
+    /** The maximum number of rejected rows listed in the report. */
+    private static final int MAX_REPORTED_REJECTS = 200;
+
+    /**
+     * The result of validating a catalogue file.
+     */
+    public static final class CatalogueScan {
+        /** The new products to insert, with an ID of 0, in file order. */
+        private final List<ProductData> inserts = new ArrayList<>();
+        /** The new details of the existing products to update, in file order. */
+        private final List<ProductData> updates = new ArrayList<>();
+        /** The descriptions of the rows that were rejected. */
+        private final List<String> rejects = new ArrayList<>();
+        /** The number of rows matching an existing product without changing it. */
+        private int unchanged;
+
+        /**
+         * Gets the new products to insert.
+         *
+         * @return An unmodifiable view of the products, each with an ID of 0.
+         */
+        public List<ProductData> getInserts() {
+            return Collections.unmodifiableList(inserts);
+        }
+
+        /**
+         * Gets the new details of the existing products to update.
+         *
+         * @return An unmodifiable view of the products, each with the ID of the product to update.
+         */
+        public List<ProductData> getUpdates() {
+            return Collections.unmodifiableList(updates);
+        }
+
+        /**
+         * Gets the rows that were rejected.
+         *
+         * @return An unmodifiable view of the row descriptions.
+         */
+        public List<String> getRejects() {
+            return Collections.unmodifiableList(rejects);
+        }
+
+        /**
+         * Gets the number of rows matching an existing product without changing it.
+         *
+         * @return The number of unchanged rows.
+         */
+        public int getUnchanged() {
+            return unchanged;
+        }
+    }
+
+    /** The product data manager providing the product cache and writing the catalogue. */
+    private final ProductDataManager productDataManager;
+
+    /** The validator for numeric fields. */
+    private final ErrorValueHandling validator = new ErrorValueHandling();
+
+    /**
+     * Constructs a CatalogueImporter.
+     *
+     * @param productDataManager The ProductDataManager providing the product cache and writing the catalogue.
+     */
+    public CatalogueImporter(ProductDataManager productDataManager) {
+        this.productDataManager = productDataManager;
+    }
+
+    /**
+     * Prompts the user for a catalogue file, shows the import report and, once confirmed, writes the
+     * inserts and updates. A success or error message is displayed when the import finishes.
+     *
+     * @param parent The parent JFrame for displaying the dialogs. May be null if no parent is required.
+     * @return {@code true} if any product was inserted or updated, {@code false} otherwise.
+     */
+    public boolean importCatalogue(JFrame parent) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Catalogue");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files (*.csv)", "csv"));
+        if (chooser.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return false; // User cancelled
+        }
+        File file = chooser.getSelectedFile();
+
+        CatalogueScan scan;
+        Cursor previousCursor = parent != null ? parent.getCursor() : null;
+        try {
+            if (parent != null) {
+                parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            }
+            scan = scan(file);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(parent,
+                "Error reading catalogue file: " + e.getMessage(),
+                "Import Error",
+                JOptionPane.ERROR_MESSAGE);
+            return false;
+        } finally {
+            if (parent != null) {
+                parent.setCursor(previousCursor);
+            }
+        }
+
+        // Show the import report and ask for confirmation
+        List<ProductData> changes = new ArrayList<>(scan.updates);
+        changes.addAll(scan.inserts);
+        if (changes.isEmpty()) {
+            JOptionPane.showMessageDialog(parent, createReportPanel(scan, file),
+                "Import Catalogue",
+                scan.rejects.isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        int choice = JOptionPane.showConfirmDialog(parent, createReportPanel(scan, file), "Import Catalogue",
+            JOptionPane.OK_CANCEL_OPTION,
+            scan.rejects.isEmpty() ? JOptionPane.QUESTION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return false;
+        }
+
+        int written;
+        try {
+            if (parent != null) {
+                parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            }
+            written = productDataManager.upsertProducts(changes, CHUNK_SIZE);
+        } finally {
+            if (parent != null) {
+                parent.setCursor(previousCursor);
+            }
+        }
+        if (written == changes.size()) {
+            JOptionPane.showMessageDialog(parent,
+                String.format("Catalogue imported: %,d products added, %,d updated.",
+                    scan.inserts.size(), scan.updates.size()),
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+        } else if (written > 0) {
+            JOptionPane.showMessageDialog(parent,
+                String.format("Catalogue partially imported: %,d of %,d products written. "
+                    + "Import the file again after fixing the error to write the rest.", written, changes.size()),
+                "Import Error",
+                JOptionPane.WARNING_MESSAGE);
+        }
+        return written > 0;
+    }
+
+    /**
+     * Streams a catalogue file and validates every row against the product cache, without writing anything.
+     *
+     * @param file The catalogue CSV file.
+     * @return The inserts, updates and rejected rows.
+     * @throws IOException If the file cannot be read or its header lacks a required column.
+     */
+    public CatalogueScan scan(File file) throws IOException {
+        CatalogueScan scan = new CatalogueScan();
+
+        // Index the cached products by name, brand and size
+        Map<String, ProductData> productsByKey = new HashMap<>();
+        for (ProductData product : productDataManager.getList()) {
+            productsByKey.putIfAbsent(
+                productKey(product.getProductName(), product.getProductBrand(), product.getProductSize()), product);
+        }
+        // The lines of the rows already matched to a product, a new product or a SKU
+        Map<Integer, Long> matchedProducts = new HashMap<>();
+        Map<String, Long> newProducts = new HashMap<>();
+        Map<String, Long> claimedSkus = new HashMap<>();
+
+        try (CsvReader reader = new CsvReader(file)) {
+            String[] header = reader.readRow();
+            if (header == null) {
+                throw new IOException("The file is empty.");
+            }
+            int nameColumn = findColumn(header, "name", true);
+            int brandColumn = findColumn(header, "brand", true);
+            int sizeColumn = findColumn(header, "size", true);
+            int typeColumn = findColumn(header, "type", true);
+            int priceColumn = findColumn(header, "price", true);
+            int quantityColumn = findColumn(header, "quantity", false);
+            int restockColumn = findColumn(header, "restock value", false);
+            int skuColumn = findColumn(header, "sku", false);
+            if (skuColumn < 0) {
+                skuColumn = findColumn(header, "barcode", false);
+            }
+
+            String[] row;
+            while ((row = reader.readRow()) != null) {
+                long lineNumber = reader.getRowLineNumber();
+                String name = field(row, nameColumn);
+                String brand = field(row, brandColumn);
+                String size = field(row, sizeColumn);
+                String type = field(row, typeColumn);
+                String priceText = field(row, priceColumn);
+                String quantityText = field(row, quantityColumn);
+                String restockText = field(row, restockColumn);
+                String sku = field(row, skuColumn);
+
+                String error = null;
+                if (name.isEmpty() || brand.isEmpty() || size.isEmpty() || type.isEmpty()) {
+                    error = "name, brand, size and type are required";
+                } else if (!validator.isDouble(priceText)) {
+                    error = "invalid price \"" + priceText + "\"";
+                } else if (!quantityText.isEmpty() && !validator.isInteger(quantityText)) {
+                    error = "invalid quantity \"" + quantityText + "\"";
+                } else if (!restockText.isEmpty() && !validator.isInteger(restockText)) {
+                    error = "invalid restock value \"" + restockText + "\"";
+                }
+                if (error != null) {
+                    scan.rejects.add("Line " + lineNumber + ": " + error);
+                    continue;
+                }
+
+                // Match by barcode/SKU first, then by name, brand and size
+                String key = productKey(name, brand, size);
+                ProductData skuOwner = sku.isEmpty() ? null : productDataManager.findBySku(sku);
+                ProductData existing = skuOwner != null ? skuOwner : productsByKey.get(key);
+                Long previousLine = existing != null
+                    ? matchedProducts.putIfAbsent(existing.getProductId(), lineNumber)
+                    : newProducts.putIfAbsent(key, lineNumber);
+                if (previousLine != null) {
+                    scan.rejects.add("Line " + lineNumber + ": same product as line " + previousLine);
+                    continue;
+                }
+                if (!sku.isEmpty()) {
+                    previousLine = claimedSkus.putIfAbsent(sku, lineNumber);
+                    if (previousLine != null) {
+                        scan.rejects.add("Line " + lineNumber + ": barcode/SKU " + sku + " also used on line " + previousLine);
+                        continue;
+                    }
+                }
+
+                double price = Double.parseDouble(priceText);
+                if (existing == null) {
+                    scan.inserts.add(new ProductData(0, name, brand, size, type, price,
+                        quantityText.isEmpty() ? 0 : Integer.parseInt(quantityText),
+                        restockText.isEmpty() ? 0 : Integer.parseInt(restockText),
+                        sku.isEmpty() ? null : sku));
+                    continue;
+                }
+                // Keep the current restock value and SKU when the row leaves them blank
+                int restockValue = restockText.isEmpty() ? existing.getProductRestockValue() : Integer.parseInt(restockText);
+                String newSku = sku.isEmpty() ? existing.getProductSku() : sku;
+                if (existing.getProductName().equals(name) && existing.getProductBrand().equals(brand)
+                        && existing.getProductSize().equals(size) && existing.getProductType().equals(type)
+                        && existing.getProductPrice() == price && existing.getProductRestockValue() == restockValue
+                        && Objects.equals(existing.getProductSku(), newSku)) {
+                    scan.unchanged++;
+                    continue;
+                }
+                scan.updates.add(new ProductData(existing.getProductId(), name, brand, size, type, price,
+                    existing.getProductQuantity(), restockValue, newSku));
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Finds a column in the header row, ignoring case and surrounding whitespace.
+     *
+     * @param header   The header row.
+     * @param name     The lower-case column name.
+     * @param required Whether a missing column is an error.
+     * @return The column index, or -1 if an optional column is missing.
+     * @throws IOException If a required column is missing.
+     */
+    private static int findColumn(String[] header, String name, boolean required) throws IOException {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].trim().toLowerCase(Locale.ROOT).equals(name)) {
+                return i;
+            }
+        }
+        if (required) {
+            throw new IOException("The header row has no \"" + name + "\" column.");
+        }
+        return -1;
+    }
+
+    /**
+     * Gets a trimmed field of a row.
+     *
+     * @param row    The row.
+     * @param column The column index, or -1 for a missing column.
+     * @return The trimmed field, or an empty string if the row or the file has no such column.
+     */
+    private static String field(String[] row, int column) {
+        return column >= 0 && column < row.length ? row[column].trim() : "";
+    }
+
+    /**
+     * Builds the case-insensitive key identifying a product without a barcode/SKU.
+     *
+     * @param name  The product name.
+     * @param brand The product brand.
+     * @param size  The product size.
+     * @return The product key.
+     */
+    private static String productKey(String name, String brand, String size) {
+        return (name.trim() + '\u0000' + brand.trim() + '\u0000' + size.trim()).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Creates the report shown before the import.
+     *
+     * @param scan The result of validating the catalogue file.
+     * @param file The catalogue file.
+     * @return The report panel.
+     */
+    private static JPanel createReportPanel(CatalogueScan scan, File file) {
+        StringBuilder summary = new StringBuilder("<html>")
+            .append(String.format("<b>%s</b><br>", file.getName()))
+            .append(String.format("New products: <b>%,d</b><br>", scan.inserts.size()))
+            .append(String.format("Updated products: <b>%,d</b><br>", scan.updates.size()))
+            .append(String.format("Unchanged products: <b>%,d</b><br>", scan.unchanged))
+            .append(String.format("Rejected rows: <b>%,d</b>", scan.rejects.size()));
+        if (scan.inserts.isEmpty() && scan.updates.isEmpty()) {
+            summary.append("<br>The file contains no changes to import.");
+        } else if (!scan.rejects.isEmpty()) {
+            summary.append("<br>Only the valid rows will be imported.");
+        }
+        summary.append("</html>");
+
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.add(new JLabel(summary.toString()), BorderLayout.NORTH);
+
+        if (!scan.rejects.isEmpty()) {
+            StringBuilder details = new StringBuilder();
+            for (String reject : scan.rejects.subList(0, Math.min(scan.rejects.size(), MAX_REPORTED_REJECTS))) {
+                details.append(reject).append('\n');
+            }
+            if (scan.rejects.size() > MAX_REPORTED_REJECTS) {
+                details.append(String.format("... and %,d more", scan.rejects.size() - MAX_REPORTED_REJECTS));
+            }
+            JTextArea detailsArea = new JTextArea(details.toString().trim());
+            detailsArea.setEditable(false);
+            JScrollPane scrollPane = new JScrollPane(detailsArea);
+            scrollPane.setPreferredSize(new Dimension(460, 180));
+            panel.add(scrollPane, BorderLayout.CENTER);
+        }
+        return panel;
+    }
+}
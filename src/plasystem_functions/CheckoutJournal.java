@@ -0,0 +1,496 @@
+package plasystem_functions;
+
+import javax.swing.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Makes PlaSystem checkouts durable with a single sequential write. A submitted sale is appended to an
+ * append-only, checksummed journal file and forced to disk, after which the cashier can continue; a
+ * background applier then commits the sale through {@link TransactionDataManager} and appends a record
+ * marking it applied, or failed if the sale was rejected. A sale that fails on a transient database error,
+ * such as a busy database, is retried on the applier with exponential backoff for as long as PlaSystem
+ * runs. Each sale carries a unique journal key that is stored with its transaction, so a retry never
+ * commits a sale twice, and on startup the sales left unapplied by a crash are replayed idempotently: a
+ * sale whose key is already in the database is only marked applied. A record torn by a crash fails its checksum and is cut off together with anything
+ * after it. The journal is emptied on startup once every sale in it has been applied.
+ */
+public class CheckoutJournal {
+    /** The directory the journal is stored in. */
+    public static final String JOURNAL_DIRECTORY = "journal";
+
+    /** The name of the journal file. */
+    private static final String JOURNAL_FILE_NAME = "checkout.journal";
+
+    /** The marker at the start of every record header, "CKJL" in ASCII. */
+    private static final int RECORD_MAGIC = 0x434B4A4C;
+
+    /** The size of a record header: marker, record type, payload length and CRC-32 of the payload. */
+    private static final int RECORD_HEADER_SIZE = 13;
+
+    /** The largest payload accepted when reading, guarding against a corrupt length field. */
+    private static final int MAX_PAYLOAD_SIZE = 16 * 1024 * 1024;
+
+    /** The record type of a submitted sale. */
+    private static final byte TYPE_SALE = 1;
+
+    /** The record type marking a sale as applied to the database. */
+    private static final byte TYPE_APPLIED = 2;
+
+    /** The record type marking a sale as rejected, such as for insufficient stock, so it is not retried. */
+    private static final byte TYPE_FAILED = 3;
+
+    /** The lock serializing access to the journal file, shared by all instances. */
+    private static final Object JOURNAL_LOCK = new Object();
+
+    /** The delay before the first retry of a sale that failed on a database error, doubled for every retry. */
+    private static final long FIRST_RETRY_DELAY_MILLIS = 1000;
+
+    /** The longest delay between two retries of a sale. */
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+    /**
+     * The single daemon thread applying journaled sales in submission order and retrying failed ones,
+     * shared by all instances.
+     */
+    private static final ScheduledExecutorService APPLY_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CheckoutJournalApplier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A sale as written to the journal.
+     */
+    private static final class Sale {
+        /** The unique key of the sale, stored with its transaction. */
+        private final String journalKey;
+        /** The checkout lane of the sale, or 0 if not made at a lane. */
+        private final int laneId;
+        /** The date and time components of the sale. */
+        private final String year, month, day, time;
+        /** The amounts of the sale. */
+        private final double totalAmount, paymentAmount, changeAmount;
+        /** The items of the sale. */
+        private final List<TransactionItemData> items;
+
+        /**
+         * Constructs a Sale.
+         */
+        private Sale(String journalKey, int laneId, String year, String month, String day, String time,
+                     double totalAmount, double paymentAmount, double changeAmount, List<TransactionItemData> items) {
+            this.journalKey = journalKey;
+            this.laneId = laneId;
+            this.year = year;
+            this.month = month;
+            this.day = day;
+            this.time = time;
+            this.totalAmount = totalAmount;
+            this.paymentAmount = paymentAmount;
+            this.changeAmount = changeAmount;
+            this.items = items;
+        }
+
+        /**
+         * Encodes the sale as a journal payload.
+         *
+         * @return The payload bytes.
+         * @throws IOException If the sale cannot be encoded.
+         */
+        private byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(journalKey);
+                out.writeInt(laneId);
+                out.writeUTF(year);
+                out.writeUTF(month);
+                out.writeUTF(day);
+                out.writeUTF(time);
+                out.writeDouble(totalAmount);
+                out.writeDouble(paymentAmount);
+                out.writeDouble(changeAmount);
+                out.writeInt(items.size());
+                for (TransactionItemData item : items) {
+                    out.writeInt(item.getTI_productId());
+                    out.writeUTF(item.getTI_productName());
+                    out.writeUTF(item.getTI_productBrand());
+                    out.writeUTF(item.getTI_productSize());
+                    out.writeUTF(item.getTI_productType());
+                    out.writeInt(item.getTI_buyQuantity());
+                    out.writeDouble(item.getTI_unitPrice());
+                    out.writeDouble(item.getTI_totalPrice());
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Decodes a sale from a journal payload.
+         *
+         * @param payload The payload bytes.
+         * @return The sale.
+         * @throws IOException If the payload is not a valid sale.
+         */
+        private static Sale decode(byte[] payload) throws IOException {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                String journalKey = in.readUTF();
+                int laneId = in.readInt();
+                String year = in.readUTF();
+                String month = in.readUTF();
+                String day = in.readUTF();
+                String time = in.readUTF();
+                double totalAmount = in.readDouble();
+                double paymentAmount = in.readDouble();
+                double changeAmount = in.readDouble();
+                int itemCount = in.readInt();
+                List<TransactionItemData> items = new ArrayList<>(itemCount);
+                for (int i = 0; i < itemCount; i++) {
+                    int productId = in.readInt();
+                    items.add(new TransactionItemData(0, 0, productId, in.readUTF(), in.readUTF(), in.readUTF(),
+                        in.readUTF(), in.readInt(), in.readDouble(), in.readDouble()));
+                }
+                return new Sale(journalKey, laneId, year, month, day, time, totalAmount, paymentAmount,
+                    changeAmount, items);
+            }
+        }
+    }
+
+    /** The product data manager, used to create the lanes of replayed sales. */
+    private final ProductDataManager productDataManager;
+
+    /** The transaction data manager applying the sales. */
+    private final TransactionDataManager transactionDataManager;
+
+    /** The journal file. */
+    private final File journalFile;
+
+    /**
+     * Constructs a CheckoutJournal stored in the "journal" directory.
+     *
+     * @param productDataManager     The ProductDataManager sharing the product cache with the lanes.
+     * @param transactionDataManager The TransactionDataManager committing the sales.
+     */
+    public CheckoutJournal(ProductDataManager productDataManager, TransactionDataManager transactionDataManager) {
+        this.productDataManager = productDataManager;
+        this.transactionDataManager = transactionDataManager;
+        this.journalFile = new File(JOURNAL_DIRECTORY, JOURNAL_FILE_NAME);
+    }
+
+    /**
+     * Journals a sale and schedules it to be committed. The method returns once the sale is on disk; the
+     * stock reserved by the lane's cart is handed over to the sale, so it stays reserved until the sale is
+     * applied or rejected, even if the cart is cleared. The returned future completes with the committed
+     * transaction after the background applier has written it to the database, retrying it with backoff
+     * while the database fails. It completes exceptionally with a {@link TransactionRejectedException} if the
+     * sale was rejected, in which case it is marked failed and not retried.
+     *
+     * @param year          The year of the transaction date.
+     * @param month         The month of the transaction date.
+     * @param day           The day of the transaction date.
+     * @param time          The time of the transaction.
+     * @param totalAmount   The total amount of the transaction.
+     * @param paymentAmount The payment amount provided.
+     * @param changeAmount  The change returned.
+     * @param items         The items of the transaction.
+     * @param lane          The checkout lane making the sale, or null if the sale is not made at a lane.
+     * @return A future completing with the committed transaction.
+     * @throws IOException If the sale cannot be written to the journal. The sale is then not recorded.
+     * @throws TransactionRejectedException If the logged-in user is not allowed to sell. The sale is then not recorded.
+     */
+    public CompletableFuture<CommittedTransaction> submit(String year, String month, String day, String time,
+                                                          double totalAmount, double paymentAmount, double changeAmount,
+                                                          List<TransactionItemData> items, CheckoutLane lane)
+            throws IOException, TransactionRejectedException {
+        transactionDataManager.checkSalePermission();
+        Sale sale = new Sale(UUID.randomUUID().toString(), lane != null ? lane.getLaneId() : 0, year, month, day,
+            time, totalAmount, paymentAmount, changeAmount, new ArrayList<>(items));
+        append(TYPE_SALE, sale.encode());
+        if (lane != null) {
+            productDataManager.getReservations().transfer(lane.getCart(), sale);
+        }
+        CompletableFuture<CommittedTransaction> result = new CompletableFuture<>();
+        APPLY_EXECUTOR.execute(() -> applyWithRetry(sale, lane, sale, result, FIRST_RETRY_DELAY_MILLIS));
+        return result;
+    }
+
+    /**
+     * Replays the sales left unapplied by the previous run, such as after a crash, on the background
+     * applier after any sales already queued. A torn record at the end of the journal is cut off first,
+     * and the journal is emptied if no sale is pending. Sales failing on a database error are retried like
+     * submitted ones; rejections and errors are reported in a dialog.
+     */
+    public void replay() {
+        APPLY_EXECUTOR.execute(() -> {
+            List<Sale> pending;
+            try {
+                pending = readPending();
+            } catch (IOException e) {
+                reportError("Cannot read the checkout journal: " + e.getMessage());
+                return;
+            }
+            for (Sale sale : pending) {
+                CompletableFuture<CommittedTransaction> result = new CompletableFuture<>();
+                result.whenComplete((committed, error) -> {
+                    if (error instanceof TransactionRejectedException) {
+                        reportError(String.format("The journaled sale of %s-%s-%s %s (₱%,.2f) was rejected and will not be retried: %s",
+                            sale.year, sale.month, sale.day, sale.time, sale.totalAmount, error.getMessage()));
+                    } else if (error != null) {
+                        reportError("Cannot apply journaled sale " + sale.journalKey + ": " + error.getMessage()
+                            + "\nIt will be retried when PlaSystem is restarted.");
+                    }
+                });
+                applyWithRetry(sale, sale.laneId > 0 ? new CheckoutLane(sale.laneId, productDataManager) : null,
+                    null, result, FIRST_RETRY_DELAY_MILLIS);
+            }
+        });
+    }
+
+    /**
+     * Applies a sale on the applier thread and completes its future, or schedules a retry on the applier
+     * if the database failed, so a transient error such as a busy database does not leave the sale and its
+     * reserved stock pending until the next startup. The first failure of a sale is reported in a notice
+     * that does not block the lanes. Only an unexpected error completes the future without the sale being
+     * applied or rejected; the sale is then replayed on the next startup.
+     *
+     * @param sale              The sale to apply.
+     * @param lane              The checkout lane of the sale, or null.
+     * @param reservationHolder The holder of the stock reserved for the sale, or null if it was not reserved.
+     * @param result            The future completed with the outcome of the sale.
+     * @param retryDelayMillis  The delay before the next retry if this attempt fails.
+     */
+    private void applyWithRetry(Sale sale, CheckoutLane lane, Object reservationHolder,
+                                CompletableFuture<CommittedTransaction> result, long retryDelayMillis) {
+        try {
+            result.complete(apply(sale, lane, reservationHolder));
+        } catch (TransactionRejectedException e) {
+            result.completeExceptionally(e);
+        } catch (SQLException e) {
+            if (retryDelayMillis == FIRST_RETRY_DELAY_MILLIS) {
+                reportRetry(String.format("The sale of %s-%s-%s %s (₱%,.2f) could not be saved to the database yet: %s"
+                        + "\nIt is kept in the checkout journal and retried automatically.",
+                    sale.year, sale.month, sale.day, sale.time, sale.totalAmount, e.getMessage()));
+            }
+            long nextDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+            APPLY_EXECUTOR.schedule(() -> applyWithRetry(sale, lane, reservationHolder, result, nextDelayMillis),
+                retryDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Commits a journaled sale unless it was already committed, and marks it applied, or failed if it is
+     * rejected. Runs on the applier thread, so the cashier is not blocked by the database; only the update
+     * of the product cache runs on the Event Dispatch Thread, which owns it. A sale found already committed
+     * while its stock is still reserved was committed by an attempt that failed afterwards, so it is
+     * completed in the product cache from the journaled values.
+     *
+     * @param sale              The sale to apply.
+     * @param lane              The checkout lane of the sale, or null.
+     * @param reservationHolder The holder of the stock reserved for the sale, or null if it was not reserved.
+     * @return The committed transaction, or null if the sale was committed before the last startup.
+     * @throws TransactionRejectedException If the sale was rejected. It is then marked failed and its stock released.
+     * @throws SQLException If the database failed. The sale then stays pending.
+     */
+    private CommittedTransaction apply(Sale sale, CheckoutLane lane, Object reservationHolder)
+            throws TransactionRejectedException, SQLException {
+        int existingId;
+        try (Connection conn = DBConnection.getConnection()) {
+            existingId = TransactionDataManager.readTransactionIdByJournalKey(conn, sale.journalKey);
+        }
+        CommittedTransaction committed;
+        if (existingId > 0) {
+            if (reservationHolder == null) {
+                // Replayed after a restart; the product cache was loaded with the sale already
+                mark(TYPE_APPLIED, sale.journalKey);
+                return null;
+            }
+            committed = new CommittedTransaction(existingId, sale.year, sale.month, sale.day, sale.time,
+                sale.totalAmount, sale.paymentAmount, sale.changeAmount, sale.items, sale.laneId, LocalDateTime.now());
+        } else {
+            try {
+                committed = transactionDataManager.writeTransaction(sale.year, sale.month, sale.day, sale.time,
+                    sale.totalAmount, sale.paymentAmount, sale.changeAmount, sale.items, lane, sale.journalKey);
+            } catch (TransactionRejectedException e) {
+                if (reservationHolder != null) {
+                    productDataManager.getReservations().releaseAll(reservationHolder);
+                }
+                mark(TYPE_FAILED, sale.journalKey);
+                throw e;
+            }
+        }
+        SwingUtilities.invokeLater(() -> transactionDataManager.completeSale(committed, reservationHolder));
+        mark(TYPE_APPLIED, sale.journalKey);
+        return committed;
+    }
+
+    /**
+     * Appends the record marking a sale applied or failed. A failure to write it is reported, but does
+     * not fail the sale: on the next startup an applied sale is found in the database, and a failed one
+     * is rejected again.
+     *
+     * @param type       The record type, {@link #TYPE_APPLIED} or {@link #TYPE_FAILED}.
+     * @param journalKey The key of the sale.
+     */
+    private void mark(byte type, String journalKey) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(journalKey);
+            }
+            append(type, bytes.toByteArray());
+        } catch (IOException e) {
+            reportError("Cannot update the checkout journal for sale " + journalKey + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a record to the journal in one write and forces it to disk.
+     *
+     * @param type    The record type.
+     * @param payload The record payload.
+     * @throws IOException If the journal cannot be written.
+     */
+    private void append(byte type, byte[] payload) throws IOException {
+        File directory = journalFile.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory.getAbsolutePath());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(RECORD_MAGIC).put(type).putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        synchronized (JOURNAL_LOCK) {
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Reads the journaled sales without an applied or failed record, in submission order. The journal is cut off
+     * at the first record that is incomplete or fails its checksum, and emptied if no sale is pending.
+     *
+     * @return The pending sales.
+     * @throws IOException If the journal cannot be read.
+     */
+    private List<Sale> readPending() throws IOException {
+        Map<String, Sale> pending = new LinkedHashMap<>();
+        synchronized (JOURNAL_LOCK) {
+            if (!journalFile.exists()) {
+                return new ArrayList<>();
+            }
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long size = channel.size();
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+                while (position + RECORD_HEADER_SIZE <= size) {
+                    header.clear();
+                    readFully(channel, header, position);
+                    header.flip();
+                    int magic = header.getInt();
+                    byte type = header.get();
+                    int length = header.getInt();
+                    int checksum = header.getInt();
+                    if (magic != RECORD_MAGIC || length < 0 || length > MAX_PAYLOAD_SIZE
+                            || position + RECORD_HEADER_SIZE + length > size) {
+                        break;
+                    }
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    readFully(channel, payload, position + RECORD_HEADER_SIZE);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload.array());
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    if (type == TYPE_SALE) {
+                        Sale sale = Sale.decode(payload.array());
+                        pending.put(sale.journalKey, sale);
+                    } else if (type == TYPE_APPLIED || type == TYPE_FAILED) {
+                        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()))) {
+                            pending.remove(in.readUTF());
+                        }
+                    }
+                    position += RECORD_HEADER_SIZE + length;
+                }
+                if (pending.isEmpty()) {
+                    // Every sale has been applied or rejected
+                    channel.truncate(0);
+                    channel.force(false);
+                } else if (position < size) {
+                    // Cut off the record torn by a crash, so new records follow the last valid one
+                    channel.truncate(position);
+                    channel.force(false);
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Fills a buffer from a file position.
+     *
+     * @param channel  The file channel.
+     * @param buffer   The buffer to fill.
+     * @param position The file position to read from.
+     * @throws IOException If the file ends before the buffer is filled.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the checkout journal.");
+            }
+        }
+    }
+
+    /**
+     * Displays a notice about a sale being retried on the Event Dispatch Thread, in a dialog that does not
+     * block the lanes.
+     *
+     * @param message The notice message.
+     */
+    private static void reportRetry(String message) {
+        SwingUtilities.invokeLater(() -> {
+            JDialog notice = new JOptionPane(message, JOptionPane.WARNING_MESSAGE).createDialog(null, "Checkout Journal");
+            notice.setModal(false);
+            notice.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+            notice.setVisible(true);
+        });
+    }
+
+    /**
+     * Displays an error from the applier on the Event Dispatch Thread.
+     *
+     * @param message The error message.
+     */
+    private static void reportError(String message) {
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+            message,
+            "Checkout Journal Error",
+            JOptionPane.ERROR_MESSAGE));
+    }
+}
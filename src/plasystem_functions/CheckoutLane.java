@@ -0,0 +1,63 @@
+package plasystem_functions;
+
+/**
+ * Represents one checkout lane of the PlaSystem application. Several lanes can be open in the same
+ * process, each with its own cart, while sharing the product cache, the stock reservations and the
+ * transaction data manager. The lane ID is recorded with every transaction committed from the lane.
+ * Lanes are windows of one application: they share the Event Dispatch Thread and the single checkout
+ * journal applier, so opening more lanes adds tills, not database throughput.
+ */
+public class CheckoutLane {
+    /** The number of the lane, starting at 1 (TRANS_LANE_ID). */
+    private final int laneId;
+
+    /** The display name of the lane. */
+    private final String name;
+
+    /** The cart of the lane, reserving its stock against the other lanes. */
+    private final ShoppingCart cart;
+
+    /**
+     * Constructs a CheckoutLane with an empty cart. The lane's name is read from the
+     * {@link AppSettings#CHECKOUT_LANE_NAME} setting of its number.
+     *
+     * @param laneId             The number of the lane. Must be positive.
+     * @param productDataManager The ProductDataManager whose stock reservations the cart uses.
+     * @throws IllegalArgumentException if the lane ID is not positive.
+     */
+    public CheckoutLane(int laneId, ProductDataManager productDataManager) {
+        if (laneId <= 0) {
+            throw new IllegalArgumentException("Lane ID must be positive.");
+        }
+        this.laneId = laneId;
+        this.name = AppSettings.getString(String.format(AppSettings.CHECKOUT_LANE_NAME, laneId), "Lane " + laneId);
+        this.cart = new ShoppingCart(productDataManager.getReservations());
+    }
+
+    /**
+     * Gets the number of the lane.
+     *
+     * @return The lane ID.
+     */
+    public int getLaneId() {
+        return laneId;
+    }
+
+    /**
+     * Gets the display name of the lane.
+     *
+     * @return The configured lane name, or "Lane" and the number, e.g. "Lane 2", if none is configured.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the cart of the lane.
+     *
+     * @return The lane's shopping cart.
+     */
+    public ShoppingCart getCart() {
+        return cart;
+    }
+}
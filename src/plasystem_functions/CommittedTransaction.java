@@ -0,0 +1,77 @@
+package plasystem_functions;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a transaction as it was committed to the database by
+ * {@link TransactionDataManager#commitTransaction}. The snapshot carries the assigned transaction ID, the
+ * stored date, amounts and items, so the lane that made the sale can print its receipt and update its
+ * display without reading the transaction history back, and without the risk of picking up a sale made
+ * by another lane in the meantime. Instances are immutable.
+ */
+public final class CommittedTransaction extends TransactionData {
+    /** The time the transaction was committed. */
+    private final LocalDateTime committedAt;
+
+    /**
+     * Constructs a CommittedTransaction from the values written to the database. The items are copied
+     * with the assigned transaction ID into an unmodifiable list.
+     *
+     * @param transactionId    The ID assigned to the transaction by the database.
+     * @param transDateYear    The year of the transaction date.
+     * @param transDateMonth   The month of the transaction date.
+     * @param transDateDay     The day of the transaction date.
+     * @param transDateTime    The time of the transaction.
+     * @param totalAmount      The total amount of the transaction.
+     * @param paymentAmount    The payment amount provided.
+     * @param changeAmount     The change returned.
+     * @param transactionItems The items of the transaction.
+     * @param laneId           The checkout lane of the transaction, or 0 if not recorded.
+     * @param committedAt      The time the transaction was committed.
+     */
+    CommittedTransaction(int transactionId, String transDateYear, String transDateMonth, String transDateDay,
+                         String transDateTime, double totalAmount, double paymentAmount, double changeAmount,
+                         List<TransactionItemData> transactionItems, int laneId, LocalDateTime committedAt) {
+        super(transactionId, transDateYear, transDateMonth, transDateDay, transDateTime,
+              totalAmount, paymentAmount, changeAmount, copyItems(transactionId, transactionItems), laneId);
+        this.committedAt = committedAt;
+    }
+
+    /**
+     * Gets the time the transaction was committed.
+     *
+     * @return The commit time.
+     */
+    public LocalDateTime getCommittedAt() {
+        return committedAt;
+    }
+
+    /**
+     * Creates the receipt of the committed transaction.
+     *
+     * @return The receipt.
+     */
+    public ReceiptData toReceipt() {
+        return ReceiptData.fromTransaction(this, getTransactionItems());
+    }
+
+    /**
+     * Copies transaction items with the assigned transaction ID. Item IDs are not part of the snapshot.
+     *
+     * @param transactionId    The assigned transaction ID.
+     * @param transactionItems The items as submitted.
+     * @return An unmodifiable list of the copied items.
+     */
+    private static List<TransactionItemData> copyItems(int transactionId, List<TransactionItemData> transactionItems) {
+        List<TransactionItemData> items = new ArrayList<>(transactionItems.size());
+        for (TransactionItemData item : transactionItems) {
+            items.add(new TransactionItemData(0, transactionId, item.getTI_productId(), item.getTI_productName().trim(),
+                item.getTI_productBrand().trim(), item.getTI_productSize().trim(), item.getTI_productType().trim(),
+                item.getTI_buyQuantity(), item.getTI_unitPrice(), item.getTI_totalPrice()));
+        }
+        return Collections.unmodifiableList(items);
+    }
+}
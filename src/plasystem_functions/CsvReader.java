@@ -0,0 +1,163 @@
+package plasystem_functions;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for CSV files following RFC 4180, the counterpart of {@link CsvWriter}. Rows are read
+ * one at a time through a buffered reader, so files of any size are processed in constant memory. Quoted
+ * fields may contain the delimiter, doubled quotes and line breaks. Rows may end with CRLF or LF, and a
+ * leading UTF-8 byte order mark, as written by spreadsheet applications, is skipped.
+ */
+public class CsvReader implements Closeable {
+    /** The size in characters of the input buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The byte order mark some editors write at the start of UTF-8 files. */
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    /** The buffered reader supplying the CSV text. */
+    private final BufferedReader reader;
+
+    /** The field delimiter. */
+    private final char delimiter;
+
+    /** Reusable buffer for the field being read. */
+    private final StringBuilder field = new StringBuilder(64);
+
+    /** The line number at which the last row read starts, counting from 1. */
+    private long rowLineNumber;
+
+    /** The number of lines read so far. */
+    private long lineNumber;
+
+    /** Flag indicating whether the start of the input has been checked for a byte order mark. */
+    private boolean started;
+
+    /**
+     * Constructs a CsvReader for a file using the default delimiter and character set.
+     *
+     * @param file The file to read.
+     * @throws IOException If the file cannot be opened.
+     */
+    public CsvReader(File file) throws IOException {
+        this(new FileInputStream(file), CsvWriter.DEFAULT_CHARSET, CsvWriter.DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Constructs a CsvReader for a stream.
+     *
+     * @param in        The stream to read. Closed when this reader is closed.
+     * @param charset   The character set of the input.
+     * @param delimiter The field delimiter.
+     */
+    public CsvReader(InputStream in, Charset charset, char delimiter) {
+        this(new InputStreamReader(in, charset), delimiter);
+    }
+
+    /**
+     * Constructs a CsvReader for a character reader.
+     *
+     * @param reader    The reader to read. Closed when this reader is closed.
+     * @param delimiter The field delimiter.
+     */
+    public CsvReader(Reader reader, char delimiter) {
+        this.reader = new BufferedReader(reader, BUFFER_SIZE);
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next row. Blank lines are skipped.
+     *
+     * @return The fields of the row, or null at the end of the input.
+     * @throws IOException If the input cannot be read or ends inside a quoted field.
+     */
+    public String[] readRow() throws IOException {
+        if (!started) {
+            started = true;
+            reader.mark(1);
+            int first = reader.read();
+            if (first != BYTE_ORDER_MARK && first != -1) {
+                reader.reset();
+            }
+        }
+
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        rowLineNumber = lineNumber + 1;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"'); // Doubled quote
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+            } else if (c == '\r') {
+                // Part of a CRLF line end, or a stray carriage return
+            } else if (c == '\n') {
+                lineNumber++;
+                if (fields.isEmpty() && field.length() == 0 && !fieldStarted) {
+                    rowLineNumber = lineNumber + 1; // Skip a blank line
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            } else {
+                field.append((char) c);
+                fieldStarted = true;
+            }
+        }
+
+        if (quoted) {
+            throw new IOException("Unterminated quoted field starting on line " + rowLineNumber + ".");
+        }
+        if (fields.isEmpty() && field.length() == 0 && !fieldStarted) {
+            return null;
+        }
+        lineNumber++;
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Gets the line number at which the last row read starts, for error messages.
+     *
+     * @return The line number, counting from 1.
+     */
+    public long getRowLineNumber() {
+        return rowLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,277 @@
+package plasystem_functions;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffered writer for CSV files following RFC 4180, shared by the report generators of the PlaSystem
+ * application. Fields containing the delimiter, a double quote or a line break are enclosed in double
+ * quotes with embedded quotes doubled, and rows end with CRLF. Numeric fields are formatted through a
+ * reusable buffer without boxing, so writing a row does not allocate intermediate arrays or strings.
+ */
+public class CsvWriter implements Closeable, Flushable {
+    /** The default field delimiter. */
+    public static final char DEFAULT_DELIMITER = ',';
+
+    /** The default character set of the output. */
+    public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+    /** The size in characters of the output buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The line terminator required by RFC 4180. */
+    private static final String LINE_END = "\r\n";
+
+    /** The buffered writer receiving the CSV text. */
+    private final Writer writer;
+
+    /** The field delimiter. */
+    private final char delimiter;
+
+    /** Reusable buffer for formatting numeric fields. */
+    private final StringBuilder numberBuffer = new StringBuilder(32);
+
+    /** Reusable character array for copying numeric fields to the writer. */
+    private final char[] numberChars = new char[32];
+
+    /** Flag indicating whether the next field is the first one of its row. */
+    private boolean atRowStart = true;
+
+    /** The number of rows completed so far. */
+    private long rowCount;
+
+    /**
+     * Constructs a CsvWriter for a file using the default delimiter and character set.
+     *
+     * @param file The file to write. Existing content is replaced.
+     * @throws IOException If the file cannot be opened.
+     */
+    public CsvWriter(File file) throws IOException {
+        this(new FileOutputStream(file), DEFAULT_CHARSET, DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Constructs a CsvWriter for an output stream.
+     *
+     * @param out       The stream to write to. It is closed when this writer is closed.
+     * @param charset   The character set used to encode the output.
+     * @param delimiter The field delimiter. Must not be a double quote or a line break.
+     * @throws IllegalArgumentException If the delimiter is a double quote or a line break.
+     */
+    public CsvWriter(OutputStream out, Charset charset, char delimiter) {
+        if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Invalid CSV delimiter: " + delimiter);
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Opens a CsvWriter for a file using the default delimiter and character set, optionally
+     * compressing the output with gzip as it is written.
+     *
+     * @param file       The file to write. Existing content is replaced.
+     * @param compressed {@code true} to write gzip-compressed output.
+     * @return The new writer.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static CsvWriter open(File file, boolean compressed) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (compressed) {
+            try {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            } catch (IOException e) {
+                out.close();
+                throw e;
+            }
+        }
+        return new CsvWriter(out, DEFAULT_CHARSET, DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Writes a text field, quoting and escaping it if needed. A null value is written as an empty field.
+     *
+     * @param value The field value.
+     * @return This writer, for chaining.
+     * @throws IOException If an error occurs during writing.
+     */
+    public CsvWriter field(CharSequence value) throws IOException {
+        startField();
+        if (value == null) {
+            return this;
+        }
+        int length = value.length();
+        if (!needsQuoting(value, length)) {
+            if (value instanceof String) {
+                writer.write((String) value, 0, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    writer.write(value.charAt(i));
+                }
+            }
+            return this;
+        }
+        writer.write('"');
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+        return this;
+    }
+
+    /**
+     * Writes an integer field.
+     *
+     * @param value The field value.
+     * @return This writer, for chaining.
+     * @throws IOException If an error occurs during writing.
+     */
+    public CsvWriter field(int value) throws IOException {
+        startField();
+        numberBuffer.setLength(0);
+        numberBuffer.append(value);
+        writeNumber();
+        return this;
+    }
+
+    /**
+     * Writes a long integer field.
+     *
+     * @param value The field value.
+     * @return This writer, for chaining.
+     * @throws IOException If an error occurs during writing.
+     */
+    public CsvWriter field(long value) throws IOException {
+        startField();
+        numberBuffer.setLength(0);
+        numberBuffer.append(value);
+        writeNumber();
+        return this;
+    }
+
+    /**
+     * Writes a decimal field in the same plain representation as {@link String#valueOf(double)}.
+     *
+     * @param value The field value.
+     * @return This writer, for chaining.
+     * @throws IOException If an error occurs during writing.
+     */
+    public CsvWriter field(double value) throws IOException {
+        startField();
+        numberBuffer.setLength(0);
+        numberBuffer.append(value);
+        writeNumber();
+        return this;
+    }
+
+    /**
+     * Writes a complete row of text fields.
+     *
+     * @param values The field values.
+     * @return This writer, for chaining.
+     * @throws IOException If an error occurs during writing.
+     */
+    public CsvWriter row(String... values) throws IOException {
+        for (String value : values) {
+            field(value);
+        }
+        return endRow();
+    }
+
+    /**
+     * Ends the current row. Calling this without writing any fields produces an empty line.
+     *
+     * @return This writer, for chaining.
+     * @throws IOException If an error occurs during writing.
+     */
+    public CsvWriter endRow() throws IOException {
+        writer.write(LINE_END);
+        atRowStart = true;
+        rowCount++;
+        return this;
+    }
+
+    /**
+     * Gets the number of rows completed so far, including header and empty rows.
+     *
+     * @return The number of rows written.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Flushes buffered output to the underlying stream.
+     *
+     * @throws IOException If an error occurs during flushing.
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Flushes and closes the writer and the underlying stream.
+     *
+     * @throws IOException If an error occurs during closing.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Writes the delimiter if the next field is not the first one of its row.
+     *
+     * @throws IOException If an error occurs during writing.
+     */
+    private void startField() throws IOException {
+        if (atRowStart) {
+            atRowStart = false;
+        } else {
+            writer.write(delimiter);
+        }
+    }
+
+    /**
+     * Copies the formatted number from the number buffer to the writer.
+     *
+     * @throws IOException If an error occurs during writing.
+     */
+    private void writeNumber() throws IOException {
+        int length = numberBuffer.length();
+        numberBuffer.getChars(0, length, numberChars, 0);
+        writer.write(numberChars, 0, length);
+    }
+
+    /**
+     * Checks whether a field value must be enclosed in double quotes.
+     *
+     * @param value  The field value.
+     * @param length The length of the value.
+     * @return {@code true} if the value contains the delimiter, a double quote or a line break.
+     */
+    private boolean needsQuoting(CharSequence value, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
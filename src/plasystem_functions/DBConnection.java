@@ -2,6 +2,7 @@ package plasystem_functions;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.io.File;
@@ -27,7 +28,7 @@ public class DBConnection {
             "'inventory_manager', 'restocker')), UNIQUE (USER_NAME, USER_PASSWORD));" +
         "CREATE TABLE Product (PROD_ID INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, PROD_NAME TEXT NOT NULL, PROD_BRAND TEXT NOT NULL," +
             "PROD_SIZE TEXT NOT NULL, PROD_TYPE TEXT NOT NULL, PROD_PRICE REAL NOT NULL CHECK (PROD_PRICE >= 0)," +
-            "PROD_QUANTITY INTEGER NOT NULL CHECK (PROD_QUANTITY >= 0), PROD_RESTOCK_VALUE INTEGER NOT NULL CHECK (PROD_RESTOCK_VALUE >= 0));" +
+            "PROD_QUANTITY INTEGER NOT NULL CHECK (PROD_QUANTITY >= 0), PROD_RESTOCK_VALUE INTEGER NOT NULL CHECK (PROD_RESTOCK_VALUE >= 0), PROD_SKU TEXT);" +
         "CREATE TABLE Restock (RESTOCK_ID INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, RESTOCK_DATE_YEAR TEXT NOT NULL," +
             "RESTOCK_DATE_MONTH TEXT NOT NULL, RESTOCK_DATE_DAY TEXT NOT NULL, RESTOCK_DATE_TIME TEXT NOT NULL);" +
         "CREATE TABLE RestockItems (RI_ITEM_ID INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
@@ -39,7 +40,7 @@ public class DBConnection {
             "TRANS_DATE_MONTH TEXT NOT NULL, TRANS_DATE_DAY TEXT NOT NULL, TRANS_DATE_TIME TEXT NOT NULL," +
             "TRANS_TOTAL_AMOUNT REAL NOT NULL CHECK (TRANS_TOTAL_AMOUNT >= 0)," +
             "TRANS_PAYMENT_AMOUNT REAL NOT NULL CHECK (TRANS_PAYMENT_AMOUNT >= TRANS_TOTAL_AMOUNT)," +
-            "TRANS_CHANGE_AMOUNT REAL NOT NULL CHECK (TRANS_CHANGE_AMOUNT >= 0));" +
+            "TRANS_CHANGE_AMOUNT REAL NOT NULL CHECK (TRANS_CHANGE_AMOUNT >= 0), TRANS_LANE_ID INTEGER, TRANS_JOURNAL_KEY TEXT);" +
         "CREATE TABLE TransactionItems (TI_ITEM_ID INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
             "TI_TRANS_ID INTEGER NOT NULL REFERENCES Transactions (TRANS_ID) ON DELETE CASCADE ON UPDATE NO ACTION," +
             "TI_PROD_ID INTEGER REFERENCES Product (PROD_ID) ON DELETE SET NULL ON UPDATE NO ACTION, TI_PROD_NAME TEXT NOT NULL," +
@@ -48,6 +49,54 @@ public class DBConnection {
             "TI_PROD_UNITPRICE REAL NOT NULL CHECK (TI_PROD_UNITPRICE >= 0)," +
             "TI_PROD_TOTALPRICE REAL NOT NULL CHECK (TI_PROD_TOTALPRICE >= TI_PROD_UNITPRICE));";
 
+    /**
+     * Columns added after the original schema, as {table, column, column definition} triples. Databases created by
+     * earlier versions of the application are upgraded by adding any of these columns that are missing.
+     */
+    private static final String[][] COLUMN_UPGRADES = {
+        {"Product", "PROD_SKU", "TEXT"},
+        {"Transactions", "TRANS_LANE_ID", "INTEGER"},
+        {"Transactions", "TRANS_JOURNAL_KEY", "TEXT"}
+    };
+
+    /**
+     * Tables and indexes added after the original schema. Every statement is idempotent so it can be applied to both
+     * new and existing databases.
+     */
+    private static final String[] SCHEMA_UPGRADES = {
+        "CREATE UNIQUE INDEX IF NOT EXISTS IDX_PRODUCT_SKU ON Product (PROD_SKU)",
+        "CREATE UNIQUE INDEX IF NOT EXISTS IDX_TRANSACTIONS_JOURNAL_KEY ON Transactions (TRANS_JOURNAL_KEY)",
+        "CREATE TABLE IF NOT EXISTS ExportWatermark (EW_REPORT_NAME TEXT PRIMARY KEY NOT NULL," +
+            "EW_LAST_EXPORTED_ID INTEGER NOT NULL CHECK (EW_LAST_EXPORTED_ID >= 0), EW_LAST_EXPORTED_AT TEXT NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS ExportLedger (EL_EXPORT_ID INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
+            "EL_REPORT_NAME TEXT NOT NULL, EL_FROM_ID INTEGER NOT NULL, EL_TO_ID INTEGER NOT NULL CHECK (EL_TO_ID > EL_FROM_ID)," +
+            "EL_ROW_COUNT INTEGER NOT NULL CHECK (EL_ROW_COUNT >= 0), EL_FILE_NAME TEXT NOT NULL, EL_EXPORTED_AT TEXT NOT NULL," +
+            "UNIQUE (EL_REPORT_NAME, EL_FROM_ID, EL_TO_ID))",
+        "CREATE TABLE IF NOT EXISTS DailySales (DS_DATE TEXT NOT NULL, DS_PROD_ID INTEGER NOT NULL, DS_PROD_NAME TEXT NOT NULL," +
+            "DS_UNITS INTEGER NOT NULL, DS_REVENUE_CENTS INTEGER NOT NULL, DS_TRANSACTIONS INTEGER NOT NULL," +
+            "PRIMARY KEY (DS_DATE, DS_PROD_ID)) WITHOUT ROWID",
+        "CREATE TABLE IF NOT EXISTS DailySalesTotal (DST_DATE TEXT PRIMARY KEY NOT NULL, DST_TRANSACTIONS INTEGER NOT NULL," +
+            "DST_UNITS INTEGER NOT NULL, DST_REVENUE_CENTS INTEGER NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS SchemaState (SS_KEY TEXT PRIMARY KEY NOT NULL, SS_VALUE TEXT NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS ReceiptIndex (RX_TRANS_ID INTEGER PRIMARY KEY NOT NULL, RX_PACK_NAME TEXT NOT NULL," +
+            "RX_OFFSET INTEGER NOT NULL CHECK (RX_OFFSET >= 0), RX_LENGTH INTEGER NOT NULL CHECK (RX_LENGTH > 0)," +
+            "RX_ARCHIVED_AT TEXT NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS AuditLog (AUDIT_ID INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, AUDIT_TIME TEXT NOT NULL," +
+            "AUDIT_USER TEXT NOT NULL, AUDIT_ACTION TEXT NOT NULL, AUDIT_DETAILS TEXT NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS IDX_AUDITLOG_TIME ON AuditLog (AUDIT_TIME)",
+        "CREATE INDEX IF NOT EXISTS IDX_AUDITLOG_USER ON AuditLog (AUDIT_USER, AUDIT_TIME)",
+        "CREATE INDEX IF NOT EXISTS IDX_AUDITLOG_ACTION ON AuditLog (AUDIT_ACTION, AUDIT_TIME)"
+    };
+
+    /**
+     * How long a connection waits for a lock held by another connection before failing with SQLITE_BUSY. Longer than
+     * the driver's default of 3 seconds so a checkout commit outlasts a concurrent report or import write.
+     */
+    private static final int BUSY_TIMEOUT_MILLIS = 10000;
+
+    /** Flag indicating whether the schema upgrades have already been applied during this run of the application. */
+    private static volatile boolean schemaUpgraded = false;
+
     /** SQL statement to insert a default admin user into the UserAccount table. */
     private static final String INSERT_DEFAULT_ADMIN =
         "INSERT INTO UserAccount (USER_NAME, USER_PASSWORD, USER_ROLE) VALUES ('admin', 'tjb123', 'admin');";
@@ -55,7 +104,8 @@ public class DBConnection {
     /**
      * Establishes a connection to the SQLite database. If the database folder or file does not exist,
      * they are created, and the database is initialized with the defined schema and a default admin user.
-     * Foreign key constraints are enabled for the connection.
+     * Foreign key constraints and the busy timeout are set for the connection, and the database is switched to
+     * write-ahead logging so long report reads do not block checkout commits.
      *
      * @return A Connection object to the SQLite database.
      * @throws SQLException If a database connection error occurs, with an error message displayed to the user.
@@ -78,26 +128,41 @@ public class DBConnection {
         try {
             // Attempt to establish a connection
             Connection conn = DriverManager.getConnection(DB_URL);
+            try {
+                // Enable foreign key constraints and wait for locks held by other connections
+                try (Statement pragmaStmt = conn.createStatement()) {
+                    pragmaStmt.execute("PRAGMA foreign_keys = ON;");
+                    pragmaStmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS + ";");
+                }
 
-            // Enable foreign key constraints
-            try (Statement pragmaStmt = conn.createStatement()) {
-                pragmaStmt.execute("PRAGMA foreign_keys = ON;");
-            }
-
-            // If the database file was just created or doesn't have the schema, initialize it
-            if (initializeDatabase) {
-                try (Statement stmt = conn.createStatement()) {
-                    // Execute schema creation
-                    String[] schemaStatements = SCHEMA.split(";");
-                    for (String statement : schemaStatements) {
-                        if (!statement.trim().isEmpty()) {
-                            stmt.executeUpdate(statement.trim());
+                // If the database file was just created or doesn't have the schema, initialize it
+                if (initializeDatabase) {
+                    try (Statement stmt = conn.createStatement()) {
+                        // Execute schema creation
+                        String[] schemaStatements = SCHEMA.split(";");
+                        for (String statement : schemaStatements) {
+                            if (!statement.trim().isEmpty()) {
+                                stmt.executeUpdate(statement.trim());
+                            }
                         }
+
+                        // Insert default admin user
+                        stmt.executeUpdate(INSERT_DEFAULT_ADMIN);
                     }
+                }
 
-                    // Insert default admin user
-                    stmt.executeUpdate(INSERT_DEFAULT_ADMIN);
+                // Bring databases created by earlier versions up to date, once per run
+                if (!schemaUpgraded) {
+                    upgradeSchema(conn);
                 }
+            } catch (SQLException | RuntimeException e) {
+                // Do not leak the connection if the setup or a schema upgrade fails
+                try {
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    e.addSuppressed(closeEx);
+                }
+                throw e;
             }
             return conn;
         } catch (SQLException e) {
@@ -105,4 +170,52 @@ public class DBConnection {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Switches the database to write-ahead logging and applies the column, table and index upgrades. In WAL mode
+     * readers see a snapshot and do not block writers, so a report export holding a cursor open does not make
+     * checkout commits fail; the journal mode is stored in the database file, so setting it once per run is enough.
+     * Missing columns are detected through {@code PRAGMA table_info} because SQLite has no
+     * {@code ADD COLUMN IF NOT EXISTS}.
+     *
+     * @param conn The open connection to upgrade.
+     * @throws SQLException If an upgrade statement fails.
+     */
+    private static synchronized void upgradeSchema(Connection conn) throws SQLException {
+        if (schemaUpgraded) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            for (String[] upgrade : COLUMN_UPGRADES) {
+                if (!hasColumn(stmt, upgrade[0], upgrade[1])) {
+                    stmt.executeUpdate("ALTER TABLE " + upgrade[0] + " ADD COLUMN " + upgrade[1] + " " + upgrade[2]);
+                }
+            }
+            for (String statement : SCHEMA_UPGRADES) {
+                stmt.executeUpdate(statement);
+            }
+        }
+        schemaUpgraded = true;
+    }
+
+    /**
+     * Checks whether a table already contains the given column.
+     *
+     * @param stmt   The statement used to run the pragma.
+     * @param table  The table name.
+     * @param column The column name.
+     * @return {@code true} if the column exists, {@code false} otherwise.
+     * @throws SQLException If the pragma cannot be executed.
+     */
+    private static boolean hasColumn(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,338 @@
+package plasystem_functions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Maintains and queries the materialized sales summary of the PlaSystem database. The DailySales table
+ * holds the units, revenue and transaction count of every product per day, and the DailySalesTotal
+ * table holds the same totals per day across all products. Both are updated inside the database
+ * transaction that adds or deletes a transaction, so period totals can be answered from a few summary
+ * rows without loading the transaction history. A backfill rebuilds the summary from the existing
+ * transactions once, and records in the SchemaState table that it has completed.
+ */
+public class DailySalesManager {
+    /** SQL expression for the normalized YYYY-MM-DD date of a transaction aliased as t. */
+    private static final String SALES_DATE =
+        "printf('%04d-%02d-%02d', CAST(t.TRANS_DATE_YEAR AS INTEGER), " +
+        "CAST(t.TRANS_DATE_MONTH AS INTEGER), CAST(t.TRANS_DATE_DAY AS INTEGER))";
+
+    /** SQL expression for the integer cents of a transaction item aliased as ti. */
+    private static final String ITEM_CENTS = "CAST(ROUND(ti.TI_PROD_TOTALPRICE * 100) AS INTEGER)";
+
+    /**
+     * SQL statement to add (sign 1) or subtract (sign -1) the items of one transaction to the per-product
+     * summary. The product name is only updated when sales are added.
+     */
+    private static final String APPLY_PRODUCT_SALES_QUERY =
+        "INSERT INTO DailySales (DS_DATE, DS_PROD_ID, DS_PROD_NAME, DS_UNITS, DS_REVENUE_CENTS, DS_TRANSACTIONS) " +
+        "SELECT " + SALES_DATE + ", COALESCE(ti.TI_PROD_ID, 0), ti.TI_PROD_NAME, " +
+        "? * SUM(ti.TI_PROD_BUYQUANTITY), ? * SUM(" + ITEM_CENTS + "), ? " +
+        "FROM Transactions t JOIN TransactionItems ti ON ti.TI_TRANS_ID = t.TRANS_ID " +
+        "WHERE t.TRANS_ID = ? GROUP BY COALESCE(ti.TI_PROD_ID, 0) " +
+        "ON CONFLICT (DS_DATE, DS_PROD_ID) DO UPDATE SET " +
+        "DS_UNITS = DS_UNITS + excluded.DS_UNITS, " +
+        "DS_REVENUE_CENTS = DS_REVENUE_CENTS + excluded.DS_REVENUE_CENTS, " +
+        "DS_TRANSACTIONS = DS_TRANSACTIONS + excluded.DS_TRANSACTIONS, " +
+        "DS_PROD_NAME = CASE WHEN excluded.DS_TRANSACTIONS > 0 THEN excluded.DS_PROD_NAME ELSE DS_PROD_NAME END";
+
+    /** SQL statement to add (sign 1) or subtract (sign -1) one transaction to the daily totals. */
+    private static final String APPLY_DAILY_TOTAL_QUERY =
+        "INSERT INTO DailySalesTotal (DST_DATE, DST_TRANSACTIONS, DST_UNITS, DST_REVENUE_CENTS) " +
+        "SELECT " + SALES_DATE + ", ?, ? * SUM(ti.TI_PROD_BUYQUANTITY), ? * SUM(" + ITEM_CENTS + ") " +
+        "FROM Transactions t JOIN TransactionItems ti ON ti.TI_TRANS_ID = t.TRANS_ID " +
+        "WHERE t.TRANS_ID = ? GROUP BY t.TRANS_ID " +
+        "ON CONFLICT (DST_DATE) DO UPDATE SET " +
+        "DST_TRANSACTIONS = DST_TRANSACTIONS + excluded.DST_TRANSACTIONS, " +
+        "DST_UNITS = DST_UNITS + excluded.DST_UNITS, " +
+        "DST_REVENUE_CENTS = DST_REVENUE_CENTS + excluded.DST_REVENUE_CENTS";
+
+    /** SQL expression for the summary date of the transaction with the ID bound to its parameter. */
+    private static final String TRANSACTION_SALES_DATE =
+        "(SELECT " + SALES_DATE + " FROM Transactions t WHERE t.TRANS_ID = ?)";
+
+    /**
+     * SQL statement to remove the per-product rows left empty on the day of a deleted transaction. The date
+     * is the prefix of the primary key, so only the rows of that day are visited.
+     */
+    private static final String DELETE_EMPTY_PRODUCT_SALES_QUERY =
+        "DELETE FROM DailySales WHERE DS_DATE = " + TRANSACTION_SALES_DATE + " AND DS_TRANSACTIONS <= 0";
+
+    /** SQL statement to remove the daily total left empty on the day of a deleted transaction. */
+    private static final String DELETE_EMPTY_DAILY_TOTALS_QUERY =
+        "DELETE FROM DailySalesTotal WHERE DST_DATE = " + TRANSACTION_SALES_DATE + " AND DST_TRANSACTIONS <= 0";
+
+    /** SQL statement to clear the per-product summary before a rebuild. */
+    private static final String CLEAR_PRODUCT_SALES_QUERY = "DELETE FROM DailySales";
+
+    /** SQL statement to clear the daily totals before a rebuild. */
+    private static final String CLEAR_DAILY_TOTALS_QUERY = "DELETE FROM DailySalesTotal";
+
+    /** SQL statement to rebuild the per-product summary from all transactions. */
+    private static final String REBUILD_PRODUCT_SALES_QUERY =
+        "INSERT INTO DailySales (DS_DATE, DS_PROD_ID, DS_PROD_NAME, DS_UNITS, DS_REVENUE_CENTS, DS_TRANSACTIONS) " +
+        "SELECT " + SALES_DATE + ", COALESCE(ti.TI_PROD_ID, 0), ti.TI_PROD_NAME, " +
+        "SUM(ti.TI_PROD_BUYQUANTITY), SUM(" + ITEM_CENTS + "), COUNT(DISTINCT t.TRANS_ID) " +
+        "FROM Transactions t JOIN TransactionItems ti ON ti.TI_TRANS_ID = t.TRANS_ID " +
+        "GROUP BY " + SALES_DATE + ", COALESCE(ti.TI_PROD_ID, 0)";
+
+    /** SQL statement to rebuild the daily totals from all transactions. */
+    private static final String REBUILD_DAILY_TOTALS_QUERY =
+        "INSERT INTO DailySalesTotal (DST_DATE, DST_TRANSACTIONS, DST_UNITS, DST_REVENUE_CENTS) " +
+        "SELECT " + SALES_DATE + ", COUNT(DISTINCT t.TRANS_ID), SUM(ti.TI_PROD_BUYQUANTITY), SUM(" + ITEM_CENTS + ") " +
+        "FROM Transactions t JOIN TransactionItems ti ON ti.TI_TRANS_ID = t.TRANS_ID " +
+        "GROUP BY " + SALES_DATE;
+
+    /** The SchemaState key recording that the summary has been built from the whole transaction history. */
+    private static final String BACKFILL_COMPLETE_KEY = "DAILY_SALES_BACKFILL_COMPLETE";
+
+    /**
+     * SQL query to check whether the summary has not yet been built from the whole transaction history. An empty
+     * summary is not a reliable sign, since live sales add rows while a backfill is still pending.
+     */
+    private static final String NEEDS_BACKFILL_QUERY =
+        "SELECT NOT EXISTS (SELECT 1 FROM SchemaState WHERE SS_KEY = ?)";
+
+    /** SQL statement to record that the summary has been built, in the transaction of the rebuild. */
+    private static final String MARK_BACKFILL_COMPLETE_QUERY =
+        "INSERT OR REPLACE INTO SchemaState (SS_KEY, SS_VALUE) VALUES (?, datetime('now', 'localtime'))";
+
+    /** The delay between two attempts of a failed backfill. */
+    private static final long BACKFILL_RETRY_MINUTES = 1;
+
+    /** SQL query to select the totals of a period. */
+    private static final String SELECT_PERIOD_TOTALS_QUERY =
+        "SELECT COALESCE(SUM(DST_TRANSACTIONS), 0), COALESCE(SUM(DST_UNITS), 0), COALESCE(SUM(DST_REVENUE_CENTS), 0) " +
+        "FROM DailySalesTotal WHERE DST_DATE BETWEEN ? AND ?";
+
+    /** SQL query to select the totals of each day of a period. */
+    private static final String SELECT_DAILY_TOTALS_QUERY =
+        "SELECT DST_DATE, DST_TRANSACTIONS, DST_UNITS, DST_REVENUE_CENTS " +
+        "FROM DailySalesTotal WHERE DST_DATE BETWEEN ? AND ? ORDER BY DST_DATE";
+
+    /** SQL query to select the totals of each product over a period, highest revenue first. */
+    private static final String SELECT_PRODUCT_TOTALS_QUERY =
+        "SELECT DS_PROD_ID, DS_PROD_NAME, SUM(DS_TRANSACTIONS), SUM(DS_UNITS), SUM(DS_REVENUE_CENTS), MAX(DS_DATE) " +
+        "FROM DailySales WHERE DS_DATE BETWEEN ? AND ? " +
+        "GROUP BY DS_PROD_ID ORDER BY SUM(DS_REVENUE_CENTS) DESC, DS_PROD_ID";
+
+    /**
+     * Adds the sales of a transaction to the summary. Must be called on the connection and inside the
+     * database transaction that inserted the transaction and its items.
+     *
+     * @param conn          The connection of the open database transaction.
+     * @param transactionId The ID of the inserted transaction.
+     * @throws SQLException If a database error occurs.
+     */
+    static void addTransactionSales(Connection conn, int transactionId) throws SQLException {
+        applyTransactionSales(conn, transactionId, 1);
+    }
+
+    /**
+     * Subtracts the sales of a transaction from the summary and removes the rows of its day left empty. Must be called
+     * on the connection and inside the database transaction that deletes the transaction, before it is
+     * deleted.
+     *
+     * @param conn          The connection of the open database transaction.
+     * @param transactionId The ID of the transaction about to be deleted.
+     * @throws SQLException If a database error occurs.
+     */
+    static void removeTransactionSales(Connection conn, int transactionId) throws SQLException {
+        applyTransactionSales(conn, transactionId, -1);
+        for (String query : new String[] {DELETE_EMPTY_PRODUCT_SALES_QUERY, DELETE_EMPTY_DAILY_TOTALS_QUERY}) {
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, transactionId);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Applies the sales of one transaction to both summary tables.
+     *
+     * @param conn          The connection of the open database transaction.
+     * @param transactionId The ID of the transaction.
+     * @param sign          1 to add the sales, -1 to subtract them.
+     * @throws SQLException If a database error occurs.
+     */
+    private static void applyTransactionSales(Connection conn, int transactionId, int sign) throws SQLException {
+        for (String query : new String[] {APPLY_PRODUCT_SALES_QUERY, APPLY_DAILY_TOTAL_QUERY}) {
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, sign);
+                pstmt.setInt(2, sign);
+                pstmt.setInt(3, sign);
+                pstmt.setInt(4, transactionId);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the whole summary from the Transactions and TransactionItems tables in a single
+     * database transaction, which also records that the backfill is complete.
+     *
+     * @throws SQLException If a database error occurs. The previous summary is kept in that case.
+     */
+    public static void rebuild() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement();
+                 PreparedStatement markStmt = conn.prepareStatement(MARK_BACKFILL_COMPLETE_QUERY)) {
+                stmt.executeUpdate(CLEAR_PRODUCT_SALES_QUERY);
+                stmt.executeUpdate(CLEAR_DAILY_TOTALS_QUERY);
+                stmt.executeUpdate(REBUILD_PRODUCT_SALES_QUERY);
+                stmt.executeUpdate(REBUILD_DAILY_TOTALS_QUERY);
+                markStmt.setString(1, BACKFILL_COMPLETE_KEY);
+                markStmt.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Starts a background backfill of the summary unless a completed backfill has been recorded, as after
+     * upgrading a database created by an earlier version of the application. A failed backfill is reported
+     * once and retried every minute until it succeeds; sales committed in the meantime are added to the
+     * summary as usual and counted again by the rebuild, which replaces the whole summary.
+     */
+    public static void backfillIfNeeded() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "daily-sales-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(new Runnable() {
+            /** Flag indicating whether a failure has already been reported. */
+            private boolean failureReported;
+
+            @Override
+            public void run() {
+                try {
+                    boolean needsBackfill;
+                    try (Connection conn = DBConnection.getConnection();
+                         PreparedStatement pstmt = conn.prepareStatement(NEEDS_BACKFILL_QUERY)) {
+                        pstmt.setString(1, BACKFILL_COMPLETE_KEY);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            needsBackfill = rs.next() && rs.getBoolean(1);
+                        }
+                    }
+                    if (needsBackfill) {
+                        rebuild();
+                    }
+                    executor.shutdown();
+                } catch (SQLException e) {
+                    if (!failureReported) {
+                        failureReported = true;
+                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                            "Error building the daily sales summary: " + e.getMessage()
+                                + "\nSales reports and reorder recommendations are incomplete until it succeeds. "
+                                + "It is retried every minute.",
+                            "Database Error",
+                            JOptionPane.ERROR_MESSAGE));
+                    }
+                    executor.schedule(this, BACKFILL_RETRY_MINUTES, TimeUnit.MINUTES);
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieves the totals of a period across all products. Displays an error message if a database
+     * error occurs.
+     *
+     * @param from The first day of the period, inclusive.
+     * @param to   The last day of the period, inclusive.
+     * @return The period totals with a null label, or zero totals if a database error occurs.
+     */
+    public SalesSummaryData getPeriodTotals(LocalDate from, LocalDate to) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_PERIOD_TOTALS_QUERY)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new SalesSummaryData(null, 0, rs.getInt(1), rs.getLong(2), rs.getLong(3));
+                }
+            }
+        } catch (SQLException e) {
+            handleSQLException(e);
+        }
+        return new SalesSummaryData(null, 0, 0, 0, 0);
+    }
+
+    /**
+     * Retrieves the totals of each day of a period that had sales, in date order. Displays an error
+     * message if a database error occurs.
+     *
+     * @param from The first day of the period, inclusive.
+     * @param to   The last day of the period, inclusive.
+     * @return The daily totals labelled with their YYYY-MM-DD date, possibly empty.
+     */
+    public List<SalesSummaryData> getDailyTotals(LocalDate from, LocalDate to) {
+        List<SalesSummaryData> totals = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_DAILY_TOTALS_QUERY)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.add(new SalesSummaryData(rs.getString(1), 0, rs.getInt(2), rs.getLong(3), rs.getLong(4)));
+                }
+            }
+        } catch (SQLException e) {
+            handleSQLException(e);
+        }
+        return totals;
+    }
+
+    /**
+     * Retrieves the totals of each product sold in a period, highest revenue first. Displays an error
+     * message if a database error occurs.
+     *
+     * @param from The first day of the period, inclusive.
+     * @param to   The last day of the period, inclusive.
+     * @return The product totals labelled with the product name, possibly empty.
+     */
+    public List<SalesSummaryData> getProductTotals(LocalDate from, LocalDate to) {
+        List<SalesSummaryData> totals = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_PRODUCT_TOTALS_QUERY)) {
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.add(new SalesSummaryData(rs.getString(2), rs.getInt(1), rs.getInt(3), rs.getLong(4), rs.getLong(5)));
+                }
+            }
+        } catch (SQLException e) {
+            handleSQLException(e);
+        }
+        return totals;
+    }
+
+    /**
+     * Displays an error message for a database error while reading the sales summary.
+     *
+     * @param e The SQLException that occurred.
+     */
+    private void handleSQLException(SQLException e) {
+        JOptionPane.showMessageDialog(null,
+            "Error reading sales summary: " + e.getMessage(),
+            "Database Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+}
@@ -0,0 +1,446 @@
+package plasystem_functions;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.BorderLayout;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+
+/**
+ * Imports supplier deliveries into the PlaSystem application from CSV files, instead of ticking the
+ * delivered products one by one in the restock window. Each row holds a product ID or barcode/SKU, the
+ * quantity received and optionally the unit cost; a header row is recognized and skipped. The file is
+ * streamed and every row is validated against the product cache first, and a dry-run report of the
+ * unknown products and invalid rows is shown before anything is written. The valid lines are then
+ * restocked through the batched restock path in chunked transactions. Reading the file and writing the
+ * delivery run in SwingWorkers, so the window stays responsive; the file is validated against a snapshot
+ * of the product cache, and the committed chunks are applied to the cache on the Event Dispatch Thread.
+ */
+public class DeliveryImporter {
+    /** The maximum number of lines per restock event and database transaction. */
+    static final int CHUNK_SIZE = 1000;
+
+    /** The maximum number of problems listed in the dry-run report. */
+    private static final int MAX_REPORTED_PROBLEMS = 200;
+
+    /**
+     * The result of validating a delivery file.
+     */
+    public static final class DeliveryScan {
+        /** The valid delivery lines, in file order. */
+        private final List<RestockLine> lines = new ArrayList<>();
+        /** The file line number of each valid delivery line. */
+        private final List<Long> lineNumbers = new ArrayList<>();
+        /** The descriptions of the rows naming unknown products. */
+        private final List<String> unknownProducts = new ArrayList<>();
+        /** The descriptions of the rows with an invalid quantity or unit cost. */
+        private final List<String> invalidRows = new ArrayList<>();
+        /** The total quantity of the valid lines. */
+        private long totalUnits;
+        /** The total cost of the valid lines with a unit cost, in cents. */
+        private long totalCostCents;
+
+        /**
+         * Gets the valid delivery lines.
+         *
+         * @return An unmodifiable view of the lines, in file order.
+         */
+        public List<RestockLine> getLines() {
+            return Collections.unmodifiableList(lines);
+        }
+
+        /**
+         * Gets the file line number of a valid delivery line.
+         *
+         * @param index The index of the line in {@link #getLines()}.
+         * @return The line number in the delivery file.
+         */
+        public long getLineNumber(int index) {
+            return lineNumbers.get(index);
+        }
+
+        /**
+         * Gets the rows naming products that are not in the product cache.
+         *
+         * @return An unmodifiable view of the row descriptions.
+         */
+        public List<String> getUnknownProducts() {
+            return Collections.unmodifiableList(unknownProducts);
+        }
+
+        /**
+         * Gets the rows with an invalid quantity or unit cost.
+         *
+         * @return An unmodifiable view of the row descriptions.
+         */
+        public List<String> getInvalidRows() {
+            return Collections.unmodifiableList(invalidRows);
+        }
+
+        /**
+         * Gets the total quantity of the valid lines.
+         *
+         * @return The total units.
+         */
+        public long getTotalUnits() {
+            return totalUnits;
+        }
+
+        /**
+         * Gets the total cost of the valid lines that have a unit cost.
+         *
+         * @return The total cost in cents.
+         */
+        public long getTotalCostCents() {
+            return totalCostCents;
+        }
+    }
+
+    /**
+     * The outcome of writing a delivery in the background.
+     */
+    private static final class DeliveryWrite {
+        /** The IDs of the committed restock events, one per chunk in order. */
+        private final List<Integer> restockIds = new ArrayList<>();
+        /** The error that stopped the import, or null if every chunk was committed. */
+        private SQLException error;
+    }
+
+    /** The product data manager providing the product cache. */
+    private final ProductDataManager productDataManager;
+
+    /** The restock data manager writing the delivery. */
+    private final RestockDataManager restockDataManager;
+
+    /** The validator for numeric fields. */
+    private final ErrorValueHandling validator = new ErrorValueHandling();
+
+    /** The snapshot of the cached products by barcode/SKU, taken when the importer is created. */
+    private final Map<String, ProductData> productsBySku = new HashMap<>();
+
+    /** The snapshot of the cached products by ID, taken when the importer is created. */
+    private final Map<Integer, ProductData> productsById = new HashMap<>();
+
+    /**
+     * Constructs a DeliveryImporter and takes a snapshot of the product lookups, so files can be validated
+     * off the Event Dispatch Thread. Must be called on the Event Dispatch Thread.
+     *
+     * @param productDataManager The ProductDataManager providing the product cache.
+     * @param restockDataManager The RestockDataManager writing the delivery.
+     */
+    public DeliveryImporter(ProductDataManager productDataManager, RestockDataManager restockDataManager) {
+        this.productDataManager = productDataManager;
+        this.restockDataManager = restockDataManager;
+        for (ProductData product : productDataManager.getList()) {
+            productsById.put(product.getProductId(), product);
+            if (product.getProductSku() != null) {
+                productsBySku.put(product.getProductSku(), product);
+            }
+        }
+    }
+
+    /**
+     * Prompts the user for a delivery file, shows the dry-run report and, once confirmed, restocks the
+     * valid lines. The file is read and the delivery written in the background; a success or error message
+     * is displayed when the import finishes.
+     *
+     * @param parent     The parent JFrame for displaying the dialogs. May be null if no parent is required.
+     * @param onFinished The action run on the Event Dispatch Thread when the import has finished or was
+     *                   cancelled, with the number of lines restocked.
+     */
+    public void importDelivery(JFrame parent, IntConsumer onFinished) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Delivery");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files (*.csv)", "csv"));
+        if (chooser.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            onFinished.accept(0); // User cancelled
+            return;
+        }
+        File file = chooser.getSelectedFile();
+
+        Cursor previousCursor = showBusy(parent, null);
+        new SwingWorker<DeliveryScan, Void>() {
+            @Override
+            protected DeliveryScan doInBackground() throws IOException {
+                return scan(file);
+            }
+
+            @Override
+            protected void done() {
+                showBusy(parent, previousCursor);
+                DeliveryScan scan;
+                try {
+                    scan = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(parent,
+                        "Error reading delivery file: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()),
+                        "Import Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    onFinished.accept(0);
+                    return;
+                }
+                confirmAndRestock(parent, file, scan, onFinished);
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows the dry-run report of a scanned delivery file and, once confirmed, writes the valid lines in
+     * the background. Each chunk is committed as its own restock event; the committed chunks are applied
+     * to the product cache once the writing has finished, with the valuation listeners notified once.
+     *
+     * @param parent     The parent JFrame for displaying the dialogs, or null.
+     * @param file       The delivery file.
+     * @param scan       The result of validating the delivery file.
+     * @param onFinished The action run when the import has finished, with the number of lines restocked.
+     */
+    private void confirmAndRestock(JFrame parent, File file, DeliveryScan scan, IntConsumer onFinished) {
+        // Show the dry-run report and ask for confirmation
+        if (scan.lines.isEmpty()) {
+            JOptionPane.showMessageDialog(parent, createReportPanel(scan, file),
+                "Import Error",
+                JOptionPane.ERROR_MESSAGE);
+            onFinished.accept(0);
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(parent, createReportPanel(scan, file), "Import Delivery",
+            JOptionPane.OK_CANCEL_OPTION,
+            scan.unknownProducts.isEmpty() && scan.invalidRows.isEmpty()
+                ? JOptionPane.QUESTION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION || !restockDataManager.validateDelivery(scan.lines)) {
+            onFinished.accept(0);
+            return;
+        }
+
+        Cursor previousCursor = showBusy(parent, null);
+        new SwingWorker<DeliveryWrite, Void>() {
+            @Override
+            protected DeliveryWrite doInBackground() {
+                DeliveryWrite write = new DeliveryWrite();
+                for (int from = 0; from < scan.lines.size(); from += CHUNK_SIZE) {
+                    try {
+                        write.restockIds.add(restockDataManager.writeRestock(chunk(scan, from)));
+                    } catch (SQLException e) {
+                        write.error = e;
+                        break;
+                    }
+                }
+                return write;
+            }
+
+            @Override
+            protected void done() {
+                showBusy(parent, previousCursor);
+                DeliveryWrite write;
+                try {
+                    write = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(parent,
+                        "Error importing delivery: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()),
+                        "Import Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    onFinished.accept(0);
+                    return;
+                }
+                onFinished.accept(applyDelivery(parent, file, scan, write));
+            }
+        }.execute();
+    }
+
+    /**
+     * Applies the committed chunks of a delivery to the product cache and the restock list, and reports
+     * the result. A partial import names the file line of the first row that was not restocked.
+     *
+     * @param parent The parent JFrame for displaying the dialogs, or null.
+     * @param file   The delivery file.
+     * @param scan   The result of validating the delivery file.
+     * @param write  The outcome of writing the delivery.
+     * @return The number of lines restocked.
+     */
+    private int applyDelivery(JFrame parent, File file, DeliveryScan scan, DeliveryWrite write) {
+        InventoryValuation valuation = productDataManager.getValuation();
+        valuation.beginBatch(); // Notify the valuation listeners once for the whole delivery
+        try {
+            for (int i = 0; i < write.restockIds.size(); i++) {
+                restockDataManager.applyRestock(chunk(scan, i * CHUNK_SIZE), write.restockIds.get(i));
+            }
+        } finally {
+            valuation.endBatch();
+        }
+        int restocked = Math.min(write.restockIds.size() * CHUNK_SIZE, scan.lines.size());
+        if (restocked > 0) {
+            restockDataManager.loadRestocks(); // Refresh restock list
+        }
+        if (write.error != null) {
+            restockDataManager.handleSQLException(write.error);
+        }
+
+        if (restocked == scan.lines.size()) {
+            JOptionPane.showMessageDialog(parent,
+                String.format("Delivery imported: %,d lines restocked.", restocked),
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+        } else if (restocked > 0) {
+            JOptionPane.showMessageDialog(parent,
+                String.format("Delivery partially imported: %,d of %,d lines restocked.\n"
+                    + "The rows of %s from line %,d on were not restocked. "
+                    + "Import them again after fixing the error.",
+                    restocked, scan.lines.size(), file.getName(), scan.getLineNumber(restocked)),
+                "Import Error",
+                JOptionPane.WARNING_MESSAGE);
+        }
+        return restocked;
+    }
+
+    /**
+     * Gets a chunk of the valid lines of a delivery.
+     *
+     * @param scan The result of validating the delivery file.
+     * @param from The index of the first line of the chunk.
+     * @return The lines of the chunk, at most {@link #CHUNK_SIZE}.
+     */
+    private static List<RestockLine> chunk(DeliveryScan scan, int from) {
+        return scan.lines.subList(from, Math.min(from + CHUNK_SIZE, scan.lines.size()));
+    }
+
+    /**
+     * Shows or restores the cursor of the parent window while work runs in the background.
+     *
+     * @param parent The parent JFrame, or null.
+     * @param cursor The cursor to restore, or null to show the wait cursor.
+     * @return The cursor shown before, or null if there is no parent.
+     */
+    private static Cursor showBusy(JFrame parent, Cursor cursor) {
+        if (parent == null) {
+            return null;
+        }
+        Cursor previous = parent.getCursor();
+        parent.setCursor(cursor != null ? cursor : Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        return previous;
+    }
+
+    /**
+     * Streams a delivery file and validates every row against the product cache, without writing anything.
+     *
+     * @param file The delivery CSV file.
+     * @return The valid lines and the rows that were rejected.
+     * @throws IOException If the file cannot be read.
+     */
+    public DeliveryScan scan(File file) throws IOException {
+        DeliveryScan scan = new DeliveryScan();
+        try (CsvReader reader = new CsvReader(file)) {
+            boolean firstRow = true;
+            String[] row;
+            while ((row = reader.readRow()) != null) {
+                long lineNumber = reader.getRowLineNumber();
+                String code = row[0].trim();
+                String quantityText = row.length > 1 ? row[1].trim() : "";
+                String costText = row.length > 2 ? row[2].trim() : "";
+                // Skip a header row, recognized by a quantity that is not a number
+                if (firstRow) {
+                    firstRow = false;
+                    if (!validator.isInteger(quantityText)) {
+                        continue;
+                    }
+                }
+
+                if (!validator.isInteger(quantityText) || Integer.parseInt(quantityText) <= 0) {
+                    scan.invalidRows.add("Line " + lineNumber + ": invalid quantity \"" + quantityText + "\"");
+                    continue;
+                }
+                if (!costText.isEmpty() && (!validator.isDouble(costText) || Double.parseDouble(costText) < 0)) {
+                    scan.invalidRows.add("Line " + lineNumber + ": invalid unit cost \"" + costText + "\"");
+                    continue;
+                }
+                ProductData product = findProduct(code);
+                if (product == null) {
+                    scan.unknownProducts.add("Line " + lineNumber + ": unknown product \"" + code + "\"");
+                    continue;
+                }
+
+                int quantity = Integer.parseInt(quantityText);
+                scan.lines.add(new RestockLine(product, quantity));
+                scan.lineNumbers.add(lineNumber);
+                scan.totalUnits += quantity;
+                if (!costText.isEmpty()) {
+                    scan.totalCostCents += InventoryValuation.toCents(Double.parseDouble(costText)) * quantity;
+                }
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Resolves the product column of a row as a barcode/SKU first, then as a product ID, in the snapshot
+     * of the product cache.
+     *
+     * @param code The trimmed product ID or barcode/SKU.
+     * @return The cached product, or null if no product matches.
+     */
+    private ProductData findProduct(String code) {
+        if (code.isEmpty()) {
+            return null;
+        }
+        ProductData product = productsBySku.get(code);
+        if (product == null && validator.isInteger(code)) {
+            product = productsById.get(Integer.parseInt(code));
+        }
+        return product;
+    }
+
+    /**
+     * Creates the dry-run report shown before the import.
+     *
+     * @param scan The result of validating the delivery file.
+     * @param file The delivery file.
+     * @return The report panel.
+     */
+    private static JPanel createReportPanel(DeliveryScan scan, File file) {
+        StringBuilder summary = new StringBuilder("<html>")
+            .append(String.format("<b>%s</b><br>", file.getName()))
+            .append(String.format("Lines to restock: <b>%,d</b> (%,d units", scan.lines.size(), scan.totalUnits));
+        if (scan.totalCostCents > 0) {
+            summary.append(String.format(", cost ₱%,.2f", scan.totalCostCents / 100.0));
+        }
+        summary.append(")<br>")
+            .append(String.format("Unknown products: <b>%,d</b><br>", scan.unknownProducts.size()))
+            .append(String.format("Invalid rows: <b>%,d</b>", scan.invalidRows.size()));
+        if (scan.lines.isEmpty()) {
+            summary.append("<br>The file contains no lines that can be restocked.");
+        } else if (!scan.unknownProducts.isEmpty() || !scan.invalidRows.isEmpty()) {
+            summary.append("<br>Only the valid lines will be restocked.");
+        }
+        summary.append("</html>");
+
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.add(new JLabel(summary.toString()), BorderLayout.NORTH);
+
+        List<String> problems = new ArrayList<>(scan.unknownProducts);
+        problems.addAll(scan.invalidRows);
+        if (!problems.isEmpty()) {
+            StringBuilder details = new StringBuilder();
+            for (String problem : problems.subList(0, Math.min(problems.size(), MAX_REPORTED_PROBLEMS))) {
+                details.append(problem).append('\n');
+            }
+            if (problems.size() > MAX_REPORTED_PROBLEMS) {
+                details.append(String.format("... and %,d more", problems.size() - MAX_REPORTED_PROBLEMS));
+            }
+            JTextArea detailsArea = new JTextArea(details.toString().trim());
+            detailsArea.setEditable(false);
+            JScrollPane scrollPane = new JScrollPane(detailsArea);
+            scrollPane.setPreferredSize(new Dimension(460, 180));
+            panel.add(scrollPane, BorderLayout.CENTER);
+        }
+        return panel;
+    }
+}
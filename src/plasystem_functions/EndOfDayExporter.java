@@ -0,0 +1,277 @@
+package plasystem_functions;
+
+import javax.swing.*;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates the end-of-day bundle of the PlaSystem application: the inventory, transaction and restock
+ * reports packaged in a single zip file together with a manifest of row counts and SHA-256 checksums.
+ * All three reports are read in one database transaction, so they describe the same moment in time. The
+ * inventory and restock reports are written concurrently on a small shared thread pool while the
+ * transaction history, the largest data set, is streamed from a database cursor without being loaded. The bundle is
+ * exported in the background through a {@link ReportExportTask}.
+ */
+public class EndOfDayExporter {
+    /** Directory path where end-of-day bundles are saved. */
+    static final String REPORTS_DIRECTORY = "end_of_day_reports";
+
+    /** The number of threads writing the reports of a bundle. */
+    private static final int WRITER_THREADS = 3;
+
+    /** The name of the manifest entry in the bundle. */
+    private static final String MANIFEST_NAME = "MANIFEST.csv";
+
+    /** The format of the snapshot time recorded in the manifest. */
+    private static final DateTimeFormatter SNAPSHOT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** The bounded pool shared by all bundle exports for writing reports. */
+    private static final ExecutorService WRITER_POOL = Executors.newFixedThreadPool(WRITER_THREADS, new java.util.concurrent.ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "end-of-day-writer-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Writes the content of one report of the bundle.
+     */
+    @FunctionalInterface
+    private interface ReportContent {
+        /**
+         * Writes the report to a CSV writer.
+         *
+         * @param writer The CSV writer of the report.
+         * @throws IOException  If an error occurs during writing.
+         * @throws SQLException If an error occurs while reading from the database.
+         */
+        void write(CsvWriter writer) throws IOException, SQLException;
+    }
+
+    /**
+     * A report written to a temporary file, with the details recorded in the manifest.
+     */
+    private static class BundleEntry {
+        /** The entry name of the report in the bundle. */
+        private final String name;
+        /** The temporary file holding the report. */
+        private final File file;
+        /** The number of data rows in the report. */
+        private final int rows;
+        /** The hexadecimal SHA-256 checksum of the report. */
+        private final String sha256;
+
+        /**
+         * Constructs a BundleEntry.
+         *
+         * @param name   The entry name of the report in the bundle.
+         * @param file   The temporary file holding the report.
+         * @param rows   The number of data rows in the report.
+         * @param sha256 The hexadecimal SHA-256 checksum of the report.
+         */
+        private BundleEntry(String name, File file, int rows, String sha256) {
+            this.name = name;
+            this.file = file;
+            this.rows = rows;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Generates the end-of-day bundle after prompting the user for confirmation. If confirmed, the
+     * bundle is saved in the "end_of_day_reports" directory with a timestamped filename
+     * (e.g., EndOfDay_YYYY-MM-DD_HHMMSS.zip). The export runs in the background with a cancellable
+     * progress monitor, and a success or error message is displayed to the user when it finishes.
+     *
+     * @param parent The parent JFrame for displaying confirmation and result dialogs. May be null
+     *               if no parent is required.
+     */
+    public void generateBundle(JFrame parent) {
+        // Prompt user to confirm export
+        int choice = JOptionPane.showConfirmDialog(
+            parent,
+            "Do you want to export the end-of-day bundle (inventory, transaction and restock reports)?",
+            "End-of-Day Export",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.QUESTION_MESSAGE
+        );
+
+        if (choice != JOptionPane.YES_OPTION) {
+            return; // User cancelled or selected No
+        }
+
+        File bundleFile = ReportHousekeeper.newReportFile(REPORTS_DIRECTORY, "EndOfDay", ".zip");
+        new ReportExportTask(parent, "End-of-Day Bundle", bundleFile, this::writeBundle).start();
+    }
+
+    /**
+     * Reads the snapshot, writes the three reports and packages them with the manifest. The read transaction
+     * stays open until the transaction report has been streamed, while the other two reports are written
+     * concurrently from the products and restocks read at its start.
+     *
+     * @param file The temporary bundle file to write.
+     * @param task The export task to report progress to.
+     * @throws Exception If the snapshot cannot be read or a report cannot be written.
+     */
+    private void writeBundle(File file, ReportExportTask task) throws Exception {
+        File directory = file.getAbsoluteFile().getParentFile();
+        List<Future<BundleEntry>> futures = new ArrayList<>();
+        BundleEntry transactionEntry = null;
+        Exception failure = null;
+        LocalDateTime snapshotTime = null;
+        try (Connection conn = DBConnection.getConnection()) {
+            // Read all data sets in one transaction so the reports are consistent with each other
+            conn.setAutoCommit(false);
+            try {
+                snapshotTime = LocalDateTime.now();
+                List<ProductData> products = ProductDataManager.readProducts(conn);
+                List<RestockData> restocks = RestockDataManager.readRestocks(conn, 0, Integer.MAX_VALUE);
+                int[] transactionCounts = TransactionReportGenerator.countTransactionRows(conn);
+                task.setTotalRows(InventoryReportGenerator.countRows(products)
+                    + transactionCounts[1]
+                    + RestockReportGenerator.countRows(restocks));
+
+                // Write the inventory and restock reports concurrently to temporary files next to the bundle
+                futures.add(WRITER_POOL.submit(() -> writeEntry(directory, "InventoryReport.csv",
+                    InventoryReportGenerator.countRows(products), writer -> InventoryReportGenerator.writeCSV(products, writer, task))));
+                futures.add(WRITER_POOL.submit(() -> writeEntry(directory, "RestockReport.csv",
+                    RestockReportGenerator.countRows(restocks), writer -> RestockReportGenerator.writeCSV(restocks, writer, task))));
+
+                // Stream the transaction history on this thread, which owns the connection
+                transactionEntry = writeEntry(directory, "TransactionReport.csv", transactionCounts[1],
+                    writer -> TransactionReportGenerator.writeStreamingCSV(conn, writer, task, transactionCounts[0]));
+            } finally {
+                conn.rollback(); // Read-only transaction, nothing to commit
+                conn.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        // Wait for the concurrently written reports, remembering the first failure
+        List<BundleEntry> entries = new ArrayList<>();
+        for (Future<BundleEntry> future : futures) {
+            try {
+                entries.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (transactionEntry != null) {
+            // Keep the inventory, transaction and restock order of the bundle
+            entries.add(Math.min(1, entries.size()), transactionEntry);
+        }
+
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            writeZip(file, entries, snapshotTime);
+        } finally {
+            for (BundleEntry entry : entries) {
+                Files.deleteIfExists(entry.file.toPath());
+            }
+        }
+    }
+
+    /**
+     * Writes one report to a temporary file, computing its SHA-256 checksum while it is written.
+     *
+     * @param directory The directory for the temporary file.
+     * @param name      The entry name of the report in the bundle.
+     * @param rows      The number of data rows in the report.
+     * @param content   The report content.
+     * @return The bundle entry describing the written report.
+     * @throws IOException              If the report cannot be written.
+     * @throws SQLException             If the report content cannot be read from the database.
+     * @throws NoSuchAlgorithmException If SHA-256 is not available.
+     */
+    private BundleEntry writeEntry(File directory, String name, int rows, ReportContent content)
+            throws IOException, SQLException, NoSuchAlgorithmException {
+        File tempFile = File.createTempFile(name + ".", ".part", directory);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (CsvWriter writer = new CsvWriter(new DigestOutputStream(new FileOutputStream(tempFile), digest),
+                CsvWriter.DEFAULT_CHARSET, CsvWriter.DEFAULT_DELIMITER)) {
+            content.write(writer);
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+        return new BundleEntry(name, tempFile, rows, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Packages the reports and the manifest into the bundle zip file.
+     *
+     * @param file         The bundle file to write.
+     * @param entries      The written reports.
+     * @param snapshotTime The time the data snapshot was taken.
+     * @throws IOException If the bundle cannot be written.
+     */
+    private void writeZip(File file, List<BundleEntry> entries, LocalDateTime snapshotTime) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (BundleEntry entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry.name));
+                Files.copy(entry.file.toPath(), zip);
+                zip.closeEntry();
+            }
+            zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+            zip.write(buildManifest(entries, snapshotTime));
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Builds the manifest listing each report with its row count, size and checksum.
+     *
+     * @param entries      The written reports.
+     * @param snapshotTime The time the data snapshot was taken.
+     * @return The manifest as UTF-8 CSV bytes.
+     * @throws IOException If the manifest cannot be written.
+     */
+    private byte[] buildManifest(List<BundleEntry> entries, LocalDateTime snapshotTime) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CsvWriter writer = new CsvWriter(bytes, CsvWriter.DEFAULT_CHARSET, CsvWriter.DEFAULT_DELIMITER)) {
+            writer.field("End-of-Day Bundle").endRow();
+            writer.field("Generated by PlaSystem").endRow();
+            writer.field("Snapshot Taken: " + snapshotTime.format(SNAPSHOT_FORMAT)).endRow();
+            writer.endRow();
+            writer.row("File", "Data Rows", "Bytes", "SHA-256");
+            for (BundleEntry entry : entries) {
+                writer.field(entry.name)
+                      .field(entry.rows)
+                      .field(entry.file.length())
+                      .field(entry.sha256)
+                      .endRow();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,251 @@
+package plasystem_functions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Formats sales receipts of the PlaSystem application as ESC/POS text commands for 58mm and 80mm
+ * thermal receipt printers. The printer renders the text with its own fonts, so a receipt is a few
+ * hundred bytes instead of a rasterized image. The commands can be written to any output stream, such
+ * as a printer device, a file capturing the print jobs, or an in-memory stream standing in for a printer.
+ */
+public class EscPosReceiptPrinter {
+    /** The number of characters per line of a 58mm printer in its default font. */
+    public static final int COLUMNS_58MM = 32;
+
+    /** The number of characters per line of an 80mm printer in its default font. */
+    public static final int COLUMNS_80MM = 48;
+
+    /** The width of the quantity column in characters. */
+    private static final int QUANTITY_WIDTH = 5;
+
+    /** The width of the price column in characters. */
+    private static final int PRICE_WIDTH = 11;
+
+    /** ESC @: initializes the printer. */
+    private static final byte[] INITIALIZE = {0x1B, 0x40};
+
+    /** ESC t 0: selects code page PC437, whose lower half is plain ASCII. */
+    private static final byte[] CODE_PAGE_ASCII = {0x1B, 0x74, 0x00};
+
+    /** ESC a n: selects left, centre or right justification. */
+    private static final byte[] ALIGN_LEFT = {0x1B, 0x61, 0x00}, ALIGN_CENTER = {0x1B, 0x61, 0x01};
+
+    /** ESC E n: turns emphasized (bold) printing on or off. */
+    private static final byte[] BOLD_ON = {0x1B, 0x45, 0x01}, BOLD_OFF = {0x1B, 0x45, 0x00};
+
+    /** GS ! n: selects double-height text or normal text. */
+    private static final byte[] DOUBLE_HEIGHT = {0x1D, 0x21, 0x01}, NORMAL_SIZE = {0x1D, 0x21, 0x00};
+
+    /** ESC d n: prints and feeds n lines, so the last line clears the cutter. */
+    private static final byte[] FEED_BEFORE_CUT = {0x1B, 0x64, 0x04};
+
+    /** GS V 1: partially cuts the paper. */
+    private static final byte[] PARTIAL_CUT = {0x1D, 0x56, 0x01};
+
+    /** The single background thread sending receipts to the configured printer. */
+    private static final ExecutorService PRINT_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EscPosReceiptPrinter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The number of characters per printed line. */
+    private final int columns;
+
+    /**
+     * Constructs an EscPosReceiptPrinter for a paper width.
+     *
+     * @param columns The number of characters per line, such as {@link #COLUMNS_58MM} or {@link #COLUMNS_80MM}.
+     * @throws IllegalArgumentException if the line is too narrow for the item columns.
+     */
+    public EscPosReceiptPrinter(int columns) {
+        if (columns < QUANTITY_WIDTH + PRICE_WIDTH + 8) {
+            throw new IllegalArgumentException("A receipt line needs at least " + (QUANTITY_WIDTH + PRICE_WIDTH + 8) + " columns.");
+        }
+        this.columns = columns;
+    }
+
+    /**
+     * Checks whether a receipt printer is configured with the receipt.printer.target setting.
+     *
+     * @return {@code true} if receipts should be sent to a printer.
+     */
+    public static boolean isConfigured() {
+        return AppSettings.getString(AppSettings.RECEIPT_PRINTER_TARGET, null) != null;
+    }
+
+    /**
+     * Sends a receipt to the configured printer on a background thread. The target is opened in append
+     * mode, so it may be a device such as /dev/usb/lp0 or a shared Windows printer, or a file that
+     * collects the print jobs.
+     *
+     * @param receipt The receipt to print.
+     * @return A future completed when the receipt was written, or completed exceptionally if printing fails.
+     */
+    public static CompletableFuture<Void> printAsync(ReceiptData receipt) {
+        String target = AppSettings.getString(AppSettings.RECEIPT_PRINTER_TARGET, null);
+        int columns = AppSettings.getInt(AppSettings.RECEIPT_PRINTER_COLUMNS, COLUMNS_58MM);
+        return CompletableFuture.runAsync(() -> {
+            if (target == null) {
+                throw new IllegalStateException("No receipt printer is configured.");
+            }
+            try (OutputStream out = new FileOutputStream(target, true)) {
+                new EscPosReceiptPrinter(columns).print(receipt, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, PRINT_EXECUTOR);
+    }
+
+    /**
+     * Writes the ESC/POS commands of a receipt to a stream and flushes it.
+     *
+     * @param receipt The receipt to print.
+     * @param out     The stream to write to.
+     * @throws IOException If writing to the stream fails.
+     */
+    public void print(ReceiptData receipt, OutputStream out) throws IOException {
+        out.write(format(receipt));
+        out.flush();
+    }
+
+    /**
+     * Formats a receipt as ESC/POS commands.
+     *
+     * @param receipt The receipt to format.
+     * @return The command bytes, ending with a paper cut.
+     */
+    public byte[] format(ReceiptData receipt) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        out.writeBytes(INITIALIZE);
+        out.writeBytes(CODE_PAGE_ASCII);
+
+        // Store and receipt identification
+        out.writeBytes(ALIGN_CENTER);
+        writeLine(out, "Legazpi City, Albay, Philippines");
+        writeLine(out, "This serves as a Sales Invoice.");
+        out.writeBytes(BOLD_ON);
+        out.writeBytes(DOUBLE_HEIGHT);
+        writeLine(out, receipt.getReceiptNumber());
+        out.writeBytes(NORMAL_SIZE);
+        out.writeBytes(BOLD_OFF);
+        out.writeBytes(ALIGN_LEFT);
+        writeLine(out, fit("Date: " + receipt.getTransactionDate(), columns));
+        writeLine(out, repeat('-', columns));
+
+        // Item lines
+        int nameWidth = columns - QUANTITY_WIDTH - PRICE_WIDTH;
+        out.writeBytes(BOLD_ON);
+        writeLine(out, padRight("Item", nameWidth) + padLeft("Qty", QUANTITY_WIDTH) + padLeft("Price", PRICE_WIDTH));
+        out.writeBytes(BOLD_OFF);
+        for (ReceiptData.Line line : receipt.getLines()) {
+            writeLine(out, padRight(fit(line.getProductName(), nameWidth - 1), nameWidth)
+                + padLeft(String.valueOf(line.getQuantity()), QUANTITY_WIDTH)
+                + padLeft(formatAmount(line.getTotalPrice()), PRICE_WIDTH));
+        }
+        writeLine(out, repeat('-', columns));
+
+        // Amounts
+        out.writeBytes(BOLD_ON);
+        writeAmount(out, "Total Amount:", receipt.getTotalAmount());
+        out.writeBytes(BOLD_OFF);
+        writeAmount(out, "Cash:", receipt.getCashAmount());
+        writeAmount(out, "Change:", receipt.getChangeAmount());
+
+        out.writeBytes(FEED_BEFORE_CUT);
+        out.writeBytes(PARTIAL_CUT);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a labelled amount line with the amount right-aligned.
+     *
+     * @param out    The command buffer.
+     * @param label  The label.
+     * @param amount The amount.
+     */
+    private void writeAmount(ByteArrayOutputStream out, String label, double amount) {
+        String value = formatAmount(amount);
+        writeLine(out, padRight(fit(label, columns - value.length() - 1), columns - value.length()) + value);
+    }
+
+    /**
+     * Writes a line of text followed by a line feed. Characters outside printable ASCII are replaced
+     * with '?', since the printer's code page has no glyphs for them.
+     *
+     * @param out  The command buffer.
+     * @param text The text of the line.
+     */
+    private static void writeLine(ByteArrayOutputStream out, String text) {
+        StringBuilder ascii = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            ascii.append(c >= 0x20 && c < 0x7F ? c : '?');
+        }
+        out.writeBytes(ascii.toString().getBytes(StandardCharsets.US_ASCII));
+        out.write('\n');
+    }
+
+    /**
+     * Formats an amount in pesos. The peso sign is not available in the printer's code page, so the
+     * letter P is printed instead, as on handwritten receipts.
+     *
+     * @param amount The amount.
+     * @return The formatted amount.
+     */
+    private static String formatAmount(double amount) {
+        return String.format("P%.2f", amount);
+    }
+
+    /**
+     * Truncates text to a number of characters.
+     *
+     * @param text  The text.
+     * @param width The maximum number of characters.
+     * @return The text, truncated if necessary.
+     */
+    private static String fit(String text, int width) {
+        return text.length() <= width ? text : text.substring(0, width);
+    }
+
+    /**
+     * Pads text with spaces on the right.
+     *
+     * @param text  The text.
+     * @param width The width to pad to.
+     * @return The padded text.
+     */
+    private static String padRight(String text, int width) {
+        return text.length() >= width ? text : text + repeat(' ', width - text.length());
+    }
+
+    /**
+     * Pads text with spaces on the left.
+     *
+     * @param text  The text.
+     * @param width The width to pad to.
+     * @return The padded text.
+     */
+    private static String padLeft(String text, int width) {
+        return text.length() >= width ? text : repeat(' ', width - text.length()) + text;
+    }
+
+    /**
+     * Repeats a character.
+     *
+     * @param c     The character.
+     * @param count The number of repetitions.
+     * @return The repeated characters.
+     */
+    private static String repeat(char c, int count) {
+        return String.valueOf(c).repeat(Math.max(0, count));
+    }
+}
@@ -0,0 +1,164 @@
+package plasystem_functions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Keeps track of incremental report exports in the PlaSystem database. For each report a watermark
+ * stores the highest record ID already exported, so the next incremental export only includes newer
+ * records, and every export is recorded in a ledger keyed by its ID range. Recording the same range
+ * again updates the existing ledger entry instead of adding a new one, and a watermark never moves
+ * backwards, so rerunning an export is idempotent.
+ */
+public class ExportLedger {
+    /** The report name of incremental transaction reports. */
+    public static final String TRANSACTION_REPORT = "TransactionReport";
+
+    /** The report name of incremental restock reports. */
+    public static final String RESTOCK_REPORT = "RestockReport";
+
+    /** SQL query to select the watermark of a report. */
+    private static final String SELECT_WATERMARK_QUERY =
+        "SELECT EW_LAST_EXPORTED_ID, EW_LAST_EXPORTED_AT FROM ExportWatermark WHERE EW_REPORT_NAME = ?";
+
+    /** SQL statement to record an export in the ledger, replacing the details of an earlier export of the same range. */
+    private static final String UPSERT_LEDGER_QUERY =
+        "INSERT INTO ExportLedger (EL_REPORT_NAME, EL_FROM_ID, EL_TO_ID, EL_ROW_COUNT, EL_FILE_NAME, EL_EXPORTED_AT) " +
+        "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (EL_REPORT_NAME, EL_FROM_ID, EL_TO_ID) DO UPDATE SET " +
+        "EL_ROW_COUNT = excluded.EL_ROW_COUNT, EL_FILE_NAME = excluded.EL_FILE_NAME, EL_EXPORTED_AT = excluded.EL_EXPORTED_AT";
+
+    /** SQL statement to advance the watermark of a report, ignoring any attempt to move it backwards. */
+    private static final String UPSERT_WATERMARK_QUERY =
+        "INSERT INTO ExportWatermark (EW_REPORT_NAME, EW_LAST_EXPORTED_ID, EW_LAST_EXPORTED_AT) VALUES (?, ?, ?) " +
+        "ON CONFLICT (EW_REPORT_NAME) DO UPDATE SET EW_LAST_EXPORTED_ID = excluded.EW_LAST_EXPORTED_ID, " +
+        "EW_LAST_EXPORTED_AT = excluded.EW_LAST_EXPORTED_AT " +
+        "WHERE excluded.EW_LAST_EXPORTED_ID > ExportWatermark.EW_LAST_EXPORTED_ID";
+
+    /** The format of export timestamps, such as 2025-04-30 17:30:05. */
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * The position of a report's last incremental export.
+     */
+    public static final class Watermark {
+        /** The highest record ID already exported, or 0 if the report has never been exported. */
+        private final int lastExportedId;
+
+        /** The time of the last export, or null if the report has never been exported. */
+        private final String lastExportedAt;
+
+        /**
+         * Constructs a Watermark.
+         *
+         * @param lastExportedId The highest record ID already exported.
+         * @param lastExportedAt The time of the last export, or null if never exported.
+         */
+        private Watermark(int lastExportedId, String lastExportedAt) {
+            this.lastExportedId = lastExportedId;
+            this.lastExportedAt = lastExportedAt;
+        }
+
+        /**
+         * Gets the highest record ID already exported.
+         *
+         * @return The last exported ID, or 0 if the report has never been exported.
+         */
+        public int getLastExportedId() {
+            return lastExportedId;
+        }
+
+        /**
+         * Gets the time of the last export.
+         *
+         * @return The export time as yyyy-MM-dd HH:mm:ss, or null if the report has never been exported.
+         */
+        public String getLastExportedAt() {
+            return lastExportedAt;
+        }
+    }
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ExportLedger() {
+    }
+
+    /**
+     * Reads the watermark of a report.
+     *
+     * @param conn       The open database connection.
+     * @param reportName The report name, such as {@link #TRANSACTION_REPORT}.
+     * @return The watermark, with ID 0 if the report has never been exported.
+     * @throws SQLException If a database error occurs.
+     */
+    public static Watermark getWatermark(Connection conn, String reportName) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_WATERMARK_QUERY)) {
+            pstmt.setString(1, reportName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Watermark(rs.getInt(1), rs.getString(2));
+                }
+            }
+        }
+        return new Watermark(0, null);
+    }
+
+    /**
+     * Reads the watermark of a report using a new database connection.
+     *
+     * @param reportName The report name, such as {@link #TRANSACTION_REPORT}.
+     * @return The watermark, with ID 0 if the report has never been exported.
+     * @throws SQLException If a database error occurs.
+     */
+    public static Watermark getWatermark(String reportName) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            return getWatermark(conn, reportName);
+        }
+    }
+
+    /**
+     * Records a completed incremental export and advances the report's watermark in a single
+     * transaction. An empty range (toId not greater than fromId) is not recorded.
+     *
+     * @param reportName The report name, such as {@link #TRANSACTION_REPORT}.
+     * @param fromId     The watermark the export started from, exclusive.
+     * @param toId       The highest record ID included in the export.
+     * @param rowCount   The number of data rows written.
+     * @param fileName   The name of the report file.
+     * @throws SQLException If a database error occurs. Nothing is recorded in that case.
+     */
+    public static void recordExport(String reportName, int fromId, int toId, int rowCount, String fileName)
+            throws SQLException {
+        if (toId <= fromId) {
+            return;
+        }
+        String exportedAt = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ledgerStmt = conn.prepareStatement(UPSERT_LEDGER_QUERY);
+                 PreparedStatement watermarkStmt = conn.prepareStatement(UPSERT_WATERMARK_QUERY)) {
+                ledgerStmt.setString(1, reportName);
+                ledgerStmt.setInt(2, fromId);
+                ledgerStmt.setInt(3, toId);
+                ledgerStmt.setInt(4, rowCount);
+                ledgerStmt.setString(5, fileName);
+                ledgerStmt.setString(6, exportedAt);
+                ledgerStmt.executeUpdate();
+
+                watermarkStmt.setString(1, reportName);
+                watermarkStmt.setInt(2, toId);
+                watermarkStmt.setString(3, exportedAt);
+                watermarkStmt.executeUpdate();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+}
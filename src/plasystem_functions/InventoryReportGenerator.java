@@ -2,26 +2,26 @@ package plasystem_functions;
 
 import javax.swing.*;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Utility class for generating inventory reports in CSV format for the PlaSystem application.
- * The report includes product details and highlights low stock items, saving the output to a
- * timestamped file in the "inventory_reports" directory.
+ * The report includes product details, highlights low stock items and ends with the stock value
+ * by product type and brand, saving the output to a timestamped file in the "inventory_reports"
+ * directory.
  */
 public class InventoryReportGenerator {
     /** Directory path where inventory reports are saved. */
-    private static final String REPORTS_DIRECTORY = "inventory_reports";
+    static final String REPORTS_DIRECTORY = "inventory_reports";
 
     /** List of products to include in the report. */
     private final List<ProductData> productList;
 
     /** Column headers for the CSV report. */
-    private final String[] HEADERS = {"ID", "Name", "Brand", "Size", "Type", "Price", "Quantity", "Restock Value"};
+    private static final String[] HEADERS = {"ID", "Name", "Brand", "Size", "Type", "Price", "Quantity", "Restock Value"};
 
     /**
      * Constructs an InventoryReportGenerator with the specified list of products.
@@ -36,7 +36,9 @@ public class InventoryReportGenerator {
     /**
      * Generates a CSV inventory report after prompting the user for confirmation. If confirmed,
      * the report is saved in the "inventory_reports" directory with a timestamped filename
-     * (e.g., InventoryReport_YYYY-MM-DD_HHMMSS.csv). Displays a success or error message to the user.
+     * (e.g., InventoryReport_YYYY-MM-DD_HHMMSS.csv). The report is written in the background from
+     * copies of the products taken on the Event Dispatch Thread, with a cancellable progress monitor,
+     * and a success or error message is displayed to the user when it finishes.
      *
      * @param parent The parent JFrame for displaying confirmation and result dialogs. May be null
      *               if no parent is required.
@@ -55,28 +57,18 @@ public class InventoryReportGenerator {
             return; // User cancelled or selected No
         }
 
-        // Create inventory_reports directory if it doesn't exist
-        File reportsDir = new File(REPORTS_DIRECTORY);
-        if (!reportsDir.exists()) {
-            reportsDir.mkdirs();
-        }
+        // Create the report file, e.g. InventoryReport_YYYY-MM-DD_HHMMSS.csv or .csv.gz when compression is enabled
+        File reportFile = ReportHousekeeper.newReportFile(REPORTS_DIRECTORY, "InventoryReport");
 
-        // Generate filename with specific format: InventoryReport_YYYY-MM-DD_HHMMSS
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd_HHmmss").format(new Date());
-        String filePath = REPORTS_DIRECTORY + "/InventoryReport_" + timestamp + ".csv";
-
-        try {
-            generateCSVReport(filePath);
-            JOptionPane.showMessageDialog(parent,
-                    "Report generated successfully at: " + filePath,
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(parent,
-                    "Error generating report: " + e.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
+        // Snapshot the products on this thread; the cached products are updated in place by later sales and restocks
+        List<ProductData> products = new ArrayList<>(productList.size());
+        for (ProductData product : productList) {
+            products.add(new ProductData(product.getProductId(), product.getProductName(), product.getProductBrand(),
+                product.getProductSize(), product.getProductType(), product.getProductPrice(),
+                product.getProductQuantity(), product.getProductRestockValue(), product.getProductSku()));
         }
+        new ReportExportTask(parent, "Inventory Report", reportFile,
+                (file, task) -> generateCSVReport(products, file.getPath(), task)).start();
     }
 
     /**
@@ -84,36 +76,106 @@ public class InventoryReportGenerator {
      * product details. Each row includes product attributes and a "Low Stock" indicator based
      * on the comparison of quantity and restock value.
      *
+     * @param products The products to include in the report.
      * @param filePath The path where the CSV file will be saved. Must not be null or empty.
+     * @param task     The export task to report progress to.
      * @throws IOException If an error occurs during file writing, such as insufficient permissions
-     *                     or disk space issues.
+     *                     or disk space issues, or if the export is cancelled.
      * @throws NullPointerException If filePath is null.
      */
-    private void generateCSVReport(String filePath) throws IOException {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            // Write header
-            writer.write("Inventory Report\n");
-            writer.write("Generated by PlaSystem\n");
-            writer.write("Total Different Products: " + productList.size() + "\n\n");
-
-            // Write column headers
-            writer.write(String.join(",", HEADERS) + ",Low Stock\n");
-
-            // Write data rows
-            for (ProductData product : productList) {
-                String[] row = {
-                        String.valueOf(product.getProductId()),
-                        product.getProductName(),
-                        product.getProductBrand(),
-                        product.getProductSize(),
-                        product.getProductType(),
-                        String.valueOf(product.getProductPrice()), // Plain double representation
-                        String.valueOf(product.getProductQuantity()),
-                        String.valueOf(product.getProductRestockValue()),
-                        product.getProductQuantity() <= product.getProductRestockValue() ? "Yes" : "No"
-                };
-                writer.write(String.join(",", row) + "\n");
-            }
+    private void generateCSVReport(List<ProductData> products, String filePath, ReportExportTask task) throws IOException {
+        task.setTotalRows(countRows(products));
+        try (CsvWriter writer = task.openCsvWriter(new File(filePath))) {
+            writeCSV(products, writer, task);
+        }
+    }
+
+    /**
+     * Counts the data rows of a report, one per product.
+     *
+     * @param products The products to include in the report.
+     * @return The number of data rows.
+     */
+    static int countRows(List<ProductData> products) {
+        return products.size();
+    }
+
+    /**
+     * Writes the report header, data rows and stock valuation sections to a CSV writer. Shared by
+     * single report exports and the end-of-day bundle.
+     *
+     * @param products The products to include in the report.
+     * @param writer   The CSV writer to write to.
+     * @param task     The export task to report progress to.
+     * @throws IOException If an error occurs during writing or the export is cancelled.
+     */
+    static void writeCSV(List<ProductData> products, CsvWriter writer, ReportExportTask task) throws IOException {
+        // Write header
+        writer.field("Inventory Report").endRow();
+        writer.field("Generated by PlaSystem").endRow();
+        writer.field("Total Different Products: " + products.size()).endRow();
+        writer.endRow();
+
+        // Write column headers
+        for (String header : HEADERS) {
+            writer.field(header);
         }
+        writer.field("Low Stock").endRow();
+
+        // Write data rows
+        for (ProductData product : products) {
+            writer.field(product.getProductId())
+                  .field(product.getProductName())
+                  .field(product.getProductBrand())
+                  .field(product.getProductSize())
+                  .field(product.getProductType())
+                  .field(product.getProductPrice()) // Plain double representation
+                  .field(product.getProductQuantity())
+                  .field(product.getProductRestockValue())
+                  .field(product.getProductQuantity() <= product.getProductRestockValue() ? "Yes" : "No")
+                  .endRow();
+            task.rowWritten();
+        }
+
+        // Write the stock valuation of the same products
+        InventoryValuation valuation = new InventoryValuation();
+        valuation.reset(products);
+        writeValuationSection(writer, "Stock Valuation by Type", "Type", valuation.getByType());
+        writeValuationSection(writer, "Stock Valuation by Brand", "Brand", valuation.getByBrand());
+        writer.endRow();
+        writer.field("Total Stock Value").field(formatCents(valuation.getTotalValueCents())).endRow();
+    }
+
+    /**
+     * Writes one section of the stock valuation, preceded by an empty row and a title.
+     *
+     * @param writer    The CSV writer to write to.
+     * @param title     The title of the section.
+     * @param groupName The column header of the grouping, such as "Type".
+     * @param entries   The valuation entries of the section.
+     * @throws IOException If an error occurs during writing.
+     */
+    private static void writeValuationSection(CsvWriter writer, String title, String groupName,
+                                              List<InventoryValuation.Entry> entries) throws IOException {
+        writer.endRow();
+        writer.field(title).endRow();
+        writer.row(groupName, "Products", "Units", "Stock Value");
+        for (InventoryValuation.Entry entry : entries) {
+            writer.field(entry.getName())
+                  .field(entry.getProductCount())
+                  .field(entry.getUnits())
+                  .field(formatCents(entry.getValueCents()))
+                  .endRow();
+        }
+    }
+
+    /**
+     * Formats an amount in cents with exactly two decimal places.
+     *
+     * @param cents The amount in cents.
+     * @return The formatted amount, such as 1234.50.
+     */
+    private static String formatCents(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
     }
 }
\ No newline at end of file
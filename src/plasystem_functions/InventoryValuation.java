@@ -0,0 +1,331 @@
+package plasystem_functions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Keeps the live stock value (price x quantity) of the PlaSystem inventory, in total and broken down by
+ * product type and brand. Values are accumulated in whole cents, and every product change is applied as
+ * a delta to the affected type and brand, so keeping the valuation current costs O(1) per product
+ * mutation, restock or sale instead of a pass over the whole product list. Listeners are notified after
+ * every change, or once at the end of a batch opened with {@link #beginBatch()} for bulk imports and
+ * deliveries. Instances are maintained by {@link ProductDataManager} on the Event Dispatch Thread.
+ */
+public class InventoryValuation {
+    /**
+     * The valuation of one product type or brand.
+     */
+    public static final class Entry {
+        /** The product type or brand. */
+        private final String name;
+        /** The number of products of this type or brand. */
+        private final int productCount;
+        /** The number of units in stock. */
+        private final long units;
+        /** The stock value in cents. */
+        private final long valueCents;
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param name         The product type or brand.
+         * @param productCount The number of products.
+         * @param units        The number of units in stock.
+         * @param valueCents   The stock value in cents.
+         */
+        private Entry(String name, int productCount, long units, long valueCents) {
+            this.name = name;
+            this.productCount = productCount;
+            this.units = units;
+            this.valueCents = valueCents;
+        }
+
+        /**
+         * Gets the product type or brand.
+         *
+         * @return The name of the group.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of products of this type or brand.
+         *
+         * @return The product count.
+         */
+        public int getProductCount() {
+            return productCount;
+        }
+
+        /**
+         * Gets the number of units in stock.
+         *
+         * @return The units in stock.
+         */
+        public long getUnits() {
+            return units;
+        }
+
+        /**
+         * Gets the stock value in cents.
+         *
+         * @return The stock value in cents.
+         */
+        public long getValueCents() {
+            return valueCents;
+        }
+
+        /**
+         * Gets the stock value.
+         *
+         * @return The stock value in pesos.
+         */
+        public double getValue() {
+            return valueCents / 100.0;
+        }
+    }
+
+    /**
+     * Mutable accumulator of one product type or brand.
+     */
+    private static final class Accumulator {
+        /** The number of products in the group. */
+        private int productCount;
+        /** The number of units in stock. */
+        private long units;
+        /** The stock value in cents. */
+        private long valueCents;
+    }
+
+    /** Accumulators keyed by product type. */
+    private final Map<String, Accumulator> byType = new HashMap<>();
+
+    /** Accumulators keyed by product brand. */
+    private final Map<String, Accumulator> byBrand = new HashMap<>();
+
+    /** The listeners notified after every change. */
+    private final List<ChangeListener> listeners = new ArrayList<>();
+
+    /** The total number of units in stock. */
+    private long totalUnits;
+
+    /** The total stock value in cents. */
+    private long totalValueCents;
+
+    /** The number of open batches; listeners are not notified while it is positive. */
+    private int batchDepth;
+
+    /** Whether the valuation changed since the outermost batch was opened. */
+    private boolean changedInBatch;
+
+    /**
+     * Opens a batch of changes. Until the matching {@link #endBatch()}, changes are applied but the
+     * listeners are not notified. Batches may be nested; only the outermost one notifies.
+     */
+    void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Closes a batch opened with {@link #beginBatch()}. When the outermost batch is closed, the listeners
+     * are notified once if the valuation changed within it. Must be called from a finally block.
+     */
+    void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch is open.");
+        }
+        if (--batchDepth == 0 && changedInBatch) {
+            changedInBatch = false;
+            fireStateChanged();
+        }
+    }
+
+    /**
+     * Replaces the valuation with that of the given products.
+     *
+     * @param products The complete list of products.
+     */
+    void reset(Collection<ProductData> products) {
+        byType.clear();
+        byBrand.clear();
+        totalUnits = 0;
+        totalValueCents = 0;
+        for (ProductData product : products) {
+            apply(product, 1);
+        }
+        fireStateChanged();
+    }
+
+    /**
+     * Adds a product to the valuation.
+     *
+     * @param product The product added to the inventory.
+     */
+    void add(ProductData product) {
+        apply(product, 1);
+        fireStateChanged();
+    }
+
+    /**
+     * Removes a product from the valuation. Must be called with the product's values as they were
+     * added, that is before the product is modified.
+     *
+     * @param product The product removed from the inventory.
+     */
+    void remove(ProductData product) {
+        apply(product, -1);
+        fireStateChanged();
+    }
+
+    /**
+     * Applies a change in the stock quantity of a product.
+     *
+     * @param product       The product, with its price, type and brand unchanged.
+     * @param quantityDelta The change in quantity, positive for a restock and negative for a sale.
+     */
+    void changeQuantity(ProductData product, int quantityDelta) {
+        long valueDelta = toCents(product.getProductPrice()) * quantityDelta;
+        update(byType, product.getProductType(), 0, quantityDelta, valueDelta);
+        update(byBrand, product.getProductBrand(), 0, quantityDelta, valueDelta);
+        totalUnits += quantityDelta;
+        totalValueCents += valueDelta;
+        fireStateChanged();
+    }
+
+    /**
+     * Gets the total number of units in stock.
+     *
+     * @return The total units.
+     */
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    /**
+     * Gets the total stock value in cents.
+     *
+     * @return The total stock value in cents.
+     */
+    public long getTotalValueCents() {
+        return totalValueCents;
+    }
+
+    /**
+     * Gets the valuation of each product type, highest value first.
+     *
+     * @return A new list of entries, one per product type.
+     */
+    public List<Entry> getByType() {
+        return toEntries(byType);
+    }
+
+    /**
+     * Gets the valuation of each product brand, highest value first.
+     *
+     * @return A new list of entries, one per product brand.
+     */
+    public List<Entry> getByBrand() {
+        return toEntries(byBrand);
+    }
+
+    /**
+     * Registers a listener notified after every change of the valuation.
+     *
+     * @param listener The listener to add.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a change listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Converts a price to whole cents, rounding half up like the rest of the application.
+     *
+     * @param price The price in pesos.
+     * @return The price in cents.
+     */
+    static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    /**
+     * Adds or subtracts the full stock of a product.
+     *
+     * @param product The product.
+     * @param sign    1 to add the product, -1 to subtract it.
+     */
+    private void apply(ProductData product, int sign) {
+        long units = (long) product.getProductQuantity() * sign;
+        long valueCents = toCents(product.getProductPrice()) * units;
+        update(byType, product.getProductType(), sign, units, valueCents);
+        update(byBrand, product.getProductBrand(), sign, units, valueCents);
+        totalUnits += units;
+        totalValueCents += valueCents;
+    }
+
+    /**
+     * Applies a delta to the accumulator of a group, removing the accumulator once it has no products.
+     *
+     * @param groups       The accumulators by type or by brand.
+     * @param key          The product type or brand.
+     * @param productDelta The change in the number of products.
+     * @param unitsDelta   The change in units.
+     * @param valueDelta   The change in value in cents.
+     */
+    private static void update(Map<String, Accumulator> groups, String key, int productDelta, long unitsDelta, long valueDelta) {
+        Accumulator accumulator = groups.computeIfAbsent(key, k -> new Accumulator());
+        accumulator.productCount += productDelta;
+        accumulator.units += unitsDelta;
+        accumulator.valueCents += valueDelta;
+        if (accumulator.productCount <= 0) {
+            groups.remove(key);
+        }
+    }
+
+    /**
+     * Copies the accumulators of a grouping into entries sorted by value, highest first.
+     *
+     * @param groups The accumulators by type or by brand.
+     * @return A new list of entries.
+     */
+    private static List<Entry> toEntries(Map<String, Accumulator> groups) {
+        List<Entry> entries = new ArrayList<>(groups.size());
+        for (Map.Entry<String, Accumulator> group : groups.entrySet()) {
+            Accumulator accumulator = group.getValue();
+            entries.add(new Entry(group.getKey(), accumulator.productCount, accumulator.units, accumulator.valueCents));
+        }
+        entries.sort((a, b) -> a.valueCents != b.valueCents
+            ? Long.compare(b.valueCents, a.valueCents)
+            : a.name.compareToIgnoreCase(b.name));
+        return entries;
+    }
+
+    /**
+     * Notifies the listeners that the valuation has changed, or records the change for the end of the
+     * open batch.
+     */
+    private void fireStateChanged() {
+        if (batchDepth > 0) {
+            changedInBatch = true;
+            return;
+        }
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener listener : new ArrayList<>(listeners)) {
+            listener.stateChanged(event);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package plasystem_functions;
+
+/**
+ * The features of the PlaSystem application a role may be granted. Each permission occupies one bit of
+ * the permission masks compiled by {@link RoleBasedAccessControl}.
+ */
+public enum Permission {
+    /** View and search the product table. */
+    VIEW_PRODUCTS("view products"),
+    /** Add new products. */
+    ADD_PRODUCT("add products"),
+    /** Edit existing products. */
+    EDIT_PRODUCT("edit products"),
+    /** Delete products. */
+    DELETE_PRODUCT("delete products"),
+    /** Sell products at a checkout lane. */
+    PROCESS_TRANSACTION("process transactions"),
+    /** Restock products. */
+    RESTOCK_PRODUCT("restock products"),
+    /** View the products low on stock. */
+    VIEW_LOW_STOCK("view low stock products"),
+    /** Add, edit and delete user accounts. */
+    MANAGE_USER_ACCOUNTS("manage user accounts"),
+    /** Export the inventory report. */
+    EXPORT_INVENTORY("export the inventory report"),
+    /** View, export and delete past transactions. */
+    TRANSACTION_HISTORY("access the transaction history"),
+    /** View, export and delete past restocks. */
+    RESTOCK_HISTORY("access the restock history"),
+    /** View the audit log of user actions. */
+    VIEW_AUDIT_LOG("view the audit log");
+
+    /** The description of the permitted action, used in error messages. */
+    private final String description;
+
+    /**
+     * Constructs a Permission.
+     *
+     * @param description The description of the permitted action, completing "not allowed to ...".
+     */
+    Permission(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets the bit of this permission in a permission mask.
+     *
+     * @return The mask with only this permission set.
+     */
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Gets the description of the permitted action.
+     *
+     * @return The description, such as "add products".
+     */
+    public String getDescription() {
+        return description;
+    }
+}
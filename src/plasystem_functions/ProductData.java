@@ -30,6 +30,9 @@ public class ProductData {
     
     /** The restock threshold value for the product (PROD_RESTOCK_VALUE, INTEGER NOT NULL, CHECK >= 0). */
     private int productRestockValue; // PROD_RESTOCK_VALUE (INTEGER NOT NULL, CHECK >= 0)
+    
+    /** The barcode or stock keeping unit of the product (PROD_SKU, TEXT, UNIQUE when present), or null if unassigned. */
+    private String productSku; // PROD_SKU (TEXT, UNIQUE INDEX)
 
     /**
      * Default constructor. Initializes a ProductData object with default values
@@ -62,6 +65,26 @@ public class ProductData {
         this.productRestockValue = productRestockValue;
     }
 
+    /**
+     * Constructs a ProductData object with the specified values, including the product's barcode/SKU.
+     *
+     * @param productId          The unique ID of the product (auto-incremented by the database).
+     * @param productName        The name of the product. Should not be null to match database constraints.
+     * @param productBrand       The brand of the product. Should not be null to match database constraints.
+     * @param productSize        The size of the product. Should not be null to match database constraints.
+     * @param productType        The type of the product. Should not be null to match database constraints.
+     * @param productPrice       The price of the product. Should be non-negative to match database constraints.
+     * @param productQuantity    The quantity of the product in stock. Should be non-negative to match database constraints.
+     * @param productRestockValue The restock threshold value. Should be non-negative to match database constraints.
+     * @param productSku         The barcode/SKU of the product, or null if none is assigned.
+     */
+    public ProductData(int productId, String productName, String productBrand, String productSize,
+                       String productType, double productPrice, int productQuantity, int productRestockValue,
+                       String productSku) {
+        this(productId, productName, productBrand, productSize, productType, productPrice, productQuantity, productRestockValue);
+        this.productSku = productSku;
+    }
+
     /**
      * Gets the unique ID of the product.
      *
@@ -198,4 +221,22 @@ public class ProductData {
     public void setProductRestockValue(int productRestockValue) {
         this.productRestockValue = productRestockValue;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the barcode/SKU of the product.
+     *
+     * @return The product SKU (PROD_SKU), or null if none is assigned.
+     */
+    public String getProductSku() {
+        return productSku;
+    }
+
+    /**
+     * Sets the barcode/SKU of the product.
+     *
+     * @param productSku The new product SKU, or null to clear it. Must be unique among products when present.
+     */
+    public void setProductSku(String productSku) {
+        this.productSku = productSku;
+    }
+}
@@ -1,15 +1,23 @@
 package plasystem_functions;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import javax.swing.*;
 import javax.swing.table.*;
 
 /**
  * Manages product data in the PlaSystem database, providing functionality to add, edit, delete,
  * and load products, as well as update a JTable with product information. Maintains an in-memory
- * list of products synchronized with the database.
+ * list of products synchronized with the database, together with hash indexes by product ID and
+ * barcode/SKU so that lookups at the checkout do not need to scan the list. Product changes, restocks
+ * and sales are applied to the cached products in place, keeping the live {@link InventoryValuation}
+ * current without reloading the product table. Every change is checked against the permissions of the
+ * logged-in user set with {@link #setPermissions(long)}.
  */
 public class ProductDataManager {
     /** SQL query to select all products from the Product table. */
@@ -17,13 +25,21 @@ public class ProductDataManager {
     
     /** SQL query to insert a new product into the Product table. */
     private static final String INSERT_PRODUCT_QUERY = 
-        "INSERT INTO Product (PROD_NAME, PROD_BRAND, PROD_SIZE, PROD_TYPE, PROD_PRICE, PROD_QUANTITY, PROD_RESTOCK_VALUE) " +
-        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        "INSERT INTO Product (PROD_NAME, PROD_BRAND, PROD_SIZE, PROD_TYPE, PROD_PRICE, PROD_QUANTITY, PROD_RESTOCK_VALUE, PROD_SKU) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
     
     /** SQL query to update an existing product in the Product table. */
     private static final String UPDATE_PRODUCT_QUERY = 
         "UPDATE Product SET PROD_NAME = ?, PROD_BRAND = ?, PROD_SIZE = ?, PROD_TYPE = ?, PROD_PRICE = ?, " +
-        "PROD_QUANTITY = ?, PROD_RESTOCK_VALUE = ? WHERE PROD_ID = ?";
+        "PROD_QUANTITY = ?, PROD_RESTOCK_VALUE = ?, PROD_SKU = ? WHERE PROD_ID = ?";
+    
+    /** SQL query to update the catalogue details of a product, leaving its stock quantity untouched. */
+    private static final String UPDATE_PRODUCT_DETAILS_QUERY =
+        "UPDATE Product SET PROD_NAME = ?, PROD_BRAND = ?, PROD_SIZE = ?, PROD_TYPE = ?, PROD_PRICE = ?, " +
+        "PROD_RESTOCK_VALUE = ?, PROD_SKU = ? WHERE PROD_ID = ?";
+
+    /** SQL query to assign or clear the barcode/SKU of a product. */
+    private static final String UPDATE_PRODUCT_SKU_QUERY = "UPDATE Product SET PROD_SKU = ? WHERE PROD_ID = ?";
     
     /** SQL query to delete a product from the Product table. */
     private static final String DELETE_PRODUCT_QUERY = "DELETE FROM Product WHERE PROD_ID = ?";
@@ -31,15 +47,53 @@ public class ProductDataManager {
     /** In-memory list of ProductData objects, synchronized with the database. */
     private final List<ProductData> productList;
 
+    /** Index of the in-memory products by product ID, rebuilt together with the product list. */
+    private final Map<Integer, ProductData> productIdIndex;
+
+    /** Index of the in-memory products by barcode/SKU, containing only products that have a SKU assigned. */
+    private final Map<String, ProductData> productSkuIndex;
+
+    /** Live stock valuation of the in-memory products, updated with every product change. */
+    private final InventoryValuation valuation = new InventoryValuation();
+
+    /** Stock reserved by the open carts of the checkout lanes. */
+    private final StockReservationLedger reservations = new StockReservationLedger(this);
+
+    /** The permissions of the logged-in user, checked before every change. */
+    private long permissions = RoleBasedAccessControl.NO_PERMISSIONS;
+
+    /** The audit logger of the logged-in user, recording every change. */
+    private AuditLogger auditLogger = AuditLogger.DISABLED;
+
     /**
      * Constructs a ProductDataManager, initializing an empty product list and loading
      * all products from the database.
      */
     public ProductDataManager() {
         this.productList = new LinkedList<>();
+        this.productIdIndex = new HashMap<>();
+        this.productSkuIndex = new HashMap<>();
         loadProducts();
     }
 
+    /**
+     * Sets the permissions of the logged-in user, which are checked before every change to the products.
+     *
+     * @param permissions The compiled permission mask of the logged-in user.
+     */
+    public void setPermissions(long permissions) {
+        this.permissions = permissions;
+    }
+
+    /**
+     * Sets the audit logger of the logged-in user, which records every change to the products.
+     *
+     * @param auditLogger The audit logger of the logged-in user.
+     */
+    public void setAuditLogger(AuditLogger auditLogger) {
+        this.auditLogger = auditLogger;
+    }
+
     /**
      * Loads all products from the Product table into the in-memory product list.
      * Clears the existing list before loading to ensure synchronization with the database.
@@ -47,12 +101,40 @@ public class ProductDataManager {
      */
     public void loadProducts() {
         productList.clear();
-        try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement();
+        productIdIndex.clear();
+        productSkuIndex.clear();
+        try (Connection conn = DBConnection.getConnection()) {
+            for (ProductData product : readProducts(conn)) {
+                productList.add(product);
+                productIdIndex.put(product.getProductId(), product);
+                if (product.getProductSku() != null) {
+                    productSkuIndex.put(product.getProductSku(), product);
+                }
+            }
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(null, 
+                "Error loading products: " + e.getMessage(),
+                "Database Error", 
+                JOptionPane.ERROR_MESSAGE);
+        }
+        valuation.reset(productList);
+    }
+
+    /**
+     * Reads all products from the Product table using the given connection. Used by
+     * {@link #loadProducts()} and by exports that read several tables in one transaction.
+     *
+     * @param conn The open database connection.
+     * @return A new list with one ProductData per product row.
+     * @throws SQLException If a database error occurs.
+     */
+    static List<ProductData> readProducts(Connection conn) throws SQLException {
+        List<ProductData> products = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(SELECT_ALL_PRODUCTS_QUERY)) {
             
             while (rs.next()) {
-                ProductData product = new ProductData(
+                products.add(new ProductData(
                     rs.getInt("PROD_ID"),
                     rs.getString("PROD_NAME"),
                     rs.getString("PROD_BRAND"),
@@ -60,22 +142,18 @@ public class ProductDataManager {
                     rs.getString("PROD_TYPE"),
                     rs.getDouble("PROD_PRICE"),
                     rs.getInt("PROD_QUANTITY"),
-                    rs.getInt("PROD_RESTOCK_VALUE")
-                );
-                productList.add(product);
+                    rs.getInt("PROD_RESTOCK_VALUE"),
+                    rs.getString("PROD_SKU")
+                ));
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(null, 
-                "Error loading products: " + e.getMessage(),
-                "Database Error", 
-                JOptionPane.ERROR_MESSAGE);
         }
+        return products;
     }
 
     /**
      * Adds a new product to the Product table in the database. Validates input parameters
      * to ensure they meet database constraints (non-null, non-empty strings, non-negative numbers).
-     * Refreshes the in-memory product list upon successful insertion. Displays appropriate
+     * Adds the product to the in-memory list upon successful insertion. Displays appropriate
      * error messages for invalid inputs or database errors.
      *
      * @param name         The product name. Must not be null or empty.
@@ -89,6 +167,30 @@ public class ProductDataManager {
      */
     public boolean addProduct(String name, String brand, String size, String type,
                              double price, int quantity, int restockValue) {
+        return addProduct(name, brand, size, type, price, quantity, restockValue, null);
+    }
+
+    /**
+     * Adds a new product with a barcode/SKU to the Product table. Behaves like
+     * {@link #addProduct(String, String, String, String, double, int, int)} and additionally
+     * rejects a SKU that is already assigned to another product.
+     *
+     * @param name         The product name. Must not be null or empty.
+     * @param brand        The product brand. Must not be null or empty.
+     * @param size         The product size. Must not be null or empty.
+     * @param type         The product type. Must not be null or empty.
+     * @param price        The product price. Must be non-negative.
+     * @param quantity     The product quantity. Must be non-negative.
+     * @param restockValue The product restock value. Must be non-negative.
+     * @param sku          The product barcode/SKU, or null/empty for none.
+     * @return {@code true} if the product was added successfully, {@code false} otherwise.
+     */
+    public boolean addProduct(String name, String brand, String size, String type,
+                             double price, int quantity, int restockValue, String sku) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.ADD_PRODUCT)) {
+            return false;
+        }
+        sku = normalizeSku(sku);
         // Validate inputs
         if (name == null || name.trim().isEmpty()) {
             JOptionPane.showMessageDialog(null, 
@@ -139,9 +241,12 @@ public class ProductDataManager {
                 JOptionPane.ERROR_MESSAGE);
             return false;
         }
+        if (isSkuTaken(sku, 0)) {
+            return false;
+        }
 
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(INSERT_PRODUCT_QUERY)) {
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_PRODUCT_QUERY, Statement.RETURN_GENERATED_KEYS)) {
             
             pstmt.setString(1, name.trim());
             pstmt.setString(2, brand.trim());
@@ -150,10 +255,29 @@ public class ProductDataManager {
             pstmt.setDouble(5, price);
             pstmt.setInt(6, quantity);
             pstmt.setInt(7, restockValue);
+            pstmt.setString(8, sku);
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
-                loadProducts(); // Refresh the product list
+                // Add the new product to the cache and valuation without reloading the product list
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        auditLogger.record(AuditAction.ADD_PRODUCT, String.format("%s %s %s: price ₱%,.2f, quantity %d",
+                            name.trim(), brand.trim(), size.trim(), price, quantity));
+                        loadProducts();
+                        return true;
+                    }
+                    ProductData product = new ProductData(keys.getInt(1), name.trim(), brand.trim(), size.trim(),
+                        type.trim(), price, quantity, restockValue, sku);
+                    auditLogger.record(AuditAction.ADD_PRODUCT, String.format("%s: price ₱%,.2f, quantity %d",
+                        describe(product), price, quantity));
+                    productList.add(product);
+                    productIdIndex.put(product.getProductId(), product);
+                    if (sku != null) {
+                        productSkuIndex.put(sku, product);
+                    }
+                    valuation.add(product);
+                }
                 return true;
             }
             return false;
@@ -169,6 +293,11 @@ public class ProductDataManager {
                     "Invalid input: Price, quantity, or restock value must be non-negative.",
                     "Database Error", 
                     JOptionPane.ERROR_MESSAGE);
+            } else if (errorMessage.contains("SQLITE_CONSTRAINT_UNIQUE")) {
+                JOptionPane.showMessageDialog(null, 
+                    "The barcode/SKU " + sku + " is already assigned to another product.",
+                    "Database Error", 
+                    JOptionPane.ERROR_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(null, 
                     "Error adding product: " + errorMessage,
@@ -182,7 +311,7 @@ public class ProductDataManager {
     /**
      * Updates an existing product in the Product table. Validates input parameters to ensure
      * they meet database constraints (non-null, non-empty strings, non-negative numbers).
-     * Refreshes the in-memory product list upon successful update. Displays appropriate
+     * Updates the cached product in place upon successful update. Displays appropriate
      * error messages for invalid inputs, non-existent product IDs, or database errors.
      *
      * @param productId    The ID of the product to update. Must exist in the database.
@@ -197,6 +326,34 @@ public class ProductDataManager {
      */
     public boolean updateProduct(int productId, String name, String brand, String size, String type,
                                 double price, int quantity, int restockValue) {
+        // Keep the SKU that is currently assigned to the product
+        ProductData current = findById(productId);
+        String sku = current != null ? current.getProductSku() : null;
+        return updateProduct(productId, name, brand, size, type, price, quantity, restockValue, sku);
+    }
+
+    /**
+     * Updates an existing product in the Product table, including its barcode/SKU. Behaves like
+     * {@link #updateProduct(int, String, String, String, String, double, int, int)} and additionally
+     * rejects a SKU that is already assigned to another product.
+     *
+     * @param productId    The ID of the product to update. Must exist in the database.
+     * @param name         The new product name. Must not be null or empty.
+     * @param brand        The new product brand. Must not be null or empty.
+     * @param size         The new product size. Must not be null or empty.
+     * @param type         The new product type. Must not be null or empty.
+     * @param price        The new product price. Must be non-negative.
+     * @param quantity     The new product quantity. Must be non-negative.
+     * @param restockValue The new product restock value. Must be non-negative.
+     * @param sku          The new product barcode/SKU, or null/empty to clear it.
+     * @return {@code true} if the product was updated successfully, {@code false} otherwise.
+     */
+    public boolean updateProduct(int productId, String name, String brand, String size, String type,
+                                double price, int quantity, int restockValue, String sku) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.EDIT_PRODUCT)) {
+            return false;
+        }
+        sku = normalizeSku(sku);
         // Validate inputs
         if (name == null || name.trim().isEmpty()) {
             JOptionPane.showMessageDialog(null, 
@@ -247,6 +404,9 @@ public class ProductDataManager {
                 JOptionPane.ERROR_MESSAGE);
             return false;
         }
+        if (isSkuTaken(sku, productId)) {
+            return false;
+        }
 
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(UPDATE_PRODUCT_QUERY)) {
@@ -258,11 +418,36 @@ public class ProductDataManager {
             pstmt.setDouble(5, price);
             pstmt.setInt(6, quantity);
             pstmt.setInt(7, restockValue);
-            pstmt.setInt(8, productId);
+            pstmt.setString(8, sku);
+            pstmt.setInt(9, productId);
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
-                loadProducts(); // Refresh the product list
+                ProductData product = findById(productId);
+                if (product == null) {
+                    auditLogger.record(AuditAction.EDIT_PRODUCT, "#" + productId + " " + name.trim());
+                    loadProducts(); // Not cached, refresh the product list
+                    return true;
+                }
+                auditLogger.record(AuditAction.EDIT_PRODUCT, describeChanges(product, name.trim(), brand.trim(),
+                    size.trim(), type.trim(), price, quantity, restockValue, sku));
+                // Update the cached product in place, moving its stock value to its new type and brand
+                valuation.remove(product);
+                if (product.getProductSku() != null) {
+                    productSkuIndex.remove(product.getProductSku());
+                }
+                product.setProductName(name.trim());
+                product.setProductBrand(brand.trim());
+                product.setProductSize(size.trim());
+                product.setProductType(type.trim());
+                product.setProductPrice(price);
+                product.setProductQuantity(quantity);
+                product.setProductRestockValue(restockValue);
+                product.setProductSku(sku);
+                if (sku != null) {
+                    productSkuIndex.put(sku, product);
+                }
+                valuation.add(product);
                 return true;
             } else {
                 JOptionPane.showMessageDialog(null, 
@@ -283,6 +468,11 @@ public class ProductDataManager {
                     "Invalid input: Price, quantity, or restock value must be non-negative.",
                     "Database Error", 
                     JOptionPane.ERROR_MESSAGE);
+            } else if (errorMessage.contains("SQLITE_CONSTRAINT_UNIQUE")) {
+                JOptionPane.showMessageDialog(null, 
+                    "The barcode/SKU " + sku + " is already assigned to another product.",
+                    "Database Error", 
+                    JOptionPane.ERROR_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(null, 
                     "Error updating product: " + errorMessage,
@@ -294,7 +484,7 @@ public class ProductDataManager {
     }
 
     /**
-     * Deletes a product from the Product table based on its ID. Refreshes the in-memory
+     * Deletes a product from the Product table based on its ID. Removes it from the in-memory
      * product list upon successful deletion. Displays an error message if the product ID
      * does not exist or a database error occurs.
      *
@@ -302,6 +492,9 @@ public class ProductDataManager {
      * @return {@code true} if the product was deleted successfully, {@code false} otherwise.
      */
     public boolean deleteProduct(int productId) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.DELETE_PRODUCT)) {
+            return false;
+        }
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(DELETE_PRODUCT_QUERY)) {
             
@@ -309,7 +502,17 @@ public class ProductDataManager {
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
-                loadProducts(); // Refresh the product list
+                ProductData product = productIdIndex.remove(productId);
+                auditLogger.record(AuditAction.DELETE_PRODUCT, product != null ? describe(product) : "#" + productId);
+                if (product == null) {
+                    loadProducts(); // Not cached, refresh the product list
+                    return true;
+                }
+                productList.remove(product);
+                if (product.getProductSku() != null) {
+                    productSkuIndex.remove(product.getProductSku());
+                }
+                valuation.remove(product);
                 return true;
             } else {
                 JOptionPane.showMessageDialog(null, 
@@ -327,6 +530,368 @@ public class ProductDataManager {
         }
     }
 
+    /**
+     * Assigns a barcode/SKU to an existing product, or clears it when the SKU is null or empty.
+     * The in-memory product and SKU index are updated in place so the new code can be scanned
+     * immediately. Displays an error message if the SKU is already in use or a database error occurs.
+     *
+     * @param productId The ID of the product to update. Must exist in the database.
+     * @param sku       The barcode/SKU to assign, or null/empty to clear it.
+     * @return {@code true} if the SKU was assigned successfully, {@code false} otherwise.
+     */
+    public boolean assignSku(int productId, String sku) {
+        // Cashiers may assign the code of an unknown barcode scanned at the checkout
+        if (!RoleBasedAccessControl.hasPermission(permissions, Permission.EDIT_PRODUCT)
+                && !RoleBasedAccessControl.checkPermission(permissions, Permission.PROCESS_TRANSACTION)) {
+            return false;
+        }
+        sku = normalizeSku(sku);
+        ProductData product = findById(productId);
+        if (product == null) {
+            JOptionPane.showMessageDialog(null, 
+                "No product found with the specified ID.",
+                "Update Error", 
+                JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        if (isSkuTaken(sku, productId)) {
+            return false;
+        }
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_PRODUCT_SKU_QUERY)) {
+            
+            pstmt.setString(1, sku);
+            pstmt.setInt(2, productId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(null, 
+                "Error assigning barcode/SKU: " + e.getMessage(),
+                "Database Error", 
+                JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+
+        auditLogger.record(AuditAction.ASSIGN_SKU,
+            describe(product) + ": SKU " + product.getProductSku() + " -> " + sku);
+        if (product.getProductSku() != null) {
+            productSkuIndex.remove(product.getProductSku());
+        }
+        product.setProductSku(sku);
+        if (sku != null) {
+            productSkuIndex.put(sku, product);
+        }
+        return true;
+    }
+
+    /**
+     * Inserts and updates a large number of catalogue products in chunks, each committed in its own
+     * transaction with one prepared statement per kind of change, so the database lock is held only
+     * briefly and a failure keeps the chunks already committed. Products with an ID of 0 are inserted
+     * with their quantity as the opening stock; other products update the catalogue details of the
+     * product with that ID, leaving its stock quantity untouched. The products must have been validated
+     * by the caller, including the uniqueness of their barcode/SKUs. Updates the cached products in place
+     * after each chunk. Displays an error message if a database error occurs.
+     *
+     * @param products  The products to insert or update. Must not be null.
+     * @param chunkSize The maximum number of products per transaction. Must be positive.
+     * @return The number of products written, which is less than the number of products if a chunk failed.
+     */
+    public int upsertProducts(List<ProductData> products, int chunkSize) {
+        boolean hasInserts = products.stream().anyMatch(product -> product.getProductId() == 0);
+        boolean hasUpdates = products.stream().anyMatch(product -> product.getProductId() != 0);
+        if ((hasInserts && !RoleBasedAccessControl.checkPermission(permissions, Permission.ADD_PRODUCT))
+                || (hasUpdates && !RoleBasedAccessControl.checkPermission(permissions, Permission.EDIT_PRODUCT))) {
+            return 0;
+        }
+        int written = 0;
+        valuation.beginBatch(); // Notify the valuation listeners once for the whole import
+        try {
+            for (int from = 0; from < products.size(); from += chunkSize) {
+                List<ProductData> chunk = products.subList(from, Math.min(from + chunkSize, products.size()));
+                if (!commitUpsert(chunk)) {
+                    break;
+                }
+                written += chunk.size();
+            }
+        } finally {
+            valuation.endBatch();
+        }
+        if (written > 0) {
+            long added = products.subList(0, written).stream().filter(product -> product.getProductId() == 0).count();
+            auditLogger.record(AuditAction.IMPORT_CATALOGUE,
+                String.format("%d products added, %d updated", added, written - added));
+        }
+        return written;
+    }
+
+    /**
+     * Writes one chunk of {@link #upsertProducts(List, int)} in a single transaction. The updates are sent
+     * as one JDBC batch; the inserts reuse one prepared statement so each generated product ID can be read.
+     *
+     * @param chunk The validated products to insert or update.
+     * @return {@code true} if the chunk was committed, {@code false} otherwise.
+     */
+    private boolean commitUpsert(List<ProductData> chunk) {
+        List<ProductData> inserted = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DBConnection.getConnection();
+            conn.setAutoCommit(false); // Begin transaction
+
+            try (PreparedStatement insertStmt = conn.prepareStatement(INSERT_PRODUCT_QUERY, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement updateStmt = conn.prepareStatement(UPDATE_PRODUCT_DETAILS_QUERY)) {
+                boolean hasUpdates = false;
+                for (ProductData product : chunk) {
+                    if (product.getProductId() == 0) {
+                        insertStmt.setString(1, product.getProductName());
+                        insertStmt.setString(2, product.getProductBrand());
+                        insertStmt.setString(3, product.getProductSize());
+                        insertStmt.setString(4, product.getProductType());
+                        insertStmt.setDouble(5, product.getProductPrice());
+                        insertStmt.setInt(6, product.getProductQuantity());
+                        insertStmt.setInt(7, product.getProductRestockValue());
+                        insertStmt.setString(8, product.getProductSku());
+                        insertStmt.executeUpdate();
+                        try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                            if (!keys.next()) {
+                                throw new SQLException("No product ID generated for " + product.getProductName() + ".");
+                            }
+                            inserted.add(new ProductData(keys.getInt(1), product.getProductName(),
+                                product.getProductBrand(), product.getProductSize(), product.getProductType(),
+                                product.getProductPrice(), product.getProductQuantity(),
+                                product.getProductRestockValue(), product.getProductSku()));
+                        }
+                    } else {
+                        updateStmt.setString(1, product.getProductName());
+                        updateStmt.setString(2, product.getProductBrand());
+                        updateStmt.setString(3, product.getProductSize());
+                        updateStmt.setString(4, product.getProductType());
+                        updateStmt.setDouble(5, product.getProductPrice());
+                        updateStmt.setInt(6, product.getProductRestockValue());
+                        updateStmt.setString(7, product.getProductSku());
+                        updateStmt.setInt(8, product.getProductId());
+                        updateStmt.addBatch();
+                        hasUpdates = true;
+                    }
+                }
+                if (hasUpdates) {
+                    for (int rowsAffected : updateStmt.executeBatch()) {
+                        if (rowsAffected == 0) {
+                            throw new SQLException("A product to update no longer exists.");
+                        }
+                    }
+                }
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    JOptionPane.showMessageDialog(null, "Error Rollback (commitUpsert)." + rollbackEx);
+                }
+            }
+            JOptionPane.showMessageDialog(null,
+                "Error importing products: " + e.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE);
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    JOptionPane.showMessageDialog(null, "Error Close (commitUpsert)." + closeEx);
+                }
+            }
+        }
+
+        // Update the cached products in place and add the inserted ones
+        for (ProductData values : chunk) {
+            ProductData product = values.getProductId() == 0 ? null : findById(values.getProductId());
+            if (product == null) {
+                continue;
+            }
+            valuation.remove(product);
+            if (product.getProductSku() != null) {
+                productSkuIndex.remove(product.getProductSku());
+            }
+            product.setProductName(values.getProductName());
+            product.setProductBrand(values.getProductBrand());
+            product.setProductSize(values.getProductSize());
+            product.setProductType(values.getProductType());
+            product.setProductPrice(values.getProductPrice());
+            product.setProductRestockValue(values.getProductRestockValue());
+            product.setProductSku(values.getProductSku());
+            if (product.getProductSku() != null) {
+                productSkuIndex.put(product.getProductSku(), product);
+            }
+            valuation.add(product);
+        }
+        for (ProductData product : inserted) {
+            productList.add(product);
+            productIdIndex.put(product.getProductId(), product);
+            if (product.getProductSku() != null) {
+                productSkuIndex.put(product.getProductSku(), product);
+            }
+            valuation.add(product);
+        }
+        return true;
+    }
+
+    /**
+     * Describes a product for the audit log by its ID, name, brand and size.
+     *
+     * @param product The product to describe.
+     * @return The description, such as "#12 Shampoo Brand 200ml".
+     */
+    private static String describe(ProductData product) {
+        return "#" + product.getProductId() + " " + product.getProductName() + " "
+            + product.getProductBrand() + " " + product.getProductSize();
+    }
+
+    /**
+     * Describes the fields an edit changes for the audit log, before the cached product is updated.
+     *
+     * @param product      The cached product, still holding its current values.
+     * @param name         The new product name.
+     * @param brand        The new product brand.
+     * @param size         The new product size.
+     * @param type         The new product type.
+     * @param price        The new product price.
+     * @param quantity     The new product quantity.
+     * @param restockValue The new product restock value.
+     * @param sku          The new product barcode/SKU, or null.
+     * @return The description, such as "#12 Shampoo Brand 200ml: price ₱10.00 -> ₱12.00".
+     */
+    private static String describeChanges(ProductData product, String name, String brand, String size, String type,
+                                          double price, int quantity, int restockValue, String sku) {
+        List<String> changes = new ArrayList<>();
+        if (!product.getProductName().equals(name)) {
+            changes.add("name " + product.getProductName() + " -> " + name);
+        }
+        if (!product.getProductBrand().equals(brand)) {
+            changes.add("brand " + product.getProductBrand() + " -> " + brand);
+        }
+        if (!product.getProductSize().equals(size)) {
+            changes.add("size " + product.getProductSize() + " -> " + size);
+        }
+        if (!product.getProductType().equals(type)) {
+            changes.add("type " + product.getProductType() + " -> " + type);
+        }
+        if (product.getProductPrice() != price) {
+            changes.add(String.format("price ₱%,.2f -> ₱%,.2f", product.getProductPrice(), price));
+        }
+        if (product.getProductQuantity() != quantity) {
+            changes.add("quantity " + product.getProductQuantity() + " -> " + quantity);
+        }
+        if (product.getProductRestockValue() != restockValue) {
+            changes.add("restock value " + product.getProductRestockValue() + " -> " + restockValue);
+        }
+        if (!Objects.equals(product.getProductSku(), sku)) {
+            changes.add("SKU " + product.getProductSku() + " -> " + sku);
+        }
+        return describe(product) + ": " + (changes.isEmpty() ? "no changes" : String.join(", ", changes));
+    }
+
+    /**
+     * Finds an in-memory product by its ID using the hash index.
+     *
+     * @param productId The product ID to look up.
+     * @return The matching ProductData, or {@code null} if no product has that ID.
+     */
+    public ProductData findById(int productId) {
+        return productIdIndex.get(productId);
+    }
+
+    /**
+     * Finds an in-memory product by its barcode/SKU using the hash index. Leading and
+     * trailing whitespace in the scanned code is ignored.
+     *
+     * @param sku The barcode/SKU to look up.
+     * @return The matching ProductData, or {@code null} if no product has that SKU.
+     */
+    public ProductData findBySku(String sku) {
+        sku = normalizeSku(sku);
+        return sku == null ? null : productSkuIndex.get(sku);
+    }
+
+    /**
+     * Normalizes a barcode/SKU by trimming whitespace. Empty codes are treated as no SKU.
+     *
+     * @param sku The raw barcode/SKU.
+     * @return The trimmed SKU, or {@code null} if it is null or empty.
+     */
+    private static String normalizeSku(String sku) {
+        if (sku == null) {
+            return null;
+        }
+        sku = sku.trim();
+        return sku.isEmpty() ? null : sku;
+    }
+
+    /**
+     * Checks whether a barcode/SKU is already assigned to a product other than the given one,
+     * displaying an error message if it is.
+     *
+     * @param sku       The normalized SKU to check, or {@code null}.
+     * @param productId The ID of the product the SKU is intended for, or 0 for a new product.
+     * @return {@code true} if the SKU belongs to another product, {@code false} otherwise.
+     */
+    private boolean isSkuTaken(String sku, int productId) {
+        if (sku == null) {
+            return false;
+        }
+        ProductData owner = productSkuIndex.get(sku);
+        if (owner != null && owner.getProductId() != productId) {
+            JOptionPane.showMessageDialog(null, 
+                "The barcode/SKU " + sku + " is already assigned to " + owner.getProductName() + ".",
+                "Input Error", 
+                JOptionPane.ERROR_MESSAGE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies a committed change in the stock quantity of a product, such as a restock or a sale, to
+     * the cached product and the valuation in constant time. Reloads the product list if the product
+     * is not cached.
+     *
+     * @param productId     The ID of the product.
+     * @param quantityDelta The change in quantity, positive for a restock and negative for a sale.
+     */
+    void applyQuantityChange(int productId, int quantityDelta) {
+        ProductData product = findById(productId);
+        if (product == null) {
+            loadProducts();
+            return;
+        }
+        valuation.changeQuantity(product, quantityDelta);
+        product.setProductQuantity(product.getProductQuantity() + quantityDelta);
+    }
+
+    /**
+     * Retrieves the live stock valuation of the in-memory products.
+     *
+     * @return The inventory valuation, updated with every product change.
+     */
+    public InventoryValuation getValuation() {
+        return valuation;
+    }
+
+    /**
+     * Retrieves the ledger of the stock reserved by open carts.
+     *
+     * @return The stock reservation ledger.
+     */
+    public StockReservationLedger getReservations() {
+        return reservations;
+    }
+
     /**
      * Retrieves the in-memory list of all products.
      *
@@ -0,0 +1,144 @@
+package plasystem_functions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Stores the receipt images of the PlaSystem application in append-only monthly pack files instead of one
+ * loose file per receipt. Each receipt is appended to the pack of the current month behind a small header,
+ * and the ReceiptIndex table maps its transaction ID to the pack, offset and length, so a receipt is read
+ * back with one index lookup and one positioned read, however many receipts have been archived. Storing a
+ * receipt again appends a new copy and repoints the index; packs are never rewritten.
+ */
+public class ReceiptArchive {
+    /** The directory the pack files are stored in. */
+    public static final String ARCHIVE_DIRECTORY = "receipts";
+
+    /** The marker at the start of every pack entry header, "RCPT" in ASCII. */
+    private static final int ENTRY_MAGIC = 0x52435054;
+
+    /** The size of an entry header: marker, transaction ID and data length. */
+    private static final int ENTRY_HEADER_SIZE = 12;
+
+    /** The format of the monthly pack file names. */
+    private static final DateTimeFormatter PACK_NAME_FORMAT = DateTimeFormatter.ofPattern("'receipts-'yyyy-MM'.pack'");
+
+    /** SQL query to insert or repoint the index entry of a receipt. */
+    private static final String UPSERT_INDEX_QUERY =
+        "INSERT INTO ReceiptIndex (RX_TRANS_ID, RX_PACK_NAME, RX_OFFSET, RX_LENGTH, RX_ARCHIVED_AT) VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT (RX_TRANS_ID) DO UPDATE SET RX_PACK_NAME = excluded.RX_PACK_NAME, RX_OFFSET = excluded.RX_OFFSET, " +
+        "RX_LENGTH = excluded.RX_LENGTH, RX_ARCHIVED_AT = excluded.RX_ARCHIVED_AT";
+
+    /** SQL query to select the index entry of a receipt. */
+    private static final String SELECT_INDEX_QUERY =
+        "SELECT RX_PACK_NAME, RX_OFFSET, RX_LENGTH FROM ReceiptIndex WHERE RX_TRANS_ID = ?";
+
+    /** The lock serializing appends, so entries never interleave within a pack. */
+    private static final Object APPEND_LOCK = new Object();
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ReceiptArchive() {
+    }
+
+    /**
+     * Appends a receipt image to the pack of the current month and indexes it by transaction ID.
+     * The data is forced to disk before the index is written, so an indexed receipt is always readable.
+     *
+     * @param transactionId The ID of the transaction the receipt is for.
+     * @param imageData     The encoded receipt image.
+     * @throws IOException  If the pack file cannot be written.
+     * @throws SQLException If the index cannot be updated.
+     */
+    public static void store(int transactionId, byte[] imageData) throws IOException, SQLException {
+        File directory = new File(ARCHIVE_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory.getAbsolutePath());
+        }
+        String packName = LocalDate.now().format(PACK_NAME_FORMAT);
+
+        synchronized (APPEND_LOCK) {
+            long dataOffset;
+            try (FileChannel channel = FileChannel.open(new File(directory, packName).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER_SIZE);
+                header.putInt(ENTRY_MAGIC).putInt(transactionId).putInt(imageData.length).flip();
+                dataOffset = channel.size() + ENTRY_HEADER_SIZE;
+                ByteBuffer data = ByteBuffer.wrap(imageData);
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(false);
+            }
+
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(UPSERT_INDEX_QUERY)) {
+                pstmt.setInt(1, transactionId);
+                pstmt.setString(2, packName);
+                pstmt.setLong(3, dataOffset);
+                pstmt.setInt(4, imageData.length);
+                pstmt.setString(5, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Reads the archived receipt image of a transaction.
+     *
+     * @param transactionId The ID of the transaction.
+     * @return The encoded receipt image, or null if no receipt is archived for the transaction.
+     * @throws IOException  If the pack file is missing or does not contain the indexed entry.
+     * @throws SQLException If the index cannot be read.
+     */
+    public static byte[] read(int transactionId) throws IOException, SQLException {
+        String packName;
+        long dataOffset;
+        int length;
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_INDEX_QUERY)) {
+            pstmt.setInt(1, transactionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                packName = rs.getString("RX_PACK_NAME");
+                dataOffset = rs.getLong("RX_OFFSET");
+                length = rs.getInt("RX_LENGTH");
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(new File(ARCHIVE_DIRECTORY, packName).toPath(), StandardOpenOption.READ)) {
+            // Read the header together with the data to verify that the index points at this receipt
+            ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER_SIZE + length);
+            long position = dataOffset - ENTRY_HEADER_SIZE;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("Receipt #" + transactionId + " is truncated in " + packName + ".");
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != ENTRY_MAGIC || buffer.getInt() != transactionId || buffer.getInt() != length) {
+                throw new IOException("Receipt #" + transactionId + " does not match its index entry in " + packName + ".");
+            }
+            byte[] imageData = new byte[length];
+            buffer.get(imageData);
+            return imageData;
+        }
+    }
+}
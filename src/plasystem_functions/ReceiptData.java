@@ -0,0 +1,181 @@
+package plasystem_functions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the content of a sales receipt in the PlaSystem application, independent of how it is
+ * displayed. The receipt is a snapshot of a committed transaction and is immutable, so it can be handed
+ * to a background thread for rendering while the lane moves on to the next sale.
+ */
+public class ReceiptData {
+    /**
+     * Represents one purchased item line of a receipt.
+     */
+    public static final class Line {
+        /** The name of the product. */
+        private final String productName;
+        /** The quantity bought. */
+        private final int quantity;
+        /** The total price of the line. */
+        private final double totalPrice;
+
+        /**
+         * Constructs a Line.
+         *
+         * @param productName The name of the product.
+         * @param quantity    The quantity bought.
+         * @param totalPrice  The total price of the line.
+         */
+        public Line(String productName, int quantity, double totalPrice) {
+            this.productName = productName;
+            this.quantity = quantity;
+            this.totalPrice = totalPrice;
+        }
+
+        /**
+         * Gets the name of the product.
+         *
+         * @return The product name.
+         */
+        public String getProductName() {
+            return productName;
+        }
+
+        /**
+         * Gets the quantity bought.
+         *
+         * @return The quantity.
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * Gets the total price of the line.
+         *
+         * @return The line total.
+         */
+        public double getTotalPrice() {
+            return totalPrice;
+        }
+    }
+
+    /** The ID of the transaction the receipt is for. */
+    private final int transactionId;
+
+    /** The formatted date and time of the transaction. */
+    private final String transactionDate;
+
+    /** The purchased item lines. */
+    private final List<Line> lines;
+
+    /** The total amount of the transaction. */
+    private final double totalAmount;
+
+    /** The cash amount paid. */
+    private final double cashAmount;
+
+    /** The change given back. */
+    private final double changeAmount;
+
+    /**
+     * Constructs a ReceiptData with the specified values.
+     *
+     * @param transactionId   The ID of the transaction.
+     * @param transactionDate The formatted date and time of the transaction.
+     * @param lines           The purchased item lines.
+     * @param totalAmount     The total amount of the transaction.
+     * @param cashAmount      The cash amount paid.
+     * @param changeAmount    The change given back.
+     */
+    public ReceiptData(int transactionId, String transactionDate, List<Line> lines,
+                       double totalAmount, double cashAmount, double changeAmount) {
+        this.transactionId = transactionId;
+        this.transactionDate = transactionDate;
+        this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+        this.totalAmount = totalAmount;
+        this.cashAmount = cashAmount;
+        this.changeAmount = changeAmount;
+    }
+
+    /**
+     * Creates the receipt of a transaction and its items.
+     *
+     * @param transaction The transaction.
+     * @param items       The items of the transaction.
+     * @return The receipt.
+     */
+    public static ReceiptData fromTransaction(TransactionData transaction, List<TransactionItemData> items) {
+        List<Line> lines = new ArrayList<>(items.size());
+        for (TransactionItemData item : items) {
+            lines.add(new Line(item.getTI_productName(), item.getTI_buyQuantity(), item.getTI_totalPrice()));
+        }
+        return new ReceiptData(transaction.getTransactionId(), transaction.getFormattedDate(), lines,
+            transaction.getTotalAmount(), transaction.getPaymentAmount(), transaction.getChangeAmount());
+    }
+
+    /**
+     * Gets the ID of the transaction.
+     *
+     * @return The transaction ID.
+     */
+    public int getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Gets the receipt number printed on the receipt and used as its file name.
+     *
+     * @return The receipt number, such as "#42".
+     */
+    public String getReceiptNumber() {
+        return "#" + transactionId;
+    }
+
+    /**
+     * Gets the formatted date and time of the transaction.
+     *
+     * @return The transaction date.
+     */
+    public String getTransactionDate() {
+        return transactionDate;
+    }
+
+    /**
+     * Gets the purchased item lines.
+     *
+     * @return An unmodifiable list of lines.
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the total amount of the transaction.
+     *
+     * @return The total amount.
+     */
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    /**
+     * Gets the cash amount paid.
+     *
+     * @return The cash amount.
+     */
+    public double getCashAmount() {
+        return cashAmount;
+    }
+
+    /**
+     * Gets the change given back.
+     *
+     * @return The change amount.
+     */
+    public double getChangeAmount() {
+        return changeAmount;
+    }
+}
@@ -0,0 +1,170 @@
+package plasystem_functions;
+
+import javax.swing.*;
+import java.awt.GridLayout;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Regenerates receipt images of the PlaSystem application in bulk from the stored transactions, for
+ * audits or when receipt images are not archived. The transactions of an ID range are read one page of
+ * IDs at a time, their receipts are rendered in parallel on a bounded worker pool, and the images are
+ * written in transaction ID order into a single zip file, so only a page of transactions and a bounded
+ * number of images are held in memory however large the range is. Since receipts are rendered only from the stored
+ * transaction data, a regenerated receipt is identical to the one rendered at the time of sale.
+ */
+public class ReceiptRegenerator {
+    /** Directory path where receipt audit bundles are saved. */
+    static final String AUDITS_DIRECTORY = "receipt_audits";
+
+    /** The number of threads rendering receipts. */
+    private static final int RENDER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+
+    /** The maximum number of receipts rendered ahead of the zip writer, bounding the memory held by images. */
+    private static final int MAX_PENDING = RENDER_THREADS * 4;
+
+    /** The number of transaction IDs read per query. */
+    private static final int PAGE_SIZE = 1000;
+
+    /** The bounded pool shared by all regenerations for rendering receipts. */
+    private static final ExecutorService RENDER_POOL = Executors.newFixedThreadPool(RENDER_THREADS, new java.util.concurrent.ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "receipt-regenerator-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Regenerates the receipts of a range of transactions after prompting the user for the range. The
+     * receipts are saved in the "receipt_audits" directory as a timestamped zip file
+     * (e.g., ReceiptAudit_YYYY-MM-DD_HHMMSS.zip). The regeneration runs in the background with a
+     * cancellable progress monitor, and a success or error message is displayed when it finishes.
+     *
+     * @param parent The parent JFrame for displaying the prompt and result dialogs. May be null
+     *               if no parent is required.
+     */
+    public void generateAudit(JFrame parent) {
+        // Prompt for the transaction ID range
+        JTextField fromField = new JTextField("1");
+        JTextField toField = new JTextField();
+        JPanel rangePanel = new JPanel(new GridLayout(2, 2, 8, 4));
+        rangePanel.add(new JLabel("From Transaction ID:"));
+        rangePanel.add(fromField);
+        rangePanel.add(new JLabel("To Transaction ID (blank for latest):"));
+        rangePanel.add(toField);
+        int choice = JOptionPane.showConfirmDialog(parent, rangePanel, "Regenerate Receipts",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return; // User cancelled
+        }
+
+        // Validate the range
+        ErrorValueHandling validator = new ErrorValueHandling();
+        String fromText = fromField.getText().trim();
+        String toText = toField.getText().trim();
+        if (!validator.isInteger(fromText) || (!toText.isEmpty() && !validator.isInteger(toText))) {
+            JOptionPane.showMessageDialog(parent,
+                "Transaction IDs must be whole numbers.",
+                "Input Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int fromId = Integer.parseInt(fromText);
+        int toId = toText.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(toText);
+        if (fromId < 1 || toId < fromId) {
+            JOptionPane.showMessageDialog(parent,
+                "Invalid range. The first ID must be at least 1 and not greater than the last ID.",
+                "Input Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        File auditFile = ReportHousekeeper.newReportFile(AUDITS_DIRECTORY, "ReceiptAudit", ".zip");
+        new ReportExportTask(parent, "Receipt Audit", auditFile,
+            (file, task) -> writeAudit(file, task, fromId, toId)).start();
+    }
+
+    /**
+     * Reads the transactions of a range page by page, renders their receipts in parallel and writes them
+     * in ID order. The next page is read only once the transactions of the previous one have been handed
+     * to the render pool, which is kept at most {@link #MAX_PENDING} receipts ahead of the zip writer.
+     *
+     * @param file   The temporary zip file to write.
+     * @param task   The export task to report progress to.
+     * @param fromId The first transaction ID, inclusive.
+     * @param toId   The last transaction ID, inclusive.
+     * @throws Exception If the transactions cannot be read or a receipt cannot be rendered or written.
+     */
+    private void writeAudit(File file, ReportExportTask task, int fromId, int toId) throws Exception {
+        try (Connection conn = DBConnection.getConnection()) {
+            int lastId = Math.min(toId, TransactionDataManager.readMaxTransactionId(conn));
+            int total = lastId < fromId ? 0 : TransactionDataManager.countTransactions(conn, fromId - 1, lastId);
+            if (total == 0) {
+                throw new IOException("There are no transactions with IDs from " + fromId
+                    + (toId == Integer.MAX_VALUE ? "" : " to " + toId) + ".");
+            }
+            task.setTotalRows(total);
+
+            Deque<TransactionData> page = new ArrayDeque<>();
+            int readUpToId = fromId - 1;
+            Deque<TransactionData> rendering = new ArrayDeque<>();
+            Deque<Future<byte[]>> pending = new ArrayDeque<>();
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                // PNG data is already compressed
+                zip.setLevel(Deflater.NO_COMPRESSION);
+                while (true) {
+                    // Keep the workers busy while bounding the number of rendered images held in memory
+                    while (pending.size() < MAX_PENDING && (!page.isEmpty() || readUpToId < lastId)) {
+                        if (page.isEmpty()) {
+                            int upToId = (int) Math.min(lastId, (long) readUpToId + PAGE_SIZE);
+                            page.addAll(TransactionDataManager.readTransactions(conn, readUpToId, upToId));
+                            readUpToId = upToId;
+                            continue;
+                        }
+                        TransactionData transaction = page.removeFirst();
+                        ReceiptData receipt = ReceiptData.fromTransaction(transaction, transaction.getTransactionItems());
+                        rendering.addLast(transaction);
+                        pending.addLast(RENDER_POOL.submit(() -> ReceiptRenderer.renderPng(receipt)));
+                    }
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                    TransactionData transaction = rendering.removeFirst();
+                    byte[] image;
+                    try {
+                        image = pending.removeFirst().get();
+                    } catch (ExecutionException e) {
+                        throw new IOException("Cannot render receipt #" + transaction.getTransactionId() + ": "
+                            + e.getCause().getMessage(), e.getCause());
+                    }
+                    zip.putNextEntry(new ZipEntry("#" + transaction.getTransactionId() + ".png"));
+                    zip.write(image);
+                    zip.closeEntry();
+                    task.rowWritten();
+                }
+            } finally {
+                // Stop rendering receipts that will not be written after a failure or cancellation
+                for (Future<byte[]> future : pending) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+}
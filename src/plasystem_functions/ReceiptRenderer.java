@@ -0,0 +1,362 @@
+package plasystem_functions;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders sales receipts of the PlaSystem application directly from a {@link ReceiptData} into an
+ * off-screen image, without creating or painting any Swing component. Fonts, font metrics and the scaled
+ * logo are created once and shared by all renders, and receipts are encoded as PNG and stored in the
+ * {@link ReceiptArchive} on a background thread, so printing a receipt does not block the Event Dispatch
+ * Thread.
+ */
+public class ReceiptRenderer {
+    /** The width of a receipt image in pixels. */
+    private static final int WIDTH = 420;
+
+    /** The horizontal margin of the receipt content in pixels. */
+    private static final int MARGIN = 26;
+
+    /** The x position of the quantity column. */
+    private static final int QUANTITY_X = 220;
+
+    /** The maximum width of the logo in pixels. */
+    private static final int LOGO_WIDTH = 307;
+
+    /** The colour of the receipt text and lines, matching the receipt window. */
+    private static final Color INK = new Color(51, 51, 51);
+
+    /** The single background thread encoding receipt images. */
+    private static final ExecutorService RENDER_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ReceiptRenderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Holds the fonts, metrics and logo shared by all renders. They are created by the JVM on first use,
+     * which is thread-safe, and are only read afterwards.
+     */
+    private static final class Layout {
+        /** The font of the receipt text. */
+        static final Font BODY_FONT = new Font("Segoe UI", Font.PLAIN, 12);
+        /** The font of the column headers and amounts. */
+        static final Font BOLD_FONT = BODY_FONT.deriveFont(Font.BOLD);
+        /** The metrics of the body font. */
+        static final FontMetrics BODY_METRICS;
+        /** The metrics of the bold font. */
+        static final FontMetrics BOLD_METRICS;
+        /** The height of one text line. */
+        static final int LINE_HEIGHT;
+        /** The error that prevented the logo from loading, or null if it loaded or is not packaged. */
+        static IOException logoError;
+        /** The scaled logo, or null if the resource is unavailable. */
+        static final BufferedImage LOGO = loadLogo();
+
+        static {
+            // Measure with the same rendering hints as the receipts are drawn with
+            BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scratch.createGraphics();
+            applyHints(graphics);
+            BODY_METRICS = graphics.getFontMetrics(BODY_FONT);
+            BOLD_METRICS = graphics.getFontMetrics(BOLD_FONT);
+            graphics.dispose();
+            LINE_HEIGHT = Math.max(BODY_METRICS.getHeight(), BOLD_METRICS.getHeight()) + 4;
+        }
+    }
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ReceiptRenderer() {
+    }
+
+    /**
+     * Renders a receipt into a new image.
+     *
+     * @param receipt The receipt to render.
+     * @return The receipt image.
+     */
+    public static BufferedImage render(ReceiptData receipt) {
+        int logoHeight = Layout.LOGO != null ? Layout.LOGO.getHeight() + 12 : 0;
+        // Logo, three centred lines, date, header, items, divider and three amounts
+        int height = 24 + logoHeight + Layout.LINE_HEIGHT * (8 + receipt.getLines().size()) + 40;
+
+        BufferedImage image = new BufferedImage(WIDTH, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            applyHints(g);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, WIDTH, height);
+            g.setColor(INK);
+            g.setStroke(new BasicStroke(2));
+            g.drawRect(1, 1, WIDTH - 2, height - 2);
+            g.setStroke(new BasicStroke(1));
+
+            int y = 24;
+            if (Layout.LOGO != null) {
+                g.drawImage(Layout.LOGO, (WIDTH - Layout.LOGO.getWidth()) / 2, y, null);
+                y += logoHeight;
+            }
+
+            // Store and receipt identification
+            y = drawCentered(g, "Legazpi City, Albay, Philippines", y);
+            y = drawCentered(g, "This serves as a Sales Invoice.", y);
+            y = drawCentered(g, receipt.getReceiptNumber(), y);
+            g.setFont(Layout.BODY_FONT);
+            g.drawString("Date: " + receipt.getTransactionDate(), MARGIN, baseline(y));
+            y += Layout.LINE_HEIGHT;
+
+            // Item lines
+            g.setFont(Layout.BOLD_FONT);
+            g.drawString("Item", MARGIN, baseline(y));
+            g.drawString("Quantity", QUANTITY_X, baseline(y));
+            drawRight(g, Layout.BOLD_METRICS, "Price", y);
+            y += Layout.LINE_HEIGHT;
+            g.setFont(Layout.BODY_FONT);
+            int nameWidth = QUANTITY_X - MARGIN - 8;
+            for (ReceiptData.Line line : receipt.getLines()) {
+                g.drawString(fit(line.getProductName(), nameWidth), MARGIN, baseline(y));
+                g.drawString(String.valueOf(line.getQuantity()), QUANTITY_X, baseline(y));
+                drawRight(g, Layout.BODY_METRICS, formatAmount(line.getTotalPrice()), y);
+                y += Layout.LINE_HEIGHT;
+            }
+
+            // Divider and amounts
+            y += Layout.LINE_HEIGHT / 2;
+            g.drawLine(MARGIN, y, WIDTH - MARGIN, y);
+            y += Layout.LINE_HEIGHT / 2;
+            y = drawAmount(g, "Total Amount :", receipt.getTotalAmount(), y);
+            y = drawAmount(g, "Cash :", receipt.getCashAmount(), y);
+            drawAmount(g, "Change :", receipt.getChangeAmount(), y);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders a receipt and stores it in the {@link ReceiptArchive} on a background thread. If the logo
+     * could not be loaded, the receipt is archived without it and the future still completes exceptionally,
+     * so the caller reports the defect.
+     *
+     * @param receipt The receipt to archive.
+     * @return A future completed once the receipt is archived, or completed exceptionally if archiving fails
+     *         or the archived receipt lacks its logo.
+     */
+    public static CompletableFuture<Void> archiveAsync(ReceiptData receipt) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                ReceiptArchive.store(receipt.getTransactionId(), renderPng(receipt));
+                if (Layout.logoError != null) {
+                    throw new IOException("The receipt was archived without its logo, which could not be loaded: "
+                        + Layout.logoError.getMessage(), Layout.logoError);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e.getMessage(), e);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }, RENDER_EXECUTOR);
+    }
+
+    /**
+     * Checks whether receipt images are stored in the receipt archive. When disabled with the
+     * receipt.archiveImages setting, receipts are regenerated from the stored transaction on demand.
+     *
+     * @return {@code true} if receipt images are archived.
+     */
+    public static boolean isArchivingEnabled() {
+        return AppSettings.getBoolean(AppSettings.RECEIPT_ARCHIVE_IMAGES, true);
+    }
+
+    /**
+     * Gets the image of a receipt for reprinting on a background thread. The archived image is returned
+     * if there is one; otherwise the receipt is rendered and, if archiving is enabled, archived so it is
+     * found directly next time.
+     *
+     * @param receipt The receipt to reprint.
+     * @return A future completed with the receipt image, or completed exceptionally if it cannot be read or rendered.
+     */
+    public static CompletableFuture<BufferedImage> reprintAsync(ReceiptData receipt) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                byte[] archived = ReceiptArchive.read(receipt.getTransactionId());
+                if (archived != null) {
+                    BufferedImage image = ImageIO.read(new ByteArrayInputStream(archived));
+                    if (image != null) {
+                        return image;
+                    }
+                }
+                BufferedImage image = render(receipt);
+                if (isArchivingEnabled()) {
+                    ReceiptArchive.store(receipt.getTransactionId(), encodePng(image));
+                }
+                return image;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }, RENDER_EXECUTOR);
+    }
+
+    /**
+     * Renders a receipt and encodes it as PNG on the calling thread. May be called from several threads.
+     *
+     * @param receipt The receipt to render.
+     * @return The PNG data.
+     * @throws IOException If the image cannot be encoded.
+     */
+    public static byte[] renderPng(ReceiptData receipt) throws IOException {
+        return encodePng(render(receipt));
+    }
+
+    /**
+     * Encodes a receipt image as PNG.
+     *
+     * @param image The receipt image.
+     * @return The PNG data.
+     * @throws IOException If the image cannot be encoded.
+     */
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("No PNG image writer is available.");
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Enables anti-aliasing for text and shapes.
+     *
+     * @param g The graphics to configure.
+     */
+    private static void applyHints(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+    }
+
+    /**
+     * Loads the receipt logo and scales it to the logo width once. A read error is kept in
+     * {@code Layout.logoError} and reported when a receipt is archived.
+     *
+     * @return The scaled logo, or null if it cannot be loaded.
+     */
+    private static BufferedImage loadLogo() {
+        try (InputStream in = ReceiptRenderer.class.getResourceAsStream("/plasystem_resources/logo_1.png")) {
+            BufferedImage logo = in == null ? null : ImageIO.read(in);
+            if (logo == null || logo.getWidth() <= LOGO_WIDTH) {
+                return logo;
+            }
+            int height = Math.round((float) logo.getHeight() * LOGO_WIDTH / logo.getWidth());
+            BufferedImage scaled = new BufferedImage(LOGO_WIDTH, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(logo, 0, 0, LOGO_WIDTH, height, null);
+            g.dispose();
+            return scaled;
+        } catch (IOException e) {
+            Layout.logoError = e;
+            return null;
+        }
+    }
+
+    /**
+     * Gets the text baseline of a line.
+     *
+     * @param y The top of the line.
+     * @return The baseline y position.
+     */
+    private static int baseline(int y) {
+        return y + Layout.BODY_METRICS.getAscent();
+    }
+
+    /**
+     * Draws a line of text centred on the receipt.
+     *
+     * @param g    The graphics to draw with.
+     * @param text The text.
+     * @param y    The top of the line.
+     * @return The top of the next line.
+     */
+    private static int drawCentered(Graphics2D g, String text, int y) {
+        g.setFont(Layout.BODY_FONT);
+        g.drawString(text, (WIDTH - Layout.BODY_METRICS.stringWidth(text)) / 2, baseline(y));
+        return y + Layout.LINE_HEIGHT;
+    }
+
+    /**
+     * Draws text right-aligned to the margin.
+     *
+     * @param g       The graphics to draw with.
+     * @param metrics The metrics of the current font.
+     * @param text    The text.
+     * @param y       The top of the line.
+     */
+    private static void drawRight(Graphics2D g, FontMetrics metrics, String text, int y) {
+        g.drawString(text, WIDTH - MARGIN - metrics.stringWidth(text), baseline(y));
+    }
+
+    /**
+     * Draws a labelled amount line.
+     *
+     * @param g      The graphics to draw with.
+     * @param label  The label.
+     * @param amount The amount.
+     * @param y      The top of the line.
+     * @return The top of the next line.
+     */
+    private static int drawAmount(Graphics2D g, String label, double amount, int y) {
+        g.setFont(Layout.BODY_FONT);
+        g.drawString(label, MARGIN, baseline(y));
+        g.setFont(Layout.BOLD_FONT);
+        drawRight(g, Layout.BOLD_METRICS, formatAmount(amount), y);
+        return y + Layout.LINE_HEIGHT;
+    }
+
+    /**
+     * Shortens text with an ellipsis so that it fits a width in the body font.
+     *
+     * @param text  The text.
+     * @param width The available width in pixels.
+     * @return The text, shortened if necessary.
+     */
+    private static String fit(String text, int width) {
+        FontMetrics metrics = Layout.BODY_METRICS;
+        if (metrics.stringWidth(text) <= width) {
+            return text;
+        }
+        int end = text.length();
+        while (end > 0 && metrics.stringWidth(text.substring(0, end) + "...") > width) {
+            end--;
+        }
+        return text.substring(0, end) + "...";
+    }
+
+    /**
+     * Formats an amount in pesos like the receipt window.
+     *
+     * @param amount The amount.
+     * @return The formatted amount.
+     */
+    private static String formatAmount(double amount) {
+        return String.format("₱%.2f", amount);
+    }
+}
@@ -0,0 +1,318 @@
+package plasystem_functions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recommends reorder points from actual sales instead of the hand-typed restock values of the PlaSystem
+ * application. For every product the engine computes the sales velocity over sliding 7, 30 and 90 day
+ * windows from the daily sales summary, which is maintained from the TransactionItems table, and
+ * estimates the restock lead time from the intervals between the product's past restocks. The reorder
+ * point covers the expected demand during the lead time plus a safety stock for the day-to-day variation
+ * in sales. Recommendations are computed in parallel across products on the common fork/join pool and
+ * cached until a sale or restock is recorded or the day changes.
+ */
+public class ReorderPointEngine {
+    /** The sliding windows in days over which sales velocities are computed. */
+    private static final int SHORT_WINDOW = 7, MEDIUM_WINDOW = 30, LONG_WINDOW = 90;
+
+    /** The weights of the 7, 30 and 90 day velocities in the blended velocity, favouring recent sales. */
+    private static final double SHORT_WEIGHT = 0.5, MEDIUM_WEIGHT = 0.3, LONG_WEIGHT = 0.2;
+
+    /** The service level factor of the safety stock, covering about 95% of lead time demand. */
+    private static final double SERVICE_FACTOR = 1.65;
+
+    /** The lead time in days used for products with fewer than two restocks. */
+    private static final int DEFAULT_LEAD_TIME_DAYS = 7;
+
+    /** The bounds in days of a lead time measured from restock history. */
+    private static final int MIN_LEAD_TIME_DAYS = 1, MAX_LEAD_TIME_DAYS = 30;
+
+    /** The number of products computed sequentially by one fork/join task. */
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    /** SQL query to select the daily units sold per product within the long window. */
+    private static final String SELECT_DAILY_UNITS_QUERY =
+        "SELECT DS_PROD_ID, DS_DATE, DS_UNITS FROM DailySales WHERE DS_DATE >= ?";
+
+    /** SQL query to select the distinct restock dates of each product, in date order. */
+    private static final String SELECT_RESTOCK_DATES_QUERY =
+        "SELECT DISTINCT ri.RI_PROD_ID, printf('%04d-%02d-%02d', CAST(r.RESTOCK_DATE_YEAR AS INTEGER), " +
+        "CAST(r.RESTOCK_DATE_MONTH AS INTEGER), CAST(r.RESTOCK_DATE_DAY AS INTEGER)) AS RESTOCK_DATE " +
+        "FROM Restock r JOIN RestockItems ri ON ri.RI_RESTOCK_ID = r.RESTOCK_ID " +
+        "WHERE ri.RI_PROD_ID IS NOT NULL ORDER BY ri.RI_PROD_ID, RESTOCK_DATE";
+
+    /** SQL query to read a stamp that changes whenever a sale or restock is recorded or deleted. */
+    private static final String SELECT_DATA_STAMP_QUERY =
+        "SELECT (SELECT COALESCE(MAX(TRANS_ID), 0) FROM Transactions) || ':' || " +
+        "(SELECT COALESCE(SUM(DST_TRANSACTIONS), 0) FROM DailySalesTotal) || ':' || " +
+        "(SELECT COALESCE(MAX(RESTOCK_ID), 0) FROM Restock) || ':' || (SELECT COUNT(*) FROM Restock)";
+
+    /** The cached recommendations by product ID. */
+    private Map<Integer, ReorderRecommendation> cache = Collections.emptyMap();
+
+    /** The data stamp and date the cache was computed for, or null if nothing is cached. */
+    private String cacheStamp;
+
+    /**
+     * Gets the reorder point recommendations for a list of products. The cached recommendations are
+     * returned if no sale or restock has been recorded since they were computed and they cover every
+     * product; otherwise they are recomputed. Reads the database, so it should be called off the Event
+     * Dispatch Thread with a list that is not modified while it runs.
+     *
+     * @param products The products to recommend reorder points for.
+     * @return The recommendations by product ID.
+     * @throws SQLException If a database error occurs.
+     */
+    public synchronized Map<Integer, ReorderRecommendation> getRecommendations(List<ProductData> products)
+            throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            String stamp = readDataStamp(conn);
+            if (stamp.equals(cacheStamp) && coversAll(products)) {
+                return cache;
+            }
+            cache = Collections.unmodifiableMap(compute(conn, products));
+            cacheStamp = stamp;
+            return cache;
+        }
+    }
+
+    /**
+     * Discards the cached recommendations so that the next request recomputes them.
+     */
+    public synchronized void invalidate() {
+        cache = Collections.emptyMap();
+        cacheStamp = null;
+    }
+
+    /**
+     * Reads the data stamp together with the current date, since the sliding windows move every day.
+     *
+     * @param conn The open database connection.
+     * @return The stamp identifying the sales and restock data of today.
+     * @throws SQLException If a database error occurs.
+     */
+    private static String readDataStamp(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_DATA_STAMP_QUERY)) {
+            return LocalDate.now() + "/" + (rs.next() ? rs.getString(1) : "");
+        }
+    }
+
+    /**
+     * Checks whether the cache contains a recommendation for every product.
+     *
+     * @param products The requested products.
+     * @return {@code true} if every product is cached.
+     */
+    private boolean coversAll(List<ProductData> products) {
+        for (ProductData product : products) {
+            if (!cache.containsKey(product.getProductId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the sales and restock history and computes the recommendations in parallel.
+     *
+     * @param conn     The open database connection.
+     * @param products The products to recommend reorder points for.
+     * @return The recommendations by product ID.
+     * @throws SQLException If a database error occurs.
+     */
+    private static Map<Integer, ReorderRecommendation> compute(Connection conn, List<ProductData> products)
+            throws SQLException {
+        LocalDate today = LocalDate.now();
+        Map<Integer, int[]> dailyUnits = readDailyUnits(conn, today);
+        Map<Integer, List<LocalDate>> restockDates = readRestockDates(conn);
+
+        ProductData[] input = products.toArray(new ProductData[0]);
+        ReorderRecommendation[] output = new ReorderRecommendation[input.length];
+        ForkJoinPool.commonPool().invoke(new RecommendationTask(input, output, 0, input.length, dailyUnits, restockDates));
+
+        Map<Integer, ReorderRecommendation> recommendations = new HashMap<>(output.length * 2);
+        for (ReorderRecommendation recommendation : output) {
+            recommendations.put(recommendation.getProductId(), recommendation);
+        }
+        return recommendations;
+    }
+
+    /**
+     * Reads the units sold per product and day within the long window.
+     *
+     * @param conn  The open database connection.
+     * @param today The current date.
+     * @return Arrays of daily units by product ID, indexed by days before today (0 is today).
+     * @throws SQLException If a database error occurs.
+     */
+    private static Map<Integer, int[]> readDailyUnits(Connection conn, LocalDate today) throws SQLException {
+        Map<Integer, int[]> dailyUnits = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_DAILY_UNITS_QUERY)) {
+            pstmt.setString(1, today.minusDays(LONG_WINDOW - 1).toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int daysAgo = (int) ChronoUnit.DAYS.between(LocalDate.parse(rs.getString(2)), today);
+                    if (daysAgo >= 0 && daysAgo < LONG_WINDOW) {
+                        dailyUnits.computeIfAbsent(rs.getInt(1), id -> new int[LONG_WINDOW])[daysAgo] += rs.getInt(3);
+                    }
+                }
+            }
+        }
+        return dailyUnits;
+    }
+
+    /**
+     * Reads the distinct restock dates of every product.
+     *
+     * @param conn The open database connection.
+     * @return The restock dates in ascending order by product ID.
+     * @throws SQLException If a database error occurs.
+     */
+    private static Map<Integer, List<LocalDate>> readRestockDates(Connection conn) throws SQLException {
+        Map<Integer, List<LocalDate>> restockDates = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_RESTOCK_DATES_QUERY)) {
+            while (rs.next()) {
+                restockDates.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(LocalDate.parse(rs.getString(2)));
+            }
+        }
+        return restockDates;
+    }
+
+    /**
+     * Computes the recommendation of one product.
+     *
+     * @param product      The product.
+     * @param units        The daily units sold indexed by days before today, or null if none were sold.
+     * @param restockDates The product's restock dates in ascending order, or null if never restocked.
+     * @return The recommendation.
+     */
+    static ReorderRecommendation recommend(ProductData product, int[] units, List<LocalDate> restockDates) {
+        double velocity7 = 0, velocity30 = 0, velocity90 = 0, deviation = 0;
+        if (units != null) {
+            long sum7 = 0, sum30 = 0, sum90 = 0;
+            for (int day = 0; day < LONG_WINDOW; day++) {
+                if (day < SHORT_WINDOW) {
+                    sum7 += units[day];
+                }
+                if (day < MEDIUM_WINDOW) {
+                    sum30 += units[day];
+                }
+                sum90 += units[day];
+            }
+            velocity7 = (double) sum7 / SHORT_WINDOW;
+            velocity30 = (double) sum30 / MEDIUM_WINDOW;
+            velocity90 = (double) sum90 / LONG_WINDOW;
+
+            // Standard deviation of daily sales over the medium window, for the safety stock
+            double variance = 0;
+            for (int day = 0; day < MEDIUM_WINDOW; day++) {
+                double difference = units[day] - velocity30;
+                variance += difference * difference;
+            }
+            deviation = Math.sqrt(variance / MEDIUM_WINDOW);
+        }
+        double dailyVelocity = SHORT_WEIGHT * velocity7 + MEDIUM_WEIGHT * velocity30 + LONG_WEIGHT * velocity90;
+
+        double leadTime = measureLeadTime(restockDates);
+        boolean measured = leadTime > 0;
+        if (!measured) {
+            leadTime = DEFAULT_LEAD_TIME_DAYS;
+        }
+
+        double safetyStock = SERVICE_FACTOR * deviation * Math.sqrt(leadTime);
+        int reorderPoint = (int) Math.ceil(dailyVelocity * leadTime + safetyStock);
+        return new ReorderRecommendation(product.getProductId(), velocity7, velocity30, velocity90,
+            dailyVelocity, leadTime, measured, reorderPoint);
+    }
+
+    /**
+     * Estimates a product's restock lead time as the median interval between its consecutive restocks,
+     * which is how long stock has had to last until the next delivery. This is an approximation: the
+     * actual delay from placing an order to its delivery is not recorded.
+     *
+     * @param restockDates The restock dates in ascending order, or null.
+     * @return The lead time in days within the configured bounds, or 0 if fewer than two restocks exist.
+     */
+    private static double measureLeadTime(List<LocalDate> restockDates) {
+        if (restockDates == null || restockDates.size() < 2) {
+            return 0;
+        }
+        long[] intervals = new long[restockDates.size() - 1];
+        for (int i = 1; i < restockDates.size(); i++) {
+            intervals[i - 1] = ChronoUnit.DAYS.between(restockDates.get(i - 1), restockDates.get(i));
+        }
+        Arrays.sort(intervals);
+        int middle = intervals.length / 2;
+        double median = intervals.length % 2 == 1 ? intervals[middle] : (intervals[middle - 1] + intervals[middle]) / 2.0;
+        return Math.max(MIN_LEAD_TIME_DAYS, Math.min(MAX_LEAD_TIME_DAYS, median));
+    }
+
+    /**
+     * Fork/join task computing the recommendations of a range of products, splitting the range in
+     * halves until it is small enough to compute sequentially.
+     */
+    private static class RecommendationTask extends RecursiveAction {
+        /** The products to compute. */
+        private final ProductData[] products;
+        /** The recommendations, written at the index of their product. */
+        private final ReorderRecommendation[] results;
+        /** The first index of the range, inclusive. */
+        private final int from;
+        /** The last index of the range, exclusive. */
+        private final int to;
+        /** The daily units sold by product ID. */
+        private final Map<Integer, int[]> dailyUnits;
+        /** The restock dates by product ID. */
+        private final Map<Integer, List<LocalDate>> restockDates;
+
+        /**
+         * Constructs a RecommendationTask for a range of products.
+         *
+         * @param products     The products to compute.
+         * @param results      The array receiving the recommendations.
+         * @param from         The first index of the range, inclusive.
+         * @param to           The last index of the range, exclusive.
+         * @param dailyUnits   The daily units sold by product ID.
+         * @param restockDates The restock dates by product ID.
+         */
+        RecommendationTask(ProductData[] products, ReorderRecommendation[] results, int from, int to,
+                           Map<Integer, int[]> dailyUnits, Map<Integer, List<LocalDate>> restockDates) {
+            this.products = products;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.dailyUnits = dailyUnits;
+            this.restockDates = restockDates;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    int productId = products[i].getProductId();
+                    results[i] = recommend(products[i], dailyUnits.get(productId), restockDates.get(productId));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RecommendationTask(products, results, from, middle, dailyUnits, restockDates),
+                      new RecommendationTask(products, results, middle, to, dailyUnits, restockDates));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package plasystem_functions;
+
+/**
+ * Represents the reorder point recommended for a product by the {@link ReorderPointEngine}, together with
+ * the sales velocities and restock lead time it was computed from. Instances are immutable.
+ */
+public class ReorderRecommendation {
+    /** The ID of the product. */
+    private final int productId;
+
+    /** The average units sold per day over the last 7 days. */
+    private final double velocity7;
+
+    /** The average units sold per day over the last 30 days. */
+    private final double velocity30;
+
+    /** The average units sold per day over the last 90 days. */
+    private final double velocity90;
+
+    /** The blended units sold per day used for the recommendation. */
+    private final double dailyVelocity;
+
+    /** The restock lead time in days used for the recommendation. */
+    private final double leadTimeDays;
+
+    /** Flag indicating whether the lead time was measured from restock history rather than the default. */
+    private final boolean leadTimeMeasured;
+
+    /** The recommended reorder point in units. */
+    private final int reorderPoint;
+
+    /**
+     * Constructs a ReorderRecommendation with the specified values.
+     *
+     * @param productId        The ID of the product.
+     * @param velocity7        The average units sold per day over the last 7 days.
+     * @param velocity30       The average units sold per day over the last 30 days.
+     * @param velocity90       The average units sold per day over the last 90 days.
+     * @param dailyVelocity    The blended units sold per day.
+     * @param leadTimeDays     The restock lead time in days.
+     * @param leadTimeMeasured Whether the lead time was measured from restock history.
+     * @param reorderPoint     The recommended reorder point in units.
+     */
+    public ReorderRecommendation(int productId, double velocity7, double velocity30, double velocity90,
+                                 double dailyVelocity, double leadTimeDays, boolean leadTimeMeasured, int reorderPoint) {
+        this.productId = productId;
+        this.velocity7 = velocity7;
+        this.velocity30 = velocity30;
+        this.velocity90 = velocity90;
+        this.dailyVelocity = dailyVelocity;
+        this.leadTimeDays = leadTimeDays;
+        this.leadTimeMeasured = leadTimeMeasured;
+        this.reorderPoint = reorderPoint;
+    }
+
+    /**
+     * Gets the ID of the product.
+     *
+     * @return The product ID.
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Gets the average units sold per day over the last 7 days.
+     *
+     * @return The 7-day sales velocity.
+     */
+    public double getVelocity7() {
+        return velocity7;
+    }
+
+    /**
+     * Gets the average units sold per day over the last 30 days.
+     *
+     * @return The 30-day sales velocity.
+     */
+    public double getVelocity30() {
+        return velocity30;
+    }
+
+    /**
+     * Gets the average units sold per day over the last 90 days.
+     *
+     * @return The 90-day sales velocity.
+     */
+    public double getVelocity90() {
+        return velocity90;
+    }
+
+    /**
+     * Gets the blended units sold per day used for the recommendation.
+     *
+     * @return The daily sales velocity.
+     */
+    public double getDailyVelocity() {
+        return dailyVelocity;
+    }
+
+    /**
+     * Gets the restock lead time used for the recommendation.
+     *
+     * @return The lead time in days.
+     */
+    public double getLeadTimeDays() {
+        return leadTimeDays;
+    }
+
+    /**
+     * Checks whether the lead time was measured from the product's restock history.
+     *
+     * @return {@code true} if measured, {@code false} if the default lead time was used.
+     */
+    public boolean isLeadTimeMeasured() {
+        return leadTimeMeasured;
+    }
+
+    /**
+     * Gets the recommended reorder point.
+     *
+     * @return The reorder point in units.
+     */
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+}
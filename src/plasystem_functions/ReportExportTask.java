@@ -0,0 +1,275 @@
+package plasystem_functions;
+
+import javax.swing.*;
+import java.awt.Component;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background task for exporting a report file in the PlaSystem application. The report is written
+ * off the Event Dispatch Thread into a temporary file next to the target and moved into place only
+ * when it is complete, so a cancelled or failed export never leaves a partial report behind.
+ * A progress monitor shows the number of rows written and lets the user cancel the export, and a
+ * message is shown when the export finishes. Several exports may run at the same time.
+ */
+public class ReportExportTask extends SwingWorker<File, Void> {
+    /** Number of rows between two progress updates. */
+    private static final int PROGRESS_INTERVAL = 64;
+
+    /** Interval in milliseconds at which the progress monitor is checked for cancellation. */
+    private static final int CANCEL_POLL_INTERVAL = 200;
+
+    /**
+     * Writes the content of a report to a file, reporting progress to the export task.
+     */
+    @FunctionalInterface
+    public interface ReportWriter {
+        /**
+         * Writes the report to the given file.
+         *
+         * @param file The temporary file to write the report to.
+         * @param task The export task to report progress to.
+         * @throws Exception If the report cannot be written.
+         */
+        void write(File file, ReportExportTask task) throws Exception;
+    }
+
+    /**
+     * Action run in the background once the completed report has been moved into place.
+     */
+    @FunctionalInterface
+    public interface CompletionAction {
+        /**
+         * Handles the completed report.
+         *
+         * @param reportFile The completed report file.
+         * @throws Exception If the action fails. The export is then reported as failed.
+         */
+        void completed(File reportFile) throws Exception;
+    }
+
+    /** The parent component for the progress monitor and result dialogs. */
+    private final Component parent;
+
+    /** The display name of the report, such as "Inventory Report". */
+    private final String reportName;
+
+    /** The final location of the report file. */
+    private final File targetFile;
+
+    /** The writer producing the report content. */
+    private final ReportWriter reportWriter;
+
+    /** The progress monitor shown while the export is running. */
+    private ProgressMonitor progressMonitor;
+
+    /** The timer polling the progress monitor for cancellation. */
+    private Timer cancelPoller;
+
+    /** The expected number of data rows, or 0 if unknown. */
+    private volatile int totalRows;
+
+    /** The number of data rows written so far, possibly by several writer threads. */
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+
+    /** The action run once the report is in place, or null if none. */
+    private volatile CompletionAction completionAction;
+
+    /** The lock making the cancellation check and the start of the commit atomic. */
+    private final Object commitLock = new Object();
+
+    /**
+     * Flag indicating whether the report is being moved into place and its completion action run. Once set,
+     * the export can no longer be cancelled, so a report whose watermark has advanced is never reported as cancelled.
+     */
+    private boolean committing;
+
+    /**
+     * Constructs a ReportExportTask.
+     *
+     * @param parent       The parent component for dialogs. May be null.
+     * @param reportName   The display name of the report.
+     * @param targetFile   The final location of the report file.
+     * @param reportWriter The writer producing the report content.
+     */
+    public ReportExportTask(Component parent, String reportName, File targetFile, ReportWriter reportWriter) {
+        this.parent = parent;
+        this.reportName = reportName;
+        this.targetFile = targetFile;
+        this.reportWriter = reportWriter;
+    }
+
+    /**
+     * Shows the progress monitor and starts the export in the background. Must be called on the
+     * Event Dispatch Thread.
+     */
+    public void start() {
+        progressMonitor = new ProgressMonitor(parent, "Exporting " + reportName + "...", "Preparing...", 0, 100);
+        progressMonitor.setMillisToDecideToPopup(200);
+        progressMonitor.setMillisToPopup(200);
+
+        // Mirror the task progress in the monitor
+        addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName()) && !progressMonitor.isCanceled()) {
+                progressMonitor.setProgress((Integer) evt.getNewValue());
+                progressMonitor.setNote(totalRows > 0
+                    ? String.format("%,d of %,d rows", rowsWritten.get(), totalRows)
+                    : String.format("%,d rows", rowsWritten.get()));
+            }
+        });
+
+        // Cancel the task when the user presses the monitor's cancel button, unless it is already committing
+        cancelPoller = new Timer(CANCEL_POLL_INTERVAL, e -> {
+            if (progressMonitor.isCanceled()) {
+                requestCancel();
+            }
+        });
+        cancelPoller.start();
+
+        execute();
+    }
+
+    /**
+     * Cancels the export unless the completed report is already being moved into place. Exports are
+     * cancelled through this method rather than {@link #cancel(boolean)}, so that a cancellation can
+     * never land between the move and the completion action.
+     *
+     * @return {@code true} if the export was cancelled, {@code false} if it is committing or has finished.
+     */
+    public boolean requestCancel() {
+        synchronized (commitLock) {
+            return !committing && cancel(false);
+        }
+    }
+
+    /**
+     * Opens a CSV writer for the temporary report file. The output is gzip-compressed when the
+     * target report file is a .gz file.
+     *
+     * @param file The temporary file passed to the report writer.
+     * @return The new CSV writer.
+     * @throws IOException If the file cannot be opened.
+     */
+    public CsvWriter openCsvWriter(File file) throws IOException {
+        return CsvWriter.open(file, ReportHousekeeper.isCompressed(targetFile));
+    }
+
+    /**
+     * Sets the expected number of data rows, used to compute the progress percentage.
+     *
+     * @param totalRows The expected number of rows.
+     */
+    public void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    /**
+     * Sets the action run in the background once the report has been written and moved into place.
+     * May be called by the report writer, for example once it knows which records the report contains.
+     *
+     * @param completionAction The action to run, or null for none.
+     */
+    public void setCompletionAction(CompletionAction completionAction) {
+        this.completionAction = completionAction;
+    }
+
+    /**
+     * Records that a data row has been written. Progress is published periodically, and the export
+     * is aborted if the task has been cancelled. May be called from several threads.
+     *
+     * @throws InterruptedIOException If the export has been cancelled.
+     */
+    public void rowWritten() throws InterruptedIOException {
+        int rows = rowsWritten.incrementAndGet();
+        if (rows % PROGRESS_INTERVAL != 0) {
+            return;
+        }
+        if (isCancelled()) {
+            throw new InterruptedIOException("Export cancelled.");
+        }
+        if (totalRows > 0) {
+            setProgress(Math.min(99, (int) ((long) rows * 100 / totalRows)));
+        }
+    }
+
+    /**
+     * Writes the report to a temporary file in the target directory and moves it into place.
+     *
+     * @return The completed report file.
+     * @throws Exception If the report cannot be written or moved.
+     */
+    @Override
+    protected File doInBackground() throws Exception {
+        File directory = targetFile.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+        File tempFile = File.createTempFile(targetFile.getName() + ".", ".part", directory);
+        try {
+            reportWriter.write(tempFile, this);
+            // Claim the commit; from here on a cancel request is refused and the export completes
+            synchronized (commitLock) {
+                if (isCancelled()) {
+                    throw new InterruptedIOException("Export cancelled.");
+                }
+                committing = true;
+            }
+            moveIntoPlace(tempFile);
+            if (completionAction != null) {
+                completionAction.completed(targetFile);
+            }
+            setProgress(100);
+            return targetFile;
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Moves the completed temporary file to the target location, atomically where the file system allows it.
+     *
+     * @param tempFile The completed temporary file.
+     * @throws IOException If the file cannot be moved.
+     */
+    private void moveIntoPlace(File tempFile) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Closes the progress monitor and notifies the user of the result of the export.
+     */
+    @Override
+    protected void done() {
+        cancelPoller.stop();
+        progressMonitor.close();
+        try {
+            File report = get();
+            JOptionPane.showMessageDialog(parent,
+                "Report generated successfully at: " + report.getPath(),
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+        } catch (CancellationException e) {
+            JOptionPane.showMessageDialog(parent,
+                reportName + " export was cancelled.",
+                "Export Cancelled",
+                JOptionPane.WARNING_MESSAGE);
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            JOptionPane.showMessageDialog(parent,
+                "Error generating report: " + cause.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
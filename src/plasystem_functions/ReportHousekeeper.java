@@ -0,0 +1,227 @@
+package plasystem_functions;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Names report files and keeps the report directories of the PlaSystem application tidy. Reports older
+ * than the configured retention period are rolled into one zip archive per report type and month in an
+ * "archive" subdirectory. Housekeeping runs periodically on a single background daemon thread, so it
+ * never adds latency to an export.
+ */
+public class ReportHousekeeper {
+    /** The directories containing generated reports. */
+    private static final String[] REPORT_DIRECTORIES = {
+        InventoryReportGenerator.REPORTS_DIRECTORY,
+        TransactionReportGenerator.REPORTS_DIRECTORY,
+        RestockReportGenerator.REPORTS_DIRECTORY
+    };
+
+    /** The name of the subdirectory holding the monthly archives. */
+    private static final String ARCHIVE_DIRECTORY = "archive";
+
+    /** The format of the timestamp in report file names, such as 2025-04-30_173005123, with milliseconds. */
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HHmmssSSS");
+
+    /** The format of the month in archive file names, such as 2025-04. */
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    /** Pattern matching report file names, with or without milliseconds, capturing the report prefix and the date. */
+    private static final Pattern REPORT_FILE_PATTERN =
+        Pattern.compile("^(.+)_(\\d{4}-\\d{2}-\\d{2})_\\d{6}(\\d{3})?\\.csv(\\.gz)?$");
+
+    /** The default number of days reports are kept before being archived. */
+    private static final int DEFAULT_RETENTION_DAYS = 30;
+
+    /** The default number of hours between two housekeeping runs. */
+    private static final int DEFAULT_INTERVAL_HOURS = 6;
+
+    /** The delay in minutes before the first housekeeping run after startup. */
+    private static final int INITIAL_DELAY_MINUTES = 1;
+
+    /** The time of the last report file name handed out, so no two reports of a run share a name. */
+    private static LocalDateTime lastReportTime = LocalDateTime.MIN;
+
+    /** The executor running the housekeeping task, or null until started. */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ReportHousekeeper() {
+    }
+
+    /**
+     * Creates the file for a new report in the given directory, named with the report prefix and
+     * the current timestamp. The extension is .csv.gz when report compression is enabled in the
+     * settings and .csv otherwise. The directory is created if it does not exist.
+     *
+     * @param directory The report directory.
+     * @param prefix    The report prefix, such as "InventoryReport".
+     * @return The file for the new report.
+     */
+    public static File newReportFile(String directory, String prefix) {
+        String extension = AppSettings.getBoolean(AppSettings.REPORT_COMPRESS, false) ? ".csv.gz" : ".csv";
+        return newReportFile(directory, prefix, extension);
+    }
+
+    /**
+     * Creates the file for a new report with a fixed extension in the given directory, named with
+     * the report prefix and the current timestamp to the millisecond. The timestamp is moved forward
+     * if an earlier report of this run or an existing file already has it, so two exports started in
+     * the same millisecond never replace each other. The directory is created if it does not exist.
+     *
+     * @param directory The report directory.
+     * @param prefix    The report prefix, such as "EndOfDay".
+     * @param extension The file extension including the dot, such as ".zip".
+     * @return The file for the new report.
+     */
+    public static synchronized File newReportFile(String directory, String prefix, String extension) {
+        File reportsDir = new File(directory);
+        if (!reportsDir.exists()) {
+            reportsDir.mkdirs();
+        }
+        LocalDateTime reportTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (!reportTime.isAfter(lastReportTime)) {
+            reportTime = lastReportTime.plus(1, ChronoUnit.MILLIS);
+        }
+        File reportFile = new File(reportsDir, prefix + "_" + reportTime.format(TIMESTAMP_FORMAT) + extension);
+        while (reportFile.exists()) {
+            reportTime = reportTime.plus(1, ChronoUnit.MILLIS);
+            reportFile = new File(reportsDir, prefix + "_" + reportTime.format(TIMESTAMP_FORMAT) + extension);
+        }
+        lastReportTime = reportTime;
+        return reportFile;
+    }
+
+    /**
+     * Checks whether a report file is gzip-compressed, based on its name.
+     *
+     * @param reportFile The report file.
+     * @return {@code true} if the file name ends with .gz.
+     */
+    public static boolean isCompressed(File reportFile) {
+        return reportFile.getName().endsWith(".gz");
+    }
+
+    /**
+     * Starts periodic housekeeping on a background daemon thread. Calling this more than once has no effect.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-housekeeper");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        long intervalMinutes = TimeUnit.HOURS.toMinutes(
+            Math.max(1, AppSettings.getInt(AppSettings.REPORT_HOUSEKEEPING_INTERVAL_HOURS, DEFAULT_INTERVAL_HOURS)));
+        scheduler.scheduleWithFixedDelay(ReportHousekeeper::runHousekeeping,
+            INITIAL_DELAY_MINUTES, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Runs one housekeeping pass over all report directories. Errors are reported and do not stop later runs.
+     */
+    public static void runHousekeeping() {
+        int retentionDays = Math.max(0, AppSettings.getInt(AppSettings.REPORT_RETENTION_DAYS, DEFAULT_RETENTION_DAYS));
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        for (String directory : REPORT_DIRECTORIES) {
+            try {
+                archiveOldReports(new File(directory), cutoff);
+            } catch (IOException | RuntimeException e) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                    "Error archiving old reports in " + directory + ": " + e.getMessage(),
+                    "Housekeeping Error",
+                    JOptionPane.ERROR_MESSAGE));
+            }
+        }
+    }
+
+    /**
+     * Moves the reports of a directory dated before the cutoff into monthly zip archives.
+     *
+     * @param directory The report directory.
+     * @param cutoff    The oldest report date that is kept in place.
+     * @throws IOException If a report cannot be archived.
+     */
+    private static void archiveOldReports(File directory, LocalDate cutoff) throws IOException {
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+
+        // Group the expired reports by archive file, e.g. InventoryReport_2025-04.zip
+        Map<String, List<File>> expiredByArchive = new TreeMap<>();
+        for (File file : files) {
+            Matcher matcher = REPORT_FILE_PATTERN.matcher(file.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            LocalDate reportDate;
+            try {
+                reportDate = LocalDate.parse(matcher.group(2));
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            if (reportDate.isBefore(cutoff)) {
+                String archiveName = matcher.group(1) + "_" + reportDate.format(MONTH_FORMAT) + ".zip";
+                expiredByArchive.computeIfAbsent(archiveName, name -> new ArrayList<>()).add(file);
+            }
+        }
+        if (expiredByArchive.isEmpty()) {
+            return;
+        }
+
+        Path archiveDir = directory.toPath().resolve(ARCHIVE_DIRECTORY);
+        Files.createDirectories(archiveDir);
+        for (Map.Entry<String, List<File>> entry : expiredByArchive.entrySet()) {
+            addToArchive(archiveDir.resolve(entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * Adds report files to a zip archive, creating it if needed, and deletes each file once it is
+     * stored. An entry left over from an interrupted earlier run is replaced.
+     *
+     * @param archive The archive file.
+     * @param reports The report files to add.
+     * @throws IOException If the archive cannot be written.
+     */
+    private static void addToArchive(Path archive, List<File> reports) throws IOException {
+        try (FileSystem zip = FileSystems.newFileSystem(archive, Collections.singletonMap("create", "true"))) {
+            for (File report : reports) {
+                Files.copy(report.toPath(), zip.getPath(report.getName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        // Delete the originals only after the archive has been closed and written
+        for (File report : reports) {
+            Files.deleteIfExists(report.toPath());
+        }
+    }
+}
@@ -10,7 +10,8 @@ import javax.swing.JOptionPane;
  * Manages restocking operations in the PlaSystem database, including creating, retrieving,
  * and deleting restock events. Handles single and multiple product restocks, updates product
  * quantities, and ensures database consistency through transactions and comprehensive error
- * checking based on schema constraints.
+ * checking based on schema constraints. Restocking requires the {@link Permission#RESTOCK_PRODUCT}
+ * permission and deleting a restock event the {@link Permission#RESTOCK_HISTORY} permission.
  */
 public class RestockDataManager {
     /** SQL query to insert a new restock event into the Restock table. */
@@ -39,6 +40,15 @@ public class RestockDataManager {
     /** SQL query to select restock items for a specific restock event from the RestockItems table. */
     private static final String SELECT_RESTOCK_ITEMS_QUERY = 
         "SELECT * FROM RestockItems WHERE RI_RESTOCK_ID = ?";
+    
+    /** SQL query to select the restock events in an ID range joined with their items, in restock order. */
+    private static final String SELECT_RESTOCK_RANGE_QUERY =
+        "SELECT * FROM Restock r LEFT JOIN RestockItems ri ON ri.RI_RESTOCK_ID = r.RESTOCK_ID " +
+        "WHERE r.RESTOCK_ID > ? AND r.RESTOCK_ID <= ? ORDER BY r.RESTOCK_ID, ri.RI_ITEM_ID";
+    
+    /** SQL query to select the highest restock ID. */
+    private static final String SELECT_MAX_RESTOCK_ID_QUERY =
+        "SELECT COALESCE(MAX(RESTOCK_ID), 0) FROM Restock";
 
     /** Manager for product data operations, used to refresh product quantities after restocking. */
     private final ProductDataManager productDataManager;
@@ -46,6 +56,12 @@ public class RestockDataManager {
     /** In-memory list of restock events, synchronized with the database. */
     private final LinkedList<RestockData> restockList;
 
+    /** The permissions of the logged-in user, checked before every change. */
+    private long permissions = RoleBasedAccessControl.NO_PERMISSIONS;
+
+    /** The audit logger of the logged-in user, recording every change. */
+    private AuditLogger auditLogger = AuditLogger.DISABLED;
+
     /**
      * Constructs a RestockDataManager with a dependency on ProductDataManager and initializes
      * the restock list by loading all restock events from the database.
@@ -59,6 +75,24 @@ public class RestockDataManager {
         loadRestocks();
     }
 
+    /**
+     * Sets the permissions of the logged-in user, which are checked before every change to the restocks.
+     *
+     * @param permissions The compiled permission mask of the logged-in user.
+     */
+    public void setPermissions(long permissions) {
+        this.permissions = permissions;
+    }
+
+    /**
+     * Sets the audit logger of the logged-in user, which records every change to the restocks.
+     *
+     * @param auditLogger The audit logger of the logged-in user.
+     */
+    public void setAuditLogger(AuditLogger auditLogger) {
+        this.auditLogger = auditLogger;
+    }
+
     /**
      * Retrieves the list of restock events.
      *
@@ -73,7 +107,7 @@ public class RestockDataManager {
      * restock list. Clears the existing list before loading to ensure synchronization with the
      * database. Displays an error message if a database error occurs.
      */
-    private void loadRestocks() {
+    void loadRestocks() {
         restockList.clear();
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement restockStmt = conn.prepareStatement(SELECT_RESTOCK_QUERY);
@@ -116,10 +150,74 @@ public class RestockDataManager {
         }
     }
 
+    /**
+     * Reads the restock events in an ID range with their items using a single joined query, without
+     * touching the in-memory restock list. Used for report snapshots and incremental exports.
+     *
+     * @param conn    The open database connection.
+     * @param afterId The ID after which restock events are read, exclusive.
+     * @param upToId  The highest ID of the restock events read, inclusive.
+     * @return The restock events in ID order.
+     * @throws SQLException If a database error occurs.
+     */
+    static List<RestockData> readRestocks(Connection conn, int afterId, int upToId) throws SQLException {
+        List<RestockData> restocks = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_RESTOCK_RANGE_QUERY)) {
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, upToId);
+            ResultSet rs = pstmt.executeQuery();
+
+            RestockData current = null;
+            while (rs.next()) {
+                int restockId = rs.getInt("RESTOCK_ID");
+                if (current == null || current.getRestockId() != restockId) {
+                    current = new RestockData(
+                        restockId,
+                        rs.getString("RESTOCK_DATE_YEAR"),
+                        rs.getString("RESTOCK_DATE_MONTH"),
+                        rs.getString("RESTOCK_DATE_DAY"),
+                        rs.getString("RESTOCK_DATE_TIME"),
+                        new ArrayList<>()
+                    );
+                    restocks.add(current);
+                }
+                // Restock events without items produce a single row with NULL item columns
+                if (rs.getObject("RI_ITEM_ID") != null) {
+                    current.getRestockItems().add(new RestockItemData(
+                        rs.getInt("RI_ITEM_ID"),
+                        restockId,
+                        rs.getInt("RI_PROD_ID"),
+                        rs.getString("RI_PROD_NAME"),
+                        rs.getString("RI_PROD_BRAND"),
+                        rs.getString("RI_PROD_SIZE"),
+                        rs.getString("RI_PROD_TYPE"),
+                        rs.getDouble("RI_PROD_PRICE"),
+                        rs.getInt("RI_RESTOCKED_QUANTITY")
+                    ));
+                }
+            }
+        }
+        return restocks;
+    }
+    /**
+     * Reads the highest restock ID, used as the upper bound of an incremental export.
+     *
+     * @param conn The open database connection.
+     * @return The highest restock ID, or 0 if there are no restock events.
+     * @throws SQLException If a database error occurs.
+     */
+    static int readMaxRestockId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_MAX_RESTOCK_ID_QUERY)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
     /**
      * Performs a restock operation for a single product, creating a restock event, adding a restock
-     * item, and updating the product's quantity in a single transaction. Refreshes the product and
-     * restock lists upon success. Displays appropriate error messages for invalid inputs or database errors.
+     * item, and updating the product's quantity in a single transaction. Updates the cached product and
+     * refreshes the restock list upon success. Displays appropriate error messages for invalid inputs or
+     * database errors.
      *
      * @param product  The product to restock. Must not be null and must have valid attributes.
      * @param quantity The quantity to add. Must be positive.
@@ -127,6 +225,9 @@ public class RestockDataManager {
      * @throws NullPointerException if product is null.
      */
     public boolean restockProduct(ProductData product, int quantity) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.RESTOCK_PRODUCT)) {
+            return false;
+        }
         // Validate inputs
         if (!validateRestockInputs(product, quantity)) {
             return false;
@@ -140,14 +241,15 @@ public class RestockDataManager {
             // Insert restock event
             int restockId = createRestockEvent(conn);
 
-            // Insert restock item
-            insertRestockItem(conn, restockId, product, quantity);
-
-            // Update product quantity
-            updateProductQuantity(conn, product.getProductId(), quantity);
+            // Insert restock item and update product quantity
+            List<RestockLine> lines = Collections.singletonList(new RestockLine(product, quantity));
+            insertRestockItems(conn, restockId, lines);
+            updateProductQuantities(conn, lines);
 
             conn.commit();
-            productDataManager.loadProducts(); // Refresh product list
+            productDataManager.applyQuantityChange(product.getProductId(), quantity); // Update cached product
+            auditLogger.record(AuditAction.RESTOCK, String.format("Restock #%d: %s %s %s, %d units", restockId,
+                product.getProductName(), product.getProductBrand(), product.getProductSize(), quantity));
             loadRestocks(); // Refresh restock list
             return true;
         } catch (SQLException e) {
@@ -174,17 +276,19 @@ public class RestockDataManager {
 
     /**
      * Performs a restock operation for multiple products as a single restock event, creating one
-     * restock event, adding restock items, and updating product quantities in a single transaction.
-     * Refreshes the product and restock lists upon success. Displays appropriate error messages for
-     * invalid inputs or database errors.
+     * restock event, adding restock items, and updating product quantities in a single transaction
+     * with batched statements. Updates the cached products and refreshes the restock list upon success.
+     * Displays appropriate error messages for invalid inputs or database errors.
      *
-     * @param items A list of maps, each containing a ProductData object (key "product") and its restock
-     *              quantity (key "quantity"). Must not be null or empty.
+     * @param lines The delivery lines, each with a product and its restock quantity. Must not be null or empty.
      * @return {@code true} if the restock operation is successful, {@code false} otherwise.
-     * @throws NullPointerException if items is null.
+     * @throws NullPointerException if lines is null.
      */
-    public boolean restockMultipleProducts(List<Map<String, Object>> items) {
-        if (items == null || items.isEmpty()) {
+    public boolean restockProducts(List<RestockLine> lines) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.RESTOCK_PRODUCT)) {
+            return false;
+        }
+        if (lines == null || lines.isEmpty()) {
             JOptionPane.showMessageDialog(null,
                 "No items provided for restocking.",
                 "Input Error",
@@ -193,56 +297,159 @@ public class RestockDataManager {
         }
 
         // Validate all inputs
-        for (Map<String, Object> item : items) {
-            ProductData product = (ProductData) item.get("product");
-            Integer quantity = (Integer) item.get("quantity");
-            if (!validateRestockInputs(product, quantity)) {
+        for (RestockLine line : lines) {
+            if (!validateRestockInputs(line.getProduct(), line.getQuantity())) {
                 return false;
             }
         }
 
-        Connection conn = null;
+        InventoryValuation valuation = productDataManager.getValuation();
+        valuation.beginBatch(); // Notify the valuation listeners once for the whole delivery
         try {
-            conn = DBConnection.getConnection();
-            conn.setAutoCommit(false); // Begin transaction
+            if (!commitRestock(lines)) {
+                return false;
+            }
+        } finally {
+            valuation.endBatch();
+        }
+        loadRestocks(); // Refresh restock list
+        return true;
+    }
 
-            // Insert restock event
-            int restockId = createRestockEvent(conn);
+    /**
+     * Restocks a large delivery in chunks, each committed as its own restock event and transaction, so
+     * the database lock is held only briefly and a failure keeps the chunks already committed. All lines
+     * are validated before anything is written. Updates the cached products and refreshes the restock
+     * list once at the end. Displays appropriate error messages for invalid inputs or database errors.
+     *
+     * @param lines     The delivery lines, each with a product and its restock quantity. Must not be null or empty.
+     * @param chunkSize The maximum number of lines per restock event. Must be positive.
+     * @return The number of lines restocked, which is less than the number of lines if a chunk failed.
+     * @throws NullPointerException if lines is null.
+     */
+    public int restockDelivery(List<RestockLine> lines, int chunkSize) {
+        if (!validateDelivery(lines)) {
+            return 0;
+        }
 
-            // Insert restock items and update quantities
-            for (Map<String, Object> item : items) {
-                ProductData product = (ProductData) item.get("product");
-                int quantity = (Integer) item.get("quantity");
-                insertRestockItem(conn, restockId, product, quantity);
-                updateProductQuantity(conn, product.getProductId(), quantity);
+        int restocked = 0;
+        InventoryValuation valuation = productDataManager.getValuation();
+        valuation.beginBatch(); // Notify the valuation listeners once for the whole delivery
+        try {
+            for (int from = 0; from < lines.size(); from += chunkSize) {
+                List<RestockLine> chunk = lines.subList(from, Math.min(from + chunkSize, lines.size()));
+                if (!commitRestock(chunk)) {
+                    break;
+                }
+                restocked += chunk.size();
             }
-
-            conn.commit();
-            productDataManager.loadProducts(); // Refresh product list
+        } finally {
+            valuation.endBatch();
+        }
+        if (restocked > 0) {
             loadRestocks(); // Refresh restock list
-            return true;
-        } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException rollbackEx) {
-                    JOptionPane.showMessageDialog(null, "Error Rollback (restockMultipleProducts)." + rollbackEx);
-                }
+        }
+        return restocked;
+    }
+
+    /**
+     * Checks that the logged-in user may restock and validates every line of a delivery before anything is
+     * written. Displays appropriate error messages for invalid inputs.
+     *
+     * @param lines The delivery lines.
+     * @return {@code true} if the delivery may be restocked, {@code false} otherwise.
+     */
+    boolean validateDelivery(List<RestockLine> lines) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.RESTOCK_PRODUCT)) {
+            return false;
+        }
+        if (lines == null || lines.isEmpty()) {
+            JOptionPane.showMessageDialog(null,
+                "No items provided for restocking.",
+                "Input Error",
+                JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        for (RestockLine line : lines) {
+            if (!validateRestockInputs(line.getProduct(), line.getQuantity())) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    /**
+     * Writes validated restock lines as one restock event in a single transaction and updates the cached
+     * products. Displays an error message if a database error occurs.
+     *
+     * @param lines The validated restock lines. Must not be empty.
+     * @return {@code true} if the restock event was committed, {@code false} otherwise.
+     */
+    private boolean commitRestock(List<RestockLine> lines) {
+        int restockId;
+        try {
+            restockId = writeRestock(lines);
+        } catch (SQLException e) {
             handleSQLException(e);
             return false;
-        } finally {
-            if (conn != null) {
+        }
+        applyRestock(lines, restockId);
+        return true;
+    }
+
+    /**
+     * Writes validated restock lines as one restock event in a single transaction, without touching the
+     * cached products, so it may run off the Event Dispatch Thread. The items are inserted and the
+     * quantities updated with one JDBC batch each, so a large delivery does not prepare a statement per
+     * line. The caller applies the committed event with {@link #applyRestock(List, int)}.
+     *
+     * @param lines The validated restock lines. Must not be empty.
+     * @return The ID of the committed restock event.
+     * @throws SQLException If a database error occurs. Nothing is written in that case.
+     */
+    int writeRestock(List<RestockLine> lines) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false); // Begin transaction
+            try {
+                // Insert restock event
+                int restockId = createRestockEvent(conn);
+
+                // Insert restock items and update quantities
+                insertRestockItems(conn, restockId, lines);
+                updateProductQuantities(conn, lines);
+
+                conn.commit();
+                return restockId;
+            } catch (SQLException e) {
                 try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException closeEx) {
-                    JOptionPane.showMessageDialog(null, "Error Close (restockMultipleProducts)." + closeEx);
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    e.addSuppressed(rollbackEx);
                 }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         }
     }
 
+    /**
+     * Applies a restock event committed by {@link #writeRestock(List)} to the cached products and records
+     * it in the audit log. Must be called on the Event Dispatch Thread, which owns the product cache.
+     *
+     * @param lines     The restocked lines.
+     * @param restockId The ID of the committed restock event.
+     */
+    void applyRestock(List<RestockLine> lines, int restockId) {
+        long units = 0;
+        for (RestockLine line : lines) {
+            productDataManager.applyQuantityChange(line.getProduct().getProductId(), line.getQuantity());
+            units += line.getQuantity();
+        }
+        auditLogger.record(AuditAction.RESTOCK,
+            String.format("Restock #%d: %d products, %d units", restockId, lines.size(), units));
+    }
+
     /**
      * Deletes a restock event and its associated items from the database using a transaction.
      * Refreshes the restock list upon success. Displays an error message if the restock ID does not
@@ -252,6 +459,9 @@ public class RestockDataManager {
      * @return {@code true} if the deletion is successful, {@code false} otherwise.
      */
     public boolean deleteRestock(int restockId) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.RESTOCK_HISTORY)) {
+            return false;
+        }
         Connection conn = null;
         try {
             conn = DBConnection.getConnection();
@@ -266,6 +476,7 @@ public class RestockDataManager {
             }
 
             conn.commit();
+            auditLogger.record(AuditAction.DELETE_RESTOCK, "Restock #" + restockId);
             loadRestocks(); // Refresh restock list
             return true;
         } catch (SQLException e) {
@@ -408,49 +619,57 @@ public class RestockDataManager {
     }
 
     /**
-     * Inserts a restock item into the RestockItems table, recording the product details and
-     * restocked quantity for a specific restock event.
+     * Inserts the restock items of a delivery into the RestockItems table with one JDBC batch,
+     * recording the product details and restocked quantity of each line for a restock event.
      *
      * @param conn      The database connection. Must not be null.
      * @param restockId The ID of the restock event. Must exist in the Restock table.
-     * @param product   The product being restocked. Must not be null and must have valid attributes.
-     * @param quantity  The quantity restocked. Must be positive.
-     * @throws SQLException If a database error occurs or the insertion fails.
-     * @throws NullPointerException if conn or product is null.
+     * @param lines     The delivery lines. Must not be null and must have valid products.
+     * @throws SQLException If a database error occurs or an insertion fails.
+     * @throws NullPointerException if conn or lines is null.
      */
-    private void insertRestockItem(Connection conn, int restockId, ProductData product, int quantity) throws SQLException {
+    private void insertRestockItems(Connection conn, int restockId, List<RestockLine> lines) throws SQLException {
         try (PreparedStatement pstmt = conn.prepareStatement(INSERT_RESTOCK_ITEM_QUERY)) {
-            pstmt.setInt(1, restockId);
-            pstmt.setInt(2, product.getProductId());
-            pstmt.setString(3, product.getProductName().trim());
-            pstmt.setString(4, product.getProductBrand().trim());
-            pstmt.setString(5, product.getProductSize().trim());
-            pstmt.setString(6, product.getProductType().trim());
-            pstmt.setDouble(7, product.getProductPrice());
-            pstmt.setInt(8, quantity);
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected == 0) {
-                throw new SQLException("Failed to insert restock item.");
+            for (RestockLine line : lines) {
+                ProductData product = line.getProduct();
+                pstmt.setInt(1, restockId);
+                pstmt.setInt(2, product.getProductId());
+                pstmt.setString(3, product.getProductName().trim());
+                pstmt.setString(4, product.getProductBrand().trim());
+                pstmt.setString(5, product.getProductSize().trim());
+                pstmt.setString(6, product.getProductType().trim());
+                pstmt.setDouble(7, product.getProductPrice());
+                pstmt.setInt(8, line.getQuantity());
+                pstmt.addBatch();
+            }
+            for (int rowsAffected : pstmt.executeBatch()) {
+                if (rowsAffected == 0) {
+                    throw new SQLException("Failed to insert restock item.");
+                }
             }
         }
     }
 
     /**
-     * Updates the quantity of a product in the Product table by adding the specified amount.
+     * Adds the restocked quantities of a delivery to the products in the Product table with one JDBC batch.
      *
-     * @param conn      The database connection. Must not be null.
-     * @param productId The ID of the product. Must exist in the Product table.
-     * @param quantity  The quantity to add. Must be positive.
-     * @throws SQLException If a database error occurs or the product ID does not exist.
-     * @throws NullPointerException if conn is null.
+     * @param conn  The database connection. Must not be null.
+     * @param lines The delivery lines. Every product must exist in the Product table.
+     * @throws SQLException If a database error occurs or a product ID does not exist.
+     * @throws NullPointerException if conn or lines is null.
      */
-    private void updateProductQuantity(Connection conn, int productId, int quantity) throws SQLException {
+    private void updateProductQuantities(Connection conn, List<RestockLine> lines) throws SQLException {
         try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_PRODUCT_QUANTITY_QUERY)) {
-            pstmt.setInt(1, quantity);
-            pstmt.setInt(2, productId);
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected == 0) {
-                throw new SQLException("No product found with ID: " + productId);
+            for (RestockLine line : lines) {
+                pstmt.setInt(1, line.getQuantity());
+                pstmt.setInt(2, line.getProduct().getProductId());
+                pstmt.addBatch();
+            }
+            int[] results = pstmt.executeBatch();
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == 0) {
+                    throw new SQLException("No product found with ID: " + lines.get(i).getProduct().getProductId());
+                }
             }
         }
     }
@@ -462,7 +681,7 @@ public class RestockDataManager {
      * @param e The SQLException to handle. Must not be null.
      * @throws NullPointerException if e is null.
      */
-    private void handleSQLException(SQLException e) {
+    void handleSQLException(SQLException e) {
         String errorMessage = e.getMessage();
         if (errorMessage.contains("SQLITE_CONSTRAINT_NOTNULL")) {
             JOptionPane.showMessageDialog(null,
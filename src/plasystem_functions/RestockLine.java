@@ -0,0 +1,43 @@
+package plasystem_functions;
+
+/**
+ * Represents one line of a delivery to be restocked with
+ * {@link RestockDataManager#restockProducts(java.util.List)}: a product and the quantity received.
+ * Instances are immutable.
+ */
+public final class RestockLine {
+    /** The product being restocked. */
+    private final ProductData product;
+
+    /** The quantity received. */
+    private final int quantity;
+
+    /**
+     * Constructs a RestockLine.
+     *
+     * @param product  The product being restocked. Must not be null.
+     * @param quantity The quantity received. Must be positive.
+     */
+    public RestockLine(ProductData product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the product being restocked.
+     *
+     * @return The product.
+     */
+    public ProductData getProduct() {
+        return product;
+    }
+
+    /**
+     * Gets the quantity received.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -2,10 +2,10 @@ package plasystem_functions;
 
 import javax.swing.*;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,7 +15,7 @@ import java.util.List;
  */
 public class RestockReportGenerator {
     /** Directory path where restock reports are saved. */
-    private static final String REPORTS_DIRECTORY = "restock_reports";
+    static final String REPORTS_DIRECTORY = "restock_reports";
     
     /** List of restock events to include in the report. */
     private final List<RestockData> restockList;
@@ -39,46 +39,127 @@ public class RestockReportGenerator {
     /**
      * Generates a CSV restock report after prompting the user for confirmation. If confirmed,
      * the report is saved in the "restock_reports" directory with a timestamped filename
-     * (e.g., RestockReport_YYYY-MM-DD_HHMMSS.csv). Displays a success or error message to the user.
+     * (e.g., RestockReport_YYYY-MM-DD_HHMMSS.csv). The report is written in the background from a
+     * snapshot of the restock list, with a cancellable progress monitor, and a success or error
+     * message is displayed to the user when it finishes. The user may instead choose an incremental
+     * export of the restock events added since the last incremental export.
      *
      * @param parent The parent JFrame for displaying confirmation and result dialogs. May be null
      *               if no parent is required.
      */
     public void generateReport(JFrame parent) {
-        // Prompt user to confirm export
-        int choice = JOptionPane.showConfirmDialog(
+        // Offer a full export or an incremental export of the restock events added since the last one
+        Object[] options = {"Full Report", "Since Last Export", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(
             parent,
-            "Do you want to export the restock report as a CSV file?",
+            "Do you want to export the restock report as a CSV file?\n" + describeLastExport(),
             "Export Restock Report",
-            JOptionPane.YES_NO_OPTION,
-            JOptionPane.QUESTION_MESSAGE
+            JOptionPane.YES_NO_CANCEL_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            options,
+            options[0]
         );
 
-        if (choice != JOptionPane.YES_OPTION) {
-            return; // User cancelled or selected No
+        if (choice == 1) {
+            generateIncrementalReport(parent);
+            return;
         }
-
-        // Create restock_reports directory if it doesn't exist
-        File reportsDir = new File(REPORTS_DIRECTORY);
-        if (!reportsDir.exists()) {
-            reportsDir.mkdirs();
+        if (choice != 0) {
+            return; // User cancelled or closed the dialog
         }
 
-        // Generate filename with specific format: RestockReport_YYYY-MM-DD_HHMMSS
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd_HHmmss").format(new Date());
-        String filePath = REPORTS_DIRECTORY + "/RestockReport_" + timestamp + ".csv";
+        // Create the report file, e.g. RestockReport_YYYY-MM-DD_HHMMSS.csv or .csv.gz when compression is enabled
+        File reportFile = ReportHousekeeper.newReportFile(REPORTS_DIRECTORY, "RestockReport");
 
-        try {
-            generateCSVReport(filePath);
-            JOptionPane.showMessageDialog(parent,
-                "Report generated successfully at: " + filePath,
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-        } catch (IOException e) {
+        // Snapshot the restock list so the export is not affected by later changes
+        List<RestockData> restocks = new ArrayList<>(restockList);
+        new ReportExportTask(parent, "Restock Report", reportFile,
+            (file, task) -> generateCSVReport(restocks, file.getPath(), task)).start();
+    }
+
+    /**
+     * Generates an incremental report containing only the restock events added since the last incremental
+     * export. The report is saved in the "restock_reports" directory with a timestamped filename
+     * (e.g., RestockReportIncremental_YYYY-MM-DD_HHMMSS.csv). Once the report is in place the export is recorded
+     * in the export ledger and the watermark advances, so the same restock events are not exported again.
+     * If there are no new restock events, the user is informed and no report is written.
+     *
+     * @param parent The parent JFrame for displaying result dialogs. May be null.
+     */
+    private void generateIncrementalReport(JFrame parent) {
+        try (Connection conn = DBConnection.getConnection()) {
+            int lastExportedId = ExportLedger.getWatermark(conn, ExportLedger.RESTOCK_REPORT).getLastExportedId();
+            if (RestockDataManager.readMaxRestockId(conn) <= lastExportedId) {
+                JOptionPane.showMessageDialog(parent,
+                    "There are no new restock events since the last export.",
+                    "Info",
+                    JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+        } catch (SQLException e) {
             JOptionPane.showMessageDialog(parent,
-                "Error generating report: " + e.getMessage(),
-                "Error",
+                "Error reading the last export: " + e.getMessage(),
+                "Database Error",
                 JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        File reportFile = ReportHousekeeper.newReportFile(REPORTS_DIRECTORY, "RestockReportIncremental");
+        new ReportExportTask(parent, "Incremental Restock Report", reportFile, this::generateIncrementalCSVReport).start();
+    }
+
+    /**
+     * Writes the incremental report. The watermark, the upper bound and the restock events are read in one
+     * database transaction, so restock events added while the report is written are left for the next export.
+     *
+     * @param file The temporary report file to write.
+     * @param task The export task to report progress to.
+     * @throws IOException  If an error occurs during file writing or the export is cancelled.
+     * @throws SQLException If an error occurs while reading from the database.
+     */
+    private void generateIncrementalCSVReport(File file, ReportExportTask task) throws IOException, SQLException {
+        int fromId;
+        int toId;
+        List<RestockData> restocks;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                fromId = ExportLedger.getWatermark(conn, ExportLedger.RESTOCK_REPORT).getLastExportedId();
+                toId = RestockDataManager.readMaxRestockId(conn);
+                restocks = RestockDataManager.readRestocks(conn, fromId, toId);
+            } finally {
+                conn.rollback(); // Read-only transaction, nothing to commit
+            }
+        }
+
+        int totalRows = countRows(restocks);
+        task.setTotalRows(totalRows);
+        try (CsvWriter writer = task.openCsvWriter(file)) {
+            writeCSV(restocks, writer, task);
+        }
+
+        // Advance the watermark only once the report has been moved into place
+        task.setCompletionAction(reportFile ->
+            ExportLedger.recordExport(ExportLedger.RESTOCK_REPORT, fromId, toId, totalRows, reportFile.getName()));
+    }
+
+    /**
+     * Describes the last incremental export for the export dialog.
+     *
+     * @return A line describing the last incremental export, or that it is unknown if it cannot be read.
+     */
+    private static String describeLastExport() {
+        try {
+            ExportLedger.Watermark watermark = ExportLedger.getWatermark(ExportLedger.RESTOCK_REPORT);
+            if (watermark.getLastExportedAt() == null) {
+                return "No incremental export has been made yet.";
+            }
+            return "Last incremental export: up to restock ID " + watermark.getLastExportedId()
+                + " on " + watermark.getLastExportedAt() + ".";
+        } catch (SQLException e) {
+            // The export itself reports database errors; the dialog only lacks the last export
+            return "The last incremental export is unknown.";
         }
     }
 
@@ -87,39 +168,72 @@ public class RestockReportGenerator {
      * flattened format. Each row represents a restock item with its restock event details.
      * Includes a header with metadata and column names.
      *
+     * @param restocks The restock events to include in the report.
      * @param filePath The path where the CSV file will be saved. Must not be null or empty.
+     * @param task     The export task to report progress to.
      * @throws IOException If an error occurs during file writing, such as insufficient permissions
-     *                     or disk space issues.
-     * @throws NullPointerException If filePath is null or if restockList or any restock item's
+     *                     or disk space issues, or if the export is cancelled.
+     * @throws NullPointerException If filePath is null or if restocks or any restock item's
      *                              attributes are null.
      */
-    private void generateCSVReport(String filePath) throws IOException {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            // Write header
-            writer.write("Restock Report\n");
-            writer.write("Generated by PlaSystem\n");
-            writer.write("Total Different Restocks: " + restockList.size() + "\n\n");
-
-            // Write combined headers
-            writer.write(String.join(",", COMBINED_HEADERS) + "\n");
-
-            // Write data rows
-            for (RestockData restock : restockList) {
-                // For each restock event, write a row for each of its items
-                for (RestockItemData item : restock.getRestockItems()) {
-                    String[] row = {
-                        String.valueOf(restock.getRestockId()),
-                        restock.getRestockDateYear() + "-" + restock.getRestockDateMonth() + "-" + restock.getRestockDateDay(),
-                        restock.getRestockDateTime(),
-                        item.getRI_productName(),
-                        item.getRI_productBrand(),
-                        item.getRI_productSize(),
-                        item.getRI_productType(),
-                        String.valueOf(item.getRI_productPrice()),
-                        String.valueOf(item.getRI_restockedQuantity())
-                    };
-                    writer.write(String.join(",", row) + "\n");
-                }
+    private void generateCSVReport(List<RestockData> restocks, String filePath, ReportExportTask task) throws IOException {
+        task.setTotalRows(countRows(restocks));
+        try (CsvWriter writer = task.openCsvWriter(new File(filePath))) {
+            writeCSV(restocks, writer, task);
+        }
+    }
+
+    /**
+     * Counts the data rows of a report, one per restocked item.
+     *
+     * @param restocks The restock events to include in the report.
+     * @return The number of data rows.
+     */
+    static int countRows(List<RestockData> restocks) {
+        int totalRows = 0;
+        for (RestockData restock : restocks) {
+            totalRows += restock.getRestockItems().size();
+        }
+        return totalRows;
+    }
+
+    /**
+     * Writes the report header and data rows to a CSV writer. Shared by single report exports
+     * and the end-of-day bundle.
+     *
+     * @param restocks The restock events to include in the report.
+     * @param writer   The CSV writer to write to.
+     * @param task     The export task to report progress to.
+     * @throws IOException If an error occurs during writing or the export is cancelled.
+     */
+    static void writeCSV(List<RestockData> restocks, CsvWriter writer, ReportExportTask task) throws IOException {
+        // Write header
+        writer.field("Restock Report").endRow();
+        writer.field("Generated by PlaSystem").endRow();
+        writer.field("Total Different Restocks: " + restocks.size()).endRow();
+        writer.endRow();
+
+        // Write combined headers
+        writer.row(COMBINED_HEADERS);
+
+        // Write data rows
+        for (RestockData restock : restocks) {
+            // The date is shared by every item of the restock event
+            String restockDate = restock.getRestockDateYear() + "-" + restock.getRestockDateMonth() + "-" + restock.getRestockDateDay();
+
+            // For each restock event, write a row for each of its items
+            for (RestockItemData item : restock.getRestockItems()) {
+                writer.field(restock.getRestockId())
+                      .field(restockDate)
+                      .field(restock.getRestockDateTime())
+                      .field(item.getRI_productName())
+                      .field(item.getRI_productBrand())
+                      .field(item.getRI_productSize())
+                      .field(item.getRI_productType())
+                      .field(item.getRI_productPrice())
+                      .field(item.getRI_restockedQuantity())
+                      .endRow();
+                task.rowWritten();
             }
         }
     }
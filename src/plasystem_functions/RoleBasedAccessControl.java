@@ -1,146 +1,125 @@
 package plasystem_functions;
 
-import plasystem_gui.MainProgramGUI;
-import javax.swing.JButton;
-import javax.swing.JTable;
+import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Utility class for applying role-based access control in the PlaSystem application.
- * Enables or disables buttons and the product table in the MainProgramGUI based on the
- * user's role, using reflection to access GUI components.
+ * Utility class for applying role-based access control in the PlaSystem application. The permissions of
+ * every role are compiled once into an immutable bitmask, so a permission check is a single bit test.
+ * Windows bind their components to the permissions they require and have them enabled or disabled from
+ * the mask of the logged-in user, and the data managers check the same mask before every change.
  */
-public class RoleBasedAccessControl {
-    
+public final class RoleBasedAccessControl {
+    /** The mask granting no permission, used for unknown roles and when no user is logged in. */
+    public static final long NO_PERMISSIONS = 0L;
+
+    /** The mask granting every permission. */
+    public static final long ALL_PERMISSIONS = compile(EnumSet.allOf(Permission.class));
+
+    /** The compiled permission mask of each role. */
+    private static final Map<String, Long> ROLE_PERMISSIONS;
+
+    static {
+        Map<String, Long> roles = new HashMap<>();
+        roles.put("admin", ALL_PERMISSIONS);
+        roles.put("store_manager", ALL_PERMISSIONS & ~Permission.MANAGE_USER_ACCOUNTS.bit());
+        roles.put("inventory_manager", compile(EnumSet.of(Permission.VIEW_PRODUCTS, Permission.ADD_PRODUCT,
+            Permission.EDIT_PRODUCT, Permission.DELETE_PRODUCT, Permission.RESTOCK_PRODUCT, Permission.VIEW_LOW_STOCK,
+            Permission.EXPORT_INVENTORY, Permission.RESTOCK_HISTORY)));
+        roles.put("restocker", compile(EnumSet.of(Permission.VIEW_PRODUCTS, Permission.RESTOCK_PRODUCT,
+            Permission.VIEW_LOW_STOCK, Permission.RESTOCK_HISTORY)));
+        roles.put("cashier", compile(EnumSet.of(Permission.VIEW_PRODUCTS, Permission.PROCESS_TRANSACTION,
+            Permission.VIEW_LOW_STOCK, Permission.TRANSACTION_HISTORY)));
+        ROLE_PERMISSIONS = Collections.unmodifiableMap(roles);
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private RoleBasedAccessControl() {
+    }
+
     /**
-     * Applies role-based permissions by enabling or disabling buttons and the product table
-     * in the MainProgramGUI based on the user's role. Uses reflection to access GUI components.
-     * Disables all components as a fallback if the role is null, unknown, or if reflection fails.
+     * Compiles a set of permissions into a mask.
      *
-     * @param gui  The MainProgramGUI instance containing the buttons and table. Must not be null.
-     * @param role The role of the logged-in user (e.g., "admin", "cashier", "restocker",
-     *             "store_manager", "inventory_manager"). May be null.
-     * @throws NullPointerException if gui is null.
-     * @throws IllegalStateException if reflection fails to access required fields due to
-     *                               NoSuchFieldException or IllegalAccessException, with a
-     *                               fallback to disable all components.
+     * @param permissions The permissions to grant.
+     * @return The permission mask.
      */
-    public static void applyRolePermissions(MainProgramGUI gui, String role) {
-        try {
-            // Get references to all buttons and the product table using reflection
-            JButton addProductBtn = (JButton) gui.getClass().getDeclaredField("addProductBtn").get(gui);
-            JButton editProductBtn = (JButton) gui.getClass().getDeclaredField("editProductBtn").get(gui);
-            JButton deleteProductBtn = (JButton) gui.getClass().getDeclaredField("deleteProductBtn").get(gui);
-            JButton transactionBtn = (JButton) gui.getClass().getDeclaredField("transactionBtn").get(gui);
-            JButton restockProductBtn = (JButton) gui.getClass().getDeclaredField("restockProductBtn").get(gui);
-            JButton lowStockBtn = (JButton) gui.getClass().getDeclaredField("lowStockBtn").get(gui);
-            JButton userAccountsBtn = (JButton) gui.getClass().getDeclaredField("userAccountsBtn").get(gui);
-            JButton exportInventoryBtn = (JButton) gui.getClass().getDeclaredField("exportInventoryBtn").get(gui);
-            JButton transactHistoryBtn = (JButton) gui.getClass().getDeclaredField("transactHistoryBtn").get(gui);
-            JButton restockHistoryBtn = (JButton) gui.getClass().getDeclaredField("restockHistoryBtn").get(gui);
-            JTable productTable = (JTable) gui.getClass().getDeclaredField("productTbl").get(gui);
+    private static long compile(EnumSet<Permission> permissions) {
+        long mask = NO_PERMISSIONS;
+        for (Permission permission : permissions) {
+            mask |= permission.bit();
+        }
+        return mask;
+    }
 
-            // Enable all buttons and the table by default (admin role)
-            addProductBtn.setEnabled(true);
-            editProductBtn.setEnabled(true);
-            deleteProductBtn.setEnabled(true);
-            transactionBtn.setEnabled(true);
-            restockProductBtn.setEnabled(true);
-            lowStockBtn.setEnabled(true);
-            userAccountsBtn.setEnabled(true);
-            exportInventoryBtn.setEnabled(true);
-            transactHistoryBtn.setEnabled(true);
-            restockHistoryBtn.setEnabled(true);
-            productTable.setEnabled(true);
+    /**
+     * Gets the compiled permission mask of a role.
+     *
+     * @param role The role (e.g., "admin", "cashier", "restocker", "store_manager", "inventory_manager").
+     *             May be null.
+     * @return The permission mask, or {@link #NO_PERMISSIONS} if the role is null or unknown.
+     */
+    public static long permissionsOf(String role) {
+        return role == null ? NO_PERMISSIONS : ROLE_PERMISSIONS.getOrDefault(role, NO_PERMISSIONS);
+    }
 
-            // Disable buttons and table based on role
-            if (role == null) {
-                // Fallback: disable all buttons and the table if role is null
-                addProductBtn.setEnabled(false);
-                editProductBtn.setEnabled(false);
-                deleteProductBtn.setEnabled(false);
-                transactionBtn.setEnabled(false);
-                restockProductBtn.setEnabled(false);
-                lowStockBtn.setEnabled(false);
-                userAccountsBtn.setEnabled(false);
-                exportInventoryBtn.setEnabled(false);
-                transactHistoryBtn.setEnabled(false);
-                restockHistoryBtn.setEnabled(false);
-                productTable.setEnabled(false);
-            } else {
-                switch (role) {
-                    case "restocker" -> {
-                        addProductBtn.setEnabled(false);
-                        editProductBtn.setEnabled(false);
-                        deleteProductBtn.setEnabled(false);
-                        transactionBtn.setEnabled(false);
-                        userAccountsBtn.setEnabled(false);
-                        exportInventoryBtn.setEnabled(false);
-                        transactHistoryBtn.setEnabled(false);
-                    }
-                    case "cashier" -> {
-                        addProductBtn.setEnabled(false);
-                        editProductBtn.setEnabled(false);
-                        deleteProductBtn.setEnabled(false);
-                        restockProductBtn.setEnabled(false);
-                        userAccountsBtn.setEnabled(false);
-                        exportInventoryBtn.setEnabled(false);
-                        restockHistoryBtn.setEnabled(false);
-                    }
-                    case "store_manager" -> userAccountsBtn.setEnabled(false);
-                    case "inventory_manager" -> {
-                        transactionBtn.setEnabled(false);
-                        userAccountsBtn.setEnabled(false);
-                        transactHistoryBtn.setEnabled(false);
-                    }
-                    case "admin" -> {
-                    }
-                    default -> {
-                        // Unknown role: disable all buttons and the table
-                        addProductBtn.setEnabled(false);
-                        editProductBtn.setEnabled(false);
-                        deleteProductBtn.setEnabled(false);
-                        transactionBtn.setEnabled(false);
-                        restockProductBtn.setEnabled(false);
-                        lowStockBtn.setEnabled(false);
-                        userAccountsBtn.setEnabled(false);
-                        exportInventoryBtn.setEnabled(false);
-                        transactHistoryBtn.setEnabled(false);
-                        restockHistoryBtn.setEnabled(false);
-                        productTable.setEnabled(false);
-                    }
-                }
-                // All buttons and table remain enabled
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            // Log error and disable all buttons and the table as a fallback
-            System.err.println("Error accessing components for role-based access control: " + e.getMessage());
-            try {
-                JButton addBtn = (JButton) gui.getClass().getDeclaredField("addBtn").get(gui);
-                JButton editBtn = (JButton) gui.getClass().getDeclaredField("editBtn").get(gui);
-                JButton deleteBtn = (JButton) gui.getClass().getDeclaredField("deleteBtn").get(gui);
-                JButton transactBtn = (JButton) gui.getClass().getDeclaredField("transactBtn").get(gui);
-                JButton restockBtn = (JButton) gui.getClass().getDeclaredField("restockBtn").get(gui);
-                JButton lowstockBtn = (JButton) gui.getClass().getDeclaredField("lowstockBtn").get(gui);
-                JButton userAccountsBtn = (JButton) gui.getClass().getDeclaredField("userAccountsBtn").get(gui);
-                JButton printInventoryBtn = (JButton) gui.getClass().getDeclaredField("printInventoryBtn").get(gui);
-                JButton transactHistoryBtn = (JButton) gui.getClass().getDeclaredField("transactHistoryBtn").get(gui);
-                JButton restockHistoryBtn = (JButton) gui.getClass().getDeclaredField("restockHistoryBtn").get(gui);
-                JTable productTable = (JTable) gui.getClass().getDeclaredField("plasystemTbl").get(gui);
+    /**
+     * Checks whether a permission mask grants a permission.
+     *
+     * @param permissions The permission mask.
+     * @param permission  The permission to check.
+     * @return {@code true} if the permission is granted, {@code false} otherwise.
+     */
+    public static boolean hasPermission(long permissions, Permission permission) {
+        return (permissions & permission.bit()) != 0;
+    }
+
+    /**
+     * Checks whether a role is granted a permission.
+     *
+     * @param role       The role. May be null.
+     * @param permission The permission to check.
+     * @return {@code true} if the permission is granted, {@code false} otherwise.
+     */
+    public static boolean hasPermission(String role, Permission permission) {
+        return hasPermission(permissionsOf(role), permission);
+    }
+
+    /**
+     * Checks whether a permission mask grants a permission, displaying an error message if it does not.
+     * Used by the data managers to refuse changes the logged-in user is not allowed to make.
+     *
+     * @param permissions The permission mask.
+     * @param permission  The permission required.
+     * @return {@code true} if the permission is granted, {@code false} otherwise.
+     */
+    static boolean checkPermission(long permissions, Permission permission) {
+        if (hasPermission(permissions, permission)) {
+            return true;
+        }
+        JOptionPane.showMessageDialog(null,
+            "Your role is not allowed to " + permission.getDescription() + ".",
+            "Permission Error",
+            JOptionPane.ERROR_MESSAGE);
+        return false;
+    }
 
-                addBtn.setEnabled(false);
-                editBtn.setEnabled(false);
-                deleteBtn.setEnabled(false);
-                transactBtn.setEnabled(false);
-                restockBtn.setEnabled(false);
-                lowstockBtn.setEnabled(false);
-                userAccountsBtn.setEnabled(false);
-                printInventoryBtn.setEnabled(false);
-                transactHistoryBtn.setEnabled(false);
-                restockHistoryBtn.setEnabled(false);
-                productTable.setEnabled(false);
-            } catch (IllegalAccessException | IllegalArgumentException | NoSuchFieldException | SecurityException ex) {
-                System.err.println("Failed to disable components: " + ex.getMessage());
-            }
+    /**
+     * Enables or disables components based on a permission mask. Each component is enabled only if the
+     * mask grants the permission it is bound to.
+     *
+     * @param permissions The permission mask of the logged-in user.
+     * @param bindings    The permission required by each component. Must not be null.
+     * @throws NullPointerException if bindings is null.
+     */
+    public static void applyRolePermissions(long permissions, Map<? extends JComponent, Permission> bindings) {
+        for (Map.Entry<? extends JComponent, Permission> binding : bindings.entrySet()) {
+            binding.getKey().setEnabled(hasPermission(permissions, binding.getValue()));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package plasystem_functions;
+
+/**
+ * Represents one row of a sales summary read from the DailySales or DailySalesTotal tables, such as the
+ * totals of a period, of one day or of one product. Revenue is kept in whole cents so that summing many
+ * rows does not accumulate floating-point rounding errors.
+ */
+public class SalesSummaryData {
+    /** The label of the row, such as a date (YYYY-MM-DD) or a product name, or null for period totals. */
+    private final String label;
+
+    /** The ID of the product, or 0 if the row is not for a single product or the product was deleted. */
+    private final int productId;
+
+    /** The number of transactions included in the row. */
+    private final int transactionCount;
+
+    /** The number of units sold. */
+    private final long unitsSold;
+
+    /** The revenue in cents. */
+    private final long revenueCents;
+
+    /**
+     * Constructs a SalesSummaryData object with the specified values.
+     *
+     * @param label            The label of the row, such as a date or a product name. May be null.
+     * @param productId        The ID of the product, or 0 if not applicable.
+     * @param transactionCount The number of transactions included in the row.
+     * @param unitsSold        The number of units sold.
+     * @param revenueCents     The revenue in cents.
+     */
+    public SalesSummaryData(String label, int productId, int transactionCount, long unitsSold, long revenueCents) {
+        this.label = label;
+        this.productId = productId;
+        this.transactionCount = transactionCount;
+        this.unitsSold = unitsSold;
+        this.revenueCents = revenueCents;
+    }
+
+    /**
+     * Gets the label of the row.
+     *
+     * @return The date or product name, or null for period totals.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the ID of the product.
+     *
+     * @return The product ID, or 0 if not applicable.
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Gets the number of transactions included in the row.
+     *
+     * @return The transaction count.
+     */
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Gets the number of units sold.
+     *
+     * @return The units sold.
+     */
+    public long getUnitsSold() {
+        return unitsSold;
+    }
+
+    /**
+     * Gets the revenue in cents.
+     *
+     * @return The revenue in cents.
+     */
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    /**
+     * Gets the revenue.
+     *
+     * @return The revenue in pesos.
+     */
+    public double getRevenue() {
+        return revenueCents / 100.0;
+    }
+}
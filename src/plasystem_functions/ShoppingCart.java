@@ -0,0 +1,370 @@
+package plasystem_functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the lines of the sale being rung up in the PlaSystem application. Lines are indexed by product
+ * ID, so adding a product that is already in the cart merges its quantity into the existing line in
+ * constant time, and the combined quantity is validated against the cached stock. Line totals and the
+ * cart total are kept as running sums in whole cents, so adding or changing a line updates the total
+ * without summing all lines again. Listeners are notified of each line change, so a table showing the
+ * cart only repaints the affected row. If the cart is backed by a {@link StockReservationLedger}, the
+ * stock added to it is reserved for this cart until it is removed, cleared or sold, so other checkout
+ * lanes cannot sell it in the meantime. Instances are used on the Event Dispatch Thread.
+ */
+public class ShoppingCart {
+    /**
+     * Receives the line-level changes of a cart.
+     */
+    public interface CartListener {
+        /**
+         * Called after a line was added at the end of the cart.
+         *
+         * @param row The index of the new line.
+         */
+        void lineAdded(int row);
+
+        /**
+         * Called after the quantity of a line changed.
+         *
+         * @param row The index of the changed line.
+         */
+        void lineUpdated(int row);
+
+        /**
+         * Called after a line was removed. The lines after it moved up by one.
+         *
+         * @param row The former index of the removed line.
+         */
+        void lineRemoved(int row);
+
+        /**
+         * Called after all lines were removed.
+         *
+         * @param lineCount The number of lines removed.
+         */
+        void cartCleared(int lineCount);
+    }
+
+    /**
+     * One product line of the cart.
+     */
+    public static final class Line {
+        /** The product of the line, as it was when first added. */
+        private final ProductData product;
+        /** The unit price in cents. */
+        private final long unitPriceCents;
+        /** The quantity in the cart. */
+        private int quantity;
+        /** The index of the line in the cart. */
+        private int row;
+
+        /**
+         * Constructs a Line.
+         *
+         * @param product The product of the line.
+         * @param row     The index of the line.
+         */
+        private Line(ProductData product, int row) {
+            this.product = product;
+            this.unitPriceCents = InventoryValuation.toCents(product.getProductPrice());
+            this.row = row;
+        }
+
+        /**
+         * Gets the ID of the product.
+         *
+         * @return The product ID.
+         */
+        public int getProductId() {
+            return product.getProductId();
+        }
+
+        /**
+         * Gets the name of the product.
+         *
+         * @return The product name.
+         */
+        public String getProductName() {
+            return product.getProductName();
+        }
+
+        /**
+         * Gets the quantity in the cart.
+         *
+         * @return The quantity.
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * Gets the unit price in cents.
+         *
+         * @return The unit price in cents.
+         */
+        public long getUnitPriceCents() {
+            return unitPriceCents;
+        }
+
+        /**
+         * Gets the line total in cents.
+         *
+         * @return The unit price times the quantity, in cents.
+         */
+        public long getTotalCents() {
+            return unitPriceCents * quantity;
+        }
+
+        /**
+         * Gets the line total.
+         *
+         * @return The line total in pesos.
+         */
+        public double getTotal() {
+            return getTotalCents() / 100.0;
+        }
+
+        /**
+         * Creates the transaction item recorded for the line when the sale is committed.
+         *
+         * @return The transaction item.
+         */
+        private TransactionItemData toTransactionItem() {
+            return new TransactionItemData(
+                0, // Item ID is auto-incremented
+                0, // Transaction ID will be set upon insertion
+                product.getProductId(),
+                product.getProductName(),
+                product.getProductBrand(),
+                product.getProductSize(),
+                product.getProductType(),
+                quantity,
+                product.getProductPrice(),
+                getTotal()
+            );
+        }
+    }
+
+    /** The lines in the order they were added. */
+    private final List<Line> lines = new ArrayList<>();
+
+    /** The lines indexed by product ID. */
+    private final Map<Integer, Line> linesByProductId = new HashMap<>();
+
+    /** The listeners notified of line changes. */
+    private final List<CartListener> listeners = new ArrayList<>();
+
+    /** The ledger reserving the stock of the cart lines, or null if stock is not reserved. */
+    private final StockReservationLedger reservations;
+
+    /** The running total of all lines in cents. */
+    private long totalCents;
+
+    /**
+     * Constructs a ShoppingCart that validates quantities against the cached stock without reserving it.
+     */
+    public ShoppingCart() {
+        this(null);
+    }
+
+    /**
+     * Constructs a ShoppingCart that reserves the stock of its lines.
+     *
+     * @param reservations The ledger reserving the stock, or null if stock is not reserved.
+     */
+    public ShoppingCart(StockReservationLedger reservations) {
+        this.reservations = reservations;
+    }
+
+    /**
+     * Adds a quantity of a product to the cart, merging it into the product's line if there is one.
+     * The cart is left unchanged if the combined quantity exceeds the product's stock, or if the cart
+     * reserves stock and the quantity cannot be reserved.
+     *
+     * @param product  The product, with its current cached stock.
+     * @param quantity The quantity to add. Must be positive.
+     * @return {@code true} if the cart was updated, {@code false} if there is not enough stock.
+     * @throws IllegalArgumentException if the quantity is not positive.
+     */
+    public boolean add(ProductData product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive.");
+        }
+        if (reservations != null) {
+            if (!reservations.reserve(this, product.getProductId(), quantity)) {
+                return false;
+            }
+        } else if (getQuantity(product.getProductId()) + quantity > product.getProductQuantity()) {
+            return false;
+        }
+
+        Line line = linesByProductId.get(product.getProductId());
+        boolean added = line == null;
+        if (added) {
+            line = new Line(product, lines.size());
+            lines.add(line);
+            linesByProductId.put(product.getProductId(), line);
+        }
+        line.quantity += quantity;
+        totalCents += line.unitPriceCents * quantity;
+
+        for (CartListener listener : new ArrayList<>(listeners)) {
+            if (added) {
+                listener.lineAdded(line.row);
+            } else {
+                listener.lineUpdated(line.row);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the line of a product from the cart, releasing its reserved stock.
+     *
+     * @param productId The ID of the product.
+     * @return {@code true} if the product was in the cart.
+     */
+    public boolean remove(int productId) {
+        Line line = linesByProductId.remove(productId);
+        if (line == null) {
+            return false;
+        }
+        if (reservations != null) {
+            reservations.release(this, productId);
+        }
+        lines.remove(line.row);
+        for (int i = line.row; i < lines.size(); i++) {
+            lines.get(i).row = i;
+        }
+        totalCents -= line.getTotalCents();
+        for (CartListener listener : new ArrayList<>(listeners)) {
+            listener.lineRemoved(line.row);
+        }
+        return true;
+    }
+
+    /**
+     * Removes all lines from the cart, releasing its reserved stock.
+     */
+    public void clear() {
+        if (reservations != null) {
+            reservations.releaseAll(this);
+        }
+        int lineCount = lines.size();
+        if (lineCount == 0) {
+            return;
+        }
+        lines.clear();
+        linesByProductId.clear();
+        totalCents = 0;
+        for (CartListener listener : new ArrayList<>(listeners)) {
+            listener.cartCleared(lineCount);
+        }
+    }
+
+    /**
+     * Gets the quantity of a product that can still be added to the cart.
+     *
+     * @param product The product, with its current cached stock.
+     * @return The unreserved stock if the cart reserves stock, otherwise the stock not yet in the cart.
+     */
+    public int getAvailable(ProductData product) {
+        if (reservations != null) {
+            return reservations.getAvailable(product.getProductId());
+        }
+        return Math.max(0, product.getProductQuantity() - getQuantity(product.getProductId()));
+    }
+
+    /**
+     * Gets the quantity of a product in the cart.
+     *
+     * @param productId The ID of the product.
+     * @return The quantity, or 0 if the product is not in the cart.
+     */
+    public int getQuantity(int productId) {
+        Line line = linesByProductId.get(productId);
+        return line != null ? line.quantity : 0;
+    }
+
+    /**
+     * Gets the line at an index.
+     *
+     * @param row The index of the line.
+     * @return The line.
+     */
+    public Line getLine(int row) {
+        return lines.get(row);
+    }
+
+    /**
+     * Gets the number of lines in the cart.
+     *
+     * @return The number of lines.
+     */
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    /**
+     * Checks whether the cart is empty.
+     *
+     * @return {@code true} if the cart has no lines.
+     */
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * Gets the total of all lines in cents.
+     *
+     * @return The cart total in cents.
+     */
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    /**
+     * Gets the total of all lines.
+     *
+     * @return The cart total in pesos, exact to the cent.
+     */
+    public double getTotal() {
+        return BigDecimal.valueOf(totalCents, 2).doubleValue();
+    }
+
+    /**
+     * Creates the transaction items of the cart lines, in cart order, for committing the sale.
+     *
+     * @return A new list of transaction items.
+     */
+    public List<TransactionItemData> toTransactionItems() {
+        List<TransactionItemData> items = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            items.add(line.toTransactionItem());
+        }
+        return items;
+    }
+
+    /**
+     * Registers a listener notified of line changes.
+     *
+     * @param listener The listener to add.
+     */
+    public void addCartListener(CartListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a cart listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeCartListener(CartListener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,254 @@
+package plasystem_functions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the stock reserved by the open carts of the PlaSystem checkout lanes, so that two lanes cannot
+ * sell the same last units. Adding to a cart reserves the quantity against the cached stock minus what
+ * other carts have reserved, clearing or cancelling a cart releases it, and committing a sale turns the
+ * reservation into the stock decrement. Each product is guarded by one of a fixed set of striped locks,
+ * so lanes selling different products do not contend. Carts that have not been touched for the
+ * configured timeout are released by a background daemon thread, so an abandoned lane does not hold
+ * stock forever. Instances are owned by {@link ProductDataManager}.
+ */
+public class StockReservationLedger {
+    /** The number of lock stripes, a power of two. */
+    private static final int STRIPES = 64;
+
+    /** The default number of minutes after which an untouched cart's reservations are released. */
+    private static final int DEFAULT_TIMEOUT_MINUTES = 15;
+
+    /** The interval in seconds between two checks for abandoned carts. */
+    private static final int EXPIRY_INTERVAL_SECONDS = 60;
+
+    /**
+     * The reservations of one cart.
+     */
+    private static final class Holder {
+        /** The reserved quantities by product ID. */
+        private final Map<Integer, Integer> quantities = new ConcurrentHashMap<>();
+        /** The time the cart last reserved stock, from {@link System#nanoTime()}. */
+        private volatile long lastTouchedNanos = System.nanoTime();
+        /** Flag indicating whether the reservations belong to a sale being applied, which never expire. */
+        private volatile boolean pinned;
+    }
+
+    /** The product data manager providing the cached stock. */
+    private final ProductDataManager productDataManager;
+
+    /** The locks guarding the reservations of the products mapped to each stripe. */
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    /** The total reserved quantity by product ID. */
+    private final Map<Integer, Integer> reservedByProduct = new ConcurrentHashMap<>();
+
+    /** The reservations by cart. */
+    private final Map<Object, Holder> holders = new ConcurrentHashMap<>();
+
+    /** The executor releasing abandoned carts, or null until the first reservation. */
+    private ScheduledExecutorService expiryScheduler;
+
+    /**
+     * Constructs a StockReservationLedger for the products of a product data manager.
+     *
+     * @param productDataManager The ProductDataManager providing the cached stock.
+     */
+    StockReservationLedger(ProductDataManager productDataManager) {
+        this.productDataManager = productDataManager;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Atomically reserves a quantity of a product for a cart if enough unreserved stock is available.
+     *
+     * @param holder    The cart reserving the stock.
+     * @param productId The ID of the product.
+     * @param quantity  The quantity to reserve. Must be positive.
+     * @return {@code true} if the quantity was reserved, {@code false} if not enough stock is available.
+     */
+    public boolean reserve(Object holder, int productId, int quantity) {
+        startExpiry();
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            if (quantity > getAvailable(productId)) {
+                return false;
+            }
+            Holder reservations = holders.computeIfAbsent(holder, key -> new Holder());
+            reservations.quantities.merge(productId, quantity, Integer::sum);
+            reservations.lastTouchedNanos = System.nanoTime();
+            reservedByProduct.merge(productId, quantity, Integer::sum);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a cart's reservation of a product.
+     *
+     * @param holder    The cart holding the reservation.
+     * @param productId The ID of the product.
+     */
+    public void release(Object holder, int productId) {
+        Holder reservations = holders.get(holder);
+        if (reservations != null) {
+            take(reservations, productId, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Releases all reservations of a cart, such as when it is cleared or cancelled.
+     *
+     * @param holder The cart holding the reservations.
+     */
+    public void releaseAll(Object holder) {
+        Holder reservations = holders.remove(holder);
+        if (reservations != null) {
+            for (Integer productId : reservations.quantities.keySet()) {
+                take(reservations, productId, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Hands all reservations of a cart over to a sale being applied, such as a journaled sale waiting for
+     * the database. The stock stays reserved when the cart is cleared or its window is closed, and is not
+     * released as abandoned, until the new holder commits the sale or releases it.
+     *
+     * @param from The cart holding the reservations.
+     * @param to   The new holder of the reservations. Must not hold reservations yet.
+     */
+    void transfer(Object from, Object to) {
+        Holder reservations = holders.remove(from);
+        if (reservations != null) {
+            reservations.pinned = true;
+            holders.put(to, reservations);
+        }
+    }
+
+    /**
+     * Converts a cart's reservation of a product into a committed sale: the reservation is consumed and
+     * the cached stock is decremented under the product's lock, so the available quantity seen by other
+     * carts never drops below the truth. Also applies sales without a reservation, for example if the
+     * reservation has expired.
+     *
+     * @param holder    The cart holding the reservation, or null if the sale was not reserved.
+     * @param productId The ID of the product.
+     * @param quantity  The quantity sold.
+     */
+    void commitSale(Object holder, int productId, int quantity) {
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            Holder reservations = holder != null ? holders.get(holder) : null;
+            if (reservations != null) {
+                take(reservations, productId, quantity);
+            }
+            productDataManager.applyQuantityChange(productId, -quantity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the stock of a product that is not reserved by any cart.
+     *
+     * @param productId The ID of the product.
+     * @return The available quantity, or 0 if the product is not cached.
+     */
+    public int getAvailable(int productId) {
+        ProductData product = productDataManager.findById(productId);
+        if (product == null) {
+            return 0;
+        }
+        return Math.max(0, product.getProductQuantity() - reservedByProduct.getOrDefault(productId, 0));
+    }
+
+    /**
+     * Gets the quantity of a product reserved by a cart.
+     *
+     * @param holder    The cart.
+     * @param productId The ID of the product.
+     * @return The reserved quantity.
+     */
+    public int getReserved(Object holder, int productId) {
+        Holder reservations = holders.get(holder);
+        return reservations != null ? reservations.quantities.getOrDefault(productId, 0) : 0;
+    }
+
+    /**
+     * Removes up to a quantity from a cart's reservation of a product and from the product total.
+     *
+     * @param reservations The cart's reservations.
+     * @param productId    The ID of the product.
+     * @param quantity     The maximum quantity to remove.
+     */
+    private void take(Holder reservations, int productId, int quantity) {
+        ReentrantLock lock = lockFor(productId);
+        lock.lock();
+        try {
+            Integer reserved = reservations.quantities.get(productId);
+            if (reserved == null) {
+                return;
+            }
+            int taken = Math.min(reserved, quantity);
+            if (taken == reserved) {
+                reservations.quantities.remove(productId);
+            } else {
+                reservations.quantities.put(productId, reserved - taken);
+            }
+            reservedByProduct.computeIfPresent(productId, (id, total) -> total - taken > 0 ? total - taken : null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the lock stripe of a product.
+     *
+     * @param productId The ID of the product.
+     * @return The lock guarding the product's reservations.
+     */
+    private ReentrantLock lockFor(int productId) {
+        int hash = productId * 0x9E3779B9; // Spread consecutive IDs across the stripes
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Starts releasing abandoned carts on a background daemon thread. Calling this more than once has no effect.
+     */
+    private synchronized void startExpiry() {
+        if (expiryScheduler != null) {
+            return;
+        }
+        expiryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "StockReservationExpiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryScheduler.scheduleWithFixedDelay(this::releaseAbandoned,
+            EXPIRY_INTERVAL_SECONDS, EXPIRY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Releases the reservations of carts that have not reserved stock within the configured timeout.
+     */
+    private void releaseAbandoned() {
+        long timeoutNanos = TimeUnit.MINUTES.toNanos(Math.max(1,
+            AppSettings.getInt(AppSettings.CART_RESERVATION_TIMEOUT_MINUTES, DEFAULT_TIMEOUT_MINUTES)));
+        long now = System.nanoTime();
+        for (Map.Entry<Object, Holder> entry : holders.entrySet()) {
+            if (!entry.getValue().pinned && now - entry.getValue().lastTouchedNanos > timeoutNanos) {
+                releaseAll(entry.getKey());
+            }
+        }
+    }
+}
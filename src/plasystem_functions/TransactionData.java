@@ -38,6 +38,9 @@ public class TransactionData {
     /** The list of items in the transaction (linked to TransactionItems table). */
     private final List<TransactionItemData> transactionItems;
 
+    /** The checkout lane the transaction was made at (TRANS_LANE_ID, INTEGER), or 0 if not recorded. */
+    private final int laneId;
+
     /**
      * Constructs a TransactionData object with the specified values, initializing all attributes.
      * Rounds totalAmount and changeAmount to two decimal places using HALF_UP rounding.
@@ -55,6 +58,27 @@ public class TransactionData {
     public TransactionData(int transactionId, String transDateYear, String transDateMonth, String transDateDay,
                            String transDateTime, double totalAmount, double paymentAmount, double changeAmount,
                            List<TransactionItemData> transactionItems) {
+        this(transactionId, transDateYear, transDateMonth, transDateDay, transDateTime,
+             totalAmount, paymentAmount, changeAmount, transactionItems, 0);
+    }
+
+    /**
+     * Constructs a TransactionData object made at a checkout lane.
+     *
+     * @param transactionId    The unique ID of the transaction (auto-incremented by the database).
+     * @param transDateYear    The year of the transaction date. Should not be null to match database constraints.
+     * @param transDateMonth   The month of the transaction date. Should not be null to match database constraints.
+     * @param transDateDay     The day of the transaction date. Should not be null to match database constraints.
+     * @param transDateTime    The time of the transaction. Should not be null to match database constraints.
+     * @param totalAmount      The total amount of the transaction. Should be non-negative to match database constraints.
+     * @param paymentAmount    The payment amount provided. Should be at least totalAmount to match database constraints.
+     * @param changeAmount     The change returned. Should be non-negative to match database constraints.
+     * @param transactionItems The list of transaction items. May be null or empty.
+     * @param laneId           The checkout lane of the transaction, or 0 if not recorded.
+     */
+    public TransactionData(int transactionId, String transDateYear, String transDateMonth, String transDateDay,
+                           String transDateTime, double totalAmount, double paymentAmount, double changeAmount,
+                           List<TransactionItemData> transactionItems, int laneId) {
         this.transactionId = transactionId;
         this.transDateYear = transDateYear;
         this.transDateMonth = transDateMonth;
@@ -65,6 +89,7 @@ public class TransactionData {
         this.paymentAmount = paymentAmount;
         this.changeAmount = new BigDecimal(changeAmount).setScale(2, RoundingMode.HALF_UP).doubleValue();
         this.transactionItems = transactionItems;
+        this.laneId = laneId;
     }
 
     /**
@@ -156,4 +181,13 @@ public class TransactionData {
     public List<TransactionItemData> getTransactionItems() {
         return transactionItems;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the checkout lane the transaction was made at.
+     *
+     * @return The lane ID (TRANS_LANE_ID), or 0 if the transaction predates checkout lanes.
+     */
+    public int getLaneId() {
+        return laneId;
+    }
+}
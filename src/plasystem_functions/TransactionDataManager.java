@@ -1,28 +1,40 @@
 package plasystem_functions;
 
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
 /**
  * Manages transaction data in the PlaSystem database, providing functionality to add, load, and
  * delete transactions, including their items, and update product quantities. Ensures database
- * consistency through transactions and validates inputs against schema constraints.
+ * consistency through transactions and validates inputs against schema constraints. Selling requires the
+ * {@link Permission#PROCESS_TRANSACTION} permission and deleting a transaction the
+ * {@link Permission#TRANSACTION_HISTORY} permission.
  */
 public class TransactionDataManager {
     /** SQL query to insert a new transaction into the Transactions table. */
     private static final String INSERT_TRANSACTION_QUERY =
         "INSERT INTO Transactions (TRANS_DATE_YEAR, TRANS_DATE_MONTH, TRANS_DATE_DAY, TRANS_DATE_TIME, " +
-        "TRANS_TOTAL_AMOUNT, TRANS_PAYMENT_AMOUNT, TRANS_CHANGE_AMOUNT) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        "TRANS_TOTAL_AMOUNT, TRANS_PAYMENT_AMOUNT, TRANS_CHANGE_AMOUNT, TRANS_LANE_ID, " +
+        "TRANS_JOURNAL_KEY) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
     
-    /** SQL query to insert a transaction item into the TransactionItems table. */
-    private static final String INSERT_TRANSACTION_ITEM_QUERY =
+    /** SQL prefix of the multi-row insert of transaction items, followed by one row of placeholders per item. */
+    private static final String INSERT_TRANSACTION_ITEMS_PREFIX =
         "INSERT INTO TransactionItems (TI_TRANS_ID, TI_PROD_ID, TI_PROD_NAME, TI_PROD_BRAND, TI_PROD_SIZE, " +
-        "TI_PROD_TYPE, TI_PROD_BUYQUANTITY, TI_PROD_UNITPRICE, TI_PROD_TOTALPRICE) " +
-        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        "TI_PROD_TYPE, TI_PROD_BUYQUANTITY, TI_PROD_UNITPRICE, TI_PROD_TOTALPRICE) VALUES ";
+
+    /** The placeholders of one transaction item row in the multi-row insert. */
+    private static final String TRANSACTION_ITEM_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** The maximum number of items per multi-row insert, keeping the parameters under SQLite's limit of 999. */
+    private static final int MAX_ITEMS_PER_INSERT = 100;
     
     /** SQL query to select all transactions from the Transactions table. */
     private static final String SELECT_ALL_TRANSACTIONS_QUERY =
@@ -32,13 +44,34 @@ public class TransactionDataManager {
     private static final String SELECT_TRANSACTION_ITEMS_QUERY =
         "SELECT * FROM TransactionItems WHERE TI_TRANS_ID = ?";
     
+    /** SQL query to select the transactions in an ID range joined with their items, in transaction order. */
+    private static final String SELECT_TRANSACTION_RANGE_QUERY =
+        "SELECT * FROM Transactions t LEFT JOIN TransactionItems ti ON ti.TI_TRANS_ID = t.TRANS_ID " +
+        "WHERE t.TRANS_ID > ? AND t.TRANS_ID <= ? ORDER BY t.TRANS_ID, ti.TI_ITEM_ID";
+    
+    /** SQL query to count the transactions in an ID range. */
+    private static final String COUNT_TRANSACTION_RANGE_QUERY =
+        "SELECT COUNT(*) FROM Transactions WHERE TRANS_ID > ? AND TRANS_ID <= ?";
+    
+    /** SQL query to select the highest transaction ID. */
+    private static final String SELECT_MAX_TRANSACTION_ID_QUERY =
+        "SELECT COALESCE(MAX(TRANS_ID), 0) FROM Transactions";
+    
+    /** SQL query to select the ID of the transaction committed from a checkout journal record. */
+    private static final String SELECT_TRANSACTION_ID_BY_JOURNAL_KEY_QUERY =
+        "SELECT TRANS_ID FROM Transactions WHERE TRANS_JOURNAL_KEY = ?";
+
     /** SQL query to delete a transaction from the Transactions table. */
     private static final String DELETE_TRANSACTION_QUERY =
         "DELETE FROM Transactions WHERE TRANS_ID = ?";
     
-    /** SQL query to update the quantity of a product in the Product table. */
+    /** SQL query to decrease the quantity of a product, changing no row if the product has less stock than sold. */
     private static final String UPDATE_PRODUCT_QUANTITY_QUERY =
-        "UPDATE Product SET PROD_QUANTITY = PROD_QUANTITY - ? WHERE PROD_ID = ?";
+        "UPDATE Product SET PROD_QUANTITY = PROD_QUANTITY - ? WHERE PROD_ID = ? AND PROD_QUANTITY >= ?";
+
+    /** SQL query to select the quantity of a product, used to report the stock of short items. */
+    private static final String SELECT_PRODUCT_QUANTITY_QUERY =
+        "SELECT PROD_QUANTITY FROM Product WHERE PROD_ID = ?";
 
     /** Manager for product data operations, used to refresh product quantities after transactions. */
     private final ProductDataManager productDataManager;
@@ -46,6 +79,12 @@ public class TransactionDataManager {
     /** In-memory list of transactions, synchronized with the database. */
     private final List<TransactionData> transactionList;
 
+    /** The permissions of the logged-in user, checked before every change. */
+    private long permissions = RoleBasedAccessControl.NO_PERMISSIONS;
+
+    /** The audit logger of the logged-in user, recording every change, also from the checkout journal applier. */
+    private volatile AuditLogger auditLogger = AuditLogger.DISABLED;
+
     /**
      * Constructs a TransactionDataManager with a dependency on ProductDataManager and initializes
      * the transaction list by loading all transactions from the database.
@@ -59,6 +98,24 @@ public class TransactionDataManager {
         loadTransactions();
     }
 
+    /**
+     * Sets the permissions of the logged-in user, which are checked before every change to the transactions.
+     *
+     * @param permissions The compiled permission mask of the logged-in user.
+     */
+    public void setPermissions(long permissions) {
+        this.permissions = permissions;
+    }
+
+    /**
+     * Sets the audit logger of the logged-in user, which records every change to the transactions.
+     *
+     * @param auditLogger The audit logger of the logged-in user.
+     */
+    public void setAuditLogger(AuditLogger auditLogger) {
+        this.auditLogger = auditLogger;
+    }
+
     /**
      * Loads all transactions and their associated items from the database into the in-memory
      * transaction list. Clears the existing list before loading to ensure synchronization with
@@ -82,7 +139,8 @@ public class TransactionDataManager {
                     rs.getDouble("TRANS_TOTAL_AMOUNT"),
                     rs.getDouble("TRANS_PAYMENT_AMOUNT"),
                     rs.getDouble("TRANS_CHANGE_AMOUNT"),
-                    items
+                    items,
+                    rs.getInt("TRANS_LANE_ID")
                 );
                 transactionList.add(transaction);
             }
@@ -131,11 +189,143 @@ public class TransactionDataManager {
         return items;
     }
 
+    /**
+     * Reads the transactions in an ID range with their items using a single joined query, without
+     * touching the in-memory transaction list. Used for report snapshots and incremental exports.
+     *
+     * @param conn    The open database connection.
+     * @param afterId The ID after which transactions are read, exclusive.
+     * @param upToId  The highest ID of the transactions read, inclusive.
+     * @return The transactions in ID order.
+     * @throws SQLException If a database error occurs.
+     */
+    static List<TransactionData> readTransactions(Connection conn, int afterId, int upToId) throws SQLException {
+        List<TransactionData> transactions = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_TRANSACTION_RANGE_QUERY)) {
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, upToId);
+            ResultSet rs = pstmt.executeQuery();
+
+            TransactionData current = null;
+            while (rs.next()) {
+                int transId = rs.getInt("TRANS_ID");
+                if (current == null || current.getTransactionId() != transId) {
+                    current = new TransactionData(
+                        transId,
+                        rs.getString("TRANS_DATE_YEAR"),
+                        rs.getString("TRANS_DATE_MONTH"),
+                        rs.getString("TRANS_DATE_DAY"),
+                        rs.getString("TRANS_DATE_TIME"),
+                        rs.getDouble("TRANS_TOTAL_AMOUNT"),
+                        rs.getDouble("TRANS_PAYMENT_AMOUNT"),
+                        rs.getDouble("TRANS_CHANGE_AMOUNT"),
+                        new ArrayList<>(),
+                        rs.getInt("TRANS_LANE_ID")
+                    );
+                    transactions.add(current);
+                }
+                // Transactions without items produce a single row with NULL item columns
+                if (rs.getObject("TI_ITEM_ID") != null) {
+                    current.getTransactionItems().add(new TransactionItemData(
+                        rs.getInt("TI_ITEM_ID"),
+                        transId,
+                        rs.getInt("TI_PROD_ID"),
+                        rs.getString("TI_PROD_NAME"),
+                        rs.getString("TI_PROD_BRAND"),
+                        rs.getString("TI_PROD_SIZE"),
+                        rs.getString("TI_PROD_TYPE"),
+                        rs.getInt("TI_PROD_BUYQUANTITY"),
+                        rs.getDouble("TI_PROD_UNITPRICE"),
+                        rs.getDouble("TI_PROD_TOTALPRICE")
+                    ));
+                }
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Counts the transactions in an ID range.
+     *
+     * @param conn    The open database connection.
+     * @param afterId The ID after which transactions are counted, exclusive.
+     * @param upToId  The highest ID of the transactions counted, inclusive.
+     * @return The number of transactions.
+     * @throws SQLException If a database error occurs.
+     */
+    static int countTransactions(Connection conn, int afterId, int upToId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COUNT_TRANSACTION_RANGE_QUERY)) {
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, upToId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Reads the highest transaction ID, used as the upper bound of an incremental export.
+     *
+     * @param conn The open database connection.
+     * @return The highest transaction ID, or 0 if there are no transactions.
+     * @throws SQLException If a database error occurs.
+     */
+    static int readMaxTransactionId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_MAX_TRANSACTION_ID_QUERY)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Reads the ID of the transaction committed from a checkout journal record.
+     *
+     * @param conn       The open database connection.
+     * @param journalKey The key of the journal record.
+     * @return The transaction ID, or 0 if no transaction was committed from the record.
+     * @throws SQLException If a database error occurs.
+     */
+    static int readTransactionIdByJournalKey(Connection conn, String journalKey) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_TRANSACTION_ID_BY_JOURNAL_KEY_QUERY)) {
+            pstmt.setString(1, journalKey);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Adds a new transaction to the database, including its items, and updates product quantities
+     * in a single transaction, without a checkout lane or stock reservations. See
+     * {@link #commitTransaction(String, String, String, String, double, double, double, List, CheckoutLane)}
+     * for the validation and error handling.
+     *
+     * @param transDateYear    The year of the transaction date. Must not be null or empty.
+     * @param transDateMonth   The month of the transaction date. Must not be null or empty.
+     * @param transDateDay     The day of the transaction date. Must not be null or empty.
+     * @param transDateTime    The time of the transaction. Must not be null or empty.
+     * @param totalAmount      The total amount of the transaction. Must be non-negative.
+     * @param paymentAmount    The payment amount provided. Must be at least equal to totalAmount.
+     * @param changeAmount     The change returned. Must be non-negative.
+     * @param transactionItems The list of transaction items. Must not be null or empty.
+     * @return The committed transaction, or null if the operation fails.
+     * @throws NullPointerException if transactionItems is null.
+     */
+    public CommittedTransaction commitTransaction(String transDateYear, String transDateMonth, String transDateDay,
+                                                  String transDateTime, double totalAmount, double paymentAmount,
+                                                  double changeAmount, List<TransactionItemData> transactionItems) {
+        return commitTransaction(transDateYear, transDateMonth, transDateDay, transDateTime,
+            totalAmount, paymentAmount, changeAmount, transactionItems, null);
+    }
+
     /**
      * Adds a new transaction to the database, including its items, and updates product quantities
      * in a single transaction. Validates inputs against schema constraints and rounds monetary
-     * amounts to two decimal places. Refreshes the transaction and product lists upon success.
-     * Displays appropriate error messages for invalid inputs or database errors.
+     * amounts to two decimal places. Records the checkout lane, updates the cached products upon success,
+     * converting the stock reserved by the lane's cart into the decrement, and returns a snapshot of the committed transaction,
+     * so callers do not have to read the transaction history back.
+     * Displays appropriate error messages for invalid inputs or database errors. Must be called on the
+     * Event Dispatch Thread, which owns the product cache.
      *
      * @param transDateYear    The year of the transaction date. Must not be null or empty.
      * @param transDateMonth   The month of the transaction date. Must not be null or empty.
@@ -145,203 +335,299 @@ public class TransactionDataManager {
      * @param paymentAmount    The payment amount provided. Must be at least equal to totalAmount.
      * @param changeAmount     The change returned. Must be non-negative.
      * @param transactionItems The list of transaction items. Must not be null or empty.
-     * @return The ID of the newly created transaction, or -1 if the operation fails.
+     * @param lane             The checkout lane making the sale, whose cart reservations are converted
+     *                         into the sale, or null if the sale is not made at a lane.
+     * @return The committed transaction, or null if the operation fails.
      * @throws NullPointerException if transactionItems is null.
      */
-    public int addTransaction(String transDateYear, String transDateMonth, String transDateDay, String transDateTime,
-                              double totalAmount, double paymentAmount, double changeAmount,
-                              List<TransactionItemData> transactionItems) {
-        // Validate inputs based on schema constraints
-        if (transDateYear == null || transDateYear.trim().isEmpty()) {
+    public CommittedTransaction commitTransaction(String transDateYear, String transDateMonth, String transDateDay,
+                                                  String transDateTime, double totalAmount, double paymentAmount,
+                                                  double changeAmount, List<TransactionItemData> transactionItems,
+                                                  CheckoutLane lane) {
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.PROCESS_TRANSACTION)) {
+            return null;
+        }
+        try {
+            CommittedTransaction committed = writeTransaction(transDateYear, transDateMonth, transDateDay, transDateTime,
+                totalAmount, paymentAmount, changeAmount, transactionItems, lane, null);
+            completeSale(committed, lane != null ? lane.getCart() : null);
+            return committed;
+        } catch (TransactionRejectedException e) {
             JOptionPane.showMessageDialog(null,
-                "Transaction date year cannot be empty.",
-                "Input Error",
+                e.getMessage(),
+                e.getTitle(),
                 JOptionPane.ERROR_MESSAGE);
-            return -1;
-        }
-        if (transDateMonth == null || transDateMonth.trim().isEmpty()) {
+            return null;
+        } catch (SQLException e) {
             JOptionPane.showMessageDialog(null,
-                "Transaction date month cannot be empty.",
-                "Input Error",
+                "Error adding transaction: " + e.getMessage(),
+                "Database Error",
                 JOptionPane.ERROR_MESSAGE);
-            return -1;
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the logged-in user may sell, before a sale is journaled.
+     *
+     * @throws TransactionRejectedException If the logged-in user is not allowed to process transactions.
+     */
+    void checkSalePermission() throws TransactionRejectedException {
+        if (!RoleBasedAccessControl.hasPermission(permissions, Permission.PROCESS_TRANSACTION)) {
+            throw new TransactionRejectedException("Permission Error",
+                "Your role is not allowed to " + Permission.PROCESS_TRANSACTION.getDescription() + ".");
+        }
+    }
+
+    /**
+     * Writes a new transaction, its items, the product quantities and the daily summary in one database
+     * transaction, recording the key of the checkout journal record it was applied from so the record is
+     * never applied twice. Shows no dialogs and does not touch the product cache, so it may run off the
+     * Event Dispatch Thread; the caller completes the sale with {@link #completeSale} on the Event Dispatch
+     * Thread. The permission is not checked here: live sales are checked before they are journaled, and
+     * replayed sales were already taken.
+     *
+     * @param transDateYear    The year of the transaction date. Must not be null or empty.
+     * @param transDateMonth   The month of the transaction date. Must not be null or empty.
+     * @param transDateDay     The day of the transaction date. Must not be null or empty.
+     * @param transDateTime    The time of the transaction. Must not be null or empty.
+     * @param totalAmount      The total amount of the transaction. Must be non-negative.
+     * @param paymentAmount    The payment amount provided. Must be at least equal to totalAmount.
+     * @param changeAmount     The change returned. Must be non-negative.
+     * @param transactionItems The list of transaction items. Must not be null or empty.
+     * @param lane             The checkout lane making the sale, or null.
+     * @param journalKey       The key of the checkout journal record, or null if the sale was not journaled.
+     * @return The committed transaction.
+     * @throws TransactionRejectedException If the sale is invalid, violates a constraint or is short of stock.
+     *                                      Nothing is written in that case.
+     * @throws SQLException If a database error occurs that may not recur. Nothing is written in that case.
+     */
+    CommittedTransaction writeTransaction(String transDateYear, String transDateMonth, String transDateDay,
+                                          String transDateTime, double totalAmount, double paymentAmount,
+                                          double changeAmount, List<TransactionItemData> transactionItems,
+                                          CheckoutLane lane, String journalKey)
+            throws TransactionRejectedException, SQLException {
+        // Validate inputs based on schema constraints
+        if (transDateYear == null || transDateYear.trim().isEmpty()) {
+            throw new TransactionRejectedException("Input Error", "Transaction date year cannot be empty.");
+        }
+        if (transDateMonth == null || transDateMonth.trim().isEmpty()) {
+            throw new TransactionRejectedException("Input Error", "Transaction date month cannot be empty.");
         }
         if (transDateDay == null || transDateDay.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null,
-                "Transaction date day cannot be empty.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return -1;
+            throw new TransactionRejectedException("Input Error", "Transaction date day cannot be empty.");
         }
         if (transDateTime == null || transDateTime.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null,
-                "Transaction date time cannot be empty.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return -1;
+            throw new TransactionRejectedException("Input Error", "Transaction date time cannot be empty.");
         }
         if (totalAmount < 0) {
-            JOptionPane.showMessageDialog(null,
-                "Total amount cannot be negative.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return -1;
+            throw new TransactionRejectedException("Input Error", "Total amount cannot be negative.");
         }
         if (paymentAmount < totalAmount) {
-            JOptionPane.showMessageDialog(null,
-                "Payment amount must be at least equal to total amount.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return -1;
+            throw new TransactionRejectedException("Input Error", "Payment amount must be at least equal to total amount.");
         }
         if (changeAmount < 0) {
-            JOptionPane.showMessageDialog(null,
-                "Change amount cannot be negative.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return -1;
+            throw new TransactionRejectedException("Input Error", "Change amount cannot be negative.");
         }
         if (transactionItems == null || transactionItems.isEmpty()) {
-            JOptionPane.showMessageDialog(null,
-                "Transaction must include at least one item.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return -1;
+            throw new TransactionRejectedException("Input Error", "Transaction must include at least one item.");
+        }
+        for (TransactionItemData item : transactionItems) {
+            validateTransactionItem(item);
         }
 
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
         int transactionId = -1;
-
-        try {
-            conn = DBConnection.getConnection();
+        try (Connection conn = DBConnection.getConnection()) {
             conn.setAutoCommit(false);
-
-            // Insert transaction
-            pstmt = conn.prepareStatement(INSERT_TRANSACTION_QUERY, Statement.RETURN_GENERATED_KEYS);
-            pstmt.setString(1, transDateYear.trim());
-            pstmt.setString(2, transDateMonth.trim());
-            pstmt.setString(3, transDateDay.trim());
-            pstmt.setString(4, transDateTime.trim());
-            pstmt.setDouble(5, new BigDecimal(totalAmount).setScale(2, RoundingMode.HALF_UP).doubleValue());
-            pstmt.setDouble(6, paymentAmount);
-            pstmt.setDouble(7, new BigDecimal(changeAmount).setScale(2, RoundingMode.HALF_UP).doubleValue());
-            int rowsAffected = pstmt.executeUpdate();
-
-            if (rowsAffected > 0) {
-                rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    transactionId = rs.getInt(1);
+            try {
+                // Insert transaction
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_TRANSACTION_QUERY, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, transDateYear.trim());
+                    pstmt.setString(2, transDateMonth.trim());
+                    pstmt.setString(3, transDateDay.trim());
+                    pstmt.setString(4, transDateTime.trim());
+                    pstmt.setDouble(5, new BigDecimal(totalAmount).setScale(2, RoundingMode.HALF_UP).doubleValue());
+                    pstmt.setDouble(6, paymentAmount);
+                    pstmt.setDouble(7, new BigDecimal(changeAmount).setScale(2, RoundingMode.HALF_UP).doubleValue());
+                    if (lane != null) {
+                        pstmt.setInt(8, lane.getLaneId());
+                    } else {
+                        pstmt.setNull(8, Types.INTEGER);
+                    }
+                    pstmt.setString(9, journalKey);
+                    pstmt.executeUpdate();
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            transactionId = rs.getInt(1);
+                        }
+                    }
+                }
+                if (transactionId <= 0) {
+                    throw new SQLException("The transaction was not inserted.");
                 }
-            } else {
-                conn.rollback();
-                return -1;
-            }
 
-            // Insert transaction items
-            pstmt = conn.prepareStatement(INSERT_TRANSACTION_ITEM_QUERY);
-            for (TransactionItemData item : transactionItems) {
-                if (!validateTransactionItem(item)) {
-                    conn.rollback();
-                    return -1;
+                // Decrease the product quantities with one guarded batch, so oversold items change no row
+                List<TransactionItemData> shortItems = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_PRODUCT_QUANTITY_QUERY)) {
+                    for (TransactionItemData item : transactionItems) {
+                        pstmt.setInt(1, item.getTI_buyQuantity());
+                        pstmt.setInt(2, item.getTI_productId());
+                        pstmt.setInt(3, item.getTI_buyQuantity());
+                        pstmt.addBatch();
+                    }
+                    int[] updateResults = pstmt.executeBatch();
+                    for (int i = 0; i < updateResults.length; i++) {
+                        if (updateResults[i] == 0) {
+                            shortItems.add(transactionItems.get(i));
+                        }
+                    }
                 }
-                pstmt.setInt(1, transactionId);
-                pstmt.setInt(2, item.getTI_productId());
-                pstmt.setString(3, item.getTI_productName().trim());
-                pstmt.setString(4, item.getTI_productBrand().trim());
-                pstmt.setString(5, item.getTI_productSize().trim());
-                pstmt.setString(6, item.getTI_productType().trim());
-                pstmt.setInt(7, item.getTI_buyQuantity());
-                pstmt.setDouble(8, item.getTI_unitPrice());
-                pstmt.setDouble(9, new BigDecimal(item.getTI_totalPrice()).setScale(2, RoundingMode.HALF_UP).doubleValue());
-                pstmt.addBatch();
-            }
-            int[] batchResults = pstmt.executeBatch();
-            for (int result : batchResults) {
-                if (result <= 0) {
+                if (!shortItems.isEmpty()) {
+                    String shortages = describeShortages(conn, shortItems);
                     conn.rollback();
-                    return -1;
+                    // Another lane or device sold the stock first; show the lanes the actual quantities
+                    onEventDispatchThread(productDataManager::loadProducts);
+                    throw new TransactionRejectedException("Insufficient Stock",
+                        "Not enough stock for the following items. The transaction was not saved.\n" + shortages);
                 }
-            }
 
-            // Update product quantities
-            pstmt = conn.prepareStatement(UPDATE_PRODUCT_QUANTITY_QUERY);
-            for (TransactionItemData item : transactionItems) {
-                pstmt.setInt(1, item.getTI_buyQuantity());
-                pstmt.setInt(2, item.getTI_productId());
-                rowsAffected = pstmt.executeUpdate();
-                if (rowsAffected == 0) {
-                    conn.rollback();
-                    JOptionPane.showMessageDialog(null,
-                        "Failed to update product quantity for product ID: " + item.getTI_productId(),
-                        "Database Error",
-                        JOptionPane.ERROR_MESSAGE);
-                    return -1;
+                // Insert transaction items with multi-row inserts
+                for (int from = 0; from < transactionItems.size(); from += MAX_ITEMS_PER_INSERT) {
+                    List<TransactionItemData> chunk =
+                        transactionItems.subList(from, Math.min(from + MAX_ITEMS_PER_INSERT, transactionItems.size()));
+                    try (PreparedStatement pstmt = conn.prepareStatement(INSERT_TRANSACTION_ITEMS_PREFIX
+                            + String.join(", ", Collections.nCopies(chunk.size(), TRANSACTION_ITEM_ROW)))) {
+                        int index = 1;
+                        for (TransactionItemData item : chunk) {
+                            pstmt.setInt(index++, transactionId);
+                            pstmt.setInt(index++, item.getTI_productId());
+                            pstmt.setString(index++, item.getTI_productName().trim());
+                            pstmt.setString(index++, item.getTI_productBrand().trim());
+                            pstmt.setString(index++, item.getTI_productSize().trim());
+                            pstmt.setString(index++, item.getTI_productType().trim());
+                            pstmt.setInt(index++, item.getTI_buyQuantity());
+                            pstmt.setDouble(index++, item.getTI_unitPrice());
+                            pstmt.setDouble(index++, new BigDecimal(item.getTI_totalPrice()).setScale(2, RoundingMode.HALF_UP).doubleValue());
+                        }
+                        if (pstmt.executeUpdate() != chunk.size()) {
+                            throw new SQLException("Not all transaction items were inserted.");
+                        }
+                    }
                 }
-            }
 
-            conn.commit();
-            loadTransactions();
-            productDataManager.loadProducts(); // Refresh product list
-            return transactionId;
-        } catch (SQLException e) {
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(null, "Error AddTransaction1." + ex);
-            }
-            String errorMessage = e.getMessage();
-            if (errorMessage.contains("SQLITE_CONSTRAINT_NOTNULL")) {
-                JOptionPane.showMessageDialog(null,
-                    "A required field is null.",
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            } else if (errorMessage.contains("SQLITE_CONSTRAINT_CHECK")) {
-                JOptionPane.showMessageDialog(null,
-                    "Invalid input: Ensure all amounts and quantities meet schema constraints.",
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(null,
-                    "Error adding transaction: " + errorMessage,
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-            return -1;
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                }
+                // Add the sales to the daily summary in the same database transaction
+                DailySalesManager.addTransactionSales(conn, transactionId);
+
+                conn.commit();
             } catch (SQLException e) {
-                JOptionPane.showMessageDialog(null, "Error AddTransaction2." + e);
+                conn.rollback();
+                // Constraint violations are definite; anything else, such as a busy database, may succeed later
+                String errorMessage = String.valueOf(e.getMessage());
+                if (errorMessage.contains("SQLITE_CONSTRAINT_NOTNULL")) {
+                    throw new TransactionRejectedException("Database Error", "A required field is null.");
+                } else if (errorMessage.contains("SQLITE_CONSTRAINT")) {
+                    throw new TransactionRejectedException("Database Error",
+                        "Invalid input: Ensure all amounts and quantities meet schema constraints.");
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         }
+
+        LocalDateTime committedAt = LocalDateTime.now();
+        auditLogger.record(AuditAction.SALE, String.format("Transaction #%d: %d items, total ₱%,.2f%s",
+            transactionId, transactionItems.size(), totalAmount, lane != null ? ", " + lane.getName() : ""));
+        return new CommittedTransaction(transactionId, transDateYear.trim(), transDateMonth.trim(),
+            transDateDay.trim(), transDateTime.trim(), totalAmount, paymentAmount, changeAmount,
+            transactionItems, lane != null ? lane.getLaneId() : 0, committedAt);
+    }
+
+    /**
+     * Completes a committed sale in the product cache: the stock reserved for the sale is converted into
+     * the decrement of the cached products and any remaining reservation of the holder is released. Must
+     * be called on the Event Dispatch Thread, which owns the product cache.
+     *
+     * @param committed         The committed transaction.
+     * @param reservationHolder The holder of the stock reserved for the sale, or null if it was not reserved.
+     */
+    void completeSale(CommittedTransaction committed, Object reservationHolder) {
+        StockReservationLedger reservations = productDataManager.getReservations();
+        for (TransactionItemData item : committed.getTransactionItems()) {
+            reservations.commitSale(reservationHolder, item.getTI_productId(), item.getTI_buyQuantity());
+        }
+        if (reservationHolder != null) {
+            reservations.releaseAll(reservationHolder);
+        }
     }
 
     /**
-     * Deletes a transaction from the database by its ID, including its associated items.
-     * Refreshes the transaction list upon success. Displays an error message if the transaction
-     * ID does not exist or a database error occurs.
+     * Runs a task on the Event Dispatch Thread: directly if called on it, and later otherwise.
+     *
+     * @param task The task to run.
+     */
+    private static void onEventDispatchThread(Runnable task) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            task.run();
+        } else {
+            SwingUtilities.invokeLater(task);
+        }
+    }
+
+    /**
+     * Adds a new transaction to the database, including its items, and updates product quantities
+     * in a single transaction. See {@link #commitTransaction} for the validation and error handling.
+     *
+     * @param transDateYear    The year of the transaction date. Must not be null or empty.
+     * @param transDateMonth   The month of the transaction date. Must not be null or empty.
+     * @param transDateDay     The day of the transaction date. Must not be null or empty.
+     * @param transDateTime    The time of the transaction. Must not be null or empty.
+     * @param totalAmount      The total amount of the transaction. Must be non-negative.
+     * @param paymentAmount    The payment amount provided. Must be at least equal to totalAmount.
+     * @param changeAmount     The change returned. Must be non-negative.
+     * @param transactionItems The list of transaction items. Must not be null or empty.
+     * @return The ID of the newly created transaction, or -1 if the operation fails.
+     * @throws NullPointerException if transactionItems is null.
+     */
+    public int addTransaction(String transDateYear, String transDateMonth, String transDateDay, String transDateTime,
+                              double totalAmount, double paymentAmount, double changeAmount,
+                              List<TransactionItemData> transactionItems) {
+        CommittedTransaction committed = commitTransaction(transDateYear, transDateMonth, transDateDay, transDateTime,
+            totalAmount, paymentAmount, changeAmount, transactionItems);
+        return committed != null ? committed.getTransactionId() : -1;
+    }
+
+    /**
+     * Deletes a transaction from the database by its ID, including its associated items, and
+     * subtracts its sales from the daily summary in the same database transaction. Refreshes the
+     * transaction list upon success. Displays an error message if a database error occurs.
      *
      * @param transactionId The ID of the transaction to delete. Must exist in the database.
      * @return {@code true} if the transaction was deleted successfully, {@code false} otherwise.
      */
     public boolean deleteTransaction(int transactionId) {
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(DELETE_TRANSACTION_QUERY)) {
-            pstmt.setInt(1, transactionId);
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected > 0) {
-                loadTransactions(); // Refresh the transaction list
-                return true;
-            } else {
-                return false;
+        if (!RoleBasedAccessControl.checkPermission(permissions, Permission.TRANSACTION_HISTORY)) {
+            return false;
+        }
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(DELETE_TRANSACTION_QUERY)) {
+                // Reverse the summary while the transaction items still exist
+                DailySalesManager.removeTransactionSales(conn, transactionId);
+                pstmt.setInt(1, transactionId);
+                int rowsAffected = pstmt.executeUpdate();
+                if (rowsAffected == 0) {
+                    conn.rollback();
+                    return false;
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
+            auditLogger.record(AuditAction.DELETE_TRANSACTION, "Transaction #" + transactionId);
+            loadTransactions(); // Refresh the transaction list
+            return true;
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(null,
                 "Error deleting transaction: " + e.getMessage(),
@@ -351,66 +637,65 @@ public class TransactionDataManager {
         }
     }
 
+    /**
+     * Describes the items of a sale that could not be sold because of insufficient stock, with the
+     * quantity requested and the quantity in stock, one item per line.
+     *
+     * @param conn       The open database connection, inside the failed database transaction.
+     * @param shortItems The items whose guarded stock update changed no row.
+     * @return The description of the short items.
+     * @throws SQLException If a database error occurs.
+     */
+    private static String describeShortages(Connection conn, List<TransactionItemData> shortItems) throws SQLException {
+        StringBuilder shortages = new StringBuilder();
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_PRODUCT_QUANTITY_QUERY)) {
+            for (TransactionItemData item : shortItems) {
+                pstmt.setInt(1, item.getTI_productId());
+                shortages.append("\n- ").append(item.getTI_productName().trim()).append(": requested ")
+                    .append(item.getTI_buyQuantity());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        shortages.append(", in stock ").append(rs.getInt(1));
+                    } else {
+                        shortages.append(", product no longer exists");
+                    }
+                }
+            }
+        }
+        return shortages.toString();
+    }
+
     /**
      * Validates a transaction item based on schema constraints for the TransactionItems table
      * (e.g., non-null fields, positive quantity, non-negative prices, total price at least
-     * equal to unit price). Displays appropriate error messages for invalid inputs.
+     * equal to unit price).
      *
      * @param item The TransactionItemData to validate. Must not be null.
-     * @return {@code true} if the item is valid, {@code false} otherwise.
+     * @throws TransactionRejectedException If the item is invalid, with the reason as its message.
      * @throws NullPointerException if item is null.
      */
-    private boolean validateTransactionItem(TransactionItemData item) {
+    private void validateTransactionItem(TransactionItemData item) throws TransactionRejectedException {
         if (item.getTI_productName() == null || item.getTI_productName().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null,
-                "Product name cannot be empty.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return false;
+            throw new TransactionRejectedException("Input Error", "Product name cannot be empty.");
         }
         if (item.getTI_productBrand() == null || item.getTI_productBrand().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null,
-                "Product brand cannot be empty.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return false;
+            throw new TransactionRejectedException("Input Error", "Product brand cannot be empty.");
         }
         if (item.getTI_productSize() == null || item.getTI_productSize().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null,
-                "Product size cannot be empty.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return false;
+            throw new TransactionRejectedException("Input Error", "Product size cannot be empty.");
         }
         if (item.getTI_productType() == null || item.getTI_productType().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null,
-                "Product type cannot be empty.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return false;
+            throw new TransactionRejectedException("Input Error", "Product type cannot be empty.");
         }
         if (item.getTI_buyQuantity() <= 0) {
-            JOptionPane.showMessageDialog(null,
-                "Buy quantity must be greater than 0.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return false;
+            throw new TransactionRejectedException("Input Error", "Buy quantity must be greater than 0.");
         }
         if (item.getTI_unitPrice() < 0) {
-            JOptionPane.showMessageDialog(null,
-                "Unit price cannot be negative.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return false;
+            throw new TransactionRejectedException("Input Error", "Unit price cannot be negative.");
         }
         if (item.getTI_totalPrice() < item.getTI_unitPrice()) {
-            JOptionPane.showMessageDialog(null,
-                "Total price must be at least equal to unit price.",
-                "Input Error",
-                JOptionPane.ERROR_MESSAGE);
-            return false;
+            throw new TransactionRejectedException("Input Error", "Total price must be at least equal to unit price.");
         }
-        return true;
     }
 
     /**
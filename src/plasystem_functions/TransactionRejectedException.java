@@ -0,0 +1,31 @@
+package plasystem_functions;
+
+/**
+ * Thrown when a sale is definitely refused, such as for insufficient stock, a missing permission or
+ * invalid data, as opposed to a database failure that may succeed when retried. A journaled sale that
+ * is rejected is marked failed in the {@link CheckoutJournal} instead of being retried.
+ */
+public class TransactionRejectedException extends Exception {
+    /** The title of the dialog reporting the rejection. */
+    private final String title;
+
+    /**
+     * Constructs a TransactionRejectedException.
+     *
+     * @param title   The title of the dialog reporting the rejection, such as "Insufficient Stock".
+     * @param message The reason the sale was rejected, shown to the cashier.
+     */
+    public TransactionRejectedException(String title, String message) {
+        super(message);
+        this.title = title;
+    }
+
+    /**
+     * Gets the title of the dialog reporting the rejection.
+     *
+     * @return The dialog title.
+     */
+    public String getTitle() {
+        return title;
+    }
+}
@@ -2,24 +2,49 @@ package plasystem_functions;
 
 import javax.swing.*;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Utility class for generating transaction reports in CSV format for the PlaSystem application.
  * The report includes transaction details and their associated items, saved to a timestamped
- * file in the "transaction_reports" directory.
+ * file in the "transaction_reports" directory. Reports can be written either from an in-memory
+ * list of transactions or, in streaming mode, directly from a database cursor so that memory use
+ * stays constant regardless of the number of transactions.
  */
 public class TransactionReportGenerator {
     /** Directory path where transaction reports are saved. */
-    private static final String REPORTS_DIRECTORY = "transaction_reports";
+    static final String REPORTS_DIRECTORY = "transaction_reports";
     
-    /** List of transactions to include in the report. */
+    /** List of transactions to include in the report, or null when the report is streamed from the database. */
     private final List<TransactionData> transactionList;
     
+    /**
+     * SQL query to count the transactions and transaction items of a streamed report. It uses the same join as the
+     * row query, so transactions without items, which have no rows, are not counted.
+     */
+    private static final String COUNT_TRANSACTION_ROWS_QUERY =
+        "SELECT COUNT(DISTINCT t.TRANS_ID), COUNT(*) " +
+        "FROM Transactions t JOIN TransactionItems ti ON ti.TI_TRANS_ID = t.TRANS_ID";
+    
+    /** SQL query to read every transaction item joined with its transaction, in transaction order. */
+    private static final String SELECT_TRANSACTION_ROWS_QUERY =
+        "SELECT t.TRANS_ID, t.TRANS_DATE_YEAR, t.TRANS_DATE_MONTH, t.TRANS_DATE_DAY, t.TRANS_DATE_TIME, " +
+        "t.TRANS_TOTAL_AMOUNT, t.TRANS_PAYMENT_AMOUNT, t.TRANS_CHANGE_AMOUNT, " +
+        "ti.TI_PROD_NAME, ti.TI_PROD_BRAND, ti.TI_PROD_SIZE, ti.TI_PROD_TYPE, " +
+        "ti.TI_PROD_BUYQUANTITY, ti.TI_PROD_UNITPRICE, ti.TI_PROD_TOTALPRICE " +
+        "FROM Transactions t JOIN TransactionItems ti ON ti.TI_TRANS_ID = t.TRANS_ID " +
+        "ORDER BY t.TRANS_ID, ti.TI_ITEM_ID";
+    
+    /** Number of rows fetched from the database per round trip in streaming mode. */
+    private static final int FETCH_SIZE = 500;
+    
     /** Column headers for the CSV report, combining transaction and item details. */
     private static final String[] COMBINED_HEADERS = {
         "Transaction ID", "Date", "Time", "Total Amount", "Payment Amount", "Change Amount",
@@ -36,49 +61,139 @@ public class TransactionReportGenerator {
         this.transactionList = transactionList;
     }
 
+    /**
+     * Constructs a TransactionReportGenerator in streaming mode. The report is read directly from
+     * the Transactions and TransactionItems tables when it is generated, without loading the
+     * transactions into memory first.
+     */
+    public TransactionReportGenerator() {
+        this.transactionList = null;
+    }
+
     /**
      * Generates a CSV transaction report after prompting the user for confirmation. If confirmed,
      * the report is saved in the "transaction_reports" directory with a timestamped filename
-     * (e.g., TransactionReport_YYYY-MM-DD_HHMMSS.csv). Displays a success or error message to the user.
+     * (e.g., TransactionReport_YYYY-MM-DD_HHMMSS.csv). The report is written in the background, from
+     * a snapshot of the transaction list or streamed from the database, with a cancellable progress
+     * monitor, and a success or error message is displayed to the user when it finishes. The user may
+     * instead choose an incremental export of the transactions added since the last incremental export.
      *
      * @param parent The parent JFrame for displaying confirmation and result dialogs. May be null
      *               if no parent is required.
      */
     public void generateReport(JFrame parent) {
-        // Prompt user to confirm export
-        int choice = JOptionPane.showConfirmDialog(
+        // Offer a full export or an incremental export of the transactions added since the last one
+        Object[] options = {"Full Report", "Since Last Export", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(
             parent,
-            "Do you want to export the transaction report as a CSV file?",
+            "Do you want to export the transaction report as a CSV file?\n" + describeLastExport(),
             "Export Transaction Report",
-            JOptionPane.YES_NO_OPTION,
-            JOptionPane.QUESTION_MESSAGE
+            JOptionPane.YES_NO_CANCEL_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            options,
+            options[0]
         );
 
-        if (choice != JOptionPane.YES_OPTION) {
-            return; // User cancelled or selected No
+        if (choice == 1) {
+            generateIncrementalReport(parent);
+            return;
         }
-
-        // Create transaction_reports directory if it doesn't exist
-        File reportsDir = new File(REPORTS_DIRECTORY);
-        if (!reportsDir.exists()) {
-            reportsDir.mkdirs();
+        if (choice != 0) {
+            return; // User cancelled or closed the dialog
         }
 
-        // Generate filename with specific format: TransactionReport_YYYY-MM-DD_HHMMSS
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd_HHmmss").format(new Date());
-        String filePath = REPORTS_DIRECTORY + "/TransactionReport_" + timestamp + ".csv";
+        // Create the report file, e.g. TransactionReport_YYYY-MM-DD_HHMMSS.csv or .csv.gz when compression is enabled
+        File reportFile = ReportHousekeeper.newReportFile(REPORTS_DIRECTORY, "TransactionReport");
 
-        try {
-            generateCSVReport(filePath);
-            JOptionPane.showMessageDialog(parent,
-                "Report generated successfully at: " + filePath,
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-        } catch (IOException e) {
+        // Snapshot the transaction list so the export is not affected by later changes
+        List<TransactionData> transactions = transactionList == null ? null : new ArrayList<>(transactionList);
+        new ReportExportTask(parent, "Transaction Report", reportFile,
+            (file, task) -> generateCSVReport(transactions, file.getPath(), task)).start();
+    }
+
+    /**
+     * Generates an incremental report containing only the transactions added since the last incremental
+     * export. The report is saved in the "transaction_reports" directory with a timestamped filename
+     * (e.g., TransactionReportIncremental_YYYY-MM-DD_HHMMSS.csv). Once the report is in place the export is recorded
+     * in the export ledger and the watermark advances, so the same transactions are not exported again.
+     * If there are no new transactions, the user is informed and no report is written.
+     *
+     * @param parent The parent JFrame for displaying result dialogs. May be null.
+     */
+    private void generateIncrementalReport(JFrame parent) {
+        try (Connection conn = DBConnection.getConnection()) {
+            int lastExportedId = ExportLedger.getWatermark(conn, ExportLedger.TRANSACTION_REPORT).getLastExportedId();
+            if (TransactionDataManager.readMaxTransactionId(conn) <= lastExportedId) {
+                JOptionPane.showMessageDialog(parent,
+                    "There are no new transactions since the last export.",
+                    "Info",
+                    JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+        } catch (SQLException e) {
             JOptionPane.showMessageDialog(parent,
-                "Error generating report: " + e.getMessage(),
-                "Error",
+                "Error reading the last export: " + e.getMessage(),
+                "Database Error",
                 JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        File reportFile = ReportHousekeeper.newReportFile(REPORTS_DIRECTORY, "TransactionReportIncremental");
+        new ReportExportTask(parent, "Incremental Transaction Report", reportFile, this::generateIncrementalCSVReport).start();
+    }
+
+    /**
+     * Writes the incremental report. The watermark, the upper bound and the transactions are read in one
+     * database transaction, so transactions added while the report is written are left for the next export.
+     *
+     * @param file The temporary report file to write.
+     * @param task The export task to report progress to.
+     * @throws IOException  If an error occurs during file writing or the export is cancelled.
+     * @throws SQLException If an error occurs while reading from the database.
+     */
+    private void generateIncrementalCSVReport(File file, ReportExportTask task) throws IOException, SQLException {
+        int fromId;
+        int toId;
+        List<TransactionData> transactions;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                fromId = ExportLedger.getWatermark(conn, ExportLedger.TRANSACTION_REPORT).getLastExportedId();
+                toId = TransactionDataManager.readMaxTransactionId(conn);
+                transactions = TransactionDataManager.readTransactions(conn, fromId, toId);
+            } finally {
+                conn.rollback(); // Read-only transaction, nothing to commit
+            }
+        }
+
+        int totalRows = countRows(transactions);
+        task.setTotalRows(totalRows);
+        try (CsvWriter writer = task.openCsvWriter(file)) {
+            writeCSV(transactions, writer, task);
+        }
+
+        // Advance the watermark only once the report has been moved into place
+        task.setCompletionAction(reportFile ->
+            ExportLedger.recordExport(ExportLedger.TRANSACTION_REPORT, fromId, toId, totalRows, reportFile.getName()));
+    }
+
+    /**
+     * Describes the last incremental export for the export dialog.
+     *
+     * @return A line describing the last incremental export, or that it is unknown if it cannot be read.
+     */
+    private static String describeLastExport() {
+        try {
+            ExportLedger.Watermark watermark = ExportLedger.getWatermark(ExportLedger.TRANSACTION_REPORT);
+            if (watermark.getLastExportedAt() == null) {
+                return "No incremental export has been made yet.";
+            }
+            return "Last incremental export: up to transaction ID " + watermark.getLastExportedId()
+                + " on " + watermark.getLastExportedAt() + ".";
+        } catch (SQLException e) {
+            // The export itself reports database errors; the dialog only lacks the last export
+            return "The last incremental export is unknown.";
         }
     }
 
@@ -87,44 +202,194 @@ public class TransactionReportGenerator {
      * flattened format. Each row represents a transaction item with its transaction details.
      * Includes a header with metadata and column names.
      *
+     * @param transactions The transactions to include in the report, or null to stream them from the database.
      * @param filePath The path where the CSV file will be saved. Must not be null or empty.
+     * @param task     The export task to report progress to.
      * @throws IOException If an error occurs during file writing, such as insufficient permissions
-     *                     or disk space issues.
+     *                     or disk space issues, or if the export is cancelled.
+     * @throws SQLException If an error occurs while reading transactions in streaming mode.
      * @throws NullPointerException If filePath is null or if transactionList or any transaction
      *                              item's attributes are null.
      */
-    private void generateCSVReport(String filePath) throws IOException {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            // Write header
-            writer.write("Transaction Report\n");
-            writer.write("Generated by PlaSystem\n");
-            writer.write("Total Different Transactions: " + transactionList.size() + "\n\n");
-
-            // Write combined headers
-            writer.write(String.join(",", COMBINED_HEADERS) + "\n");
-
-            // Write data rows
-            for (TransactionData transaction : transactionList) {
-                // For each transaction, write a row for each of its items
-                for (TransactionItemData item : transaction.getTransactionItems()) {
-                    String[] row = {
-                        String.valueOf(transaction.getTransactionId()),
-                        transaction.getFormattedDate().split(" ")[0], // YYYY-MM-DD
-                        transaction.getTransDateTime(),
-                        String.valueOf(transaction.getTotalAmount()),
-                        String.valueOf(transaction.getPaymentAmount()),
-                        String.valueOf(transaction.getChangeAmount()),
-                        item.getTI_productName(),
-                        item.getTI_productBrand(),
-                        item.getTI_productSize(),
-                        item.getTI_productType(),
-                        String.valueOf(item.getTI_buyQuantity()),
-                        String.valueOf(item.getTI_unitPrice()),
-                        String.valueOf(item.getTI_totalPrice())
-                    };
-                    writer.write(String.join(",", row) + "\n");
+    private void generateCSVReport(List<TransactionData> transactions, String filePath, ReportExportTask task)
+            throws IOException, SQLException {
+        if (transactions == null) {
+            generateStreamingCSVReport(filePath, task);
+            return;
+        }
+        task.setTotalRows(countRows(transactions));
+        try (CsvWriter writer = task.openCsvWriter(new File(filePath))) {
+            writeCSV(transactions, writer, task);
+        }
+    }
+
+    /**
+     * Counts the data rows of a report, one per transaction item.
+     *
+     * @param transactions The transactions to include in the report.
+     * @return The number of data rows.
+     */
+    private static int countRows(List<TransactionData> transactions) {
+        int totalRows = 0;
+        for (TransactionData transaction : transactions) {
+            totalRows += transaction.getTransactionItems().size();
+        }
+        return totalRows;
+    }
+
+    /**
+     * Writes the report header and data rows of in-memory transactions to a CSV writer. Used by the
+     * report of a given list and by incremental exports.
+     *
+     * @param transactions The transactions to include in the report.
+     * @param writer       The CSV writer to write to.
+     * @param task         The export task to report progress to.
+     * @throws IOException If an error occurs during writing or the export is cancelled.
+     */
+    private static void writeCSV(List<TransactionData> transactions, CsvWriter writer, ReportExportTask task) throws IOException {
+        // Count only the transactions that have rows, as the streamed report does
+        int transactionCount = 0;
+        for (TransactionData transaction : transactions) {
+            if (!transaction.getTransactionItems().isEmpty()) {
+                transactionCount++;
+            }
+        }
+        writeHeader(writer, transactionCount);
+
+        // Write data rows
+        for (TransactionData transaction : transactions) {
+            // The date is shared by every item of the transaction
+            String transactionDate = transaction.getTransDateYear() + "-" + transaction.getTransDateMonth() + "-" + transaction.getTransDateDay();
+
+            // For each transaction, write a row for each of its items
+            for (TransactionItemData item : transaction.getTransactionItems()) {
+                writer.field(transaction.getTransactionId())
+                      .field(transactionDate)
+                      .field(transaction.getTransDateTime())
+                      .field(transaction.getTotalAmount())
+                      .field(transaction.getPaymentAmount())
+                      .field(transaction.getChangeAmount())
+                      .field(item.getTI_productName())
+                      .field(item.getTI_productBrand())
+                      .field(item.getTI_productSize())
+                      .field(item.getTI_productType())
+                      .field(item.getTI_buyQuantity())
+                      .field(item.getTI_unitPrice())
+                      .field(item.getTI_totalPrice())
+                      .endRow();
+                task.rowWritten();
+            }
+        }
+    }
+
+    /**
+     * Generates the CSV report directly from a forward-only database cursor over the transaction
+     * items joined with their transactions. Values are written straight from the result set with a
+     * single reusable buffer for the date, so memory use does not grow with the number of rows.
+     * The counts and rows are read in one read transaction; with the database in WAL mode this
+     * snapshot does not block checkout commits while the file is written. The output has the same
+     * layout as the report generated from an in-memory list.
+     *
+     * @param filePath The path where the CSV file will be saved. Must not be null or empty.
+     * @param task     The export task to report progress to.
+     * @throws IOException  If an error occurs during file writing or the export is cancelled.
+     * @throws SQLException If an error occurs while reading from the database.
+     */
+    private void generateStreamingCSVReport(String filePath, ReportExportTask task) throws IOException, SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             CsvWriter writer = task.openCsvWriter(new File(filePath))) {
+
+            // Read the counts and the rows in one read transaction, so they describe the same snapshot
+            conn.setAutoCommit(false);
+            try {
+                int[] counts = countTransactionRows(conn);
+                task.setTotalRows(counts[1]);
+                writeStreamingCSV(conn, writer, task, counts[0]);
+            } finally {
+                conn.rollback(); // Read-only transaction, nothing to commit
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Counts the transactions and data rows of a streamed report without loading them. Called in the
+     * read transaction the rows are then streamed in, so the counts match the rows.
+     *
+     * @param conn The open database connection.
+     * @return The number of transactions with items, and the number of data rows, one per transaction item.
+     * @throws SQLException If an error occurs while reading from the database.
+     */
+    static int[] countTransactionRows(Connection conn) throws SQLException {
+        try (Statement countStmt = conn.createStatement();
+             ResultSet countRs = countStmt.executeQuery(COUNT_TRANSACTION_ROWS_QUERY)) {
+            return countRs.next() ? new int[] {countRs.getInt(1), countRs.getInt(2)} : new int[2];
+        }
+    }
+
+    /**
+     * Writes the report header and the data rows straight from a forward-only database cursor, so memory
+     * use does not grow with the number of rows. Shared by single report exports and the end-of-day bundle,
+     * which call it inside their read transaction.
+     *
+     * @param conn             The open database connection.
+     * @param writer           The CSV writer to write to.
+     * @param task             The export task to report progress to.
+     * @param transactionCount The number of transactions in the report, from {@link #countTransactionRows}.
+     * @throws IOException  If an error occurs during writing or the export is cancelled.
+     * @throws SQLException If an error occurs while reading from the database.
+     */
+    static void writeStreamingCSV(Connection conn, CsvWriter writer, ReportExportTask task, int transactionCount)
+            throws IOException, SQLException {
+        writeHeader(writer, transactionCount);
+
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_TRANSACTION_ROWS_QUERY,
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(FETCH_SIZE);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                // Reusable buffer for the YYYY-MM-DD date field
+                StringBuilder date = new StringBuilder(10);
+
+                // Write data rows, one per transaction item
+                while (rs.next()) {
+                    date.setLength(0);
+                    date.append(rs.getString(2)).append('-')
+                        .append(rs.getString(3)).append('-')
+                        .append(rs.getString(4));
+
+                    writer.field(rs.getInt(1))
+                          .field(date)
+                          .field(rs.getString(5))
+                          .field(rs.getDouble(6))
+                          .field(rs.getDouble(7))
+                          .field(rs.getDouble(8))
+                          .field(rs.getString(9))
+                          .field(rs.getString(10))
+                          .field(rs.getString(11))
+                          .field(rs.getString(12))
+                          .field(rs.getInt(13))
+                          .field(rs.getDouble(14))
+                          .field(rs.getDouble(15))
+                          .endRow();
+                    task.rowWritten();
                 }
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the report title, metadata and column headers.
+     *
+     * @param writer           The CSV writer of the report.
+     * @param transactionCount The number of transactions in the report.
+     * @throws IOException If an error occurs during writing.
+     */
+    private static void writeHeader(CsvWriter writer, int transactionCount) throws IOException {
+        writer.field("Transaction Report").endRow();
+        writer.field("Generated by PlaSystem").endRow();
+        writer.field("Total Different Transactions: " + transactionCount).endRow();
+        writer.endRow();
+        writer.row(COMBINED_HEADERS);
+    }
+}
@@ -8,7 +8,9 @@ import javax.swing.*;
 /**
  * Manages user account data in the PlaSystem database, providing functionality to add, load,
  * update, delete, and validate user accounts. Maintains an in-memory list of user accounts
- * synchronized with the database and tracks the logged-in user's username and role.
+ * synchronized with the database and tracks the logged-in user's username, role and permissions.
+ * Changes to user accounts require the {@link Permission#MANAGE_USER_ACCOUNTS} permission, and logins,
+ * logouts and changes are recorded in the audit log.
  */
 public class UserAccountDataManager {
     /** SQL query to select all user accounts from the UserAccount table. */
@@ -32,6 +34,12 @@ public class UserAccountDataManager {
     /** The role of the currently logged-in user, or null if no user is logged in. */
     private String loggedInRole;
 
+    /** The compiled permission mask of the logged-in user's role. */
+    private long loggedInPermissions = RoleBasedAccessControl.NO_PERMISSIONS;
+
+    /** The audit logger of the logged-in user. */
+    private AuditLogger auditLogger = AuditLogger.DISABLED;
+
     /**
      * Constructs a UserAccountDataManager, initializing an empty user accounts list and
      * setting logged-in user details to null.
@@ -60,6 +68,34 @@ public class UserAccountDataManager {
         return loggedInRole;
     }
 
+    /**
+     * Gets the compiled permission mask of the currently logged-in user.
+     *
+     * @return The permission mask, or {@link RoleBasedAccessControl#NO_PERMISSIONS} if no user is logged in.
+     */
+    public long getLoggedInPermissions() {
+        return loggedInPermissions;
+    }
+
+    /**
+     * Checks whether the currently logged-in user is granted a permission.
+     *
+     * @param permission The permission to check.
+     * @return {@code true} if the permission is granted, {@code false} otherwise.
+     */
+    public boolean hasPermission(Permission permission) {
+        return RoleBasedAccessControl.hasPermission(loggedInPermissions, permission);
+    }
+
+    /**
+     * Gets the audit logger recording the actions of the currently logged-in user.
+     *
+     * @return The audit logger, or {@link AuditLogger#DISABLED} if no user is logged in.
+     */
+    public AuditLogger getAuditLogger() {
+        return auditLogger;
+    }
+
     /**
      * Sets the details of the currently logged-in user.
      *
@@ -69,14 +105,19 @@ public class UserAccountDataManager {
     public void setLoggedInUser(String username, String role) {
         this.loggedInUsername = username;
         this.loggedInRole = role;
+        this.loggedInPermissions = RoleBasedAccessControl.permissionsOf(role);
+        this.auditLogger = username != null ? new AuditLogger(username) : AuditLogger.DISABLED;
     }
 
     /**
      * Clears the details of the currently logged-in user, setting both username and role to null.
      */
     public void clearLoggedInUser() {
+        auditLogger.record(AuditAction.LOGOUT, "Role " + loggedInRole);
+        this.auditLogger = AuditLogger.DISABLED;
         this.loggedInUsername = null;
         this.loggedInRole = null;
+        this.loggedInPermissions = RoleBasedAccessControl.NO_PERMISSIONS;
     }
 
     /**
@@ -121,6 +162,9 @@ public class UserAccountDataManager {
      * @return {@code true} if the user account was added successfully, {@code false} otherwise.
      */
     public boolean addUserAccount(String username, String password, String role) {
+        if (!RoleBasedAccessControl.checkPermission(loggedInPermissions, Permission.MANAGE_USER_ACCOUNTS)) {
+            return false;
+        }
         // Validate inputs
         if (username == null || username.trim().isEmpty()) {
             JOptionPane.showMessageDialog(null, 
@@ -169,6 +213,7 @@ public class UserAccountDataManager {
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
+                auditLogger.record(AuditAction.ADD_USER, username.trim() + " (" + role + ")");
                 loadUserAccounts(); // Refresh the userAccounts list
                 return true;
             }
@@ -218,6 +263,9 @@ public class UserAccountDataManager {
      * @return {@code true} if the user account was deleted successfully, {@code false} otherwise.
      */
     public boolean deleteUserAccount(String username) {
+        if (!RoleBasedAccessControl.checkPermission(loggedInPermissions, Permission.MANAGE_USER_ACCOUNTS)) {
+            return false;
+        }
         if (username == null || username.trim().isEmpty()) {
             JOptionPane.showMessageDialog(null, 
                 "Username cannot be empty.",
@@ -233,6 +281,7 @@ public class UserAccountDataManager {
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
+                auditLogger.record(AuditAction.DELETE_USER, username);
                 loadUserAccounts(); // Refresh the userAccounts list
                 return true;
             } else {
@@ -266,6 +315,9 @@ public class UserAccountDataManager {
      * @return {@code true} if the user account was updated successfully, {@code false} otherwise.
      */
     public boolean updateUserAccount(String originalUsername, String newUsername, String newPassword, String newRole) {
+        if (!RoleBasedAccessControl.checkPermission(loggedInPermissions, Permission.MANAGE_USER_ACCOUNTS)) {
+            return false;
+        }
         // Validate inputs
         if (originalUsername == null || originalUsername.trim().isEmpty()) {
             JOptionPane.showMessageDialog(null, 
@@ -322,6 +374,7 @@ public class UserAccountDataManager {
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
+                auditLogger.record(AuditAction.EDIT_USER, originalUsername + " -> " + newUsername.trim() + " (" + newRole + ")");
                 loadUserAccounts(); // Refresh the userAccounts list
                 return true;
             } else {
@@ -397,6 +450,7 @@ public class UserAccountDataManager {
                 if (rs.next()) {
                     // Store logged-in user details
                     setLoggedInUser(username, rs.getString("USER_ROLE"));
+                    auditLogger.record(AuditAction.LOGIN, "Role " + loggedInRole);
                     return true;
                 }
                 return false;
@@ -0,0 +1,219 @@
+package plasystem_gui;
+
+import plasystem_functions.AuditAction;
+import plasystem_functions.AuditEntry;
+import plasystem_functions.AuditLogger;
+import javax.swing.*;
+import javax.swing.table.*;
+import java.awt.*;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A window for querying the audit log: which user performed which action, and when. The entries can be
+ * filtered by user, action and period; each filter is answered from an index of the AuditLog table, and
+ * the newest entries are shown first. Queries run in the background so the window stays responsive.
+ */
+public class AuditLogGUI extends JFrame {
+    /** The maximum number of entries shown for one query. */
+    private static final int MAX_ENTRIES = 1000;
+
+    /** The number of days before today the period starts at by default. */
+    private static final int DEFAULT_PERIOD_DAYS = 30;
+
+    /** The format of the period fields. */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    /** The format of the time column. */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** The item of the user and action filters matching everything. */
+    private static final String ALL = "All";
+
+    /** The user filter. */
+    private final JComboBox<String> userBox = new JComboBox<>();
+
+    /** The action filter. */
+    private final JComboBox<Object> actionBox = new JComboBox<>();
+
+    /** The first day of the period, as yyyy-MM-dd, or empty for no lower bound. */
+    private final JTextField fromField = new JTextField(10);
+
+    /** The last day of the period, as yyyy-MM-dd, or empty for no upper bound. */
+    private final JTextField toField = new JTextField(10);
+
+    /** The button running the query. */
+    private final JButton searchBtn = new JButton("Search");
+
+    /** The label showing the number of entries found. */
+    private final JLabel statusLabel = new JLabel(" ");
+
+    /** The table model of the entries found. */
+    private final DefaultTableModel entryModel = new DefaultTableModel(
+        new Object[] {"Time", "User", "Action", "Details"}, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
+    /**
+     * Constructs the AuditLogGUI and shows the entries of the last 30 days.
+     */
+    public AuditLogGUI() {
+        setTitle("PlaSystem - Audit Log");
+        setSize(1000, 600);
+        setLocationRelativeTo(null);
+
+        // Filters
+        userBox.addItem(ALL);
+        actionBox.addItem(ALL);
+        for (AuditAction action : AuditAction.values()) {
+            actionBox.addItem(action);
+        }
+        LocalDate today = LocalDate.now();
+        fromField.setText(today.minusDays(DEFAULT_PERIOD_DAYS).format(DATE_FORMAT));
+        toField.setText(today.format(DATE_FORMAT));
+        searchBtn.setFont(new Font("Segoe UI Semibold", 0, 13));
+        searchBtn.addActionListener(e -> search());
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 8));
+        filterPanel.add(new JLabel("User:"));
+        filterPanel.add(userBox);
+        filterPanel.add(new JLabel("Action:"));
+        filterPanel.add(actionBox);
+        filterPanel.add(new JLabel("From:"));
+        filterPanel.add(fromField);
+        filterPanel.add(new JLabel("To:"));
+        filterPanel.add(toField);
+        filterPanel.add(searchBtn);
+
+        // Entries, newest first
+        JTable entryTable = new JTable(entryModel);
+        entryTable.getTableHeader().setReorderingAllowed(false);
+        entryTable.setRowHeight(24);
+        entryTable.getColumnModel().getColumn(0).setPreferredWidth(150);
+        entryTable.getColumnModel().getColumn(1).setPreferredWidth(110);
+        entryTable.getColumnModel().getColumn(2).setPreferredWidth(130);
+        entryTable.getColumnModel().getColumn(3).setPreferredWidth(610);
+
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(filterPanel, BorderLayout.NORTH);
+        getContentPane().add(new JScrollPane(entryTable), BorderLayout.CENTER);
+        getContentPane().add(statusLabel, BorderLayout.SOUTH);
+
+        loadUsers();
+        search();
+    }
+
+    /**
+     * Fills the user filter with the users found in the audit log, in the background.
+     */
+    private void loadUsers() {
+        new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() throws SQLException {
+                return AuditLogger.readUsers();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    for (String user : get()) {
+                        userBox.addItem(user);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // The query reports the database error; the filter keeps "All" only
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Validates the filters and reads the matching entries in the background.
+     */
+    private void search() {
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = parseDate(fromField.getText());
+            to = parseDate(toField.getText());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this,
+                "Please enter dates as YYYY-MM-DD, or leave them empty.",
+                "Input Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            JOptionPane.showMessageDialog(this,
+                "The start date must not be after the end date.",
+                "Input Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String user = ALL.equals(userBox.getSelectedItem()) ? null : (String) userBox.getSelectedItem();
+        AuditAction action = actionBox.getSelectedItem() instanceof AuditAction
+            ? (AuditAction) actionBox.getSelectedItem() : null;
+
+        searchBtn.setEnabled(false);
+        statusLabel.setText("Searching...");
+        new SwingWorker<List<AuditEntry>, Void>() {
+            @Override
+            protected List<AuditEntry> doInBackground() throws SQLException {
+                return AuditLogger.readEntries(user, action, from, to, MAX_ENTRIES);
+            }
+
+            @Override
+            protected void done() {
+                searchBtn.setEnabled(true);
+                try {
+                    showEntries(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    statusLabel.setText(" ");
+                    JOptionPane.showMessageDialog(AuditLogGUI.this,
+                        "Error reading the audit log: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()),
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Replaces the rows of the table with the entries found.
+     *
+     * @param entries The entries, newest first
+     */
+    private void showEntries(List<AuditEntry> entries) {
+        entryModel.setRowCount(0);
+        for (AuditEntry entry : entries) {
+            entryModel.addRow(new Object[] {
+                entry.getTime().format(TIME_FORMAT),
+                entry.getUsername(),
+                entry.getAction(),
+                entry.getDetails()
+            });
+        }
+        statusLabel.setText(entries.size() < MAX_ENTRIES
+            ? String.format("%,d entries", entries.size())
+            : String.format("Showing the newest %,d entries; narrow the filters to see older ones", MAX_ENTRIES));
+    }
+
+    /**
+     * Parses a period field.
+     *
+     * @param text The field text
+     * @return The date, or null if the field is empty
+     * @throws DateTimeParseException If the text is not a date in yyyy-MM-dd format
+     */
+    private static LocalDate parseDate(String text) {
+        return text.trim().isEmpty() ? null : LocalDate.parse(text.trim(), DATE_FORMAT);
+    }
+}
@@ -0,0 +1,164 @@
+package plasystem_gui;
+
+import plasystem_functions.InventoryValuation;
+import plasystem_functions.ProductDataManager;
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.*;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * A dashboard window showing the live stock value of the inventory in total and broken down by product
+ * type and brand. The tables follow the {@link InventoryValuation} maintained by the product data manager,
+ * so they update as soon as products are changed, restocked or sold.
+ */
+public class InventoryValuationGUI extends JFrame {
+    /** The column headers of the valuation tables after the group column. */
+    private static final String[] VALUE_COLUMNS = {"Products", "Units", "Stock Value"};
+
+    /** The valuation displayed by this window. */
+    private final InventoryValuation valuation;
+
+    /** The listener refreshing the window when the valuation changes. */
+    private final ChangeListener valuationListener = e -> refresh();
+
+    /** The label showing the total stock value and units. */
+    private final JLabel totalLabel = new JLabel();
+
+    /** The table model of the valuation by product type. */
+    private final DefaultTableModel typeModel = createModel("Type");
+
+    /** The table model of the valuation by product brand. */
+    private final DefaultTableModel brandModel = createModel("Brand");
+
+    /**
+     * Constructs the InventoryValuationGUI for the valuation of a product data manager.
+     *
+     * @param productDataModel The ProductDataManager maintaining the valuation
+     */
+    public InventoryValuationGUI(ProductDataManager productDataModel) {
+        this.valuation = productDataModel.getValuation();
+
+        setTitle("PlaSystem - Stock Valuation");
+        setSize(900, 560);
+        setLocationRelativeTo(null);
+
+        // Total stock value header
+        totalLabel.setFont(new Font("Segoe UI Semibold", 0, 18));
+        totalLabel.setBorder(BorderFactory.createEmptyBorder(12, 16, 12, 16));
+
+        // Tables by type and by brand, side by side
+        JPanel tablesPanel = new JPanel(new GridLayout(1, 2, 12, 0));
+        tablesPanel.setBorder(BorderFactory.createEmptyBorder(0, 16, 16, 16));
+        tablesPanel.add(createTablePane("By Type", typeModel));
+        tablesPanel.add(createTablePane("By Brand", brandModel));
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(totalLabel, BorderLayout.NORTH);
+        getContentPane().add(tablesPanel, BorderLayout.CENTER);
+
+        // Follow the live valuation
+        valuation.addChangeListener(valuationListener);
+        refresh();
+    }
+
+    /**
+     * Stops following the valuation and disposes of the window.
+     */
+    @Override
+    public void dispose() {
+        valuation.removeChangeListener(valuationListener);
+        super.dispose();
+    }
+
+    /**
+     * Refreshes the total and both tables from the valuation.
+     */
+    private void refresh() {
+        totalLabel.setText(String.format("Total Stock Value: ₱%,.2f   |   Units in Stock: %,d",
+            valuation.getTotalValueCents() / 100.0, valuation.getTotalUnits()));
+        fillModel(typeModel, valuation.getByType());
+        fillModel(brandModel, valuation.getByBrand());
+    }
+
+    /**
+     * Replaces the rows of a table model with valuation entries.
+     *
+     * @param model   The table model to fill
+     * @param entries The valuation entries, highest value first
+     */
+    private static void fillModel(DefaultTableModel model, List<InventoryValuation.Entry> entries) {
+        model.setRowCount(0);
+        for (InventoryValuation.Entry entry : entries) {
+            model.addRow(new Object[] {
+                entry.getName(),
+                entry.getProductCount(),
+                entry.getUnits(),
+                entry.getValue()
+            });
+        }
+    }
+
+    /**
+     * Creates a read-only table model for one grouping.
+     *
+     * @param groupName The header of the group column, such as "Type"
+     * @return The new table model
+     */
+    private static DefaultTableModel createModel(String groupName) {
+        Object[] columns = new Object[VALUE_COLUMNS.length + 1];
+        columns[0] = groupName;
+        System.arraycopy(VALUE_COLUMNS, 0, columns, 1, VALUE_COLUMNS.length);
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+
+            @Override
+            public Class<?> getColumnClass(int column) {
+                switch (column) {
+                    case 1:
+                        return Integer.class;
+                    case 2:
+                        return Long.class;
+                    case 3:
+                        return Double.class;
+                    default:
+                        return String.class;
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a titled, sortable table for a valuation table model.
+     *
+     * @param title The title of the table
+     * @param model The table model to display
+     * @return The scroll pane containing the table
+     */
+    private static JScrollPane createTablePane(String title, DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setRowHeight(24);
+
+        // Show stock values as currency
+        table.getColumnModel().getColumn(3).setCellRenderer(new DefaultTableCellRenderer() {
+            {
+                setHorizontalAlignment(SwingConstants.RIGHT);
+            }
+
+            @Override
+            protected void setValue(Object value) {
+                setText(value instanceof Double ? String.format("₱%,.2f", (Double) value) : "");
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createTitledBorder(title));
+        return scrollPane;
+    }
+}
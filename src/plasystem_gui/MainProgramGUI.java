@@ -4,6 +4,7 @@ import plasystem_functions.*;
 import java.util.function.Supplier;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.swing.*;
@@ -28,6 +29,12 @@ public class MainProgramGUI extends JFrame {
     /** The TransactionDataManager instance for managing transaction operations. */
     private final TransactionDataManager transactionDataModel = new TransactionDataManager(productDataModel);
     
+    /** The ReorderPointEngine caching reorder point recommendations between restock windows. */
+    private final ReorderPointEngine reorderPointEngine = new ReorderPointEngine();
+
+    /** The journal the checkout lanes write submitted sales to before they are committed. */
+    private final CheckoutJournal checkoutJournal = new CheckoutJournal(productDataModel, transactionDataModel);
+    
     /** The UserAccountDataManager instance for managing user account operations. */
     private UserAccountDataManager userAccountDataModel;
     
@@ -36,6 +43,9 @@ public class MainProgramGUI extends JFrame {
     
     /** The map tracking active GUI instances to ensure single-instance behavior. */
     private final Map<Class<? extends JFrame>, JFrame> activeGUIs = new HashMap<>();
+
+    /** The open checkout lane windows by lane ID. */
+    private final Map<Integer, TransactionGUI> checkoutLanes = new HashMap<>();
     
     /**
      * Default constructor that initializes the MainProgramGUI.
@@ -82,6 +92,12 @@ public class MainProgramGUI extends JFrame {
         
         // Apply role-based access control to enable/disable features
         enableRoleControl();
+        
+        // Add the tools panel with the stock value and the end-of-day export
+        initializeToolsPanel();
+
+        // Commit any sales left in the checkout journal by a previous run
+        checkoutJournal.replay();
     }
         
     /**
@@ -178,11 +194,99 @@ public class MainProgramGUI extends JFrame {
     }
     
     /**
-     * Applies role-based access control to enable or disable features based on the user's role.
+     * Applies role-based access control to enable or disable features based on the user's role, and
+     * hands the user's permissions to the data managers so they refuse changes the role does not allow.
      */
     private void enableRoleControl() {
-        // Apply permissions based on the logged-in user's role
-        RoleBasedAccessControl.applyRolePermissions(this, userAccountDataModel.getLoggedInRole());
+        long permissions = userAccountDataModel.getLoggedInPermissions();
+        productDataModel.setPermissions(permissions);
+        restockDataModel.setPermissions(permissions);
+        transactionDataModel.setPermissions(permissions);
+
+        // Record the changes made through the data managers in the audit log
+        AuditLogger auditLogger = userAccountDataModel.getAuditLogger();
+        productDataModel.setAuditLogger(auditLogger);
+        restockDataModel.setAuditLogger(auditLogger);
+        transactionDataModel.setAuditLogger(auditLogger);
+
+        // Bind each control to the permission it requires
+        Map<JComponent, Permission> bindings = new LinkedHashMap<>();
+        bindings.put(productTbl, Permission.VIEW_PRODUCTS);
+        bindings.put(addProductBtn, Permission.ADD_PRODUCT);
+        bindings.put(editProductBtn, Permission.EDIT_PRODUCT);
+        bindings.put(deleteProductBtn, Permission.DELETE_PRODUCT);
+        bindings.put(transactionBtn, Permission.PROCESS_TRANSACTION);
+        bindings.put(restockProductBtn, Permission.RESTOCK_PRODUCT);
+        bindings.put(lowStockBtn, Permission.VIEW_LOW_STOCK);
+        bindings.put(userAccountsBtn, Permission.MANAGE_USER_ACCOUNTS);
+        bindings.put(exportInventoryBtn, Permission.EXPORT_INVENTORY);
+        bindings.put(transactHistoryBtn, Permission.TRANSACTION_HISTORY);
+        bindings.put(restockHistoryBtn, Permission.RESTOCK_HISTORY);
+        RoleBasedAccessControl.applyRolePermissions(permissions, bindings);
+    }
+
+    /**
+     * Adds a tools panel above the product table holding the live stock value, the stock valuation
+     * dashboard, the catalogue import, the audit log and the end-of-day export button. The stock value is
+     * only shown to roles allowed to export the inventory report, the catalogue import is only enabled for
+     * roles allowed to add and edit products, the audit log is only shown to roles allowed to view it, and
+     * the end-of-day export is only enabled for roles allowed to export all of the reports contained in
+     * the bundle.
+     */
+    private void initializeToolsPanel() {
+        JPanel toolsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        toolsPanel.setOpaque(false);
+        
+        if (userAccountDataModel.hasPermission(Permission.EXPORT_INVENTORY)) {
+            // Live total stock value, updated with every product change
+            InventoryValuation valuation = productDataModel.getValuation();
+            JLabel stockValueLabel = new JLabel();
+            stockValueLabel.setFont(new Font("Segoe UI Semibold", 0, 13));
+            Runnable updateStockValue = () -> stockValueLabel.setText(
+                String.format("Stock Value: ₱%,.2f", valuation.getTotalValueCents() / 100.0));
+            valuation.addChangeListener(e -> updateStockValue.run());
+            updateStockValue.run();
+            toolsPanel.add(stockValueLabel);
+            
+            JButton stockValueBtn = new JButton("STOCK VALUE");
+            stockValueBtn.setFont(new Font("Segoe UI Semibold", 0, 13));
+            stockValueBtn.setToolTipText("Show the stock value by product type and brand");
+            stockValueBtn.addActionListener(e ->
+                launchSingleInstance(InventoryValuationGUI.class, () -> new InventoryValuationGUI(productDataModel)));
+            toolsPanel.add(stockValueBtn);
+        }
+        
+        JButton importCatalogueBtn = new JButton("IMPORT CATALOGUE");
+        importCatalogueBtn.setFont(new Font("Segoe UI Semibold", 0, 13));
+        importCatalogueBtn.setToolTipText("Add and update products from a supplier catalogue CSV file");
+        importCatalogueBtn.setEnabled(userAccountDataModel.hasPermission(Permission.ADD_PRODUCT)
+            && userAccountDataModel.hasPermission(Permission.EDIT_PRODUCT));
+        importCatalogueBtn.addActionListener(e -> {
+            if (new CatalogueImporter(productDataModel).importCatalogue(this)) {
+                updateProductTable();
+            }
+        });
+        toolsPanel.add(importCatalogueBtn);
+        
+        if (userAccountDataModel.hasPermission(Permission.VIEW_AUDIT_LOG)) {
+            JButton auditLogBtn = new JButton("AUDIT LOG");
+            auditLogBtn.setFont(new Font("Segoe UI Semibold", 0, 13));
+            auditLogBtn.setToolTipText("Show which user performed which action, and when");
+            auditLogBtn.addActionListener(e -> launchSingleInstance(AuditLogGUI.class, AuditLogGUI::new));
+            toolsPanel.add(auditLogBtn);
+        }
+        
+        JButton endOfDayBtn = new JButton("END OF DAY");
+        endOfDayBtn.setFont(new Font("Segoe UI Semibold", 0, 13));
+        endOfDayBtn.setToolTipText("Export the inventory, transaction and restock reports as one bundle");
+        endOfDayBtn.setEnabled(userAccountDataModel.hasPermission(Permission.EXPORT_INVENTORY)
+            && userAccountDataModel.hasPermission(Permission.TRANSACTION_HISTORY)
+            && userAccountDataModel.hasPermission(Permission.RESTOCK_HISTORY));
+        endOfDayBtn.addActionListener(e -> new EndOfDayExporter().generateBundle(this));
+        toolsPanel.add(endOfDayBtn);
+        
+        // Insert in front of the background label so the panel is painted on top
+        mainInfoPanel.add(toolsPanel, new org.netbeans.lib.awtextra.AbsoluteConstraints(260, 10, 780, 30), 0);
     }
 
     /**
@@ -488,24 +592,61 @@ public class MainProgramGUI extends JFrame {
     
     /**
      * Handles the action when the "Transact" button is clicked.
-     * Opens a single instance of the TransactionGUI for processing transactions.
+     * Opens a TransactionGUI for the next free checkout lane.
      *
      * @param evt The ActionEvent triggered by clicking the "Transact" button
      */
     private void transactionBtnActionPerformed(ActionEvent evt) {//GEN-FIRST:event_transactionBtnActionPerformed
-        // Launch or focus a single instance of TransactionGUI
-        launchSingleInstance(TransactionGUI.class, () -> {
-            // Create a new TransactionGUI instance
-            TransactionGUI transGUI = new TransactionGUI(this, productDataModel, transactionDataModel);
-            // Pack the GUI to fit its contents
-            transGUI.pack();
-            // Center the GUI on the screen
-            transGUI.setLocationRelativeTo(null);
-            // Set the default close operation to dispose
-            transGUI.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-            return transGUI;
-        });
+        openCheckoutLane();
     }//GEN-LAST:event_transactionBtnActionPerformed
+
+    /**
+     * Opens a TransactionGUI for the lowest free checkout lane number. All lanes share the product
+     * cache, stock reservations, checkout journal and transaction data manager, and each has its own cart. If the
+     * configured number of lanes is already open, the first lane is focused instead.
+     */
+    private void openCheckoutLane() {
+        // Find the lowest free lane number
+        int maxLanes = Math.max(1, AppSettings.getInt(AppSettings.CHECKOUT_MAX_LANES, 4));
+        int laneId = 1;
+        while (laneId <= maxLanes && checkoutLanes.containsKey(laneId)) {
+            laneId++;
+        }
+        if (laneId > maxLanes) {
+            TransactionGUI firstLane = checkoutLanes.get(1);
+            JOptionPane.showMessageDialog(
+                firstLane,
+                "All " + maxLanes + " checkout lanes are already open.",
+                "Instance Warning",
+                JOptionPane.WARNING_MESSAGE
+            );
+            firstLane.requestFocus();
+            firstLane.setVisible(true);
+            return;
+        }
+
+        // Create the lane window
+        CheckoutLane lane = new CheckoutLane(laneId, productDataModel);
+        TransactionGUI transGUI = new TransactionGUI(this, productDataModel, transactionDataModel, lane, checkoutJournal);
+        // Pack the GUI to fit its contents
+        transGUI.pack();
+        // Center the GUI on the screen, offsetting each lane so they do not cover each other
+        transGUI.setLocationRelativeTo(null);
+        transGUI.setLocation(transGUI.getX() + 30 * (laneId - 1), transGUI.getY() + 30 * (laneId - 1));
+        // Set the default close operation to dispose
+        transGUI.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        transGUI.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                // Free the lane number and stop tracking the window
+                checkoutLanes.remove(lane.getLaneId());
+                removeChildGUI(transGUI);
+            }
+        });
+        checkoutLanes.put(laneId, transGUI);
+        addChildGUI(transGUI);
+        transGUI.setVisible(true);
+    }
     
     /**
      * Handles the action when the "Add Product" button is clicked.
@@ -635,7 +776,7 @@ public class MainProgramGUI extends JFrame {
         // Launch or focus a single instance of RestockProductGUI
         launchSingleInstance(RestockProductGUI.class, () -> {
             // Create a new RestockProductGUI instance
-            RestockProductGUI restockGUI = new RestockProductGUI(this, productDataModel, restockDataModel);
+            RestockProductGUI restockGUI = new RestockProductGUI(this, productDataModel, restockDataModel, reorderPointEngine);
             // Pack the GUI to fit its contents
             restockGUI.pack();
             // Center the GUI on the screen
@@ -695,6 +836,9 @@ public class MainProgramGUI extends JFrame {
      * @param evt The ActionEvent triggered by clicking the "Logout" button
      */
     private void logoutBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_logoutBtnActionPerformed
+        // Record the logout and end the session of the user
+        userAccountDataModel.clearLoggedInUser();
+
         // Create and display a new LaunchPanelGUI
         JFrame launchPanel = new LaunchPanelGUI();
         launchPanel.setVisible(true);
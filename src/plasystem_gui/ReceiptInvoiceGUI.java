@@ -1,5 +1,6 @@
 package plasystem_gui;
 
+import plasystem_functions.ReceiptData;
 import javax.swing.*;
 
 /**
@@ -17,6 +18,31 @@ public class ReceiptInvoiceGUI extends JFrame {
         initComponents();
     }
 
+    /**
+     * Constructs a ReceiptInvoiceGUI displaying a receipt.
+     *
+     * @param receipt The receipt to display
+     */
+    public ReceiptInvoiceGUI(ReceiptData receipt) {
+        this();
+        // Build the item lines
+        StringBuilder content = new StringBuilder();
+        for (ReceiptData.Line line : receipt.getLines()) {
+            // Truncate and format the item name
+            String itemName = line.getProductName().trim().replace(" ", "");
+            itemName = itemName.length() > 14 ? itemName.substring(0, 14) : itemName;
+            // Format the item details
+            content.append(String.format("%-35s\t     %-10s\t                  %-10s\n",
+                itemName, line.getQuantity(), String.format("₱%.2f", line.getTotalPrice())));
+        }
+        setReceiptList(content.toString());
+        setCashAmount(receipt.getCashAmount());
+        setTotalAmount(receipt.getTotalAmount());
+        setChangeAmount(receipt.getChangeAmount());
+        setDateOfTransaction(receipt.getTransactionDate());
+        setReceiptID(receipt.getReceiptNumber());
+    }
+
     /**
      * Sets the receipt list text in the GUI.
      *
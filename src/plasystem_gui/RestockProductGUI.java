@@ -5,6 +5,8 @@ import plasystem_functions.*;
 import javax.swing.*;
 import javax.swing.table.*;
 import java.util.*;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A graphical user interface (GUI) window for restocking products.
@@ -21,6 +23,20 @@ public class RestockProductGUI extends JFrame {
     private ErrorValueHandling dataValidator;
     /** The TableRowSorter for sorting and filtering the restock product table. */
     private TableRowSorter<DefaultTableModel> tableSorter;
+    /** The ReorderPointEngine recommending reorder points from sales velocity. */
+    private ReorderPointEngine reorderPointEngine;
+    /** The worker computing the recommendations shown in the table, or null once they are shown. */
+    private SwingWorker<Map<Integer, ReorderRecommendation>, Void> recommendationWorker;
+    /** The model index of the "Suggested Point" column appended after the form's columns. */
+    private static final int SUGGESTED_POINT_COLUMN = 6;
+    /** The model index of the "Daily Sales" column appended after the form's columns. */
+    private static final int DAILY_SALES_COLUMN = 7;
+    /** The tooltip of the "Suggested Point" column, stating how the lead time is estimated. */
+    private static final String SUGGESTED_POINT_TOOLTIP = "<html>Expected sales during the restock lead time plus a safety stock.<br>"
+        + "The lead time is approximated by the median interval between the product's past restocks,<br>"
+        + "or 7 days if it was restocked fewer than two times.</html>";
+    /** The toggle listing the products at or below their suggested point in addition to their restock value. */
+    private final JCheckBox suggestedPointBox = new JCheckBox("Include products at or below their suggested point");
     
     /**
      * Default constructor that initializes the RestockProductGUI.
@@ -40,14 +56,18 @@ public class RestockProductGUI extends JFrame {
      * @param mainGUI The parent MainProgramGUI to update its table
      * @param productDataManager The ProductDataManager for product data operations
      * @param restockDataManager The RestockDataManager for restock data operations
+     * @param reorderPointEngine The ReorderPointEngine recommending reorder points
      */
-    public RestockProductGUI(MainProgramGUI mainGUI, ProductDataManager productDataManager, RestockDataManager restockDataManager) {
+    public RestockProductGUI(MainProgramGUI mainGUI, ProductDataManager productDataManager, RestockDataManager restockDataManager,
+                             ReorderPointEngine reorderPointEngine) {
         // Assign the parent GUI for table updates
         this.parentGUI = mainGUI;
         // Assign the product data manager
         this.productDataModel = productDataManager;
         // Assign the restock data manager
         this.restockDataModel = restockDataManager;
+        // Assign the reorder point engine
+        this.reorderPointEngine = reorderPointEngine;
         // Initialize the data validator
         this.dataValidator = new ErrorValueHandling();
         // Initialize the GUI components defined in the form
@@ -56,12 +76,52 @@ public class RestockProductGUI extends JFrame {
         setLocationRelativeTo(null);
         // Set up the table with product data
         initializeTable();
+        // Add the delivery import below the form
+        initializeDeliveryImportButton();
+    }
+
+    /**
+     * Adds the suggested point filter and a button that restocks a supplier delivery from a CSV file
+     * below the form.
+     */
+    private void initializeDeliveryImportButton() {
+        suggestedPointBox.setFont(new java.awt.Font("Segoe UI", 0, 12));
+        suggestedPointBox.addActionListener(e -> refreshTable());
+
+
+        JButton importBtn = new JButton("Import Delivery");
+        importBtn.setFont(new java.awt.Font("Segoe UI Semibold", 0, 13));
+        importBtn.addActionListener(e -> {
+            // Allow one import at a time; the file is read and written in the background
+            importBtn.setEnabled(false);
+            new DeliveryImporter(productDataModel, restockDataModel).importDelivery(this, restocked -> {
+                importBtn.setEnabled(true);
+                if (restocked > 0) {
+                    refreshTable();
+                    parentGUI.updateProductTable();
+                }
+            });
+        });
+
+        JPanel buttonPanel = new JPanel(new java.awt.FlowLayout(java.awt.FlowLayout.RIGHT));
+        buttonPanel.add(suggestedPointBox);
+        buttonPanel.add(importBtn);
+
+        // Wrap the form's content pane so the generated layout stays untouched
+        JPanel contentPanel = new JPanel(new java.awt.BorderLayout());
+        contentPanel.add(getContentPane(), java.awt.BorderLayout.CENTER);
+        contentPanel.add(buttonPanel, java.awt.BorderLayout.SOUTH);
+        setContentPane(contentPanel);
+        pack();
+        setLocationRelativeTo(null);
     }
     
     /**
      * Initializes the restock product table and its sorter.
      */
     private void initializeTable() {
+        // Add the recommendation columns next to the current thresholds
+        installRecommendationModel();
         // Populate the table with products needing restock
         populateTable();
         // Apply custom renderer for column alignment
@@ -73,7 +133,63 @@ public class RestockProductGUI extends JFrame {
     }
     
     /**
-     * Populates the table with products where quantity is less than or equal to the restock value.
+     * Replaces the form's table model with one that appends the suggested reorder point and daily sales
+     * columns after the existing ones, so the model indices used by restocking stay unchanged, and moves
+     * them next to the "Restock Value" column in the view.
+     */
+    private void installRecommendationModel() {
+        restockProductTbl.setModel(new DefaultTableModel(
+            new Object[] {"Select", "ID", "Name", "Current Quantity", "Restock Value", "Incoming Qty",
+                          "Suggested Point", "Daily Sales"}, 0) {
+            final Class<?>[] types = {
+                Boolean.class, Integer.class, String.class, Integer.class, Integer.class, Integer.class,
+                Integer.class, Double.class
+            };
+
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                return types[columnIndex];
+            }
+
+            @Override
+            public boolean isCellEditable(int rowIndex, int columnIndex) {
+                // Only the selection and incoming quantity are editable
+                return columnIndex == 0 || columnIndex == 5;
+            }
+        });
+        // Show the recommendation after the current threshold, before the incoming quantity
+        TableColumnModel columnModel = restockProductTbl.getColumnModel();
+        columnModel.moveColumn(SUGGESTED_POINT_COLUMN, 5);
+        columnModel.moveColumn(DAILY_SALES_COLUMN, 6);
+        // Explain the suggested point and its lead time approximation on the column header
+        JTableHeader header = restockProductTbl.getTableHeader();
+        header.addMouseMotionListener(new java.awt.event.MouseMotionAdapter() {
+            @Override
+            public void mouseMoved(java.awt.event.MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                boolean suggestedPoint = viewColumn >= 0
+                    && restockProductTbl.convertColumnIndexToModel(viewColumn) == SUGGESTED_POINT_COLUMN;
+                header.setToolTipText(suggestedPoint ? SUGGESTED_POINT_TOOLTIP : null);
+            }
+        });
+        // Show daily sales with two decimals
+        columnModel.getColumn(6).setCellRenderer(new DefaultTableCellRenderer() {
+            {
+                setHorizontalAlignment(SwingConstants.RIGHT);
+            }
+
+            @Override
+            protected void setValue(Object value) {
+                setText(value instanceof Double ? String.format("%.2f", (Double) value) : "");
+            }
+        });
+    }
+
+    /**
+     * Populates the table with products where quantity is less than or equal to the restock value, and
+     * also to the reorder point recommended from recent sales if that filter is selected. The products at
+     * or below their restock value are shown at once; the recommendations are computed in the background
+     * and then fill the recommendation columns.
      */
     private void populateTable() {
         // Get the table model
@@ -84,19 +200,100 @@ public class RestockProductGUI extends JFrame {
         List<ProductData> productList = productDataModel.getList();
         // Iterate through the product list
         for (ProductData product : productList) {
-            // Check if the product needs restocking
+            // Check if the product needs restocking by its threshold
             if (product.getProductQuantity() <= product.getProductRestockValue()) {
-                // Add the product to the table
-                restockProductTblModel.addRow(new Object[]{
-                    false, // Select checkbox
-                    product.getProductId(),
-                    product.getProductName(),
-                    product.getProductQuantity(),
-                    product.getProductRestockValue(),
-                    0 // Incoming quantity
-                });
+                addRow(product, null);
             }
         }
+        loadRecommendations(new ArrayList<>(productList));
+    }
+
+    /**
+     * Computes the reorder point recommendations in the background, recomputed only if sales or restocks
+     * were recorded since the last call, and shows them in the table once they are ready. The results of
+     * an earlier load still running are discarded when the table is repopulated.
+     *
+     * @param products A copy of the product list to compute the recommendations for
+     */
+    private void loadRecommendations(List<ProductData> products) {
+        SwingWorker<Map<Integer, ReorderRecommendation>, Void> worker =
+                new SwingWorker<Map<Integer, ReorderRecommendation>, Void>() {
+            @Override
+            protected Map<Integer, ReorderRecommendation> doInBackground() throws SQLException {
+                return reorderPointEngine.getRecommendations(products);
+            }
+
+            @Override
+            protected void done() {
+                if (recommendationWorker != this) {
+                    return; // The table has been repopulated since
+                }
+                recommendationWorker = null;
+                try {
+                    showRecommendations(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(RestockProductGUI.this,
+                        "Error computing reorder points: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()),
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        recommendationWorker = worker;
+        worker.execute();
+    }
+
+    /**
+     * Fills the recommendation columns of the listed products and, if the suggested point filter is
+     * selected, adds the products whose quantity is at or below their suggested point but above their
+     * restock value.
+     *
+     * @param recommendations The recommendations by product ID
+     */
+    private void showRecommendations(Map<Integer, ReorderRecommendation> recommendations) {
+        DefaultTableModel restockProductTblModel = (DefaultTableModel) restockProductTbl.getModel();
+        // Fill the columns of the products already listed by their threshold
+        Set<Integer> listed = new HashSet<>();
+        for (int row = 0; row < restockProductTblModel.getRowCount(); row++) {
+            int productId = (Integer) restockProductTblModel.getValueAt(row, 1);
+            listed.add(productId);
+            ReorderRecommendation recommendation = recommendations.get(productId);
+            restockProductTblModel.setValueAt(recommendation != null ? recommendation.getReorderPoint() : 0,
+                row, SUGGESTED_POINT_COLUMN);
+            restockProductTblModel.setValueAt(recommendation != null ? recommendation.getDailyVelocity() : 0.0,
+                row, DAILY_SALES_COLUMN);
+        }
+        // Add the products that need restocking by their recommended reorder point only, if selected
+        if (suggestedPointBox.isSelected()) {
+            for (ProductData product : productDataModel.getList()) {
+                ReorderRecommendation recommendation = recommendations.get(product.getProductId());
+                if (recommendation != null && !listed.contains(product.getProductId())
+                        && recommendation.getReorderPoint() > 0
+                        && product.getProductQuantity() <= recommendation.getReorderPoint()) {
+                    addRow(product, recommendation);
+                }
+            }
+        }
+        applyTableRenderer();
+    }
+
+    /**
+     * Adds a product to the table, with empty recommendation columns if the recommendation is not known yet.
+     *
+     * @param product        The product needing restock
+     * @param recommendation The product's recommendation, or null if it is still being computed
+     */
+    private void addRow(ProductData product, ReorderRecommendation recommendation) {
+        ((DefaultTableModel) restockProductTbl.getModel()).addRow(new Object[]{
+            false, // Select checkbox
+            product.getProductId(),
+            product.getProductName(),
+            product.getProductQuantity(),
+            product.getProductRestockValue(),
+            0, // Incoming quantity
+            recommendation != null ? recommendation.getReorderPoint() : null,
+            recommendation != null ? recommendation.getDailyVelocity() : null
+        });
     }
     
     /**
@@ -127,8 +324,8 @@ public class RestockProductGUI extends JFrame {
     private void restockItems() {
         // Get the table model
         DefaultTableModel restockProductTblModel = (DefaultTableModel) restockProductTbl.getModel();
-        // List to store items to restock
-        List<Map<String, Object>> items = new ArrayList<>();
+        // List to store the lines to restock
+        List<RestockLine> items = new ArrayList<>();
         
         // Validate all selected items
         for (int i = 0; i < restockProductTblModel.getRowCount(); i++) {
@@ -180,12 +377,8 @@ public class RestockProductGUI extends JFrame {
                         JOptionPane.ERROR_MESSAGE);
                     return;
                 }
-                // Create a map for the item
-                Map<String, Object> item = new HashMap<>();
-                item.put("product", product);
-                item.put("quantity", incomingQty);
-                // Add the item to the list
-                items.add(item);
+                // Add the line to the list
+                items.add(new RestockLine(product, incomingQty));
             }
         }
 
@@ -202,7 +395,7 @@ public class RestockProductGUI extends JFrame {
         // Process restocking
         try {
             // Attempt to restock multiple products
-            boolean restockSuccess = restockDataModel.restockMultipleProducts(items);
+            boolean restockSuccess = restockDataModel.restockProducts(items);
             if (restockSuccess) {
                 // Refresh the table
                 refreshTable();
@@ -3,6 +3,7 @@ package plasystem_gui;
 import plasystem_functions.*;
 import javax.swing.*;
 import javax.swing.table.*;
+import java.awt.*;
 import java.text.DecimalFormat;
 
 /**
@@ -41,6 +42,69 @@ public class THDetailsGUI extends JFrame {
         new PriceTableRenderer(thDetailstbl);
         // Populate the table with transaction items
         updateTable();
+        // Add the reprint button below the table
+        initializeReprintButton();
+    }
+
+    /**
+     * Adds a button below the table that reprints the receipt of the transaction.
+     */
+    private void initializeReprintButton() {
+        JButton reprintBtn = new JButton("REPRINT RECEIPT");
+        reprintBtn.setFont(new Font("Segoe UI Semibold", 0, 13));
+        reprintBtn.addActionListener(e -> reprintReceipt(reprintBtn));
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(reprintBtn);
+
+        // Wrap the form's content pane so the generated layout stays untouched
+        JPanel contentPanel = new JPanel(new BorderLayout());
+        contentPanel.add(getContentPane(), BorderLayout.CENTER);
+        contentPanel.add(buttonPanel, BorderLayout.SOUTH);
+        setContentPane(contentPanel);
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * Reprints the receipt of the transaction. The archived receipt image is looked up by transaction ID
+     * on a background thread and displayed; the receipt is also sent to the thermal printer if one is
+     * configured.
+     *
+     * @param reprintBtn The button, disabled while the receipt is loaded
+     */
+    private void reprintReceipt(JButton reprintBtn) {
+        ReceiptData receipt = ReceiptData.fromTransaction(transaction, transaction.getTransactionItems());
+        reprintBtn.setEnabled(false);
+        ReceiptRenderer.reprintAsync(receipt).whenComplete((image, error) -> SwingUtilities.invokeLater(() -> {
+            reprintBtn.setEnabled(true);
+            if (error != null) {
+                JOptionPane.showMessageDialog(this,
+                    "Error loading receipt " + receipt.getReceiptNumber() + ": " + error.getMessage(),
+                    "Receipt Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            // Display the receipt image
+            JFrame receiptFrame = new JFrame("PlaSystem - Receipt " + receipt.getReceiptNumber());
+            receiptFrame.getContentPane().add(new JScrollPane(new JLabel(new ImageIcon(image))));
+            receiptFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            receiptFrame.pack();
+            receiptFrame.setLocationRelativeTo(this);
+            receiptFrame.setVisible(true);
+        }));
+
+        // Send the receipt to the thermal printer if one is configured
+        if (EscPosReceiptPrinter.isConfigured()) {
+            EscPosReceiptPrinter.printAsync(receipt).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                        "Error printing receipt " + receipt.getReceiptNumber() + ": " + error.getMessage(),
+                        "Receipt Error",
+                        JOptionPane.ERROR_MESSAGE));
+                }
+            });
+        }
     }
     
     /**
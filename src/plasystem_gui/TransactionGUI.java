@@ -1,8 +1,10 @@
 package plasystem_gui;
 
 import plasystem_functions.*;
-import java.util.LinkedList;
 import java.util.List;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -28,14 +30,26 @@ public class TransactionGUI extends JFrame {
     private ErrorValueHandling dataValidator;
     /** The parent MainProgramGUI instance for updating the product table after transactions. */
     private MainProgramGUI parentGUI;
-    /** The list of TransactionItemData objects representing items in the current transaction. */
-    private List<TransactionItemData> transactionItems;
+    /** The checkout lane served by this window. */
+    private CheckoutLane lane;
+    /** The journal submitted sales are written to before they are committed. */
+    private CheckoutJournal checkoutJournal;
+    /** The pending commit of the submitted transaction, or null if none was submitted. */
+    private CompletableFuture<CommittedTransaction> pendingTransaction;
+    /** The cart holding the items of the current transaction, indexed by product ID. */
+    private ShoppingCart cart;
     /** The total purchase amount for the current transaction. */
     private double totalPurchase;
     /** The Timer for periodically refreshing the product selection table. */
     private Timer refreshTimer;
     /** Flag indicating whether the transaction has been submitted. */
     private boolean isTransactionSubmitted;
+    /** The snapshot of the submitted transaction, used to print its receipt, or null until it is committed. */
+    private CommittedTransaction committedTransaction;
+    /** The detector recognizing barcode scanner input while scan mode is on. */
+    private BarcodeScanDetector scanDetector;
+    /** The toggle button switching scan mode on and off. */
+    private JToggleButton scanModeToggle;
     
     /**
      * Default constructor that initializes the TransactionGUI.
@@ -55,8 +69,11 @@ public class TransactionGUI extends JFrame {
      * @param parentGUI The parent MainProgramGUI to update its table
      * @param productDataManager The ProductDataManager for product data operations
      * @param transactionDataManager The TransactionDataManager for transaction data operations
+     * @param lane The checkout lane served by the window, providing its cart
+     * @param checkoutJournal The CheckoutJournal submitted sales are written to
      */
-    public TransactionGUI(MainProgramGUI parentGUI, ProductDataManager productDataManager, TransactionDataManager transactionDataManager){
+    public TransactionGUI(MainProgramGUI parentGUI, ProductDataManager productDataManager, TransactionDataManager transactionDataManager,
+                          CheckoutLane lane, CheckoutJournal checkoutJournal){
         // Assign the parent GUI for table updates
         this.parentGUI = parentGUI;
         // Assign the product data manager
@@ -65,10 +82,15 @@ public class TransactionGUI extends JFrame {
         this.transactionDataModel = transactionDataManager;
         // Initialize the data validator
         this.dataValidator = new ErrorValueHandling();
-        // Initialize the transaction items list
-        this.transactionItems = new LinkedList<>();
+        // Assign the checkout lane and its cart, which reserves its stock against the other lanes
+        this.lane = lane;
+        this.cart = lane.getCart();
+        // Assign the checkout journal
+        this.checkoutJournal = checkoutJournal;
         // Initialize the GUI components defined in the form
         initComponents();
+        // Show the lane in the window title
+        setTitle("Transaction - " + lane.getName());
         // Center the window on the screen
         setLocationRelativeTo(null);
         // Set up the GUI state
@@ -101,10 +123,10 @@ public class TransactionGUI extends JFrame {
         cartTbl.setEnabled(false);
         // Disable the print receipt button initially
         printReceiptBtn.setEnabled(false);
-        // Clear the transaction items list
-        transactionItems.clear();
-        // Clear the cart table
-        ((DefaultTableModel) cartTbl.getModel()).setRowCount(0);
+        // Show the cart in the cart table, which repaints only the lines that change
+        cartTbl.setModel(new CartTableModel(cart));
+        // Clear the cart
+        cart.clear();
         // Reset the total purchase amount
         totalPurchase = 0.0;
         // Clear the total amount field
@@ -158,6 +180,113 @@ public class TransactionGUI extends JFrame {
 
         // Populate the product selection table
         populateProductSelectionTable();
+        // Set up barcode scanning
+        initializeScanMode();
+    }
+    
+    /**
+     * Sets up the scan mode toggle in the title bar and the barcode scan detector.
+     * While scan mode is on, each scanned code is resolved and added to the cart immediately.
+     */
+    private void initializeScanMode() {
+        // Place the toggle on the right side of the title bar
+        scanModeToggle = new JToggleButton("SCAN MODE");
+        scanModeToggle.setFont(new Font("Segoe UI Semibold", 0, 13));
+        scanModeToggle.setFocusable(false);
+        titleLabel.setLayout(new FlowLayout(FlowLayout.RIGHT, 15, 12));
+        titleLabel.add(scanModeToggle);
+
+        // Create and register the detector, disabled until scan mode is turned on
+        scanDetector = new BarcodeScanDetector(this, this::addScannedProduct);
+        scanDetector.install();
+        scanModeToggle.addItemListener(e -> {
+            boolean scanMode = scanModeToggle.isSelected();
+            scanDetector.setEnabled(scanMode);
+            if (scanMode) {
+                prodIDTxtField.requestFocusInWindow();
+            }
+        });
+    }
+    
+    /**
+     * Resolves a scanned barcode to a product and adds one unit of it to the cart.
+     * Codes are looked up by SKU first and then, for numeric codes, by product ID so that
+     * printed product ID labels can be scanned as well. Unknown codes can be assigned to the
+     * product whose ID is entered in the product ID field.
+     *
+     * @param code The scanned barcode.
+     */
+    private void addScannedProduct(String code) {
+        if (isTransactionSubmitted) {
+            Toolkit.getDefaultToolkit().beep();
+            JOptionPane.showMessageDialog(null, "Transaction already submitted. Clear to start a new one.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // Resolve the code through the product indexes
+        ProductData product = productDataModel.findBySku(code);
+        if (product == null && dataValidator.isInteger(code.trim())) {
+            product = productDataModel.findById(Integer.parseInt(code.trim()));
+        }
+
+        if (product == null) {
+            Toolkit.getDefaultToolkit().beep();
+            offerSkuAssignment(code.trim());
+            return;
+        }
+        addToCart(product, 1);
+    }
+    
+    /**
+     * Offers to assign an unknown barcode to the product whose ID is entered in the product ID field.
+     * The field is used rather than the table selection because the periodic table refresh clears the
+     * selection and may reorder the rows.
+     *
+     * @param code The scanned barcode that did not match any product.
+     */
+    private void offerSkuAssignment(String code) {
+        String prodIDText = prodIDTxtField.getText().trim();
+        ProductData selectedProduct = dataValidator.isInteger(prodIDText)
+            ? productDataModel.findById(Integer.parseInt(prodIDText)) : null;
+        if (selectedProduct == null) {
+            JOptionPane.showMessageDialog(null,
+                "Barcode " + code + " is not assigned to any product.\nEnter or select a product ID and scan again to assign it.",
+                "Unknown Barcode", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        int confirmAssign = JOptionPane.showConfirmDialog(null,
+            "Barcode " + code + " is not assigned to any product.\nAssign it to " + selectedProduct.getProductName()
+                + " (ID " + selectedProduct.getProductId() + ")?",
+            "Unknown Barcode", JOptionPane.YES_NO_OPTION);
+        if (confirmAssign == JOptionPane.YES_OPTION && productDataModel.assignSku(selectedProduct.getProductId(), code)) {
+            addToCart(productDataModel.findById(selectedProduct.getProductId()), 1);
+        }
+    }
+    
+    /**
+     * Adds a quantity of a product to the cart. If the product is already in the cart, its line
+     * quantity is increased instead of adding a new line. The quantity is reserved from the stock
+     * not reserved by other checkout lanes.
+     *
+     * @param product  The product to add.
+     * @param quantity The quantity to add. Must be positive.
+     * @return {@code true} if the cart was updated, {@code false} if there is not enough stock.
+     */
+    private boolean addToCart(ProductData product, int quantity) {
+        // Add to the cart, which merges the line and reserves the quantity
+        if (!cart.add(product, quantity)) {
+            Toolkit.getDefaultToolkit().beep();
+            JOptionPane.showMessageDialog(null,
+                String.format("Requested quantity (%d) exceeds available stock (%d)!",
+                    quantity, cart.getAvailable(product)),
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+
+        // Update the total purchase amount from the cart's running total
+        totalPurchase = cart.getTotal();
+        totalAmountTxtField.setText(String.format("%.2f", totalPurchase));
+        return true;
     }
     
     /**
@@ -192,11 +321,12 @@ public class TransactionGUI extends JFrame {
         if (refreshTimer != null) {
             refreshTimer.cancel();
         }
-        // Clear the transaction items list
-        transactionItems.clear();
-        // Clear the cart table
-        DefaultTableModel model = (DefaultTableModel) cartTbl.getModel();
-        model.setRowCount(0);
+        // Stop listening for barcode scans
+        if (scanDetector != null) {
+            scanDetector.uninstall();
+        }
+        // Clear the cart and its table; the stock of a submitted sale was handed over to the journal and stays reserved
+        cart.clear();
         // Reset the total purchase amount
         totalPurchase = 0.00;
         // Clear the total amount field if it exists
@@ -247,11 +377,8 @@ public class TransactionGUI extends JFrame {
      * Clears the cart, transaction items, and input fields.
      */
     private void clearCartAndFields() {
-        // Clear the transaction items list
-        transactionItems.clear();
-        // Clear the cart table
-        DefaultTableModel model = (DefaultTableModel) cartTbl.getModel();
-        model.setRowCount(0);
+        // Clear the cart and its table
+        cart.clear();
         // Reset the total purchase amount
         totalPurchase = 0.0;
         // Clear the total amount field
@@ -275,6 +402,62 @@ public class TransactionGUI extends JFrame {
         productSelectionTbl.clearSelection();
     }
 
+    /**
+     * Handles the outcome of a journaled transaction once the background applier has committed or rejected
+     * it. The sale was confirmed to the cashier when it was journaled, so a later failure is reported in a
+     * notice that does not block the lane, which may already be serving the next customer. The window is
+     * reset only if it still shows the failed transaction.
+     *
+     * @param pending     The pending commit that completed.
+     * @param description The description of the sale used in notices, such as "₱120.00 sale of 14:30:05".
+     * @param committed   The committed transaction, or null if it was not committed.
+     * @param error       The error the commit failed with, or null if it succeeded.
+     */
+    private void transactionApplied(CompletableFuture<CommittedTransaction> pending, String description,
+                                    CommittedTransaction committed, Throwable error) {
+        boolean current = isDisplayable() && pending == pendingTransaction;
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TransactionRejectedException) {
+            // The sale was not saved and will not be retried
+            showNotice("The " + description + " was rejected: " + cause.getMessage()
+                    + "\nIt was not saved and no receipt is printed. Return the customer's payment.",
+                ((TransactionRejectedException) cause).getTitle());
+            if (current) {
+                resetGUI();
+            }
+            return;
+        }
+        if (cause != null) {
+            showNotice("The " + description + " is kept in the checkout journal but could not be saved to the database: "
+                    + cause.getMessage() + "\nIt will be retried when PlaSystem is restarted.",
+                "Journal Error");
+            return;
+        }
+        if (current) {
+            // Keep the snapshot for printing the receipt
+            committedTransaction = committed;
+        }
+        // Update the parent GUI's product table
+        parentGUI.updateProductTable();
+        if (isDisplayable()) {
+            // Refresh the product selection table
+            populateProductSelectionTable();
+        }
+    }
+
+    /**
+     * Displays a notice in a dialog that does not block the lane, so the cashier can keep working.
+     *
+     * @param message The message.
+     * @param title   The title of the dialog.
+     */
+    private void showNotice(String message, String title) {
+        JDialog notice = new JOptionPane(message, JOptionPane.ERROR_MESSAGE).createDialog(isDisplayable() ? this : null, title);
+        notice.setModal(false);
+        notice.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        notice.setVisible(true);
+    }
+
     /**
      * Resets the GUI to its initial state, clearing all fields and enabling controls.
      */
@@ -297,6 +480,9 @@ public class TransactionGUI extends JFrame {
         cancelBtn.setText("CANCEL");
         // Reset the transaction submitted flag
         isTransactionSubmitted = false;
+        // Forget the printed transaction
+        committedTransaction = null;
+        pendingTransaction = null;
     }
 
     /**
@@ -635,61 +821,68 @@ public class TransactionGUI extends JFrame {
     
     /**
      * Handles the action when the "Print Receipt" button is clicked.
-     * Constructs and displays a receipt based on the transaction data.
+     * Prints the receipt of the submitted transaction, or once it is committed if the background applier
+     * has not committed it yet, and resets the lane for the next customer.
      *
      * @param evt The ActionEvent triggered by clicking the "Print Receipt" button
      */
     private void printReceiptBtnActionPerformed(ActionEvent evt) {//GEN-FIRST:event_printReceiptBtnActionPerformed
-        // Create a new receipt GUI
-        ReceiptInvoiceGUI receipt = new ReceiptInvoiceGUI();
-        // Build the receipt content
-        StringBuilder content = new StringBuilder();
-        for (TransactionItemData item : transactionItems) {
-            // Truncate and format the item name
-            String itemName = item.getTI_productName().trim().replace(" ", "");
-            itemName = itemName.length() > 14 ? itemName.substring(0, 14) : itemName;
-            // Format the item details
-            String formattedItem = String.format("%-35s\t     %-10s\t                  %-10s\n",
-                itemName, item.getTI_buyQuantity(),
-                String.format("₱%.2f", item.getTI_totalPrice()));
-            content.append(formattedItem);
+        if (committedTransaction != null) {
+            printReceipt(committedTransaction.toReceipt());
+        } else {
+            // Print once the applier has assigned the transaction ID, without holding the lane meanwhile
+            pendingTransaction.thenAccept(committed -> {
+                if (committed != null) {
+                    SwingUtilities.invokeLater(() -> printReceipt(committed.toReceipt()));
+                }
+            });
         }
-        // Set the receipt content
-        receipt.setReceiptList(content.toString());
-
-        // Get and set the cash amount
-        double cashAmount = Double.parseDouble(paymentAmountTxtField.getText());
-        receipt.setCashAmount(cashAmount);
-
-        // Round and set the total purchase amount
-        double roundedTotalPurchase = new BigDecimal(totalPurchase)
-            .setScale(2, RoundingMode.HALF_UP).doubleValue();
-        receipt.setTotalAmount(roundedTotalPurchase);
-
-        // Calculate, round, and set the change amount
-        double change = new BigDecimal(cashAmount - totalPurchase)
-            .setScale(2, RoundingMode.HALF_UP).doubleValue();
-        receipt.setChangeAmount(change);
-
-        // Get and set the transaction date
-        TransactionData lastTransaction = transactionDataModel.getTransactionList().get(transactionDataModel.getTransactionList().size() - 1);
-        receipt.setDateOfTransaction(lastTransaction.getFormattedDate());
-
-        // Get and set the transaction ID
-        int transId = lastTransaction.getTransactionId();
-        receipt.setReceiptID("#" + String.valueOf(transId));
-
-        // Display the receipt
-        receipt.setVisible(true);
-        receipt.setLocationRelativeTo(null);
-        receipt.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-
-        // Export the receipt as an image
-        FrameExporter.exportFrameAsImage(receipt, "#" + String.valueOf(transId));
 
         // Reset the GUI after printing the receipt
         resetGUI();
     }//GEN-LAST:event_printReceiptBtnActionPerformed
+
+    /**
+     * Archives the receipt image and sends it to the configured receipt printer on background threads,
+     * and optionally displays the receipt window.
+     *
+     * @param receipt The receipt, built from the committed transaction rather than reading the history back
+     */
+    private void printReceipt(ReceiptData receipt) {
+        // Render and archive the receipt image off the Event Dispatch Thread, unless receipts are regenerated on demand
+        if (ReceiptRenderer.isArchivingEnabled()) {
+            ReceiptRenderer.archiveAsync(receipt).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    // Report the cause rather than the CompletionException wrapping it
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                        "Error archiving receipt " + receipt.getReceiptNumber() + ": " + cause.getMessage(),
+                        "Receipt Error",
+                        JOptionPane.ERROR_MESSAGE));
+                }
+            });
+        }
+
+        // Send the receipt to the thermal printer if one is configured
+        if (EscPosReceiptPrinter.isConfigured()) {
+            EscPosReceiptPrinter.printAsync(receipt).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                        "Error printing receipt " + receipt.getReceiptNumber() + ": " + error.getMessage(),
+                        "Receipt Error",
+                        JOptionPane.ERROR_MESSAGE));
+                }
+            });
+        }
+
+        // Display the receipt if enabled
+        if (AppSettings.getBoolean(AppSettings.RECEIPT_SHOW_WINDOW, true)) {
+            ReceiptInvoiceGUI receiptGUI = new ReceiptInvoiceGUI(receipt);
+            receiptGUI.setVisible(true);
+            receiptGUI.setLocationRelativeTo(null);
+            receiptGUI.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        }
+    }
     
     /**
      * Handles the action when the "Cancel" button is clicked.
@@ -710,7 +903,7 @@ public class TransactionGUI extends JFrame {
      */
     private void submitBtnActionPerformed(ActionEvent evt) {//GEN-FIRST:event_submitBtnActionPerformed
         // Check if the cart is empty
-        if (transactionItems.isEmpty()) {
+        if (cart.isEmpty()) {
             // Display error message if no items are in the cart
             JOptionPane.showMessageDialog(null, "Transaction is Empty!", "Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -746,41 +939,55 @@ public class TransactionGUI extends JFrame {
                             double roundedTotal = new BigDecimal(totalPurchase).setScale(2, RoundingMode.HALF_UP).doubleValue();
                             double roundedChange = new BigDecimal(customerMoney - totalPurchase).setScale(2, RoundingMode.HALF_UP).doubleValue();
 
-                            // Add the transaction to the database
-                            int transId = transactionDataModel.addTransaction(
-                                year,
-                                month,
-                                day,
-                                time,
-                                roundedTotal,
-                                customerMoney,
-                                roundedChange,
-                                transactionItems
-                            );
-
-                            // Check if the transaction was added successfully
-                            if (transId != -1) {
-                                // Update the parent GUI's product table
-                                parentGUI.updateProductTable();
-                                // Refresh the product selection table
-                                populateProductSelectionTable();
-
-                                // Disable transaction-related controls
-                                addBtn.setEnabled(false);
-                                verifyBtn.setEnabled(false);
-                                quantityPicker.setEnabled(false);
-                                prodIDTxtField.setEnabled(false);
-                                submitBtn.setEnabled(false);
-                                printReceiptBtn.setEnabled(true);
-                                clearBtn.setEnabled(true);
-                                isTransactionSubmitted = true;
-
-                                // Display success message with change amount
+                            // Journal the transaction; it is committed to the database in the background
+                            CompletableFuture<CommittedTransaction> pending;
+                            try {
+                                pending = checkoutJournal.submit(
+                                    year,
+                                    month,
+                                    day,
+                                    time,
+                                    roundedTotal,
+                                    customerMoney,
+                                    roundedChange,
+                                    cart.toTransactionItems(),
+                                    lane
+                                );
+                            } catch (IOException e) {
+                                JOptionPane.showMessageDialog(null,
+                                    "Error saving transaction to the checkout journal: " + e.getMessage(),
+                                    "Journal Error",
+                                    JOptionPane.ERROR_MESSAGE);
+                                return;
+                            } catch (TransactionRejectedException e) {
                                 JOptionPane.showMessageDialog(null,
-                                    String.format("<html>Transaction submitted successfully! <b>Change: ₱%.2f</b>. You can now print the receipt.</html>", roundedChange),
-                                    "Success",
-                                    JOptionPane.INFORMATION_MESSAGE);
+                                    e.getMessage(),
+                                    e.getTitle(),
+                                    JOptionPane.ERROR_MESSAGE);
+                                return;
                             }
+                            pendingTransaction = pending;
+                            // The journaled sale is committed in the background; a rejection is reported later
+                            String description = String.format("₱%,.2f sale of %s", roundedTotal, time);
+                            pending.whenComplete((committed, error) ->
+                                SwingUtilities.invokeLater(() -> transactionApplied(pending, description, committed, error)));
+
+                            // Disable transaction-related controls; printing or clearing frees the lane
+                            addBtn.setEnabled(false);
+                            verifyBtn.setEnabled(false);
+                            quantityPicker.setEnabled(false);
+                            prodIDTxtField.setEnabled(false);
+                            submitBtn.setEnabled(false);
+                            printReceiptBtn.setEnabled(true);
+                            clearBtn.setEnabled(true);
+                            isTransactionSubmitted = true;
+
+                            // The sale is on disk and its stock stays reserved, so it is confirmed now
+                            JOptionPane.showMessageDialog(null,
+                                String.format("<html>Transaction recorded successfully! <b>Change: ₱%.2f</b>. You can now print the receipt.</html>",
+                                    roundedChange),
+                                "Success",
+                                JOptionPane.INFORMATION_MESSAGE);
                         } catch (DateTimeException e) {
                             // Display error message for invalid date format
                             JOptionPane.showMessageDialog(null,
@@ -846,10 +1053,7 @@ public class TransactionGUI extends JFrame {
         }
 
         // Find the selected product
-        ProductData selectedProduct = productDataModel.getList().stream()
-            .filter(p -> p.getProductId() == prodId)
-            .findFirst()
-            .orElse(null);
+        ProductData selectedProduct = productDataModel.findById(prodId);
         
         // Validate that the product exists
         if (selectedProduct == null) {
@@ -858,43 +1062,11 @@ public class TransactionGUI extends JFrame {
             return;
         }
 
-        // Validate that the requested quantity is available
-        if (quantity > selectedProduct.getProductQuantity()) {
-            // Display error message for insufficient stock
-            JOptionPane.showMessageDialog(null,
-                String.format("Requested quantity (%d) exceeds available stock (%d)!", quantity, selectedProduct.getProductQuantity()),
-                "Error", JOptionPane.ERROR_MESSAGE);
+        // Add the item to the cart, merging it with an existing line for the same product
+        if (!addToCart(selectedProduct, quantity)) {
             return;
         }
 
-        // Create a new transaction item
-        TransactionItemData item = new TransactionItemData(
-            0, // Item ID is auto-incremented
-            0, // Transaction ID will be set upon insertion
-            selectedProduct.getProductId(),
-            selectedProduct.getProductName(),
-            selectedProduct.getProductBrand(),
-            selectedProduct.getProductSize(),
-            selectedProduct.getProductType(),
-            quantity,
-            selectedProduct.getProductPrice(),
-            selectedProduct.getProductPrice() * quantity
-        );
-        // Add the item to the transaction items list
-        transactionItems.add(item);
-
-        // Update the cart table
-        DefaultTableModel cartTblModel = (DefaultTableModel) cartTbl.getModel();
-        cartTblModel.addRow(new Object[] {
-            selectedProduct.getProductName(),
-            quantity,
-            selectedProduct.getProductPrice() * quantity
-        });
-
-        // Calculate and update the total purchase amount
-        totalPurchase = transactionDataModel.getTotal(transactionItems);
-        totalAmountTxtField.setText(String.format("%.2f", totalPurchase));
-
         // Clear input fields and reset controls
         prodIDTxtField.setText("");
         prodNameTxtField.setText("");
@@ -934,10 +1106,7 @@ public class TransactionGUI extends JFrame {
         // Parse the product ID
         int prodId = Integer.parseInt(prodIDCheck);
         // Find the product in the database
-        ProductData selectedProduct = productDataModel.getList().stream()
-            .filter(p -> p.getProductId() == prodId)
-            .findFirst()
-            .orElse(null);
+        ProductData selectedProduct = productDataModel.findById(prodId);
 
         // Check if the product was found
         if (selectedProduct != null) {
@@ -949,7 +1118,7 @@ public class TransactionGUI extends JFrame {
             // Update fields with product details
             prodNameTxtField.setText(selectedProduct.getProductName());
             itemPriceTxtField.setText(String.format("%.2f", selectedProduct.getProductPrice()));
-            ((SpinnerNumberModel) quantityPicker.getModel()).setMaximum(selectedProduct.getProductQuantity());
+            ((SpinnerNumberModel) quantityPicker.getModel()).setMaximum(cart.getAvailable(selectedProduct));
             quantityPicker.setValue(0);
             // Enable the quantity spinner and add button
             quantityPicker.setEnabled(true);
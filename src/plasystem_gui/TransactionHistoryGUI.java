@@ -53,6 +53,27 @@ public class TransactionHistoryGUI extends JFrame {
         updateTable();
         // Apply table renderer for formatting (667 is the table width)
         new TransactionHistoryTableRenderer(transHistorytbl, 667);
+        // Add the receipt regeneration button below the table
+        initializeReceiptAuditButton();
+    }
+
+    /**
+     * Adds a button below the table that regenerates the receipts of a range of transactions.
+     */
+    private void initializeReceiptAuditButton() {
+        JButton regenerateBtn = new JButton("🧾 Regenerate Receipts");
+        regenerateBtn.addActionListener(e -> new ReceiptRegenerator().generateAudit(this));
+
+        JPanel buttonPanel = new JPanel(new java.awt.FlowLayout(java.awt.FlowLayout.RIGHT));
+        buttonPanel.add(regenerateBtn);
+
+        // Wrap the form's content pane so the generated layout stays untouched
+        JPanel contentPanel = new JPanel(new java.awt.BorderLayout());
+        contentPanel.add(getContentPane(), java.awt.BorderLayout.CENTER);
+        contentPanel.add(buttonPanel, java.awt.BorderLayout.SOUTH);
+        setContentPane(contentPanel);
+        pack();
+        setLocationRelativeTo(null);
     }
     
     /**
@@ -487,8 +508,8 @@ public class TransactionHistoryGUI extends JFrame {
      * @param evt The ActionEvent triggered by clicking the "Export" button
      */
     private void exportBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_exportBtnActionPerformed
-        // Create a TransactionReportGenerator with the transaction list
-        TransactionReportGenerator reportGenerator = new TransactionReportGenerator(transactionList);
+        // Create a TransactionReportGenerator that streams the transactions from the database
+        TransactionReportGenerator reportGenerator = new TransactionReportGenerator();
         // Generate and export the transaction history report
         reportGenerator.generateReport(this);
     }//GEN-LAST:event_exportBtnActionPerformed
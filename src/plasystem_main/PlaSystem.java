@@ -1,6 +1,8 @@
 package plasystem_main;
 
 import plasystem_gui.LaunchPanelGUI;
+import plasystem_functions.DailySalesManager;
+import plasystem_functions.ReportHousekeeper;
 import com.formdev.flatlaf.FlatIntelliJLaf;
 
 import javax.swing.*;
@@ -58,6 +60,12 @@ public class PlaSystem {
         // Set up the FlatIntelliJLaf look and feel for the UI
         FlatIntelliJLaf.setup();
 
+        // Start archiving old reports in the background
+        ReportHousekeeper.start();
+
+        // Build the daily sales summary from existing transactions if it is still empty
+        DailySalesManager.backfillIfNeeded();
+
         // Launch the LaunchPanelGUI on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             // Create a new LaunchPanelGUI instance
@@ -0,0 +1,117 @@
+package plasystem_functions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Times the throughput of {@link CsvWriter} writing transaction report rows to a discarding stream, to
+ * a plain file and to a gzip-compressed file. Every tenth product name contains a comma and a quote, so
+ * the quoting path is measured as well. The project has no benchmark framework, so the harness runs from
+ * {@link #main(String[])}; run it with {@code ant benchmark}. Each target is warmed up and then timed
+ * over several rounds, and the median is reported.
+ */
+public class CsvWriterBenchmark {
+    /** The number of rows written per round. */
+    private static final int ROWS = 1_000_000;
+
+    /** The number of untimed rounds run before measuring. */
+    private static final int WARMUP_ROUNDS = 2;
+
+    /** The number of timed rounds. */
+    private static final int TIMED_ROUNDS = 5;
+
+    /**
+     * A destination the rows are written to.
+     */
+    @FunctionalInterface
+    private interface Target {
+        /**
+         * Opens a writer for one round.
+         *
+         * @return The writer.
+         * @throws IOException If the writer cannot be opened.
+         */
+        CsvWriter open() throws IOException;
+    }
+
+    /**
+     * Runs the benchmark and prints the median time and throughput of each target.
+     *
+     * @param args Unused.
+     * @throws IOException If a temporary file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        File file = File.createTempFile("CsvWriterBenchmark.", ".csv");
+        try {
+            System.out.printf("Writing %,d transaction report rows, median of %d rounds%n", ROWS, TIMED_ROUNDS);
+            report("discarded", time(() -> new CsvWriter(OutputStream.nullOutputStream(),
+                CsvWriter.DEFAULT_CHARSET, CsvWriter.DEFAULT_DELIMITER)));
+            report("file", time(() -> CsvWriter.open(file, false)));
+            report("gzip file", time(() -> CsvWriter.open(file, true)));
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Times writing the rows to a target after warming it up.
+     *
+     * @param target The target.
+     * @return The median time of the timed rounds in nanoseconds.
+     * @throws IOException If writing fails.
+     */
+    private static long time(Target target) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            writeRows(target);
+        }
+        long[] nanos = new long[TIMED_ROUNDS];
+        for (int i = 0; i < TIMED_ROUNDS; i++) {
+            long startNanos = System.nanoTime();
+            writeRows(target);
+            nanos[i] = System.nanoTime() - startNanos;
+        }
+        Arrays.sort(nanos);
+        return nanos[TIMED_ROUNDS / 2];
+    }
+
+    /**
+     * Writes the rows of a transaction report, as TransactionReportGenerator does, to a new writer.
+     *
+     * @param target The target.
+     * @throws IOException If writing fails.
+     */
+    private static void writeRows(Target target) throws IOException {
+        try (CsvWriter writer = target.open()) {
+            writer.row("Transaction ID", "Date", "Time", "Product ID", "Product Name", "Brand", "Size", "Type",
+                "Quantity", "Unit Price", "Total Price");
+            for (int i = 1; i < ROWS; i++) {
+                writer.field(i / 5)
+                    .field("2025-06-01")
+                    .field("14:30:00")
+                    .field(i % 1000)
+                    .field(i % 10 == 0 ? "Chips, \"Cheese\" Flavour" : "Coca-Cola 1.5L")
+                    .field("Coca-Cola")
+                    .field("1.5L")
+                    .field("Beverage")
+                    .field(1 + i % 12)
+                    .field(75.25)
+                    .field(75.25 * (1 + i % 12))
+                    .endRow();
+            }
+        }
+    }
+
+    /**
+     * Prints the time and throughput of a target.
+     *
+     * @param name  The name of the target.
+     * @param nanos The median time in nanoseconds.
+     */
+    private static void report(String name, long nanos) {
+        double millis = nanos / 1_000_000.0;
+        System.out.printf("%-12s %10.1f ms %,14.0f rows/s%n", name, millis, ROWS / (millis / 1000.0));
+    }
+}
@@ -0,0 +1,116 @@
+package plasystem_functions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Checks the RFC 4180 output of {@link CsvWriter}: quoting of delimiters, quotes and line breaks, null and
+ * numeric fields, custom delimiters and gzip-compressed files. The project has no test framework, so the
+ * checks run from {@link #main(String[])} and fail with an {@link AssertionError}; run them with
+ * {@code ant check}.
+ */
+public class CsvWriterTest {
+    /**
+     * Runs the checks.
+     *
+     * @param args Unused.
+     * @throws IOException If writing or reading a temporary file fails.
+     */
+    public static void main(String[] args) throws IOException {
+        check(csv(',', "plain", "Coca-Cola 1.5L").equals("plain,Coca-Cola 1.5L\r\n"),
+            "plain fields are written as they are, and rows end with CRLF");
+        check(csv(',', "Chips, Cheese", "x").equals("\"Chips, Cheese\",x\r\n"),
+            "a field containing the delimiter is quoted");
+        check(csv(',', "12\" Pizza").equals("\"12\"\" Pizza\"\r\n"),
+            "a field containing a quote is quoted with the quote doubled");
+        check(csv(',', "\"").equals("\"\"\"\"\r\n"), "a lone quote is quoted and doubled");
+        check(csv(',', "line\nbreak").equals("\"line\nbreak\"\r\n"), "a field containing LF is quoted");
+        check(csv(',', "line\rbreak").equals("\"line\rbreak\"\r\n"), "a field containing CR is quoted");
+        check(csv(',', "line\r\nbreak").equals("\"line\r\nbreak\"\r\n"), "a field containing CRLF is quoted");
+        check(csv(',', null, "", "x").equals(",,x\r\n"), "null and empty fields are written as empty fields");
+        check(csv(';', "a,b", "c;d").equals("a,b;\"c;d\"\r\n"),
+            "only the configured delimiter forces quoting");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter writer = new CsvWriter(out, StandardCharsets.UTF_8, ',')) {
+            writer.field(42).field(-7L).field(239.5).field(0.1).endRow();
+            writer.endRow();
+            writer.field(new StringBuilder("Piñata, \"Family\"")).endRow();
+            check(writer.getRowCount() == 3, "the row count includes empty rows");
+        }
+        check(out.toString(StandardCharsets.UTF_8).equals("42,-7,239.5,0.1\r\n\r\n\"Piñata, \"\"Family\"\"\"\r\n"),
+            "numbers use the plain representation, empty rows are empty lines and text is UTF-8");
+
+        checkThrows(() -> new CsvWriter(new ByteArrayOutputStream(), StandardCharsets.UTF_8, '"'),
+            "a quote delimiter is rejected");
+        checkThrows(() -> new CsvWriter(new ByteArrayOutputStream(), StandardCharsets.UTF_8, '\n'),
+            "a line break delimiter is rejected");
+
+        // A compressed file decompresses to the same text as the uncompressed output
+        File file = File.createTempFile("CsvWriterTest.", ".csv.gz");
+        try {
+            try (CsvWriter writer = CsvWriter.open(file, true)) {
+                writer.row("Name", "Note").row("Chips, Cheese", "says \"hi\"\r\n");
+            }
+            byte[] compressed = Files.readAllBytes(file.toPath());
+            check(compressed.length > 2 && (compressed[0] & 0xFF) == 0x1F && (compressed[1] & 0xFF) == 0x8B,
+                "a compressed file starts with the gzip magic number");
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+                check(new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                        .equals("Name,Note\r\n\"Chips, Cheese\",\"says \"\"hi\"\"\r\n\"\r\n"),
+                    "a compressed file contains the quoted rows");
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+        System.out.println("CsvWriterTest passed");
+    }
+
+    /**
+     * Writes one row of text fields and returns the CSV text.
+     *
+     * @param delimiter The field delimiter.
+     * @param values    The field values.
+     * @return The CSV text.
+     * @throws IOException If writing fails.
+     */
+    private static String csv(char delimiter, String... values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter writer = new CsvWriter(out, StandardCharsets.UTF_8, delimiter)) {
+            writer.row(values);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fails if a condition does not hold.
+     *
+     * @param condition The condition.
+     * @param message   The description of the checked behaviour.
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fails if an action does not throw an IllegalArgumentException.
+     *
+     * @param action  The action.
+     * @param message The description of the checked behaviour.
+     */
+    private static void checkThrows(Runnable action, String message) {
+        try {
+            action.run();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError(message);
+    }
+}
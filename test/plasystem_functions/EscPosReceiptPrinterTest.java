@@ -0,0 +1,147 @@
+package plasystem_functions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks the ESC/POS byte stream of {@link EscPosReceiptPrinter} by printing a fixed receipt into a
+ * {@link ByteArrayOutputStream} standing in for the printer. The project has no test framework, so the
+ * checks run from {@link #main(String[])} and fail with an {@link AssertionError}; run them with
+ * {@code ant check}.
+ */
+public class EscPosReceiptPrinterTest {
+    /** ESC @ followed by ESC t 0: initialize the printer and select code page PC437. */
+    private static final byte[] PREAMBLE = {0x1B, 0x40, 0x1B, 0x74, 0x00};
+
+    /** ESC a 1: centre justification. */
+    private static final byte[] ALIGN_CENTER = {0x1B, 0x61, 0x01};
+
+    /** ESC a 0: left justification. */
+    private static final byte[] ALIGN_LEFT = {0x1B, 0x61, 0x00};
+
+    /** ESC d 4 followed by GS V 1: feed past the cutter and partially cut the paper. */
+    private static final byte[] FEED_AND_CUT = {0x1B, 0x64, 0x04, 0x1D, 0x56, 0x01};
+
+    /**
+     * Runs the checks.
+     *
+     * @param args Unused.
+     * @throws IOException If writing to the in-memory stream fails.
+     */
+    public static void main(String[] args) throws IOException {
+        ReceiptData receipt = new ReceiptData(42, "2025-06-01 14:30:00",
+            List.of(new ReceiptData.Line("Coca-Cola 1.5L", 2, 150.00),
+                new ReceiptData.Line("Piñata Candy Assorted Flavours Family Pack", 1, 89.50)),
+            239.50, 500.00, 260.50);
+
+        for (int columns : new int[] {EscPosReceiptPrinter.COLUMNS_58MM, EscPosReceiptPrinter.COLUMNS_80MM}) {
+            ByteArrayOutputStream printer = new ByteArrayOutputStream();
+            EscPosReceiptPrinter escPos = new EscPosReceiptPrinter(columns);
+            escPos.print(receipt, printer);
+            byte[] bytes = printer.toByteArray();
+
+            check(Arrays.equals(bytes, escPos.format(receipt)), "print writes the formatted commands");
+            check(startsWith(bytes, PREAMBLE), "stream starts with ESC @ and ESC t 0");
+            check(endsWith(bytes, FEED_AND_CUT), "stream ends with ESC d 4 and GS V 1");
+            int center = indexOf(bytes, ALIGN_CENTER, 0);
+            check(center == PREAMBLE.length, "header is centred right after the preamble");
+            int left = indexOf(bytes, ALIGN_LEFT, center);
+            check(left > center, "body is left-aligned after the header");
+            check(indexOf(bytes, ascii("#42"), center) < left, "receipt number is printed in the centred header");
+
+            // Every printed line fits the paper and uses printable ASCII only
+            String text = new String(bytes, PREAMBLE.length, bytes.length - PREAMBLE.length - FEED_AND_CUT.length,
+                StandardCharsets.ISO_8859_1).replaceAll("[\\x1B\\x1D].[\\x00-\\x01]", "");
+            for (String line : text.split("\n")) {
+                check(line.length() <= columns, "line fits " + columns + " columns: " + line);
+                check(line.chars().allMatch(c -> c >= 0x20 && c < 0x7F), "line is printable ASCII: " + line);
+            }
+            check(text.contains("Pi?ata"), "characters outside the code page are replaced with '?'");
+            check(text.contains("P239.50") && text.contains("P500.00") && text.contains("P260.50"),
+                "total, cash and change are printed");
+        }
+
+        checkThrows(() -> new EscPosReceiptPrinter(20), "a line narrower than the item columns is rejected");
+        System.out.println("EscPosReceiptPrinterTest passed");
+    }
+
+    /**
+     * Fails if a condition does not hold.
+     *
+     * @param condition The condition.
+     * @param message   The description of the checked behaviour.
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fails if an action does not throw an IllegalArgumentException.
+     *
+     * @param action  The action.
+     * @param message The description of the checked behaviour.
+     */
+    private static void checkThrows(Runnable action, String message) {
+        try {
+            action.run();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError(message);
+    }
+
+    /**
+     * Encodes text as ASCII.
+     *
+     * @param text The text.
+     * @return The ASCII bytes.
+     */
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Checks whether bytes start with a prefix.
+     *
+     * @param bytes  The bytes.
+     * @param prefix The prefix.
+     * @return {@code true} if the bytes start with the prefix.
+     */
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        return bytes.length >= prefix.length && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Checks whether bytes end with a suffix.
+     *
+     * @param bytes  The bytes.
+     * @param suffix The suffix.
+     * @return {@code true} if the bytes end with the suffix.
+     */
+    private static boolean endsWith(byte[] bytes, byte[] suffix) {
+        return bytes.length >= suffix.length
+            && Arrays.equals(bytes, bytes.length - suffix.length, bytes.length, suffix, 0, suffix.length);
+    }
+
+    /**
+     * Finds a byte sequence.
+     *
+     * @param bytes The bytes to search.
+     * @param key   The sequence to find.
+     * @param from  The index to start searching at.
+     * @return The index of the first occurrence at or after {@code from}, or -1 if there is none.
+     */
+    private static int indexOf(byte[] bytes, byte[] key, int from) {
+        for (int i = Math.max(0, from); i + key.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + key.length, key, 0, key.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
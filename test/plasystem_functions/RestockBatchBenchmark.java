@@ -0,0 +1,179 @@
+package plasystem_functions;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times the restock of a 1,000-line delivery against a scratch database, comparing the batched
+ * {@link RestockDataManager#restockProducts(List)} and {@link RestockDataManager#restockDelivery(List, int)}
+ * with the statement-per-line path they replaced. The project has no benchmark framework, so the
+ * harness runs from {@link #main(String[])}; run it with {@code ant benchmark}, which starts it in an
+ * empty directory so the database it creates is thrown away. Each path is warmed up and then timed over
+ * several rounds, and the median is reported.
+ */
+public class RestockBatchBenchmark {
+    /** The number of lines in the delivery. */
+    private static final int DELIVERY_LINES = 1000;
+
+    /** The number of lines per restock event when the delivery is restocked in chunks. */
+    private static final int CHUNK_SIZE = 100;
+
+    /** The number of untimed rounds run before measuring. */
+    private static final int WARMUP_ROUNDS = 2;
+
+    /** The number of timed rounds. */
+    private static final int TIMED_ROUNDS = 5;
+
+    /** SQL query to insert a restock event, as written by the statement-per-line path. */
+    private static final String INSERT_RESTOCK_QUERY =
+        "INSERT INTO Restock (RESTOCK_DATE_YEAR, RESTOCK_DATE_MONTH, RESTOCK_DATE_DAY, RESTOCK_DATE_TIME) "
+            + "VALUES ('2025', '01', '01', '00:00:00')";
+
+    /** SQL query to insert a restock item, as written by the statement-per-line path. */
+    private static final String INSERT_RESTOCK_ITEM_QUERY =
+        "INSERT INTO RestockItems (RI_RESTOCK_ID, RI_PROD_ID, RI_PROD_NAME, RI_PROD_BRAND, "
+            + "RI_PROD_SIZE, RI_PROD_TYPE, RI_PROD_PRICE, RI_RESTOCKED_QUANTITY) "
+            + "VALUES ((SELECT MAX(RESTOCK_ID) FROM Restock), ?, ?, ?, ?, ?, ?, ?)";
+
+    /** SQL query to add a restocked quantity, as written by the statement-per-line path. */
+    private static final String UPDATE_PRODUCT_QUANTITY_QUERY =
+        "UPDATE Product SET PROD_QUANTITY = PROD_QUANTITY + ? WHERE PROD_ID = ?";
+
+    /**
+     * A restock path under measurement.
+     */
+    @FunctionalInterface
+    private interface RestockPath {
+        /**
+         * Restocks the delivery once.
+         *
+         * @param lines The delivery lines.
+         * @throws Exception If the restock fails.
+         */
+        void restock(List<RestockLine> lines) throws Exception;
+    }
+
+    /**
+     * Runs the benchmark and prints the median time and throughput of each path.
+     *
+     * @param args Unused.
+     * @throws Exception If the scratch database cannot be set up or a restock fails.
+     */
+    public static void main(String[] args) throws Exception {
+        if (new File("database").exists()) {
+            throw new IllegalStateException("Run the benchmark in an empty directory, such as with \"ant benchmark\"; "
+                + "it writes to database/PlaSystem.db in the working directory.");
+        }
+
+        ProductDataManager productDataManager = new ProductDataManager();
+        productDataManager.setPermissions(RoleBasedAccessControl.ALL_PERMISSIONS);
+        List<ProductData> products = new ArrayList<>(DELIVERY_LINES);
+        for (int i = 1; i <= DELIVERY_LINES; i++) {
+            products.add(new ProductData(0, "Benchmark Product " + i, "Brand " + (i % 50), "1 pc", "Grocery",
+                10.0 + i % 100, 0, 10));
+        }
+        if (productDataManager.upsertProducts(products, CHUNK_SIZE) != DELIVERY_LINES) {
+            throw new IllegalStateException("The benchmark products could not be created.");
+        }
+        RestockDataManager restockDataManager = new RestockDataManager(productDataManager);
+        restockDataManager.setPermissions(RoleBasedAccessControl.ALL_PERMISSIONS);
+
+        List<RestockLine> lines = new ArrayList<>(DELIVERY_LINES);
+        for (ProductData product : productDataManager.getList()) {
+            lines.add(new RestockLine(product, 1 + product.getProductId() % 24));
+        }
+
+        System.out.printf("Restocking a %,d-line delivery, median of %d rounds%n", lines.size(), TIMED_ROUNDS);
+        report("statement per line, one transaction", time(lines, RestockBatchBenchmark::restockPerLine));
+        report("restockProducts, batched", time(lines, delivery -> {
+            if (!restockDataManager.restockProducts(delivery)) {
+                throw new IllegalStateException("restockProducts failed.");
+            }
+        }));
+        report("restockDelivery, batched in chunks of " + CHUNK_SIZE, time(lines, delivery -> {
+            if (restockDataManager.restockDelivery(delivery, CHUNK_SIZE) != delivery.size()) {
+                throw new IllegalStateException("restockDelivery failed.");
+            }
+        }));
+    }
+
+    /**
+     * Restocks a delivery the way it was written before the batched API: one restock event and a fresh
+     * prepared statement executed per line, in a single transaction.
+     *
+     * @param lines The delivery lines.
+     * @throws SQLException If a database error occurs. Nothing is written in that case.
+     */
+    private static void restockPerLine(List<RestockLine> lines) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_RESTOCK_QUERY)) {
+                    pstmt.executeUpdate();
+                }
+                for (RestockLine line : lines) {
+                    ProductData product = line.getProduct();
+                    try (PreparedStatement pstmt = conn.prepareStatement(INSERT_RESTOCK_ITEM_QUERY)) {
+                        pstmt.setInt(1, product.getProductId());
+                        pstmt.setString(2, product.getProductName());
+                        pstmt.setString(3, product.getProductBrand());
+                        pstmt.setString(4, product.getProductSize());
+                        pstmt.setString(5, product.getProductType());
+                        pstmt.setDouble(6, product.getProductPrice());
+                        pstmt.setInt(7, line.getQuantity());
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_PRODUCT_QUANTITY_QUERY)) {
+                        pstmt.setInt(1, line.getQuantity());
+                        pstmt.setInt(2, product.getProductId());
+                        pstmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Times a restock path after warming it up.
+     *
+     * @param lines The delivery lines.
+     * @param path  The restock path.
+     * @return The median time of the timed rounds in nanoseconds.
+     * @throws Exception If a restock fails.
+     */
+    private static long time(List<RestockLine> lines, RestockPath path) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            path.restock(lines);
+        }
+        long[] nanos = new long[TIMED_ROUNDS];
+        for (int i = 0; i < TIMED_ROUNDS; i++) {
+            long startNanos = System.nanoTime();
+            path.restock(lines);
+            nanos[i] = System.nanoTime() - startNanos;
+        }
+        Arrays.sort(nanos);
+        return nanos[TIMED_ROUNDS / 2];
+    }
+
+    /**
+     * Prints the time and throughput of a restock path.
+     *
+     * @param name  The name of the path.
+     * @param nanos The median time in nanoseconds.
+     */
+    private static void report(String name, long nanos) {
+        double millis = nanos / 1_000_000.0;
+        System.out.printf("%-45s %10.1f ms %,12.0f lines/s%n", name, millis, DELIVERY_LINES / (millis / 1000.0));
+    }
+}